@@ -0,0 +1,107 @@
+package org.nstep.engine.benchmark;
+
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基准测试的公共方法
+ * <p>
+ * 被测组件不启动 Spring 容器，直接构造后通过反射注入依赖和配置项；测试数据（模板、接收者、占位符数据）按参数生成，
+ * 同一组参数每次生成的数据完全相同，保证多次运行之间可以对比。
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * 手机号接收者的起始值
+     */
+    private static final long FIRST_PHONE = 13800000000L;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 向对象的字段（包括父类中的私有字段）注入值，代替 Spring 的 @Resource、@Value 注入
+     *
+     * @param target    目标对象
+     * @param fieldName 字段名
+     * @param value     字段值
+     * @return 目标对象
+     */
+    public static <T> T inject(T target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (Objects.isNull(field)) {
+            throw new IllegalArgumentException(target.getClass().getName() + " 没有字段:" + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+        return target;
+    }
+
+    /**
+     * 生成审核通过的实时发送模板
+     *
+     * @param id          模板编号
+     * @param sendChannel 发送渠道
+     * @param msgContent  消息内容
+     * @return 模板
+     */
+    public static TemplateDO template(Long id, Integer sendChannel, String msgContent) {
+        TemplateDO template = TemplateDO.builder()
+                .id(id)
+                .name("benchmark-" + id)
+                .msgStatus(MessageDataConstants.MSG_SENDING)
+                .pushType(MessageDataConstants.REAL_TIME)
+                .sendChannel(sendChannel)
+                .msgContent(msgContent)
+                .sendAccount(1)
+                .msgType(10)
+                .auditStatus(MessageDataConstants.AUDIT_PASS)
+                .build();
+        template.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        template.setUpdateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return template;
+    }
+
+    /**
+     * 生成渠道对应的合法接收者：短信渠道为手机号，其他渠道为邮箱
+     *
+     * @param sendChannel 发送渠道
+     * @param count       接收者数量
+     * @return 互不相同的接收者
+     */
+    public static List<String> receivers(Integer sendChannel, int count) {
+        List<String> receivers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            receivers.add(Objects.equals(sendChannel, MessageDataConstants.SMS)
+                    ? Long.toString(FIRST_PHONE + i)
+                    : "user" + i + "@example.com");
+        }
+        return receivers;
+    }
+
+    /**
+     * 生成发送请求中的占位符数据：每个接收者一个 {"name":"..."}，共 distinct 种不同的取值
+     *
+     * @param count    接收者数量
+     * @param distinct 不同取值的数量
+     * @return JSON 数组
+     */
+    public static String variables(int count, int distinct) {
+        StringBuilder json = new StringBuilder(count * 20).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"user-").append(i % distinct).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.nstep.engine.benchmark;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+
+/**
+ * 基准测试使用的内嵌 Redis
+ * <p>
+ * 在本机随机端口启动 jedis-mock 服务端，通过 Lettuce 连接，被测组件拿到的是和生产相同的 {@link StringRedisTemplate}，
+ * 命令（包括 Lua 脚本和 pipeline）都经过真实的网络往返和序列化。jedis-mock 是单线程的 Java 实现，
+ * 绝对耗时比真实 Redis 高，基准测试只比较同一服务端上不同做法之间的差距。
+ */
+public final class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer server;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private EmbeddedRedis(RedisServer server) {
+        this.server = server;
+        // jedis-mock 不支持 HELLO，固定使用 RESP2
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()), clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * 启动内嵌 Redis 并建立连接
+     *
+     * @return 内嵌 Redis
+     * @throws IOException 服务端启动失败
+     */
+    public static EmbeddedRedis start() throws IOException {
+        return new EmbeddedRedis(RedisServer.newRedisServer().start());
+    }
+
+    public StringRedisTemplate getStringRedisTemplate() {
+        return stringRedisTemplate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.nstep.engine.benchmark.batch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.handler.batch.SmsBatcher;
+import org.nstep.engine.module.message.handler.executor.ChannelExecutorRegistry;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 短信批量发送的基准测试
+ * <p>
+ * 32 个渠道线程并发提交一次人群发送拆分出的发送任务，共 10000 个接收者，存根服务商每次调用耗时 stubLatencyMillis，
+ * 单次调用上限 1000 个手机号（与阿里云相同）。每次操作等待所有发送任务确认完成，得到发送 10000 个接收者的总耗时：
+ * <ul>
+ *     <li>enabled：true 合并发送，false 每个发送任务单独调用服务商</li>
+ *     <li>receiversPerTask：每个发送任务的接收者数量，1 对应每个接收者的消息内容都不同的发送</li>
+ * </ul>
+ * TearDown 中打印每 10000 个接收者的服务商调用次数和发送任务从提交到确认的平均耗时，
+ * 合并发送时调用次数应接近 10000 / 1000，平均耗时增加不超过 engine.smsBatch.lingerMillis。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmsBatcherBenchmark {
+
+    private static final int RECEIVER_COUNT = 10000;
+
+    private static final int MAX_PHONES = 1000;
+
+    private static final int SUBMITTER_THREADS = 32;
+
+    private static final String BATCH_KEY = "stub:1:benchmark";
+
+    @Param({"true", "false"})
+    private boolean enabled;
+
+    @Param({"1", "100"})
+    private int receiversPerTask;
+
+    @Param({"5"})
+    private long stubLatencyMillis;
+
+    private SmsBatcher smsBatcher;
+
+    private ExecutorService channelExecutor;
+
+    private ExecutorService submitters;
+
+    private List<TemplateSendTask> sendTasks;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final LongAdder taskLatencyNanos = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        channelExecutor = Executors.newFixedThreadPool(SUBMITTER_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("benchmark-sms-%d").build());
+        submitters = Executors.newFixedThreadPool(SUBMITTER_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("benchmark-submitter-%d").build());
+        ChannelExecutorRegistry channelExecutorRegistry = mock(ChannelExecutorRegistry.class);
+        when(channelExecutorRegistry.getExecutor(MessageDataConstants.SMS)).thenReturn(channelExecutor);
+
+        smsBatcher = new SmsBatcher();
+        BenchmarkSupport.inject(smsBatcher, "enabled", enabled);
+        BenchmarkSupport.inject(smsBatcher, "lingerMillis", 50L);
+        BenchmarkSupport.inject(smsBatcher, "dataUtil", mock(DataUtil.class));
+        BenchmarkSupport.inject(smsBatcher, "channelExecutorRegistry", channelExecutorRegistry);
+        BenchmarkSupport.inject(smsBatcher, "meterRegistry", new SimpleMeterRegistry());
+        smsBatcher.init();
+
+        TemplateDO template = BenchmarkSupport.template(1L, MessageDataConstants.SMS, "{\"content\":\"\",\"url\":\"\"}");
+        List<String> receivers = BenchmarkSupport.receivers(MessageDataConstants.SMS, RECEIVER_COUNT);
+        sendTasks = new ArrayList<>(RECEIVER_COUNT / receiversPerTask);
+        for (int i = 0; i < RECEIVER_COUNT; i += receiversPerTask) {
+            sendTasks.add(TemplateSendTask.builder()
+                    .messageId((long) i)
+                    .sendTaskId((long) i)
+                    .sendMessageKey("benchmark")
+                    .receivers(new LinkedHashSet<>(receivers.subList(i, i + receiversPerTask)))
+                    .messageTemplate(template)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        smsBatcher.destroy();
+        submitters.shutdownNow();
+        channelExecutor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        calls.set(0);
+        taskLatencyNanos.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        System.out.printf("%n每 %d 个接收者的服务商调用次数:%d 发送任务平均耗时:%.2fms%n", RECEIVER_COUNT, calls.get(),
+                taskLatencyNanos.sum() / (double) sendTasks.size() / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Benchmark
+    public void send() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(sendTasks.size());
+        for (TemplateSendTask sendTask : sendTasks) {
+            futures.add(CompletableFuture.supplyAsync(() -> submit(sendTask), submitters).thenCompose(Function.identity()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private CompletableFuture<Void> submit(TemplateSendTask sendTask) {
+        long start = System.nanoTime();
+        return smsBatcher.submit(BATCH_KEY, sendTask, MAX_PHONES, this::stubSend)
+                .whenComplete((result, e) -> taskLatencyNanos.add(System.nanoTime() - start));
+    }
+
+    /**
+     * 存根服务商：等待 stubLatencyMillis 后返回成功
+     */
+    private SmsBatcher.BatchResult stubSend(List<String> phones) throws InterruptedException {
+        calls.incrementAndGet();
+        TimeUnit.MILLISECONDS.sleep(stubLatencyMillis);
+        return SmsBatcher.BatchResult.of("stub-" + phones.size());
+    }
+
+}
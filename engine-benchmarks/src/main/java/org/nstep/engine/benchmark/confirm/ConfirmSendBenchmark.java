@@ -0,0 +1,214 @@
+package org.nstep.engine.benchmark.confirm;
+
+import cn.hutool.json.JSONUtil;
+import com.alibaba.fastjson.JSON;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.EmbeddedRedis;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.handler.timeout.SendTimeoutTracker;
+import org.nstep.engine.module.message.service.record.SendRecordService;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.DeliveryStatusUtil;
+import org.nstep.engine.module.message.util.SendRecordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 发送回执确认的基准测试
+ * <p>
+ * 同一个发送方当天有 entries 条发送记录，每次操作随机确认其中一条消息，对比两种确认方式：
+ * <ul>
+ *     <li>index：{@link DataUtil#confirmSend}，按 sendTaskId 在投递状态哈希上原子迁移状态并带回任务元信息，
+ *     再在发送记录上计数，每次确认两次脚本调用，与当天的发送量无关</li>
+ *     <li>scan：原先的做法，LRANGE 取出发送方当天的全部发送上下文，逐条反序列化后找到消息修改状态，再 LSET 写回。
+ *     原实现还在外层加了 Redisson 分布式锁，这里省略，测得的是该做法的下限</li>
+ * </ul>
+ * Redis 为内嵌的 jedis-mock（见 {@link EmbeddedRedis}）。每次确认前把被确认的消息恢复为发送中（不计入耗时），
+ * 保证每次都走完整的状态迁移，而不是重复回执的提前返回。scan 在 1000000 条时单次确认需要数秒，并且需要较大的堆。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ConfirmSendBenchmark {
+
+    private static final Long SENDER = 1L;
+
+    private static final String MESSAGE_KEY = MessageDataConstants.SEND_MESSAGE_KEY + ":" + SENDER + ":benchmark";
+
+    private static final int PUSH_BATCH = 10000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int entries;
+
+    @Param({"index", "scan"})
+    private String mode;
+
+    private EmbeddedRedis embeddedRedis;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private DeliveryStatusUtil deliveryStatusUtil;
+
+    private SendRecordUtil sendRecordUtil;
+
+    private DataUtil dataUtil;
+
+    private TemplateDO template;
+
+    /**
+     * 本次确认的消息序号，从 1 开始，messageId 与 sendTaskId 相同
+     */
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        stringRedisTemplate = embeddedRedis.getStringRedisTemplate();
+        template = BenchmarkSupport.template(1L, MessageDataConstants.EMAIL, "{\"title\":\"通知\",\"content\":\"您的订单已发货\"}");
+
+        deliveryStatusUtil = new DeliveryStatusUtil();
+        BenchmarkSupport.inject(deliveryStatusUtil, "expireHours", 48L);
+        BenchmarkSupport.inject(deliveryStatusUtil, "stringRedisTemplate", stringRedisTemplate);
+        sendRecordUtil = new SendRecordUtil();
+        BenchmarkSupport.inject(sendRecordUtil, "expireDays", 7L);
+        BenchmarkSupport.inject(sendRecordUtil, "stringRedisTemplate", stringRedisTemplate);
+        dataUtil = new DataUtil();
+        BenchmarkSupport.inject(dataUtil, "stringRedisTemplate", stringRedisTemplate);
+        BenchmarkSupport.inject(dataUtil, "deliveryStatusUtil", deliveryStatusUtil);
+        BenchmarkSupport.inject(dataUtil, "sendRecordUtil", sendRecordUtil);
+        BenchmarkSupport.inject(dataUtil, "sendRecordService", mock(SendRecordService.class));
+        BenchmarkSupport.inject(dataUtil, "sendTimeoutTracker", mock(SendTimeoutTracker.class));
+
+        if ("index".equals(mode)) {
+            for (long i = 1; i <= entries; i++) {
+                register(sendContent(i));
+            }
+        } else {
+            List<String> batch = new ArrayList<>(PUSH_BATCH);
+            for (long i = 1; i <= entries; i++) {
+                batch.add(JSON.toJSONString(sendContent(i)));
+                if (batch.size() == PUSH_BATCH) {
+                    stringRedisTemplate.opsForList().rightPushAll(MESSAGE_KEY, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                stringRedisTemplate.opsForList().rightPushAll(MESSAGE_KEY, batch);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        embeddedRedis.close();
+    }
+
+    /**
+     * 随机选择一条消息，并恢复为发送中状态
+     */
+    @Setup(Level.Invocation)
+    public void reset() {
+        next = ThreadLocalRandom.current().nextLong(1, entries + 1);
+        SendContent sendContent = sendContent(next);
+        if ("index".equals(mode)) {
+            register(sendContent);
+        } else {
+            stringRedisTemplate.opsForList().set(MESSAGE_KEY, next - 1, JSON.toJSONString(sendContent));
+        }
+    }
+
+    @Benchmark
+    public void confirm() {
+        if ("index".equals(mode)) {
+            dataUtil.confirmSend("benchmark", next, MESSAGE_KEY, next, null);
+        } else {
+            scanConfirm(next, next);
+        }
+    }
+
+    private void register(SendContent sendContent) {
+        deliveryStatusUtil.register(sendContent);
+        sendRecordUtil.save(sendContent, MessageDataConstants.MSG_SENDING);
+    }
+
+    /**
+     * 原先 DataUtil#confirmSend 和 updateMsgStatus 的做法（不含分布式锁），按发送成功处理
+     */
+    private void scanConfirm(Long messageId, Long sendTaskId) {
+        List<String> list = stringRedisTemplate.opsForList().range(MESSAGE_KEY, 0, -1);
+        List<SendContent> sendContexts = new ArrayList<>(Objects.requireNonNull(list).size());
+        for (String s : list) {
+            sendContexts.add(JSONUtil.toBean(s, SendContent.class));
+        }
+        for (int i = sendContexts.size() - 1; i >= 0; i--) {
+            if (Objects.equals(sendContexts.get(i).getSendTaskId(), sendTaskId)) {
+                for (TemplateSendTask sendTask : sendContexts.get(i).getSendTasks()) {
+                    if (Objects.equals(sendTask.getMessageId(), messageId)) {
+                        TemplateDO messageTemplate = sendTask.getMessageTemplate();
+                        if (!MessageDataConstants.MSG_SENDING.equals(messageTemplate.getMsgStatus())) {
+                            return;
+                        }
+                        messageTemplate.setMsgStatus(MessageDataConstants.MSG_SUCCESS);
+                        LocalDateTime now = LocalDateTime.now();
+                        sendTask.setSendEndTime(now);
+                        sendTask.setTakeTime(Duration.between(sendTask.getSendStartTime(), now).toMillis());
+                    }
+                }
+                stringRedisTemplate.opsForList().set(MESSAGE_KEY, i, JSON.toJSONString(sendContexts.get(i)));
+            }
+        }
+    }
+
+    /**
+     * 第 i 条发送记录：一个发送任务，一个接收者
+     */
+    private SendContent sendContent(long i) {
+        TemplateSendTask sendTask = TemplateSendTask.builder()
+                .messageId(i)
+                .sendTaskId(i)
+                .sendMessageKey(MESSAGE_KEY)
+                .receivers(Collections.singleton("user" + i + "@example.com"))
+                .messageTemplate(template)
+                .sendStartTime(LocalDateTime.now())
+                .build();
+        return SendContent.builder()
+                .sendTaskId(i)
+                .sendCode(MessageDataConstants.SEND_CODE)
+                .sendChannel(MessageDataConstants.EMAIL)
+                .sendTasks(Collections.singletonList(sendTask))
+                .sendTime(LocalDateTime.now())
+                .sender(SENDER)
+                .build();
+    }
+
+}
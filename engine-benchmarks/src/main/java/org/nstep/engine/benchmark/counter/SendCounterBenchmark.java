@@ -0,0 +1,182 @@
+package org.nstep.engine.benchmark.counter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.EmbeddedRedis;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.constant.RedissonConstants;
+import org.nstep.engine.module.message.util.RedisKeyUtil;
+import org.nstep.engine.module.message.util.SendCounterUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 发送统计的基准测试
+ * <p>
+ * 1、8、64 个发送线程为同一个发送方、同一个模板并发统计发送人数，测量每秒完成的发送次数：
+ * <ul>
+ *     <li>local：{@link SendCounterUtil}，增量在本地聚合，后台线程每 1000 毫秒（engine.sendCounter.flushInterval 的默认值）
+ *     通过管道写回 Redis，与 SendMqProcess 相同，每次发送累加四个计数</li>
+ *     <li>lock：原先的做法，按发送方加分布式锁后 GET / SET 用户总发送人数，再加锁 HGETALL / HMSET 模板发送人数。
+ *     分布式锁用 SET NX PX 加锁、Lua 脚本比较后删除解锁，与 Redisson RLock 一样每次加锁、解锁各一次往返，
+ *     锁被占用时每 100 微秒重试一次，代替 Redisson 的订阅通知</li>
+ * </ul>
+ * Redis 为内嵌的 jedis-mock（见 {@link EmbeddedRedis}）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendCounterBenchmark {
+
+    private static final Long USER_ID = 1L;
+
+    private static final String TEMPLATE_ID = "1";
+
+    private static final int SEND_NUMBER = 100;
+
+    private static final Duration LOCK_LEASE = Duration.ofSeconds(30);
+
+    private static final long LOCK_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    @Param({"local", "lock"})
+    private String mode;
+
+    private EmbeddedRedis embeddedRedis;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SendCounterUtil sendCounterUtil;
+
+    private ScheduledExecutorService flusher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        stringRedisTemplate = embeddedRedis.getStringRedisTemplate();
+        sendCounterUtil = new SendCounterUtil();
+        BenchmarkSupport.inject(sendCounterUtil, "stringRedisTemplate", stringRedisTemplate);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("benchmark-counter-flush").build());
+        flusher.scheduleWithFixedDelay(sendCounterUtil::scheduledFlush, 1000, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        flusher.shutdownNow();
+        sendCounterUtil.destroy();
+        embeddedRedis.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void senders1() {
+        send();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void senders8() {
+        send();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void senders64() {
+        send();
+    }
+
+    private void send() {
+        if ("local".equals(mode)) {
+            String today = RedisKeyUtil.getCurrentDay();
+            sendCounterUtil.increment(MessageDataConstants.USER_SEND_NUMBER + USER_ID, SEND_NUMBER);
+            sendCounterUtil.increment(RedisKeyUtil.getSendTotalOfDay(USER_ID, today), null, SEND_NUMBER,
+                    MessageDataConstants.SEND_COUNT_EXPIRE_TIME);
+            sendCounterUtil.increment(RedisKeyUtil.getSendChannelCountRedisKey(USER_ID, today),
+                    String.valueOf(MessageDataConstants.EMAIL), SEND_NUMBER, MessageDataConstants.SEND_COUNT_EXPIRE_TIME);
+            sendCounterUtil.increment(MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + USER_ID, TEMPLATE_ID, SEND_NUMBER);
+        } else {
+            lockedUserTotal();
+            lockedTemplateTotal();
+        }
+    }
+
+    /**
+     * 原先 SendMqProcess#calculateNumberOfSenders 的做法
+     */
+    private void lockedUserTotal() {
+        String lockKey = RedissonConstants.USER_TOTAL_LOCK + USER_ID;
+        String token = lock(lockKey);
+        try {
+            String key = MessageDataConstants.USER_SEND_NUMBER + USER_ID;
+            String count = stringRedisTemplate.opsForValue().get(key);
+            int number = Objects.isNull(count) ? SEND_NUMBER : Integer.parseInt(count) + SEND_NUMBER;
+            stringRedisTemplate.opsForValue().set(key, String.valueOf(number));
+        } finally {
+            unlock(lockKey, token);
+        }
+    }
+
+    /**
+     * 原先 SendMqProcess#calculateNumberOfTemplate 的做法
+     */
+    private void lockedTemplateTotal() {
+        String lockKey = RedissonConstants.TEMPLATE_TOTAL_LOCK + USER_ID;
+        String token = lock(lockKey);
+        try {
+            String key = MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + USER_ID;
+            Map<Object, Object> entries = new HashMap<>(stringRedisTemplate.opsForHash().entries(key));
+            Object count = entries.get(TEMPLATE_ID);
+            int number = Objects.isNull(count) ? SEND_NUMBER : Integer.parseInt(count.toString()) + SEND_NUMBER;
+            entries.put(TEMPLATE_ID, String.valueOf(number));
+            stringRedisTemplate.opsForHash().putAll(key, entries);
+        } finally {
+            unlock(lockKey, token);
+        }
+    }
+
+    private String lock(String lockKey) {
+        String token = UUID.randomUUID().toString();
+        while (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, LOCK_LEASE))) {
+            LockSupport.parkNanos(LOCK_RETRY_NANOS);
+        }
+        return token;
+    }
+
+    private void unlock(String lockKey, String token) {
+        stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.nstep.engine.benchmark.executor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.config.ChannelExecutorProperties;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.handler.executor.ChannelExecutorRegistry;
+import org.nstep.engine.module.message.handler.executor.VirtualThreadPinningMonitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 渠道执行模式的基准测试
+ * <p>
+ * 一次向推送渠道提交 1000 个发送任务，每个任务调用耗时 200 毫秒的存根服务商（阻塞在 sleep 上，与阻塞在网络调用上相同），
+ * 得到全部完成的耗时，1000 除以该耗时即为渠道的吞吐量：
+ * <ul>
+ *     <li>platform：默认线程池（核心 4、最大 8 个线程），吞吐量受线程数限制，约 8 / 0.2 = 40 次每秒</li>
+ *     <li>platform-large：200 个线程的线程池，约 1000 次每秒，代价是 200 个平台线程的栈内存</li>
+ *     <li>virtual：虚拟线程模式，最大并发数 1000，接近 1000 / 0.2 = 5000 次每秒</li>
+ * </ul>
+ * virtual 需要在 JDK 21 及以上运行，JDK 不支持时渠道退化为线程池，Setup 直接报错而不是给出误导的结果。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelExecutorBenchmark {
+
+    private static final int CONCURRENT_CALLS = 1000;
+
+    private static final long STUB_LATENCY_MILLIS = 200;
+
+    @Param({"platform", "platform-large", "virtual"})
+    private String mode;
+
+    private ChannelExecutorRegistry channelExecutorRegistry;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChannelExecutorProperties properties = new ChannelExecutorProperties();
+        properties.setQueueCapacity(CONCURRENT_CALLS * 2);
+        switch (mode) {
+            case "platform-large" -> {
+                properties.setCorePoolSize(200);
+                properties.setMaxPoolSize(200);
+            }
+            case "virtual" -> {
+                if (Runtime.version().feature() < 21) {
+                    throw new IllegalStateException("虚拟线程模式需要 JDK 21 及以上，当前 JDK:" + Runtime.version());
+                }
+                properties.setVirtualThreads(true);
+                properties.setMaxConcurrency(CONCURRENT_CALLS);
+            }
+            default -> {
+            }
+        }
+
+        channelExecutorRegistry = new ChannelExecutorRegistry();
+        BenchmarkSupport.inject(channelExecutorRegistry, "channelExecutorProperties", properties);
+        BenchmarkSupport.inject(channelExecutorRegistry, "meterRegistry", new SimpleMeterRegistry());
+        BenchmarkSupport.inject(channelExecutorRegistry, "virtualThreadPinningMonitor", mock(VirtualThreadPinningMonitor.class));
+        channelExecutorRegistry.init();
+        executor = channelExecutorRegistry.getExecutor(MessageDataConstants.PUSH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channelExecutorRegistry.destroy();
+    }
+
+    @Benchmark
+    public void send() {
+        CompletableFuture<?>[] futures = new CompletableFuture[CONCURRENT_CALLS];
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            futures[i] = CompletableFuture.runAsync(ChannelExecutorBenchmark::stubCall, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * 存根服务商调用
+     */
+    private static void stubCall() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(STUB_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
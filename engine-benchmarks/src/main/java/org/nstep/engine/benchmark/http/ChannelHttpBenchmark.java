@@ -0,0 +1,168 @@
+package org.nstep.engine.benchmark.http;
+
+import cn.hutool.http.ContentType;
+import cn.hutool.http.Header;
+import cn.hutool.http.HttpRequest;
+import com.alibaba.fastjson.JSON;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.config.ChannelHttpProperties;
+import org.nstep.engine.module.message.constant.GeTuiConstants;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.push.getui.SingleSendPushParam;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渠道 HTTP 请求的基准测试
+ * <p>
+ * 32 个渠道线程并发向本机的存根个推服务发送单推请求（请求体、请求头与 PushHandler#singlePush 相同），
+ * 存根服务每次请求等待 stubLatencyMillis 后返回成功，测量每秒完成的请求数：
+ * <ul>
+ *     <li>client：{@link ChannelHttpClient}，共享的 JDK HttpClient，按主机复用长连接</li>
+ *     <li>hutool：原先的做法，每次请求新建 hutool HttpRequest，2 秒超时</li>
+ * </ul>
+ * 存根服务为 JDK 自带的 HttpServer，只支持 HTTP/1.1，JDK HttpClient 的 h2c 升级请求会被忽略并回退到 HTTP/1.1，
+ * 因此测得的是连接复用和客户端本身的开销，不包含 HTTP/2 多路复用的收益。
+ * TearDown 中打印每轮迭代存根服务看到的客户端连接数（按客户端端口区分）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelHttpBenchmark {
+
+    private static final int SERVER_THREADS = 64;
+
+    private static final String TOKEN = "benchmark-token";
+
+    private static final byte[] RESPONSE = "{\"code\":0,\"msg\":\"success\",\"data\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"client", "hutool"})
+    private String mode;
+
+    @Param({"0", "20"})
+    private long stubLatencyMillis;
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private ChannelHttpClient channelHttpClient;
+
+    private String url;
+
+    private String body;
+
+    /**
+     * 存根服务看到的客户端端口
+     */
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("benchmark-stub-getui-%d").build());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v2/benchmark/push/single/cid";
+
+        channelHttpClient = new ChannelHttpClient();
+        BenchmarkSupport.inject(channelHttpClient, "channelHttpProperties", new ChannelHttpProperties());
+        BenchmarkSupport.inject(channelHttpClient, "meterRegistry", new SimpleMeterRegistry());
+        channelHttpClient.init();
+
+        SingleSendPushParam.PushMessageVO.NotificationVO notificationVO = SingleSendPushParam.PushMessageVO.NotificationVO.builder()
+                .title("订单通知")
+                .body("您的订单已发货，点击查看物流信息")
+                .clickType(GeTuiConstants.CLICK_TYPE_URL)
+                .url("https://example.com/orders/1")
+                .build();
+        body = JSON.toJSONString(SingleSendPushParam.builder()
+                .requestId("1")
+                .audience(SingleSendPushParam.AudienceVO.builder().cid(Collections.singleton("benchmark-cid")).build())
+                .pushMessage(SingleSendPushParam.PushMessageVO.builder().notification(notificationVO).build())
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        clientPorts.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        System.out.printf("%n存根服务看到的客户端连接数:%d%n", clientPorts.size());
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String push() {
+        if ("client".equals(mode)) {
+            return channelHttpClient.postJson(MessageDataConstants.PUSH, url, body, Collections.singletonMap("token", TOKEN));
+        }
+        return HttpRequest.post(url).header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
+                .header("token", TOKEN)
+                .body(body)
+                .timeout(2000)
+                .execute().body();
+    }
+
+    /**
+     * 存根个推服务：读完请求体，等待 stubLatencyMillis 后返回成功
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+            in.readAllBytes();
+            if (stubLatencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(stubLatencyMillis);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            out.write(RESPONSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.nstep.engine.benchmark.id;
+
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.EmbeddedRedis;
+import org.nstep.engine.module.message.util.SegmentIdAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import static org.nstep.engine.module.message.constant.MessageDataConstants.APPLICATION_NAME;
+
+/**
+ * ID 分配的基准测试
+ * <p>
+ * 1、8、64 个线程并发分配发送任务 ID，同时测量吞吐量（每秒分配的 ID 数）和单次分配耗时的分布（SampleTime 的 p99）：
+ * <ul>
+ *     <li>segment：{@link SegmentIdAllocator}，每 1000 个 ID（engine.idSegment.step 的默认值）INCRBY 一次，
+ *     号段内本地分配，剩余不足 1/5 时异步预取</li>
+ *     <li>incr：原先 RedisKeyUtil#createSendTaskId 的做法，每个 ID 一次 INCR，当天第一个 ID 再设置 0 点过期</li>
+ * </ul>
+ * Redis 为内嵌的 jedis-mock（见 {@link EmbeddedRedis}）。segment 的 p99 主要反映号段切换时等待预取的情况，
+ * incr 的 p99 反映 Redis 往返在并发下的排队。两种模式共用微秒单位，吞吐量 ops/us 乘以 10^6 即每秒分配的 ID 数。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentIdBenchmark {
+
+    private static final String TAG = "send_task_id";
+
+    private static final String DAILY_TASK_KEY = APPLICATION_NAME + "daily_task_id";
+
+    @Param({"segment", "incr"})
+    private String mode;
+
+    private EmbeddedRedis embeddedRedis;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SegmentIdAllocator segmentIdAllocator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        stringRedisTemplate = embeddedRedis.getStringRedisTemplate();
+        segmentIdAllocator = new SegmentIdAllocator();
+        BenchmarkSupport.inject(segmentIdAllocator, "step", 1000L);
+        BenchmarkSupport.inject(segmentIdAllocator, "stringRedisTemplate", stringRedisTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        segmentIdAllocator.destroy();
+        embeddedRedis.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads1() {
+        return nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long threads8() {
+        return nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long threads64() {
+        return nextId();
+    }
+
+    private long nextId() {
+        if ("segment".equals(mode)) {
+            return segmentIdAllocator.nextId(TAG);
+        }
+        Long increment = stringRedisTemplate.opsForValue().increment(DAILY_TASK_KEY);
+        if (increment != null && increment == 1L) {
+            stringRedisTemplate.expireAt(DAILY_TASK_KEY,
+                    LocalDate.now().atStartOfDay().plusDays(1).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        return increment != null ? increment : 0L;
+    }
+
+}
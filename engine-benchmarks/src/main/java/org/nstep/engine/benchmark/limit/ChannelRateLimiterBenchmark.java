@@ -0,0 +1,109 @@
+package org.nstep.engine.benchmark.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.config.ChannelRateLimitProperties;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.handler.limit.ChannelRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 渠道限流的基准测试
+ * <p>
+ * 8 个渠道线程持续向同一个（短信渠道，发送账号）的本机存根服务商发送，每次发送前先经过 {@link ChannelRateLimiter#acquire}，
+ * 得到的吞吐量即为放行速率，应等于配置的 permitsPerSecond（误差在 1% 以内），不能因为突发容量或等待的取整而超出。
+ * 令牌桶初始的突发容量在预热阶段消耗完，测量阶段只包含持续发送。
+ * TearDown 中打印每一轮存根服务商实际收到的请求速率。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelRateLimiterBenchmark {
+
+    private static final Integer ACCOUNT = 1;
+
+    @Param({"20", "200", "2000"})
+    private double permitsPerSecond;
+
+    private ChannelRateLimiter channelRateLimiter;
+
+    private StubProvider stubProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChannelRateLimitProperties properties = new ChannelRateLimitProperties();
+        properties.setMode(ChannelRateLimitProperties.MODE_LOCAL);
+        Map<Integer, ChannelRateLimitProperties.Limit> accounts = new HashMap<>();
+        accounts.put(ACCOUNT, new ChannelRateLimitProperties.Limit(permitsPerSecond, null));
+        properties.setAccounts(accounts);
+
+        channelRateLimiter = new ChannelRateLimiter();
+        BenchmarkSupport.inject(channelRateLimiter, "channelRateLimitProperties", properties);
+        BenchmarkSupport.inject(channelRateLimiter, "meterRegistry", new SimpleMeterRegistry());
+        channelRateLimiter.init();
+        stubProvider = new StubProvider();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        stubProvider.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        System.out.printf("%n存根服务商收到的请求速率:%.2f/s 配置速率:%.2f/s%n", stubProvider.rate(), permitsPerSecond);
+    }
+
+    @Benchmark
+    public long send() {
+        channelRateLimiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+        return stubProvider.send();
+    }
+
+    /**
+     * 本机存根服务商，只记录收到的请求数
+     */
+    private static class StubProvider {
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private volatile long startNanos = System.nanoTime();
+
+        private void reset() {
+            requests.set(0);
+            startNanos = System.nanoTime();
+        }
+
+        private long send() {
+            return requests.incrementAndGet();
+        }
+
+        private double rate() {
+            return requests.get() * (double) TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - startNanos);
+        }
+
+    }
+
+}
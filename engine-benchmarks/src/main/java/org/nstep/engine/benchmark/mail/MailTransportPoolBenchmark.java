@@ -0,0 +1,136 @@
+package org.nstep.engine.benchmark.mail;
+
+import cn.hutool.extra.mail.MailAccount;
+import com.icegreen.greenmail.util.DummySSLSocketFactory;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.util.mail.MailTransportPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMTP 连接池的基准测试
+ * <p>
+ * 8 个渠道线程通过 {@link MailTransportPool} 向本机的 GreenMail 服务器发送邮件，对比复用连接和每封邮件新建连接的吞吐量：
+ * <ul>
+ *     <li>pooled：true 复用已登录的连接，false 每封邮件新建连接、登录，发送后关闭（原先 MailUtil.send 的做法）</li>
+ *     <li>protocol：smtp 明文，smtps 每次新建连接都需要 TLS 握手</li>
+ * </ul>
+ * 本机服务器没有网络往返，实际环境中新建连接的开销更大，差距只会更明显。每轮结束后清空服务器收到的邮件。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailTransportPoolBenchmark {
+
+    private static final String FROM = "sender@example.com";
+
+    private static final String USER = "sender";
+
+    private static final String PASS = "secret";
+
+    private static final InternetAddress[] RECIPIENTS = {newAddress("receiver@example.com")};
+
+    @Param({"true", "false"})
+    private boolean pooled;
+
+    @Param({"smtp", "smtps"})
+    private String protocol;
+
+    private GreenMail greenMail;
+
+    private MailTransportPool mailTransportPool;
+
+    private MailAccount mailAccount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ServerSetup serverSetup = "smtps".equals(protocol) ? ServerSetupTest.SMTPS : ServerSetupTest.SMTP;
+        greenMail = new GreenMail(serverSetup);
+        greenMail.setUser(FROM, USER, PASS);
+        greenMail.start();
+
+        mailAccount = new MailAccount();
+        mailAccount.setHost(serverSetup.getBindAddress());
+        mailAccount.setPort(serverSetup.getPort());
+        mailAccount.setAuth(true);
+        mailAccount.setUser(USER);
+        mailAccount.setPass(PASS);
+        mailAccount.setFrom(FROM);
+        if ("smtps".equals(protocol)) {
+            // GreenMail 使用自签名证书
+            mailAccount.setSslEnable(true);
+            mailAccount.setSocketFactoryClass(DummySSLSocketFactory.class.getName());
+        }
+        mailAccount.defaultIfEmpty();
+
+        mailTransportPool = new MailTransportPool();
+        BenchmarkSupport.inject(mailTransportPool, "enabled", pooled);
+        BenchmarkSupport.inject(mailTransportPool, "maxPerAccount", 8);
+        BenchmarkSupport.inject(mailTransportPool, "maxWaitMillis", 10000L);
+        BenchmarkSupport.inject(mailTransportPool, "idleSeconds", 60L);
+        BenchmarkSupport.inject(mailTransportPool, "evictionIntervalSeconds", 30L);
+        BenchmarkSupport.inject(mailTransportPool, "meterRegistry", new SimpleMeterRegistry());
+        mailTransportPool.init();
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mailTransportPool.destroy();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public String send() throws Exception {
+        return mailTransportPool.execute(mailAccount, connection -> {
+            MimeMessage message = new MimeMessage(connection.getSession());
+            message.setFrom(new InternetAddress(FROM));
+            message.setRecipients(Message.RecipientType.TO, RECIPIENTS);
+            message.setSubject("通知", "UTF-8");
+            message.setSentDate(new Date());
+            message.setContent("<p>您好，您的订单已发货</p>", "text/html; charset=UTF-8");
+            message.saveChanges();
+            connection.getTransport().sendMessage(message, message.getAllRecipients());
+            return message.getMessageID();
+        });
+    }
+
+    private static InternetAddress newAddress(String address) {
+        try {
+            return new InternetAddress(address);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(address, e);
+        }
+    }
+
+}
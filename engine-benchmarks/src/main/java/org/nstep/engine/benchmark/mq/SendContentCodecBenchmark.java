@@ -0,0 +1,107 @@
+package org.nstep.engine.benchmark.mq;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.pipeline.SendPipeline;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.ProcessContent;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSend;
+import org.nstep.engine.module.message.rabbitmq.codec.JsonSendContentCodec;
+import org.nstep.engine.module.message.rabbitmq.codec.SendContentCodecRegistry;
+import org.nstep.engine.module.message.rabbitmq.codec.SmileSendContentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MQ 消息编解码器的基准测试
+ * <p>
+ * 使用生产端实际投递的一条消息（模板引用、至多 1000 个接收者），对比各编解码器和压缩阈值下的编码、解码耗时，
+ * Setup 中打印编码后的消息体字节数：
+ * <ul>
+ *     <li>codec：json（fastjson，旧消息的格式）、smile（Jackson 二进制格式）</li>
+ *     <li>compressThreshold：0 表示不压缩，8192 为默认阈值（超过 8KB 时 LZ4 压缩）</li>
+ *     <li>distinctVariables：1 时消息中只有一个发送任务，1000 时每个接收者一个发送任务（消息内容各不相同）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendContentCodecBenchmark {
+
+    private static final int RECEIVER_COUNT = 1000;
+
+    @Param({JsonSendContentCodec.NAME, SmileSendContentCodec.NAME})
+    private String codec;
+
+    @Param({"0", "8192"})
+    private int compressThreshold;
+
+    @Param({"1", "1000"})
+    private int distinctVariables;
+
+    private SendContentCodecRegistry codecRegistry;
+
+    private SendContent sendContent;
+
+    private Message message;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SendPipeline pipeline = new SendPipeline(BenchmarkSupport.template(1L, MessageDataConstants.EMAIL,
+                "{\"title\":\"通知\",\"content\":\"您好 ${name}，您的订单已发货\"}"), false);
+        TemplateSend request = new TemplateSend();
+        request.setMessageTemplateId(1L);
+        request.setSendChannel(MessageDataConstants.EMAIL);
+        request.setReceivers(String.join(MessageDataConstants.SEPARATOR,
+                BenchmarkSupport.receivers(MessageDataConstants.EMAIL, RECEIVER_COUNT)));
+        request.setVariables(BenchmarkSupport.variables(RECEIVER_COUNT, distinctVariables));
+        request.setIsExitVariables(1);
+        request.setSender(1L);
+        ProcessContent content = pipeline.getPreCheckProcess().process(request);
+        content = pipeline.getVariableClassificationProcess().process(content);
+        content = pipeline.getDataPlaceholderProcess().process(content);
+        // 生产端投递的是按模板引用拆分后的消息
+        sendContent = pipeline.getTemplateRefUtil().shard((SendContent) content).get(0);
+
+        codecRegistry = new SendContentCodecRegistry();
+        BenchmarkSupport.inject(codecRegistry, "codecName", codec);
+        BenchmarkSupport.inject(codecRegistry, "compressThreshold", compressThreshold);
+        BenchmarkSupport.inject(codecRegistry, "codecList", Arrays.asList(new SmileSendContentCodec(), new JsonSendContentCodec()));
+        BenchmarkSupport.inject(codecRegistry, "meterRegistry", new SimpleMeterRegistry());
+        codecRegistry.init();
+
+        MessageProperties properties = new MessageProperties();
+        message = new Message(codecRegistry.encode(sendContent, properties), properties);
+        System.out.printf("%n消息体字节数:%d content-encoding:%s%n", message.getBody().length, properties.getContentEncoding());
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return codecRegistry.encode(sendContent, new MessageProperties());
+    }
+
+    @Benchmark
+    public SendContent decode() throws Exception {
+        return codecRegistry.decode(message);
+    }
+
+}
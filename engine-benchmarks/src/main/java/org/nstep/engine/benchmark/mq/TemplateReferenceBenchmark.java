@@ -0,0 +1,128 @@
+package org.nstep.engine.benchmark.mq;
+
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.pipeline.SendPipeline;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.ProcessContent;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSend;
+import org.nstep.engine.module.message.rabbitmq.codec.JsonSendContentCodec;
+import org.nstep.engine.module.message.rabbitmq.codec.SendContentCodec;
+import org.nstep.engine.module.message.rabbitmq.codec.SmileSendContentCodec;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模板引用的基准测试
+ * <p>
+ * 对比同一次发送的两种 MQ 消息：
+ * <ul>
+ *     <li>embedded：一条消息包含全部发送任务，每个发送任务携带完整的模板（拆分前的做法）</li>
+ *     <li>reference：按 engine.sendMq.shardSize（1000）个接收者拆分为多条消息，发送任务只携带模板 ID、版本和消息内容，消费端从本地缓存还原模板</li>
+ * </ul>
+ * 生产端测量编码，消费端测量解码（reference 还包括还原模板），Setup 中打印两种方式的消息体总字节数和消息条数。
+ * 不压缩，只对比消息结构本身的差异。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class TemplateReferenceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int receiverCount;
+
+    @Param({"1", "100"})
+    private int distinctVariables;
+
+    @Param({JsonSendContentCodec.NAME, SmileSendContentCodec.NAME})
+    private String codec;
+
+    private SendContentCodec sendContentCodec;
+
+    private TemplateRefUtil templateRefUtil;
+
+    private SendContent embedded;
+
+    private byte[] embeddedBody;
+
+    private List<byte[]> referenceBodies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sendContentCodec = JsonSendContentCodec.NAME.equals(codec) ? new JsonSendContentCodec() : new SmileSendContentCodec();
+        SendPipeline pipeline = new SendPipeline(BenchmarkSupport.template(1L, MessageDataConstants.EMAIL,
+                "{\"title\":\"通知\",\"content\":\"您好 ${name}，您的订单已发货\"}"), false);
+        templateRefUtil = pipeline.getTemplateRefUtil();
+
+        TemplateSend request = new TemplateSend();
+        request.setMessageTemplateId(1L);
+        request.setSendChannel(MessageDataConstants.EMAIL);
+        request.setReceivers(String.join(MessageDataConstants.SEPARATOR,
+                BenchmarkSupport.receivers(MessageDataConstants.EMAIL, receiverCount)));
+        request.setVariables(BenchmarkSupport.variables(receiverCount, distinctVariables));
+        request.setIsExitVariables(1);
+        request.setSender(1L);
+        ProcessContent content = pipeline.getPreCheckProcess().process(request);
+        content = pipeline.getVariableClassificationProcess().process(content);
+        embedded = (SendContent) pipeline.getDataPlaceholderProcess().process(content);
+
+        embeddedBody = sendContentCodec.encode(embedded);
+        referenceBodies = encodeReference();
+        long referenceBytes = referenceBodies.stream().mapToLong(body -> body.length).sum();
+        System.out.printf("%n消息体字节数 embedded:%d（1 条） reference:%d（%d 条）%n",
+                embeddedBody.length, referenceBytes, referenceBodies.size());
+    }
+
+    @Benchmark
+    public byte[] embeddedEncode() throws Exception {
+        return sendContentCodec.encode(embedded);
+    }
+
+    @Benchmark
+    public List<byte[]> referenceEncode() throws Exception {
+        return encodeReference();
+    }
+
+    @Benchmark
+    public SendContent embeddedDecode() throws Exception {
+        return sendContentCodec.decode(embeddedBody);
+    }
+
+    @Benchmark
+    public void referenceDecode(Blackhole blackhole) throws Exception {
+        for (byte[] body : referenceBodies) {
+            SendContent shard = sendContentCodec.decode(body);
+            templateRefUtil.rehydrate(shard);
+            blackhole.consume(shard);
+        }
+    }
+
+    private List<byte[]> encodeReference() throws Exception {
+        List<SendContent> shards = templateRefUtil.shard(embedded);
+        List<byte[]> bodies = new ArrayList<>(shards.size());
+        for (SendContent shard : shards) {
+            bodies.add(sendContentCodec.encode(shard));
+        }
+        return bodies;
+    }
+
+}
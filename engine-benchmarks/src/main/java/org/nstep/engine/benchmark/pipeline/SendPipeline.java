@@ -0,0 +1,192 @@
+package org.nstep.engine.benchmark.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.process.management.DataPlaceholderProcess;
+import org.nstep.engine.module.message.process.management.PermissionVerificationProcess;
+import org.nstep.engine.module.message.process.management.PreCheckProcess;
+import org.nstep.engine.module.message.process.management.ProcessExecutor;
+import org.nstep.engine.module.message.process.management.ProcessTemplate;
+import org.nstep.engine.module.message.process.management.ReceiverCheckProcess;
+import org.nstep.engine.module.message.process.management.SendMqProcess;
+import org.nstep.engine.module.message.process.management.TypeMappingProcess;
+import org.nstep.engine.module.message.process.management.VariableClassificationProcess;
+import org.nstep.engine.module.message.rabbitmq.codec.JsonSendContentCodec;
+import org.nstep.engine.module.message.rabbitmq.codec.SendContentCodecRegistry;
+import org.nstep.engine.module.message.rabbitmq.codec.SmileSendContentCodec;
+import org.nstep.engine.module.message.rabbitmq.service.RabbitMQService;
+import org.nstep.engine.module.message.service.record.SendRecordService;
+import org.nstep.engine.module.message.service.template.MessageManagementServiceImpl;
+import org.nstep.engine.module.message.service.template.TemplateService;
+import org.nstep.engine.module.message.util.ClaimCheckUtil;
+import org.nstep.engine.module.message.util.ContentHolderUtil;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.DeliveryStatusUtil;
+import org.nstep.engine.module.message.util.RedisKeyUtil;
+import org.nstep.engine.module.message.util.SendCounterUtil;
+import org.nstep.engine.module.message.util.SendRecordUtil;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 消息发送责任链的内存版本
+ * <p>
+ * 与 PipelineConfig#sendMessageTemplate 使用相同的处理器和顺序，外部依赖替换为内存中的替身：
+ * <ul>
+ *     <li>模板缓存：固定返回构造时传入模板的副本</li>
+ *     <li>Redis：messageId、sendTaskId 由本地计数器分配，投递状态、发送记录的写入为空操作</li>
+ *     <li>RabbitMQ：按生产端的默认配置（json 编码，超过 8KB 时 LZ4 压缩）编码消息体后丢弃，记录最后一条消息的字节数</li>
+ * </ul>
+ * 因此测得的是发送链路本身的 CPU 和内存分配，不包含网络往返。
+ */
+public class SendPipeline {
+
+    private final PermissionVerificationProcess permissionVerificationProcess = new PermissionVerificationProcess();
+
+    private final PreCheckProcess preCheckProcess = new PreCheckProcess();
+
+    private final VariableClassificationProcess variableClassificationProcess = new VariableClassificationProcess();
+
+    private final ReceiverCheckProcess receiverCheckProcess = new ReceiverCheckProcess();
+
+    private final DataPlaceholderProcess dataPlaceholderProcess = new DataPlaceholderProcess();
+
+    private final TypeMappingProcess typeMappingProcess = new TypeMappingProcess();
+
+    private final SendMqProcess sendMqProcess = new SendMqProcess();
+
+    private final ProcessTemplate sendMessageTemplate;
+
+    private final ProcessExecutor processExecutor = new ProcessExecutor();
+
+    private final MessageManagementServiceImpl messageManagementService = new MessageManagementServiceImpl();
+
+    private final SendContentCodecRegistry codecRegistry = new SendContentCodecRegistry();
+
+    private final TemplateRefUtil templateRefUtil = new TemplateRefUtil();
+
+    /**
+     * 最后一条投递到 RabbitMQ 的消息体字节数
+     */
+    private volatile int lastPayloadBytes;
+
+    /**
+     * @param template       发送使用的模板
+     * @param metricsEnabled 是否记录责任链指标
+     */
+    public SendPipeline(TemplateDO template, boolean metricsEnabled) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        TemplateService templateService = mock(TemplateService.class);
+        when(templateService.getTemplateFromCache(anyLong()))
+                .thenAnswer(invocation -> TemplateRefUtil.copyTemplate(template, template.getMsgContent()));
+
+        AtomicLong ids = new AtomicLong();
+        RedisKeyUtil redisKeyUtil = mock(RedisKeyUtil.class);
+        when(redisKeyUtil.createMessageId()).thenAnswer(invocation -> ids.incrementAndGet());
+        when(redisKeyUtil.createSendTaskId()).thenAnswer(invocation -> ids.incrementAndGet());
+
+        BenchmarkSupport.inject(codecRegistry, "codecName", JsonSendContentCodec.NAME);
+        BenchmarkSupport.inject(codecRegistry, "compressThreshold", 8192);
+        BenchmarkSupport.inject(codecRegistry, "codecList", Arrays.asList(new SmileSendContentCodec(), new JsonSendContentCodec()));
+        BenchmarkSupport.inject(codecRegistry, "meterRegistry", meterRegistry);
+        codecRegistry.init();
+        RabbitMQService rabbitMQService = (sendContent, sendCode) ->
+                lastPayloadBytes = codecRegistry.encode(sendContent, new MessageProperties()).length;
+
+        BenchmarkSupport.inject(templateRefUtil, "shardSize", 1000);
+        BenchmarkSupport.inject(templateRefUtil, "templateService", templateService);
+        BenchmarkSupport.inject(templateRefUtil, "resolvedVersionMaximumSize", 1000L);
+        BenchmarkSupport.inject(templateRefUtil, "resolvedVersionExpireSeconds", 300L);
+        templateRefUtil.init();
+
+        ClaimCheckUtil claimCheckUtil = new ClaimCheckUtil();
+        BenchmarkSupport.inject(claimCheckUtil, "enabled", false);
+
+        BenchmarkSupport.inject(permissionVerificationProcess, "templateService", templateService);
+        BenchmarkSupport.inject(dataPlaceholderProcess, "templateService", templateService);
+        BenchmarkSupport.inject(dataPlaceholderProcess, "contentHolderUtil", new ContentHolderUtil());
+        BenchmarkSupport.inject(dataPlaceholderProcess, "redisKeyUtil", redisKeyUtil);
+        BenchmarkSupport.inject(typeMappingProcess, "dataUtil", mock(DataUtil.class));
+        BenchmarkSupport.inject(sendMqProcess, "rabbitMQService", rabbitMQService);
+        BenchmarkSupport.inject(sendMqProcess, "dataUtil", mock(DataUtil.class));
+        BenchmarkSupport.inject(sendMqProcess, "deliveryStatusUtil", mock(DeliveryStatusUtil.class));
+        BenchmarkSupport.inject(sendMqProcess, "sendCounterUtil", new SendCounterUtil());
+        BenchmarkSupport.inject(sendMqProcess, "sendRecordUtil", mock(SendRecordUtil.class));
+        BenchmarkSupport.inject(sendMqProcess, "sendRecordService", mock(SendRecordService.class));
+        BenchmarkSupport.inject(sendMqProcess, "claimCheckUtil", claimCheckUtil);
+        BenchmarkSupport.inject(sendMqProcess, "templateRefUtil", templateRefUtil);
+
+        sendMessageTemplate = ProcessTemplate.builder()
+                .name("sendMessage")
+                .processes(Arrays.asList(permissionVerificationProcess, preCheckProcess, variableClassificationProcess,
+                        receiverCheckProcess, dataPlaceholderProcess, typeMappingProcess, sendMqProcess))
+                .build();
+        BenchmarkSupport.inject(processExecutor, "metricsEnabled", metricsEnabled);
+        BenchmarkSupport.inject(processExecutor, "tracingEnabled", false);
+        BenchmarkSupport.inject(processExecutor, "meterRegistry", meterRegistry);
+        BenchmarkSupport.inject(messageManagementService, "sendMessageTemplate", sendMessageTemplate);
+        BenchmarkSupport.inject(messageManagementService, "processExecutor", processExecutor);
+    }
+
+    public PermissionVerificationProcess getPermissionVerificationProcess() {
+        return permissionVerificationProcess;
+    }
+
+    public PreCheckProcess getPreCheckProcess() {
+        return preCheckProcess;
+    }
+
+    public VariableClassificationProcess getVariableClassificationProcess() {
+        return variableClassificationProcess;
+    }
+
+    public ReceiverCheckProcess getReceiverCheckProcess() {
+        return receiverCheckProcess;
+    }
+
+    public DataPlaceholderProcess getDataPlaceholderProcess() {
+        return dataPlaceholderProcess;
+    }
+
+    public TypeMappingProcess getTypeMappingProcess() {
+        return typeMappingProcess;
+    }
+
+    public SendMqProcess getSendMqProcess() {
+        return sendMqProcess;
+    }
+
+    public ProcessTemplate getSendMessageTemplate() {
+        return sendMessageTemplate;
+    }
+
+    public ProcessExecutor getProcessExecutor() {
+        return processExecutor;
+    }
+
+    public MessageManagementServiceImpl getMessageManagementService() {
+        return messageManagementService;
+    }
+
+    public SendContentCodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    public TemplateRefUtil getTemplateRefUtil() {
+        return templateRefUtil;
+    }
+
+    public int getLastPayloadBytes() {
+        return lastPayloadBytes;
+    }
+
+}
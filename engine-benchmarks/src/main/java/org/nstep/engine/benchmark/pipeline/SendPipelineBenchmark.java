@@ -0,0 +1,129 @@
+package org.nstep.engine.benchmark.pipeline;
+
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.framework.common.pojo.CommonResult;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.ProcessContent;
+import org.nstep.engine.module.message.dto.message.TemplateSend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息发送责任链的基准测试
+ * <p>
+ * 分别测量 sendMessageTemplate 中的各个处理器，以及 MessageManagementServiceImpl#send 的完整责任链：
+ * <ul>
+ *     <li>receiverCount：一次发送请求的接收者数量</li>
+ *     <li>distinctVariables：占位符数据中不同取值的数量（即拆分出的发送任务数），0 表示模板不带占位符</li>
+ *     <li>sendChannel：10 邮件（替换占位符、正则校验邮箱），20 短信（手机号按 long 保存和校验）</li>
+ * </ul>
+ * 单个处理器的输入在 Setup 中用前面的处理器生成一次，这些处理器不修改输入，可以重复使用。
+ * 运行时加上 -prof gc 查看每次操作的内存分配（gc.alloc.rate.norm）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SendPipelineBenchmark {
+
+    private static final Long TEMPLATE_ID = 1L;
+
+    private static final Long SENDER = 1L;
+
+    @Param({"1", "1000", "100000"})
+    private int receiverCount;
+
+    @Param({"0", "1", "100"})
+    private int distinctVariables;
+
+    @Param({"10", "20"})
+    private int sendChannel;
+
+    private SendPipeline pipeline;
+
+    private String receivers;
+
+    private String variables;
+
+    private ProcessContent preChecked;
+
+    private ProcessContent classified;
+
+    private ProcessContent placeholderReplaced;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String msgContent = sendChannel == MessageDataConstants.SMS
+                ? "{\"content\":\"\",\"url\":\"\"}"
+                : "{\"title\":\"通知\",\"content\":\"您好 ${name}，您的订单已发货\"}";
+        pipeline = new SendPipeline(BenchmarkSupport.template(TEMPLATE_ID, sendChannel, msgContent), true);
+        receivers = String.join(MessageDataConstants.SEPARATOR, BenchmarkSupport.receivers(sendChannel, receiverCount));
+        variables = distinctVariables == 0 ? "" : BenchmarkSupport.variables(receiverCount, distinctVariables);
+
+        preChecked = pipeline.getPreCheckProcess().process(newRequest());
+        classified = pipeline.getVariableClassificationProcess().process(preChecked);
+        placeholderReplaced = pipeline.getDataPlaceholderProcess().process(classified);
+        if (placeholderReplaced.getIsNeedBreak()) {
+            throw new IllegalStateException("测试数据未通过发送链路:" + placeholderReplaced.getResponse().getMsg());
+        }
+    }
+
+    @Benchmark
+    public ProcessContent preCheck() {
+        return pipeline.getPreCheckProcess().process(newRequest());
+    }
+
+    @Benchmark
+    public ProcessContent variableClassification() {
+        return pipeline.getVariableClassificationProcess().process(preChecked);
+    }
+
+    @Benchmark
+    public ProcessContent receiverCheck() {
+        return pipeline.getReceiverCheckProcess().process(classified);
+    }
+
+    @Benchmark
+    public ProcessContent dataPlaceholder() {
+        return pipeline.getDataPlaceholderProcess().process(classified);
+    }
+
+    @Benchmark
+    public ProcessContent typeMapping() {
+        return pipeline.getTypeMappingProcess().process(placeholderReplaced);
+    }
+
+    /**
+     * 完整的发送责任链，包括权限校验和编码后投递到（内存中的）RabbitMQ
+     */
+    @Benchmark
+    public CommonResult<?> send() {
+        return pipeline.getMessageManagementService().send(newRequest());
+    }
+
+    private TemplateSend newRequest() {
+        TemplateSend request = new TemplateSend();
+        request.setMessageTemplateId(TEMPLATE_ID);
+        request.setSendChannel(sendChannel);
+        request.setReceivers(receivers);
+        request.setVariables(variables);
+        request.setIsExitVariables(distinctVariables == 0 ? 0 : 1);
+        request.setSender(SENDER);
+        return request;
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.nstep.engine.benchmark.receiver;
+
+import cn.hutool.core.util.StrUtil;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.util.CompactReceiverSet;
+import org.nstep.engine.module.message.util.ReceiverSetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 手机号接收者集合的基准测试
+ * <p>
+ * 将 receivers 个以逗号分隔的手机号（与发送请求中的 receivers 字段相同）解析为去重后的接收者集合，得分为解析耗时：
+ * <ul>
+ *     <li>compact：{@link ReceiverSetUtil#parse}，手机号直接在原字符串上解析为 long，保存在 {@link CompactReceiverSet} 中</li>
+ *     <li>hashSet：原先的做法，StrUtil.split 拆分为字符串后放入 HashSet</li>
+ * </ul>
+ * 每轮迭代结束时打印解析速度（每秒接收者数）和结果集合占用的堆内存（解析前后各 Full GC 一次，按已用堆之差折算），
+ * 不包含输入字符串本身。10000000 个接收者时 hashSet 需要 1GB 以上的堆。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class ReceiverSetBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int receivers;
+
+    @Param({"compact", "hashSet"})
+    private String mode;
+
+    private String receiverString;
+
+    private Set<String> result;
+
+    private long baselineHeap;
+
+    private long parseNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        receiverString = String.join(MessageDataConstants.SEPARATOR,
+                BenchmarkSupport.receivers(MessageDataConstants.SMS, receivers));
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        result = null;
+        baselineHeap = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long retained = usedHeap() - baselineHeap;
+        System.out.printf("%n接收者:%d 解析速度:%.0f 个/秒 集合占用堆内存:%dMB 每个接收者:%d 字节%n", result.size(),
+                result.size() / (parseNanos / (double) TimeUnit.SECONDS.toNanos(1)), retained >> 20, retained / result.size());
+        result = null;
+    }
+
+    @Benchmark
+    public Set<String> parse() {
+        long startNanos = System.nanoTime();
+        result = "compact".equals(mode)
+                ? ReceiverSetUtil.parse(MessageDataConstants.SMS, receiverString)
+                : new HashSet<>(StrUtil.split(receiverString, MessageDataConstants.SEPARATOR));
+        parseNanos = System.nanoTime() - startNanos;
+        return result;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,189 @@
+package org.nstep.engine.benchmark.record;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.benchmark.EmbeddedRedis;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.record.SendRecordDO;
+import org.nstep.engine.module.message.dal.mysql.record.SendRecordMapper;
+import org.nstep.engine.module.message.dto.message.SendRecord;
+import org.nstep.engine.module.message.service.record.SendRecordServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送记录归档的基准测试
+ * <p>
+ * 每次操作向 {@link SendRecordServiceImpl} 提交 10000 条发送记录后执行一次 flush，测量每秒归档的记录数：
+ * <ul>
+ *     <li>batchSize：每条 INSERT 语句包含的记录数（engine.sendArchive.batchSize），1 对应逐行写入</li>
+ * </ul>
+ * 数据库为 MySQL 兼容模式的内存 H2，表结构与 message_send_record 相同（不分区）。
+ * SendRecordMapper#insertOrUpdateBatch 由 JDBC 代理实现，执行与 SendRecordMapper.xml 相同的多行
+ * INSERT ... ON DUPLICATE KEY UPDATE，不经过 MyBatis 的 SQL 解析和参数映射；每条语句自动提交。
+ * Redis 为内嵌的 jedis-mock（见 {@link EmbeddedRedis}），缓冲区容量足够，转存队列只有每次 flush 的一次空读。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendArchiveBenchmark {
+
+    private static final int RECORDS = 10000;
+
+    private static final String CREATE_TABLE = "CREATE TABLE message_send_record (" +
+            "send_task_id BIGINT NOT NULL, send_day INT NOT NULL, sender BIGINT NOT NULL, template_id BIGINT NOT NULL, " +
+            "template_version BIGINT NULL, send_channel TINYINT NOT NULL, message_count INT NOT NULL DEFAULT 0, " +
+            "receiver_count INT NOT NULL DEFAULT 0, status TINYINT NOT NULL, success_count INT NOT NULL DEFAULT 0, " +
+            "fail_count INT NOT NULL DEFAULT 0, send_time DATETIME(3) NOT NULL, confirm_time DATETIME(3) NULL, " +
+            "archive_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (send_day, send_task_id))";
+
+    private static final String CREATE_INDEX =
+            "CREATE INDEX idx_sender_send_time ON message_send_record (sender, send_time, send_task_id)";
+
+    @Param({"1", "100", "500"})
+    private int batchSize;
+
+    private EmbeddedRedis embeddedRedis;
+
+    private Connection connection;
+
+    private SendRecordServiceImpl sendRecordService;
+
+    /**
+     * 已提交的发送记录数，用于生成不重复的 sendTaskId
+     */
+    private long sendTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        embeddedRedis = EmbeddedRedis.start();
+        connection = DriverManager.getConnection("jdbc:h2:mem:archive;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(CREATE_INDEX);
+        }
+
+        sendRecordService = new SendRecordServiceImpl();
+        BenchmarkSupport.inject(sendRecordService, "bufferSize", RECORDS);
+        BenchmarkSupport.inject(sendRecordService, "batchSize", batchSize);
+        BenchmarkSupport.inject(sendRecordService, "sendRecordMapper", jdbcMapper());
+        BenchmarkSupport.inject(sendRecordService, "stringRedisTemplate", embeddedRedis.getStringRedisTemplate());
+        BenchmarkSupport.inject(sendRecordService, "meterRegistry", new SimpleMeterRegistry());
+        sendRecordService.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        embeddedRedis.close();
+    }
+
+    /**
+     * 每轮迭代清空表，避免索引随迭代增长影响后面的结果
+     */
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE message_send_record");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void archive() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < RECORDS; i++) {
+            sendRecordService.archive(SendRecord.builder()
+                    .sendTaskId(++sendTaskId)
+                    .sender(sendTaskId % 100)
+                    .templateId(1L)
+                    .templateVersion(now)
+                    .sendChannel(MessageDataConstants.EMAIL)
+                    .messageCount(1)
+                    .receiverCount(1)
+                    .status(MessageDataConstants.MSG_SUCCESS)
+                    .successCount(1)
+                    .failCount(0)
+                    .sendTime(now)
+                    .confirmTime(now)
+                    .build());
+        }
+        sendRecordService.flush();
+    }
+
+    /**
+     * 只实现 insertOrUpdateBatch 的 SendRecordMapper
+     */
+    @SuppressWarnings("unchecked")
+    private SendRecordMapper jdbcMapper() {
+        return (SendRecordMapper) Proxy.newProxyInstance(SendRecordMapper.class.getClassLoader(),
+                new Class<?>[]{SendRecordMapper.class}, (proxy, method, args) -> {
+                    if ("insertOrUpdateBatch".equals(method.getName())) {
+                        return insertOrUpdateBatch((List<SendRecordDO>) args[0]);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(this, args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * 与 SendRecordMapper.xml 中 insertOrUpdateBatch 相同的语句
+     */
+    private int insertOrUpdateBatch(List<SendRecordDO> records) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO message_send_record (send_task_id, send_day, sender, template_id, " +
+                "template_version, send_channel, message_count, receiver_count, status, success_count, fail_count, " +
+                "send_time, confirm_time) VALUES ");
+        for (int i = 0; i < records.size(); i++) {
+            sql.append(i == 0 ? "" : ",").append("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE status = VALUES(status), success_count = VALUES(success_count), " +
+                "fail_count = VALUES(fail_count), confirm_time = VALUES(confirm_time)");
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 0;
+            for (SendRecordDO record : records) {
+                statement.setObject(++index, record.getSendTaskId());
+                statement.setObject(++index, record.getSendDay());
+                statement.setObject(++index, record.getSender());
+                statement.setObject(++index, record.getTemplateId());
+                statement.setObject(++index, record.getTemplateVersion());
+                statement.setObject(++index, record.getSendChannel());
+                statement.setObject(++index, record.getMessageCount());
+                statement.setObject(++index, record.getReceiverCount());
+                statement.setObject(++index, record.getStatus());
+                statement.setObject(++index, record.getSuccessCount());
+                statement.setObject(++index, record.getFailCount());
+                statement.setObject(++index, record.getSendTime());
+                statement.setObject(++index, record.getConfirmTime());
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+}
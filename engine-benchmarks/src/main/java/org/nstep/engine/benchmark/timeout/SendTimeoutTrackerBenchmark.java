@@ -0,0 +1,166 @@
+package org.nstep.engine.benchmark.timeout;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.nstep.engine.benchmark.BenchmarkSupport;
+import org.nstep.engine.module.message.handler.timeout.SendTimeoutTracker;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.DeliveryStatusUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 发送超时跟踪的基准测试
+ * <p>
+ * 每次操作登记 timers 个计时（每个发送任务一条 MQ 消息、一条消息），得分为登记全部计时的耗时。
+ * 每轮迭代结束时打印：
+ * <ul>
+ *     <li>登记后每个计时占用的堆内存（登记前后各 Full GC 一次，按已用堆之差折算）</li>
+ *     <li>全部计时到期所需的时间，以及到期偏差（engine.send.timeout.lag，实际到期时间减去预期到期时间）的 p50 / p99 / 最大值</li>
+ * </ul>
+ * 时间轮的刻度为 tickMillis，到期偏差应在一个刻度左右；偏差明显更大说明到期处理跟不上。
+ * Redis 替换为直接返回的内存替身（到期脚本删除全部检查点，没有发送中的消息），只测本机的计时和内存开销，不包含网络往返。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SendTimeoutTrackerBenchmark {
+
+    private static final String MESSAGE_KEY = "engineX:message:1:benchmark";
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Param({"1000000"})
+    private int timers;
+
+    @Param({"10", "100"})
+    private long tickMillis;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SendTimeoutTracker sendTimeoutTracker;
+
+    private long baselineHeap;
+
+    private long trackedHeap;
+
+    /**
+     * 本轮迭代已登记的发送任务数，每轮迭代使用不同的 sendTaskId
+     */
+    private long sendTaskId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentiles(0.5, 0.99).build().merge(config);
+            }
+        });
+        DeliveryStatusUtil deliveryStatusUtil = new DeliveryStatusUtil() {
+            @Override
+            public List<Long> getSendingMessageIds(Long sendTaskId) {
+                return Collections.emptyList();
+            }
+        };
+        sendTimeoutTracker = new SendTimeoutTracker();
+        BenchmarkSupport.inject(sendTimeoutTracker, "enabled", true);
+        BenchmarkSupport.inject(sendTimeoutTracker, "partitions", 4);
+        BenchmarkSupport.inject(sendTimeoutTracker, "tickMillis", tickMillis);
+        BenchmarkSupport.inject(sendTimeoutTracker, "ticksPerWheel", 512);
+        BenchmarkSupport.inject(sendTimeoutTracker, "recoverGraceMillis", 30000L);
+        BenchmarkSupport.inject(sendTimeoutTracker, "stringRedisTemplate", new InMemoryScriptTemplate());
+        BenchmarkSupport.inject(sendTimeoutTracker, "deliveryStatusUtil", deliveryStatusUtil);
+        BenchmarkSupport.inject(sendTimeoutTracker, "dataUtil", mock(DataUtil.class));
+        BenchmarkSupport.inject(sendTimeoutTracker, "meterRegistry", meterRegistry);
+        sendTimeoutTracker.init();
+        baselineHeap = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        long start = System.nanoTime();
+        Timer lag = meterRegistry.get("engine.send.timeout.lag").timer();
+        while (lag.count() < timers && System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS * 6)) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        HistogramSnapshot snapshot = lag.takeSnapshot();
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            percentiles.append(String.format(" p%.0f:%.0fms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        System.out.printf("%n每个计时占用堆内存:%d 字节 到期数:%d/%d 登记完成后等待全部到期:%dms 到期偏差%s 最大:%.0fms%n",
+                (trackedHeap - baselineHeap) / timers, lag.count(), timers, drainMillis, percentiles,
+                snapshot.max(TimeUnit.MILLISECONDS));
+        sendTimeoutTracker.destroy();
+    }
+
+    @Benchmark
+    public void track() {
+        for (int i = 0; i < timers; i++) {
+            long id = ++sendTaskId;
+            sendTimeoutTracker.track(id, MESSAGE_KEY, Collections.singletonList(id), TIMEOUT_MILLIS);
+        }
+        trackedHeap = usedHeap();
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 只支持 Lua 脚本的 StringRedisTemplate 替身：登记脚本返回检查点数量，到期脚本删除并返回全部检查点
+     * <p>
+     * 不使用 Mockito，避免记录数百万次调用影响内存的测量。
+     */
+    private static class InMemoryScriptTemplate extends StringRedisTemplate {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            if (List.class.equals(script.getResultType())) {
+                List<String> removed = new ArrayList<>(args.length - 1);
+                for (int i = 1; i < args.length; i++) {
+                    removed.add((String) args[i]);
+                }
+                return (T) removed;
+            }
+            return (T) Long.valueOf(args.length - 1);
+        }
+
+    }
+
+}
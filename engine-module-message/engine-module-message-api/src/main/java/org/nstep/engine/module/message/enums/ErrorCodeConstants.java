@@ -43,6 +43,8 @@ public interface ErrorCodeConstants {
     ErrorCode BATCH_PUSH_TASK_ID_ERROR = new ErrorCode(1_003_000_029, "批量推送获取taskId失败");
     ErrorCode TOKEN_EXCEPTION = new ErrorCode(1_003_000_030, "个推token获取出现异常!");
     ErrorCode SMS_SEND_EXCEPTION = new ErrorCode(1_003_000_031, "腾讯云短信发送异常:{}");
+    ErrorCode CHANNEL_HTTP_REQUEST_FAILED = new ErrorCode(1_003_000_032, "渠道请求失败:{}");
+    ErrorCode ID_SEGMENT_LEASE_FAILED = new ErrorCode(1_003_000_033, "ID号段租用失败:{}");
 
 
     // ========== 消息模板信息 1-003-001-000 ==========
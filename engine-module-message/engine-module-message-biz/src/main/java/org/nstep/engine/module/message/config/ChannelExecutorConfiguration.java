@@ -0,0 +1,42 @@
+package org.nstep.engine.module.message.config;
+
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.handler.real.ChannelHandler;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 渠道发送配置类
+ * <p>
+ * 启用渠道线程池、渠道 HTTP 请求、渠道限流配置项，并按渠道编号注册渠道处理器映射，供消费端直接路由，不再在每次发送时查找 Spring 容器。
+ */
+@Configuration
+@EnableConfigurationProperties({ChannelExecutorProperties.class, ChannelHttpProperties.class, ChannelRateLimitProperties.class})
+public class ChannelExecutorConfiguration {
+
+    /**
+     * 渠道编号到渠道处理器的映射
+     * <p>
+     * 渠道处理器的 Bean 名称为渠道名称 + {@link MessageDataConstants#HANDLER_SUFFIX}，例如 email -> emailHandler
+     *
+     * @param handlers 所有渠道处理器，key 为 Bean 名称
+     * @return 渠道编号到渠道处理器的映射
+     */
+    @Bean("channelHandlers")
+    public Map<Integer, ChannelHandler> channelHandlers(Map<String, ChannelHandler> handlers) {
+        Map<Integer, ChannelHandler> channelHandlers = new HashMap<>(ChannelConfig.CHANNELS.size());
+        for (int i = 0; i < ChannelConfig.CHANNELS.size(); i++) {
+            ChannelHandler handler = handlers.get(ChannelConfig.CHANNEL_NAMES.get(i) + MessageDataConstants.HANDLER_SUFFIX);
+            if (handler != null) {
+                channelHandlers.put(ChannelConfig.CHANNELS.get(i), handler);
+            }
+        }
+        return Collections.unmodifiableMap(channelHandlers);
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.nstep.engine.module.message.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 渠道线程池配置项
+ * <p>
+ * 每个发送渠道使用一个独立的线程池，顶层配置为所有渠道的默认值，channels 中可按渠道编号单独覆盖，例如：
+ * <pre>
+ * engine:
+ *   channel-executor:
+ *     core-pool-size: 4
+ *     channels:
+ *       20: # 短信
+ *         core-pool-size: 16
+ *         max-pool-size: 32
+ * </pre>
+ * 配置中心推送变更后，核心线程数、最大线程数、队列容量和拒绝策略会在线程池上即时生效。
+ * <p>
+ * 发送任务主要阻塞在第三方服务的网络调用上，运行在 JDK 21 及以上时可以为渠道开启虚拟线程模式，
+ * 每个发送任务使用一个虚拟线程，并发数由 max-concurrency 限制，而不是由线程池大小限制：
+ * <pre>
+ * engine:
+ *   channel-executor:
+ *     channels:
+ *       50: # 推送
+ *         virtual-threads: true
+ *         max-concurrency: 1000
+ * </pre>
+ * 虚拟线程模式和并发数同样支持配置中心即时调整。
+ */
+@ConfigurationProperties(prefix = "engine.channel-executor")
+@Data
+public class ChannelExecutorProperties {
+
+    /**
+     * 核心线程数
+     */
+    private Integer corePoolSize = 4;
+
+    /**
+     * 最大线程数
+     */
+    private Integer maxPoolSize = 8;
+
+    /**
+     * 队列容量
+     */
+    private Integer queueCapacity = 1024;
+
+    /**
+     * 空闲线程存活时间（秒）
+     */
+    private Integer keepAliveSeconds = 60;
+
+    /**
+     * 拒绝策略：CallerRunsPolicy、AbortPolicy
+     * <p>
+     * 默认由提交任务的 MQ 消费线程自己执行，使消费速度受渠道处理能力约束；AbortPolicy 将被拒绝的发送任务确认为失败。
+     * 丢弃任务的策略会使消费线程一直等待被丢弃任务的完成，不支持配置
+     */
+    private String rejectedPolicy = "CallerRunsPolicy";
+
+    /**
+     * 是否使用虚拟线程执行发送任务，需要 JDK 21 及以上，低版本 JDK 下仍使用线程池
+     */
+    private Boolean virtualThreads = false;
+
+    /**
+     * 虚拟线程模式下的最大并发数，达到上限时提交任务的 MQ 消费线程等待，效果与 CallerRunsPolicy 相同
+     */
+    private Integer maxConcurrency = 256;
+
+    /**
+     * 按渠道编号覆盖的配置，未配置的字段使用顶层的默认值
+     */
+    private Map<Integer, Pool> channels = new HashMap<>();
+
+    /**
+     * 获取渠道最终生效的配置
+     *
+     * @param channel 渠道编号
+     * @return 合并默认值后的配置
+     */
+    public Pool resolve(Integer channel) {
+        Pool pool = channels.getOrDefault(channel, new Pool());
+        Pool resolved = new Pool();
+        resolved.setCorePoolSize(pool.getCorePoolSize() != null ? pool.getCorePoolSize() : corePoolSize);
+        resolved.setMaxPoolSize(pool.getMaxPoolSize() != null ? pool.getMaxPoolSize() : maxPoolSize);
+        resolved.setQueueCapacity(pool.getQueueCapacity() != null ? pool.getQueueCapacity() : queueCapacity);
+        resolved.setKeepAliveSeconds(pool.getKeepAliveSeconds() != null ? pool.getKeepAliveSeconds() : keepAliveSeconds);
+        resolved.setRejectedPolicy(pool.getRejectedPolicy() != null ? pool.getRejectedPolicy() : rejectedPolicy);
+        resolved.setVirtualThreads(pool.getVirtualThreads() != null ? pool.getVirtualThreads() : virtualThreads);
+        resolved.setMaxConcurrency(pool.getMaxConcurrency() != null ? pool.getMaxConcurrency() : maxConcurrency);
+        return resolved;
+    }
+
+    /**
+     * 单个渠道的线程池配置
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * 核心线程数
+         */
+        private Integer corePoolSize;
+
+        /**
+         * 最大线程数
+         */
+        private Integer maxPoolSize;
+
+        /**
+         * 队列容量
+         */
+        private Integer queueCapacity;
+
+        /**
+         * 空闲线程存活时间（秒）
+         */
+        private Integer keepAliveSeconds;
+
+        /**
+         * 拒绝策略
+         */
+        private String rejectedPolicy;
+
+        /**
+         * 是否使用虚拟线程
+         */
+        private Boolean virtualThreads;
+
+        /**
+         * 虚拟线程模式下的最大并发数
+         */
+        private Integer maxConcurrency;
+
+    }
+
+}
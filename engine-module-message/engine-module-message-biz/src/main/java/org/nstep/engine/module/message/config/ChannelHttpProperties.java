@@ -0,0 +1,81 @@
+package org.nstep.engine.module.message.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 渠道 HTTP 请求配置项
+ * <p>
+ * 顶层配置为所有渠道的默认值，channels 中可按渠道编号单独覆盖读取超时和重试次数，例如：
+ * <pre>
+ * engine:
+ *   channel-http:
+ *     read-timeout: 2s
+ *     channels:
+ *       50: # APP通知栏
+ *         read-timeout: 5s
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "engine.channel-http")
+@Data
+public class ChannelHttpProperties {
+
+    /**
+     * 建立连接的超时时间，所有渠道共用同一个 HTTP 客户端，因此只能全局配置
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 等待响应的超时时间
+     */
+    private Duration readTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 连接失败时的重试次数
+     * <p>
+     * 只在请求确定没有发出（连接被拒绝、连接超时）时重试，避免重复发送消息
+     */
+    private Integer maxRetries = 1;
+
+    /**
+     * 按渠道编号覆盖的配置，未配置的字段使用顶层的默认值
+     */
+    private Map<Integer, Channel> channels = new HashMap<>();
+
+    /**
+     * 获取渠道最终生效的配置
+     *
+     * @param channel 渠道编号
+     * @return 合并默认值后的配置
+     */
+    public Channel resolve(Integer channel) {
+        Channel config = channels.getOrDefault(channel, new Channel());
+        Channel resolved = new Channel();
+        resolved.setReadTimeout(config.getReadTimeout() != null ? config.getReadTimeout() : readTimeout);
+        resolved.setMaxRetries(config.getMaxRetries() != null ? config.getMaxRetries() : maxRetries);
+        return resolved;
+    }
+
+    /**
+     * 单个渠道的 HTTP 请求配置
+     */
+    @Data
+    public static class Channel {
+
+        /**
+         * 等待响应的超时时间
+         */
+        private Duration readTimeout;
+
+        /**
+         * 连接失败时的重试次数
+         */
+        private Integer maxRetries;
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.nstep.engine.module.message.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 渠道限流配置项
+ * <p>
+ * 每个（渠道，发送账号）使用一个令牌桶，超出速率的发送任务在渠道线程中等待令牌，而不是直接请求第三方服务后被拒绝。
+ * 速率的查找顺序为：accounts 中按发送账号配置 -> channels 中按渠道编号配置 -> 顶层默认值，顶层默认不限流。例如：
+ * <pre>
+ * engine:
+ *   channel-rate-limit:
+ *     mode: cluster
+ *     channels:
+ *       20: # 短信
+ *         permits-per-second: 100
+ *     accounts:
+ *       12: # 某个短信账号
+ *         permits-per-second: 20
+ *         burst: 20
+ * </pre>
+ * 钉钉、企业微信、飞书机器人默认按平台的限制（每分钟 20/20/100 条）限流。
+ */
+@ConfigurationProperties(prefix = "engine.channel-rate-limit")
+@Data
+public class ChannelRateLimitProperties {
+
+    /**
+     * 限流模式：本机限流
+     */
+    public static final String MODE_LOCAL = "local";
+
+    /**
+     * 限流模式：通过 Redis 在集群内共享令牌桶
+     */
+    public static final String MODE_CLUSTER = "cluster";
+
+    /**
+     * 是否启用限流
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 限流模式：local、cluster
+     * <p>
+     * local 下每个实例各自限流，实例数为 N 时整体速率为配置的 N 倍，多实例部署时请使用 cluster
+     */
+    private String mode = MODE_LOCAL;
+
+    /**
+     * 每秒令牌数，为空或小于等于 0 表示不限流
+     */
+    private Double permitsPerSecond;
+
+    /**
+     * 令牌桶容量，即允许的突发数量，为空时为 1 秒的令牌数（至少为 1）
+     */
+    private Integer burst;
+
+    /**
+     * 按渠道编号覆盖的配置
+     */
+    private Map<Integer, Limit> channels = defaultChannels();
+
+    /**
+     * 按发送账号覆盖的配置，优先于渠道配置
+     */
+    private Map<Integer, Limit> accounts = new HashMap<>();
+
+    /**
+     * 获取（渠道，发送账号）最终生效的配置
+     *
+     * @param channel 渠道编号
+     * @param account 发送账号
+     * @return 合并默认值后的配置，不限流时 permitsPerSecond 为空
+     */
+    public Limit resolve(Integer channel, Integer account) {
+        Limit limit = account == null ? null : accounts.get(account);
+        if (limit == null || limit.getPermitsPerSecond() == null) {
+            limit = channels.getOrDefault(channel, new Limit());
+        }
+        Limit resolved = new Limit();
+        Double rate = limit.getPermitsPerSecond() != null ? limit.getPermitsPerSecond() : permitsPerSecond;
+        if (rate == null || rate <= 0) {
+            return resolved;
+        }
+        Integer capacity = limit.getBurst() != null ? limit.getBurst() : burst;
+        resolved.setPermitsPerSecond(rate);
+        resolved.setBurst(capacity != null && capacity > 0 ? capacity : Math.max((int) Math.ceil(rate), 1));
+        return resolved;
+    }
+
+    /**
+     * 机器人渠道的平台限制
+     */
+    private static Map<Integer, Limit> defaultChannels() {
+        Map<Integer, Limit> channels = new HashMap<>();
+        channels.put(MessageDataConstants.DING_DING_ROBOT, new Limit(20 / 60.0, 20));
+        channels.put(MessageDataConstants.ENTERPRISE_WECHAT_ROBOT, new Limit(20 / 60.0, 20));
+        channels.put(MessageDataConstants.FEI_SHU_ROBOT, new Limit(100 / 60.0, 5));
+        return channels;
+    }
+
+    /**
+     * 单个渠道或发送账号的限流配置
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * 每秒令牌数
+         */
+        private Double permitsPerSecond;
+
+        /**
+         * 令牌桶容量
+         */
+        private Integer burst;
+
+    }
+
+}
@@ -53,6 +53,8 @@ public class PipelineConfig {
     public ProcessTemplate sendMessageTemplate() {
         // 使用ProcessTemplate.builder()创建一个构建器，构建责任链
         return ProcessTemplate.builder()
+                // 责任链名称，用作指标和链路追踪的标签
+                .name("sendMessage")
                 // 将各个处理步骤按照顺序加入责任链
                 .processes(Arrays.asList(
                         // 权限验证处理步骤
@@ -82,6 +84,8 @@ public class PipelineConfig {
     public ProcessTemplate cronTaskTemplate() {
         // 使用ProcessTemplate.builder()创建一个构建器，构建责任链
         return ProcessTemplate.builder()
+                // 责任链名称，用作指标和链路追踪的标签
+                .name("cronTask")
                 // 将定时任务处理步骤加入责任链
                 .processes(Collections.singletonList(
                         // 定时任务数据处理步骤
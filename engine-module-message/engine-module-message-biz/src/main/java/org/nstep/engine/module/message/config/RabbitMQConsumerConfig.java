@@ -0,0 +1,79 @@
+package org.nstep.engine.module.message.config;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 发送消息消费者配置类
+ * <p>
+ * 为发送队列单独定义一个批量消费的监听容器工厂：
+ * <ul>
+ *     <li>engine.rabbitmq.consumer.prefetch：每个消费者未确认消息的上限，默认 250</li>
+ *     <li>engine.rabbitmq.consumer.concurrency / maxConcurrency：消费者数量的下限 / 上限，默认 1 / 4</li>
+ *     <li>engine.rabbitmq.consumer.batchSize：一次交给监听方法的消息数量，默认 50</li>
+ *     <li>engine.rabbitmq.consumer.receiveTimeout：凑批的最长等待时间（毫秒），默认 100</li>
+ * </ul>
+ * 确认模式为手动确认，由 {@link org.nstep.engine.module.message.rabbitmq.consumer.RabbitMQConsumer} 在渠道处理完成后再确认消息。
+ */
+@Configuration
+public class RabbitMQConsumerConfig {
+
+    /**
+     * 每个消费者未确认消息的上限
+     */
+    @Value("${engine.rabbitmq.consumer.prefetch:250}")
+    private Integer prefetch;
+
+    /**
+     * 消费者数量的下限
+     */
+    @Value("${engine.rabbitmq.consumer.concurrency:1}")
+    private Integer concurrency;
+
+    /**
+     * 消费者数量的上限
+     */
+    @Value("${engine.rabbitmq.consumer.maxConcurrency:4}")
+    private Integer maxConcurrency;
+
+    /**
+     * 一次交给监听方法的消息数量
+     */
+    @Value("${engine.rabbitmq.consumer.batchSize:50}")
+    private Integer batchSize;
+
+    /**
+     * 凑批的最长等待时间（毫秒）
+     */
+    @Value("${engine.rabbitmq.consumer.receiveTimeout:100}")
+    private Long receiveTimeout;
+
+    /**
+     * 发送队列的批量监听容器工厂
+     *
+     * @param configurer        Spring Boot 的监听容器工厂配置器，沿用 spring.rabbitmq.listener.simple 的其余配置
+     * @param connectionFactory RabbitMQ 连接工厂
+     * @return 批量监听容器工厂
+     */
+    @Bean("sendBatchContainerFactory")
+    public SimpleRabbitListenerContainerFactory sendBatchContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                          ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout);
+        return factory;
+    }
+
+}
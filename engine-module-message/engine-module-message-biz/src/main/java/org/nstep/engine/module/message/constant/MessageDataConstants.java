@@ -136,6 +136,59 @@ public class MessageDataConstants {
      */
     public static final String SEND_TOTAL = APPLICATION_NAME + "userTotalOfDay:";
 
+    /**
+     * 按天统计的发送人数设置一个月后过期（单位：秒）
+     */
+    public static final long SEND_COUNT_EXPIRE_TIME = 2592000;  // 30天
+
+    /**
+     * 发送任务下每条消息的投递状态：engineX:sendStatus:sendTaskId
+     * hashMap结构：field 为 messageId（及其 :start/:end/:take 后缀），value 为状态及时间戳
+     */
+    public static final String SEND_STATUS = APPLICATION_NAME + "sendStatus:";
+
+    /**
+     * 发送任务的精简发送记录：engineX:sendRecord:sendTaskId
+     * hashMap结构：模板引用、接收人数、状态计数和时间戳，字段见 SendRecordUtil
+     */
+    public static final String SEND_RECORD = APPLICATION_NAME + "sendRecord:";
+
+    /**
+     * 用户当天的发送记录索引：engineX:sendRecordIndex:userId:today
+     * zSet结构：member 为 sendTaskId，score 为发送时间戳
+     */
+    public static final String SEND_RECORD_INDEX = APPLICATION_NAME + "sendRecordIndex:";
+
+    /**
+     * 归档缓冲区已满或写库失败时转存的发送记录：engineX:sendArchiveSpool
+     * list结构：元素为发送记录 JSON，数据库可用后由归档任务写入
+     */
+    public static final String SEND_ARCHIVE_SPOOL = APPLICATION_NAME + "sendArchiveSpool";
+
+    /**
+     * 单独写入仍然失败（数据错误而非数据库不可用）的发送记录：engineX:sendArchiveDeadLetter
+     * list结构：元素为发送记录 JSON，按转存顺序追加，需要人工排查后处理
+     */
+    public static final String SEND_ARCHIVE_DEAD_LETTER = APPLICATION_NAME + "sendArchiveDeadLetter";
+
+    /**
+     * 发送超时计时的检查点：engineX:sendTimeout:partition
+     * zSet结构：member 为 sendTaskId,messageRedisKey，score 为到期时间戳
+     */
+    public static final String SEND_TIMEOUT = APPLICATION_NAME + "sendTimeout:";
+
+    /**
+     * 超过阈值的发送任务接收者（claim-check）：engineX:claimCheck:sendTaskId:messageId
+     * list结构：每个元素为一块以分隔符拼接的接收者，MQ 消息中只携带该 key
+     */
+    public static final String CLAIM_CHECK = APPLICATION_NAME + "claimCheck:";
+
+    /**
+     * 集群限流的令牌桶：engineX:rateLimit:channel:account
+     * hash结构：tokens 为当前令牌数（可为负数），ts 为上次补充令牌的时间戳
+     */
+    public static final String RATE_LIMIT = APPLICATION_NAME + "rateLimit:";
+
     /**
      * 消息发送类型常量
      */
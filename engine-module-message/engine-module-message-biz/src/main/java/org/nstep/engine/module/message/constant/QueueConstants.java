@@ -13,30 +13,30 @@ public class QueueConstants {
     public static final Integer BIG_QUEUE_SIZE = 1024;
 
     /**
-     * 各消息渠道 MQ 延迟队列的过期时间，单位：毫秒
+     * 各消息渠道的发送超时时间，单位：毫秒
      * <p>
-     * 这些常量定义了不同消息渠道的延迟队列过期时间。过期时间是指消息在队列中等待的最大时间，超过这个时间，消息将被丢弃。
+     * 这些常量定义了不同消息渠道的发送超时时间。消费端开始处理发送任务后，超过这个时间仍未回执的消息将被确认为发送失败。
      * </p>
      */
 
-    // 邮件渠道的延迟队列过期时间，单位为毫秒（60秒）
+    // 邮件渠道的发送超时时间，单位为毫秒（60秒）
     public static final String EMAIL_EXPIRATION_TIME = "60000";
 
-    // 短信渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 短信渠道的发送超时时间，单位为毫秒（30秒）
     public static final String SMS_EXPIRATION_TIME = "30000";
 
-    // 钉钉机器人渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 钉钉机器人渠道的发送超时时间，单位为毫秒（30秒）
     public static final String DING_DING_ROBOT_EXPIRATION_TIME = "30000";
 
-    // 微信服务号渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 微信服务号渠道的发送超时时间，单位为毫秒（30秒）
     public static final String WECHAT_SERVICE_ACCOUNT_EXPIRATION_TIME = "30000";
 
-    // 推送渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 推送渠道的发送超时时间，单位为毫秒（30秒）
     public static final String PUSH_EXPIRATION_TIME = "30000";
 
-    // 飞书机器人渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 飞书机器人渠道的发送超时时间，单位为毫秒（30秒）
     public static final String FEI_SHU_ROBOT_EXPIRATION_TIME = "30000";
 
-    // 企业微信机器人渠道的延迟队列过期时间，单位为毫秒（30秒）
+    // 企业微信机器人渠道的发送超时时间，单位为毫秒（30秒）
     public static final String ENTERPRISE_WECHAT_ROBOT_TIME = "30000";
 }
@@ -12,6 +12,12 @@ public class WeChatConstants {
      */
     public static final String WECHAT_SERVICE_ACCOUNT_ACCESS_TOKEN_PREFIX = MessageDataConstants.APPLICATION_NAME + "weChat_service_account";
 
+    /**
+     * 微信服务号模板列表的缓存前缀
+     * 格式为：engineX:weChat_template:accountId
+     */
+    public static final String WECHAT_SERVICE_ACCOUNT_TEMPLATE_PREFIX = MessageDataConstants.APPLICATION_NAME + "weChat_template:";
+
     /**
      * 微信服务号 URL 名称
      * 用于标识微信服务号相关的 URL
@@ -0,0 +1,47 @@
+package org.nstep.engine.module.message.controller.admin.record;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.validation.Valid;
+import org.nstep.engine.framework.common.pojo.CommonResult;
+import org.nstep.engine.framework.security.core.util.SecurityFrameworkUtils;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryReqVO;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryRespVO;
+import org.nstep.engine.module.message.service.record.SendRecordService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.nstep.engine.framework.common.pojo.CommonResult.success;
+
+/**
+ * 管理后台 - 消息发送记录控制器
+ * 提供当前用户已归档的消息发送历史查询。
+ */
+@Tag(name = "管理后台 - 消息发送记录")
+@RestController
+@RequestMapping("/message/record")
+@Validated
+public class SendRecordController {
+
+    @Resource
+    private SendRecordService sendRecordService;
+
+    /**
+     * 查询当前用户的消息发送历史
+     * 按发送时间倒序返回，使用上一页返回的游标查询下一页
+     *
+     * @param reqVO 查询条件
+     * @return 本页记录及下一页游标
+     */
+    @GetMapping("/history")
+    @Operation(summary = "获得消息发送历史")
+    @PreAuthorize("@ss.hasPermission('message:record:query')") // 权限校验
+    public CommonResult<SendRecordHistoryRespVO> getHistory(@Valid SendRecordHistoryReqVO reqVO) {
+        return success(sendRecordService.getHistory(SecurityFrameworkUtils.getLoginUserId(), reqVO));
+    }
+
+}
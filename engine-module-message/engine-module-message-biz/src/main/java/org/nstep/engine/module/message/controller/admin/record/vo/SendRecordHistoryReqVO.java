@@ -0,0 +1,55 @@
+package org.nstep.engine.module.message.controller.admin.record.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+import static org.nstep.engine.framework.common.util.date.DateUtils.FORMAT_YEAR_MONTH_DAY;
+
+/**
+ * 管理后台 - 消息发送历史查询请求参数对象
+ * 使用键集分页：首页不传游标，之后每页传入上一页返回的游标，不支持跳页。
+ */
+@Schema(description = "管理后台 - 消息发送历史查询 Request VO")
+@Data
+public class SendRecordHistoryReqVO {
+
+    /**
+     * 开始日期，不传时默认为结束日期前 7 天
+     */
+    @Schema(description = "开始日期", example = "2024-10-01")
+    @DateTimeFormat(pattern = FORMAT_YEAR_MONTH_DAY)
+    private LocalDate beginDay;
+
+    /**
+     * 结束日期（含），不传时默认为当天
+     */
+    @Schema(description = "结束日期", example = "2024-10-07")
+    @DateTimeFormat(pattern = FORMAT_YEAR_MONTH_DAY)
+    private LocalDate endDay;
+
+    /**
+     * 游标：上一页最后一条记录的发送时间戳（毫秒）
+     */
+    @Schema(description = "游标-发送时间戳", example = "1728000000000")
+    private Long cursorSendTime;
+
+    /**
+     * 游标：上一页最后一条记录的发送任务编号
+     */
+    @Schema(description = "游标-发送任务编号", example = "1024")
+    private Long cursorSendTaskId;
+
+    /**
+     * 每页条数
+     */
+    @Schema(description = "每页条数，最大值为 100", example = "20")
+    @Min(value = 1, message = "每页条数最小值为 1")
+    @Max(value = 100, message = "每页条数最大值为 100")
+    private Integer pageSize = 20;
+
+}
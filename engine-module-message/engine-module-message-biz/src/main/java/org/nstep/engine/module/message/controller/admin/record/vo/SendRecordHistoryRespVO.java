@@ -0,0 +1,29 @@
+package org.nstep.engine.module.message.controller.admin.record.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 管理后台 - 消息发送历史查询响应结果对象
+ * 包含本页记录和查询下一页使用的游标，没有下一页时游标为空。
+ */
+@Schema(description = "管理后台 - 消息发送历史 Response VO")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendRecordHistoryRespVO {
+
+    @Schema(description = "本页记录", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<SendRecordRespVO> list;
+
+    @Schema(description = "下一页游标-发送时间戳，没有下一页时为空", example = "1728000000000")
+    private Long nextCursorSendTime;
+
+    @Schema(description = "下一页游标-发送任务编号，没有下一页时为空", example = "1024")
+    private Long nextCursorSendTaskId;
+
+}
@@ -0,0 +1,48 @@
+package org.nstep.engine.module.message.controller.admin.record.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 管理后台 - 消息发送记录响应结果对象
+ */
+@Schema(description = "管理后台 - 消息发送记录 Response VO")
+@Data
+public class SendRecordRespVO {
+
+    @Schema(description = "发送任务编号", requiredMode = Schema.RequiredMode.REQUIRED, example = "1024")
+    private Long sendTaskId;
+
+    @Schema(description = "模板编号", requiredMode = Schema.RequiredMode.REQUIRED, example = "1")
+    private Long templateId;
+
+    @Schema(description = "模板版本（发送时模板的更新时间戳）", example = "1728000000000")
+    private Long templateVersion;
+
+    @Schema(description = "消息发送渠道：10.Email 20.短信 30.钉钉机器人 40.微信服务号 50.push通知栏 60.飞书机器人", example = "10")
+    private Integer sendChannel;
+
+    @Schema(description = "消息条数", example = "1")
+    private Integer messageCount;
+
+    @Schema(description = "接收人数", example = "100")
+    private Integer receiverCount;
+
+    @Schema(description = "任务状态", example = "40")
+    private Integer status;
+
+    @Schema(description = "发送成功条数", example = "1")
+    private Integer successCount;
+
+    @Schema(description = "发送失败条数", example = "0")
+    private Integer failCount;
+
+    @Schema(description = "发送时间")
+    private LocalDateTime sendTime;
+
+    @Schema(description = "最后一次回执时间")
+    private LocalDateTime confirmTime;
+
+}
@@ -0,0 +1,83 @@
+package org.nstep.engine.module.message.dal.dataobject.record;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息发送记录 DO
+ * <p>
+ * 发送任务全部回执确认后，由 Redis 中的精简发送记录归档而来。表按 sendDay 分区，过期数据按分区整体删除，
+ * 因此不继承 BaseDO，也没有逻辑删除字段。
+ *
+ * @author engine
+ */
+@TableName("message_send_record")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendRecordDO {
+
+    /**
+     * 发送任务编号
+     */
+    @TableId(type = IdType.INPUT)
+    private Long sendTaskId;
+    /**
+     * 发送日期（yyyyMMdd），分区键
+     */
+    private Integer sendDay;
+    /**
+     * 发送方用户编号
+     */
+    private Long sender;
+    /**
+     * 模板编号
+     */
+    private Long templateId;
+    /**
+     * 模板版本（发送时模板的更新时间戳）
+     */
+    private Long templateVersion;
+    /**
+     * 发送渠道
+     */
+    private Integer sendChannel;
+    /**
+     * 消息条数
+     */
+    private Integer messageCount;
+    /**
+     * 接收人数
+     */
+    private Integer receiverCount;
+    /**
+     * 任务状态
+     */
+    private Integer status;
+    /**
+     * 发送成功条数
+     */
+    private Integer successCount;
+    /**
+     * 发送失败条数
+     */
+    private Integer failCount;
+    /**
+     * 发送时间
+     */
+    private LocalDateTime sendTime;
+    /**
+     * 最后一次回执时间
+     */
+    private LocalDateTime confirmTime;
+    /**
+     * 归档时间
+     */
+    private LocalDateTime archiveTime;
+
+}
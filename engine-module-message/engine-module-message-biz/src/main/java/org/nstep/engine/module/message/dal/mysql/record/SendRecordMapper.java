@@ -0,0 +1,84 @@
+package org.nstep.engine.module.message.dal.mysql.record;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.nstep.engine.framework.mybatis.core.mapper.BaseMapperX;
+import org.nstep.engine.framework.mybatis.core.query.LambdaQueryWrapperX;
+import org.nstep.engine.module.message.dal.dataobject.record.SendRecordDO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 消息发送记录 Mapper
+ * <p>
+ * 发送记录按发送方隔离，表中没有租户字段，分区维护语句也无需拼接租户条件，因此整体忽略多租户拦截。
+ *
+ * @author engine
+ */
+@Mapper
+@InterceptorIgnore(tenantLine = "true")
+public interface SendRecordMapper extends BaseMapperX<SendRecordDO> {
+
+    /**
+     * 多行批量插入发送记录，主键冲突（重复归档）时更新状态、成功失败计数和确认时间
+     *
+     * @param records 发送记录
+     * @return 影响的行数（MySQL 中插入的行计 1，更新的行计 2）
+     */
+    int insertOrUpdateBatch(@Param("records") List<SendRecordDO> records);
+
+    /**
+     * 按游标（发送时间、发送任务编号）降序查询发送方的发送记录
+     * <p>
+     * 使用键集分页：下一页从上一页最后一条记录之后开始，借助 (sender, send_time, send_task_id) 索引直接定位，
+     * 翻页深度不影响查询耗时；sendDay 条件用于分区裁剪。
+     *
+     * @param sender           发送方
+     * @param beginDay         开始日期（yyyyMMdd）
+     * @param endDay           结束日期（yyyyMMdd）
+     * @param cursorSendTime   游标：上一页最后一条记录的发送时间，首页为 null
+     * @param cursorSendTaskId 游标：上一页最后一条记录的发送任务编号，首页为 null
+     * @param limit            查询条数
+     * @return 发送记录
+     */
+    default List<SendRecordDO> selectHistory(Long sender, Integer beginDay, Integer endDay,
+                                             LocalDateTime cursorSendTime, Long cursorSendTaskId, int limit) {
+        LambdaQueryWrapperX<SendRecordDO> wrapper = new LambdaQueryWrapperX<SendRecordDO>()
+                .eq(SendRecordDO::getSender, sender)
+                .betweenIfPresent(SendRecordDO::getSendDay, beginDay, endDay);
+        if (cursorSendTime != null && cursorSendTaskId != null) {
+            wrapper.and(w -> w.lt(SendRecordDO::getSendTime, cursorSendTime)
+                    .or(o -> o.eq(SendRecordDO::getSendTime, cursorSendTime)
+                            .lt(SendRecordDO::getSendTaskId, cursorSendTaskId)));
+        }
+        wrapper.orderByDesc(SendRecordDO::getSendTime)
+                .orderByDesc(SendRecordDO::getSendTaskId)
+                .last("LIMIT " + limit);
+        return selectList(wrapper);
+    }
+
+    /**
+     * 查询发送记录表当前的全部分区名称
+     *
+     * @return 分区名称，按分区边界升序
+     */
+    List<String> selectPartitionNames();
+
+    /**
+     * 新增一个按天的分区
+     *
+     * @param name     分区名称，格式为 p + yyyyMMdd
+     * @param lessThan 分区上界（不含），即下一天的 yyyyMMdd
+     */
+    void addPartition(@Param("name") String name, @Param("lessThan") Integer lessThan);
+
+    /**
+     * 删除一个分区及其中的全部数据
+     *
+     * @param name 分区名称
+     */
+    void dropPartition(@Param("name") String name);
+
+}
@@ -1,7 +1,11 @@
 package org.nstep.engine.module.message.dto.content;
 
 import lombok.*;
+import org.nstep.engine.framework.common.pojo.CommonResult;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.message.TemplateSend;
+
+import java.util.function.Function;
 
 /**
  * 定时任务上下文类，继承自ProcessContent。
@@ -25,4 +29,10 @@ public class CronTaskContent extends ProcessContent {
      * 发送方通常是系统中负责发起定时任务的用户或系统组件的标识。
      */
     private Long sender;
+
+    /**
+     * 人群分片的发送方法，接收一个分片的发送请求表单并返回发送结果。
+     * 人群文件按分片流式读取，每个分片独立进入发送消息责任链。
+     */
+    private Function<TemplateSend, CommonResult<?>> shardSender;
 }
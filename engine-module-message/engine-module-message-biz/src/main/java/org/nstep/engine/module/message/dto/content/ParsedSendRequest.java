@@ -0,0 +1,45 @@
+package org.nstep.engine.module.message.dto.content;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 解析后的发送请求（不可变）
+ * <p>
+ * 由 PreCheckProcess 在校验时解析得到并挂在责任链上下文上，后续节点直接使用，
+ * 不再重复拆分接收者字符串、重复解析占位符数据的 JSON。
+ */
+@Getter
+public final class ParsedSendRequest {
+
+    /**
+     * 有占位符时：去重后的接收者，保持请求中的顺序；没有占位符时为空列表
+     */
+    private final List<String> receivers;
+
+    /**
+     * 没有占位符时：去重后的接收者集合，由 ReceiverSetUtil 按渠道构建，之后不再修改；有占位符时为 null
+     */
+    private final Set<String> receiverSet;
+
+    /**
+     * 每个接收者的占位符数据，按下标与接收者一一对应；没有占位符时为空列表
+     */
+    private final List<SendVariables> variables;
+
+    public ParsedSendRequest(List<String> receivers, List<SendVariables> variables) {
+        this.receivers = Collections.unmodifiableList(receivers);
+        this.variables = Collections.unmodifiableList(variables);
+        this.receiverSet = null;
+    }
+
+    public ParsedSendRequest(Set<String> receiverSet) {
+        this.receivers = Collections.emptyList();
+        this.variables = Collections.emptyList();
+        this.receiverSet = receiverSet;
+    }
+
+}
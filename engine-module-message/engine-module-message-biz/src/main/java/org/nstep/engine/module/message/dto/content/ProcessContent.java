@@ -1,6 +1,7 @@
 package org.nstep.engine.module.message.dto.content;
 
-
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -34,4 +35,14 @@ public class ProcessContent {
      */
     private CommonResult<?> response;
 
+    /**
+     * 解析后的发送请求
+     * <p>
+     * 由前置检查解析一次后在责任链中传递，后续节点不再重复解析接收者和占位符数据。
+     * 不参与请求、消息的序列化。
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private transient ParsedSendRequest parsedRequest;
+
 }
@@ -37,11 +37,12 @@ public class SendTaskParamContent extends ProcessContent {
     /**
      * 占位符数据与接受者集合
      * <p>
-     * 这是一个键值对的映射，键是占位符的名称（例如 "{{name}}"），值是该占位符所需的数据。
-     * 值是一个 Set 集合，表示这个占位符对应的多个接受者（如手机号或邮箱地址等）。
-     * 例如：{"{{name}}": {"user1", "user2"}} 表示占位符 "{{name}}" 会被替换为 "user1" 和 "user2"。
+     * 这是一个键值对的映射，键是已解析的占位符数据，按变量映射判等，变量相同的接收者归为同一组；
+     * 没有占位符时只有一个 {@link SendVariables#EMPTY} 分组。
+     * 值是一个 Set 集合，表示使用这组占位符数据的多个接受者（如手机号或邮箱地址等）。
+     * 例如：{{"name": "张三"}: {"user1", "user2"}} 表示 "user1" 和 "user2" 收到的消息中 name 都被替换为 "张三"。
      */
-    private Map<String, Set<String>> sendTaskParams;
+    private Map<SendVariables, Set<String>> sendTaskParams;
 
     /**
      * 是否带有占位符数据
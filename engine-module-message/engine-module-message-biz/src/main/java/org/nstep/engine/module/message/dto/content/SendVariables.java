@@ -0,0 +1,45 @@
+package org.nstep.engine.module.message.dto.content;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 一个接收者的占位符数据（已解析，不可变）
+ * <p>
+ * 只解析一次，之后在责任链中以对象形式传递：
+ * <ul>
+ *     <li>{@link #values} 为变量名到变量值的映射，用于占位符替换</li>
+ *     <li>{@link #json} 为该组数据的 JSON 文本，短信、微信服务号等由渠道自行替换占位符的消息直接使用</li>
+ * </ul>
+ * equals/hashCode 只比较 {@link #values}，可以直接作为分组的 key，变量相同的接收者合并为同一个发送任务，
+ * 与 JSON 文本中字段的顺序、空白无关。
+ */
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public final class SendVariables {
+
+    /**
+     * 没有占位符数据时使用的分组
+     */
+    public static final SendVariables EMPTY = new SendVariables(Collections.emptyMap(), "");
+
+    /**
+     * 变量名到变量值的映射，不可修改
+     */
+    @EqualsAndHashCode.Include
+    private final Map<String, String> values;
+
+    /**
+     * 占位符数据的 JSON 文本
+     */
+    private final String json;
+
+    public SendVariables(Map<String, String> values, String json) {
+        this.values = Collections.unmodifiableMap(values);
+        this.json = json;
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.nstep.engine.module.message.dto.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发送记录
+ * <p>
+ * 一个发送任务（sendTaskId）对应一条发送记录，只保存模板引用、接收人数、状态计数和时间戳，
+ * 不再保存完整的模板内容和接收人列表，需要模板详情时按 templateId 查询。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SendRecord {
+
+    /**
+     * 发送任务 ID
+     */
+    private Long sendTaskId;
+
+    /**
+     * 发送方
+     */
+    private Long sender;
+
+    /**
+     * 模板 ID
+     */
+    private Long templateId;
+
+    /**
+     * 模板版本，取发送时模板的更新时间戳（毫秒），用于判断模板在发送后是否被修改过
+     */
+    private Long templateVersion;
+
+    /**
+     * 发送渠道
+     */
+    private Integer sendChannel;
+
+    /**
+     * 消息条数
+     */
+    private Integer messageCount;
+
+    /**
+     * 接收人数
+     */
+    private Integer receiverCount;
+
+    /**
+     * 任务状态，投递到 MQ 失败时为失败，否则为发送中
+     */
+    private Integer status;
+
+    /**
+     * 发送成功的消息条数
+     */
+    private Integer successCount;
+
+    /**
+     * 发送失败的消息条数
+     */
+    private Integer failCount;
+
+    /**
+     * 发送时间戳（毫秒）
+     */
+    private Long sendTime;
+
+    /**
+     * 最后一次回执确认的时间戳（毫秒）
+     */
+    private Long confirmTime;
+}
@@ -1,27 +1,24 @@
 package org.nstep.engine.module.message.dto.message;
 
 
-import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.experimental.Accessors;
 import org.nstep.engine.module.message.handler.real.ChannelHandler;
-import org.springframework.beans.factory.config.ConfigurableBeanFactory;
-import org.springframework.context.annotation.Scope;
-import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * 发送任务
  * <p>
- * 该类实现了 Runnable 接口，用于表示一个发送任务。它包含一个 TemplateSendTask 对象和一个 ChannelHandler 映射，用于根据消息模板的发送渠道来处理任务。
- * 该任务会在独立线程中运行，并根据具体的发送渠道通过不同的 ChannelHandler 进行处理。
+ * 该类实现了 Supplier 接口，用于表示一个发送任务。它包含一个 TemplateSendTask 对象和该任务发送渠道对应的 ChannelHandler。
+ * 该任务会在渠道独立的线程池中运行，由对应的 ChannelHandler 进行处理。
+ * 每条消息都会创建一个任务，因此直接构造普通对象，而不是每次从 Spring 容器中获取原型 Bean。
+ * 任务返回渠道处理器的完成 Future，合并发送等异步处理的渠道在任务返回后才真正发送完成。
  */
 @Data
-@Accessors(chain = true) // 链式setter并返回对象
-@Component // 将该类标记为Spring管理的Bean
-@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE) // 指定Bean的作用域为原型作用域，即每次请求都会创建一个新的实例
-public class TemplateInfoTask implements Runnable {
+@AllArgsConstructor
+public class TemplateInfoTask implements Supplier<CompletableFuture<Void>> {
 
     /**
      * 发送任务信息
@@ -31,23 +28,21 @@ public class TemplateInfoTask implements Runnable {
     private TemplateSendTask TemplateSendTask;
 
     /**
-     * 渠道处理器映射
+     * 渠道处理器
      * <p>
-     * 该映射存储了不同渠道类型（如短信、邮件等）对应的处理器，用于处理发送任务。
-     * 每个渠道都有一个对应的 ChannelHandler，用来处理消息的发送逻辑。
+     * 发送任务的发送渠道（如短信、邮件等）对应的处理器，用来处理消息的发送逻辑。
      */
-    @Resource // 注入渠道处理器映射
-    private Map<Integer, ChannelHandler> channelHandlers;
+    private ChannelHandler channelHandler;
 
     /**
      * 任务执行方法
      * <p>
-     * 该方法实现了 Runnable 接口的 run 方法，用于执行发送任务。它根据消息模板的发送渠道，从 channelHandlers 映射中获取对应的处理器，
-     * 并调用其 handler 方法来处理发送任务信息。
+     * 该方法实现了 Supplier 接口的 get 方法，用于执行发送任务，调用渠道处理器的 handler 方法来处理发送任务信息。
+     *
+     * @return 发送任务处理完成的 Future
      */
     @Override
-    public void run() {
-        // 路由到对应的渠道handler，获取该渠道对应的处理器并执行处理逻辑
-        channelHandlers.get(TemplateSendTask.getMessageTemplate().getSendChannel()).handler(TemplateSendTask);
+    public CompletableFuture<Void> get() {
+        return channelHandler.handler(TemplateSendTask);
     }
 }
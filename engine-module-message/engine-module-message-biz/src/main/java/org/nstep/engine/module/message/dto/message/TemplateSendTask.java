@@ -39,6 +39,25 @@ public class TemplateSendTask {
      */
     private Set<String> receivers;
 
+    /**
+     * 接收者的存储 key
+     * <p>
+     * 接收者数量超过阈值时，MQ 消息中不携带接收者，只携带该 key，由消费端按块从 Redis 读取，见 ClaimCheckUtil。
+     * 为 null 表示接收者直接保存在 {@link #receivers} 中。
+     * </p>
+     */
+    private String receiverRef;
+
+    /**
+     * 存储在 {@link #receiverRef} 中的接收者数量
+     */
+    private Integer receiverCount;
+
+    /**
+     * 存储在 {@link #receiverRef} 中的块数
+     */
+    private Integer receiverChunks;
+
     /**
      * 共同消息模板(占位符数据已填充完毕)
      * <p>
@@ -48,6 +67,25 @@ public class TemplateSendTask {
      */
     private TemplateDO messageTemplate;
 
+    /**
+     * 模板 ID
+     * <p>
+     * 投递到 MQ 时不携带 {@link #messageTemplate}，只携带模板 ID、版本和替换占位符后的消息内容，
+     * 由消费端从本地模板缓存还原模板，见 TemplateRefUtil。
+     * </p>
+     */
+    private Long templateId;
+
+    /**
+     * 模板版本，取发送时模板的更新时间戳（毫秒）
+     */
+    private Long templateVersion;
+
+    /**
+     * 替换占位符后的消息内容，与模板中的消息内容相同时为 null
+     */
+    private String msgContent;
+
     /**
      * 用于查询redis中的发送任务
      * <p>
@@ -0,0 +1,392 @@
+package org.nstep.engine.module.message.handler.batch;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.handler.executor.ChannelExecutorRegistry;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
+
+/**
+ * 短信批量发送器
+ * <p>
+ * 人群发送拆分出的发送任务通常账号相同、模板参数相同，只是接收者不同。短信服务商的一次调用可以发送给多个手机号，
+ * 该类将批次 key（服务商、发送账号、消息内容）相同的发送任务合并后再调用服务商：
+ * <ul>
+ *     <li>批次的第一个发送任务到达后等待 engine.smsBatch.lingerMillis，到期后在短信渠道线程池中发送</li>
+ *     <li>批次的接收者数量达到服务商单次调用的上限时，立即在当前线程发送</li>
+ *     <li>发送时按服务商上限拆分接收者，一次调用可能包含多个发送任务的接收者，一个发送任务也可能跨多次调用</li>
+ *     <li>每个发送任务按其接收者所在调用的结果确认：调用异常或其任一接收者发送失败时确认为失败，否则确认为成功，没有接收者的发送任务确认为失败</li>
+ * </ul>
+ * 提交时返回的 Future 在发送任务确认后完成，渠道处理器将其返回给 MQ 消费端，消费端等待它完成后才确认消息并清理转存的接收者。
+ * 上报 engine.sms.batch.calls（服务商调用次数）、engine.sms.batch.receivers（每次调用的接收者数）、engine.sms.batch.tasks（每个批次合并的发送任务数）。
+ */
+@Component
+@Slf4j
+public class SmsBatcher {
+
+    /**
+     * 是否合并发送任务，关闭后每个发送任务单独发送（仍按服务商上限拆分接收者）
+     */
+    @Value("${engine.smsBatch.enabled:true}")
+    private Boolean enabled;
+
+    /**
+     * 批次的等待时间（毫秒）
+     */
+    @Value("${engine.smsBatch.lingerMillis:50}")
+    private Long lingerMillis;
+
+    @Resource
+    private DataUtil dataUtil;
+
+    @Resource
+    private ChannelExecutorRegistry channelExecutorRegistry;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 等待发送的批次，key 为批次 key
+     */
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 批次到期的计时线程，到期后将发送交给短信渠道线程池
+     */
+    private ScheduledExecutorService scheduler;
+
+    private Counter callCounter;
+
+    private DistributionSummary receiverSummary;
+
+    private DistributionSummary taskSummary;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("engine-sms-batch-%d").setDaemon(true).build());
+        callCounter = meterRegistry.counter("engine.sms.batch.calls");
+        receiverSummary = meterRegistry.summary("engine.sms.batch.receivers");
+        taskSummary = meterRegistry.summary("engine.sms.batch.tasks");
+    }
+
+    /**
+     * 应用关闭时立即发送所有等待中的批次
+     */
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        pending.keySet().forEach(batchKey -> {
+            Batch batch = pending.remove(batchKey);
+            if (batch != null) {
+                send(batch);
+            }
+        });
+    }
+
+    /**
+     * 提交一个发送任务
+     * <p>
+     * 发送结果由批次发送后统一确认，调用方不需要再调用 {@link DataUtil#confirmSend}。
+     * 接收者在提交时复制，之后发送任务的接收者被修改或清理都不影响发送。
+     *
+     * @param batchKey     批次 key，只有 key 相同的发送任务会被合并，需包含服务商、发送账号和消息内容
+     * @param sendTask     发送任务
+     * @param maxReceivers 服务商单次调用的接收者上限
+     * @param sender       调用服务商发送一组接收者，批次内的发送任务使用第一个发送任务的 sender
+     * @return 发送任务调用服务商并确认发送结果后完成的 Future
+     */
+    public CompletableFuture<Void> submit(String batchKey, TemplateSendTask sendTask, int maxReceivers, BatchSender sender) {
+        BatchTask batchTask = new BatchTask(sendTask, new ArrayList<>(sendTask.getReceivers()));
+        if (!enabled) {
+            Batch batch = new Batch(maxReceivers, sender);
+            batch.add(batchTask);
+            send(batch);
+            return batchTask.future;
+        }
+        Batch[] full = new Batch[1];
+        pending.compute(batchKey, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch(maxReceivers, sender);
+                Batch created = batch;
+                scheduler.schedule(() -> flush(key, created), lingerMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.add(batchTask);
+            if (batch.receiverCount >= maxReceivers) {
+                // 达到单次调用的上限，移出等待队列，在当前线程发送
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            send(full[0]);
+        }
+        return batchTask.future;
+    }
+
+    /**
+     * 批次到期：仍在等待队列中时（未因数量达到上限被发送）交给短信渠道线程池发送
+     */
+    private void flush(String batchKey, Batch batch) {
+        if (!pending.remove(batchKey, batch)) {
+            return;
+        }
+        ExecutorService executor = channelExecutorRegistry.getExecutor(MessageDataConstants.SMS);
+        try {
+            executor.execute(() -> send(batch));
+        } catch (Exception e) {
+            // 线程池拒绝或已关闭时在计时线程中发送，保证批次内的发送任务都会被确认
+            send(batch);
+        }
+    }
+
+    /**
+     * 发送一个批次，并按每个发送任务的接收者所在调用的结果确认发送任务，无论成功与否最后完成每个发送任务的 Future
+     */
+    private void send(Batch batch) {
+        try {
+            taskSummary.record(batch.tasks.size());
+            List<CallResult> results = new ArrayList<>();
+            List<int[]> ranges = ranges(batch);
+            List<String> receivers = new ArrayList<>(Math.min(batch.receiverCount, batch.maxReceivers));
+            for (BatchTask batchTask : batch.tasks) {
+                for (String receiver : batchTask.receivers) {
+                    receivers.add(receiver);
+                    if (receivers.size() == batch.maxReceivers) {
+                        results.add(call(batch.sender, receivers));
+                        receivers = new ArrayList<>(batch.maxReceivers);
+                    }
+                }
+            }
+            if (!receivers.isEmpty()) {
+                results.add(call(batch.sender, receivers));
+            }
+
+            for (int i = 0; i < batch.tasks.size(); i++) {
+                BatchTask batchTask = batch.tasks.get(i);
+                try {
+                    confirm(batchTask, results, ranges.get(i));
+                } catch (Exception e) {
+                    log.error("短信批量发送确认异常:{}:{}", batchTask.sendTask.getMessageId(), Throwables.getStackTraceAsString(e));
+                }
+            }
+        } finally {
+            batch.tasks.forEach(batchTask -> batchTask.future.complete(null));
+        }
+    }
+
+    /**
+     * 计算每个发送任务的接收者所在调用的下标范围
+     * <p>
+     * 接收者按发送任务的顺序依次放入调用，每 maxReceivers 个接收者为一次调用，第 n 个接收者（从 0 开始）所在调用的下标为 n / maxReceivers。
+     *
+     * @param batch 批次
+     * @return 与批次内发送任务一一对应的下标范围（闭区间），没有接收者的发送任务为空范围（range[1] < range[0]）
+     */
+    static List<int[]> ranges(Batch batch) {
+        List<int[]> ranges = new ArrayList<>(batch.tasks.size());
+        int offset = 0;
+        for (BatchTask batchTask : batch.tasks) {
+            int size = batchTask.receivers.size();
+            if (size == 0) {
+                ranges.add(new int[]{0, -1});
+                continue;
+            }
+            ranges.add(new int[]{offset / batch.maxReceivers, (offset + size - 1) / batch.maxReceivers});
+            offset += size;
+        }
+        return ranges;
+    }
+
+    /**
+     * 调用服务商发送一组接收者
+     */
+    private CallResult call(BatchSender sender, List<String> receivers) {
+        callCounter.increment();
+        receiverSummary.record(receivers.size());
+        try {
+            return new CallResult(sender.send(receivers), null);
+        } catch (Exception e) {
+            log.error("短信批量发送异常，接收者数量:{}:{}", receivers.size(), Throwables.getStackTraceAsString(e));
+            return new CallResult(null, e);
+        }
+    }
+
+    /**
+     * 按发送任务的接收者所在调用的结果确认发送任务
+     *
+     * @param batchTask 发送任务
+     * @param results   批次的调用结果
+     * @param range     发送任务的接收者所在调用的下标范围（闭区间），没有接收者时 range[1] < range[0]，确认为失败
+     */
+    private void confirm(BatchTask batchTask, List<CallResult> results, int[] range) {
+        TemplateSendTask sendTask = batchTask.sendTask;
+        if (range[1] < range[0]) {
+            // 没有调用服务商，不能确认为成功
+            dataUtil.confirmSend(null, sendTask.getMessageId(), sendTask.getSendMessageKey(), sendTask.getSendTaskId(),
+                    exception(ErrorCodeConstants.MESSAGE_TEMPLATE_ID_RECEIVER_EMPTY, sendTask.getMessageTemplate().getId()));
+            return;
+        }
+        Set<String> receipts = new LinkedHashSet<>();
+        boolean hasFailures = false;
+        for (int i = range[0]; i <= range[1]; i++) {
+            CallResult result = results.get(i);
+            if (result.exception != null) {
+                dataUtil.confirmSend(null, sendTask.getMessageId(), sendTask.getSendMessageKey(), sendTask.getSendTaskId(), result.exception);
+                return;
+            }
+            receipts.add(result.result.getReceipt());
+            hasFailures |= !result.result.getFailures().isEmpty();
+        }
+        if (hasFailures) {
+            List<String> failures = new ArrayList<>();
+            for (int i = range[0]; i <= range[1]; i++) {
+                Map<String, String> callFailures = results.get(i).result.getFailures();
+                for (String receiver : batchTask.receivers) {
+                    String failure = callFailures.get(receiver);
+                    if (failure != null) {
+                        failures.add(receiver + ":" + failure);
+                    }
+                }
+            }
+            if (!failures.isEmpty()) {
+                dataUtil.confirmSend(null, sendTask.getMessageId(), sendTask.getSendMessageKey(), sendTask.getSendTaskId(),
+                        exception(ErrorCodeConstants.SMS_SEND_EXCEPTION, String.join(MessageDataConstants.SEPARATOR, failures)));
+                return;
+            }
+        }
+        dataUtil.confirmSend(String.join(MessageDataConstants.SEPARATOR, receipts), sendTask.getMessageId(),
+                sendTask.getSendMessageKey(), sendTask.getSendTaskId(), new Exception());
+    }
+
+    /**
+     * 调用服务商发送一组接收者
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+
+        /**
+         * 发送
+         *
+         * @param receivers 接收者，不超过服务商单次调用的上限
+         * @return 调用结果
+         * @throws Exception 调用失败，这一组接收者所属的发送任务全部确认为失败
+         */
+        BatchResult send(List<String> receivers) throws Exception;
+
+    }
+
+    /**
+     * 服务商一次调用的结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BatchResult {
+
+        /**
+         * 回执（如 BizId、RequestId）
+         */
+        private final String receipt;
+
+        /**
+         * 发送失败的接收者及失败原因，服务商不返回单个接收者的结果时为空
+         */
+        private final Map<String, String> failures;
+
+        public static BatchResult of(String receipt) {
+            return new BatchResult(receipt, Collections.emptyMap());
+        }
+
+    }
+
+    /**
+     * 调用结果或调用异常
+     */
+    @AllArgsConstructor
+    private static class CallResult {
+
+        private final BatchResult result;
+
+        private final Exception exception;
+
+    }
+
+    /**
+     * 批次内的一个发送任务
+     */
+    static class BatchTask {
+
+        private final TemplateSendTask sendTask;
+
+        /**
+         * 提交时复制的接收者
+         */
+        private final List<String> receivers;
+
+        /**
+         * 确认发送结果后完成
+         */
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        BatchTask(TemplateSendTask sendTask, List<String> receivers) {
+            this.sendTask = sendTask;
+            this.receivers = receivers;
+        }
+
+    }
+
+    /**
+     * 等待发送的批次
+     */
+    static class Batch {
+
+        private final int maxReceivers;
+
+        private final BatchSender sender;
+
+        private final List<BatchTask> tasks = new ArrayList<>();
+
+        private int receiverCount;
+
+        Batch(int maxReceivers, BatchSender sender) {
+            this.maxReceivers = maxReceivers;
+            this.sender = sender;
+        }
+
+        void add(BatchTask batchTask) {
+            tasks.add(batchTask);
+            receiverCount += batchTask.receivers.size();
+        }
+
+    }
+
+}
@@ -9,7 +9,7 @@ import org.nstep.engine.module.message.dal.mysql.template.TemplateMapper;
 import org.nstep.engine.module.message.dto.content.CronTaskContent;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
-import org.nstep.engine.module.message.process.management.BusinessProcess;
+import org.nstep.engine.module.message.process.management.ProcessExecutor;
 import org.nstep.engine.module.message.process.management.ProcessTemplate;
 import org.nstep.engine.module.message.service.template.MessageManagementService;
 import org.nstep.engine.module.message.util.DataUtil;
@@ -29,6 +29,9 @@ public class CronTaskHandlerImpl implements CronTaskHandler {
     @Resource
     private ProcessTemplate cronTaskTemplate;  // 定时任务模板，包含任务流程的定义
 
+    @Resource
+    private ProcessExecutor processExecutor;  // 责任链执行器，记录各流程的耗时和结果
+
     @Resource
     private TemplateMapper templateMapper;    // 模板管理器，用于从数据库中查询任务模板
 
@@ -49,27 +52,19 @@ public class CronTaskHandlerImpl implements CronTaskHandler {
         // 根据任务ID查询模板
         TemplateDO messageTemplate = templateMapper.selectById(id);
 
-        // 构建任务处理内容对象
-        ProcessContent content = CronTaskContent.builder().messageTemplate(messageTemplate).sender(sender).build();
-
-        // 执行任务流程
-        for (BusinessProcess process : cronTaskTemplate.getProcesses()) {
-            // 处理当前流程
-            content = process.process(content);
-
-            // 如果流程需要中止，则记录错误信息并抛出异常
-            if (content.getIsNeedBreak()) {
-                recordError(messageTemplate, content.getResponse(), sender);
-                throw exception(ErrorCodeConstants.EMPTY_OBJECT, content.getResponse().getMsg());
-            }
-        }
+        // 构建任务处理内容对象，人群文件的每个分片都通过消息发送服务进入发送流程
+        ProcessContent content = CronTaskContent.builder()
+                .messageTemplate(messageTemplate)
+                .sender(sender)
+                .shardSender(sendMessageService::send)
+                .build();
 
-        // 进入消息发送流程
-        CommonResult<?> result = sendMessageService.send(content);
+        // 执行任务流程（读取人群文件并分片发送）
+        content = processExecutor.execute(cronTaskTemplate, content);
 
-        // 如果消息发送失败，记录错误信息并抛出异常
-        if (result.isError()) {
-            recordError(messageTemplate, result, sender);
+        // 如果流程需要中止，则记录错误信息并抛出异常
+        if (content.getIsNeedBreak()) {
+            recordError(messageTemplate, content.getResponse(), sender);
             throw exception(ErrorCodeConstants.EMPTY_OBJECT, content.getResponse().getMsg());
         }
     }
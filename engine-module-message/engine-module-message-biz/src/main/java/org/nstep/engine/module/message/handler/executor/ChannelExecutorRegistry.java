@@ -0,0 +1,314 @@
+package org.nstep.engine.module.message.handler.executor;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.config.ChannelConfig;
+import org.nstep.engine.module.message.config.ChannelExecutorProperties;
+import org.springframework.cloud.endpoint.event.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渠道线程池注册表
+ * <p>
+ * 每个发送渠道（邮件、短信、钉钉、微信、推送、飞书等）使用一个独立的线程池，某个渠道的第三方服务变慢时不会拖垮其他渠道。
+ * 线程池参数来自 {@link ChannelExecutorProperties}，配置中心刷新后即时调整，无需重启。
+ * 每个渠道按 channel 标签上报以下指标：
+ * <ul>
+ *     <li>executor.pool.size / executor.active / executor.queued / executor.queue.remaining：线程数、活跃线程数、队列深度</li>
+ *     <li>executor / executor.idle：任务执行耗时、任务在队列中的等待耗时</li>
+ *     <li>engine.channel.executor.rejected：被拒绝的任务数</li>
+ *     <li>engine.channel.virtual.active / engine.channel.virtual.available：虚拟线程模式下正在执行的任务数、剩余并发数</li>
+ * </ul>
+ * 渠道开启虚拟线程模式（JDK 21 及以上）后，{@link #getExecutor(Integer)} 返回该渠道的 {@link VirtualThreadExecutor}，
+ * 同时启动 {@link VirtualThreadPinningMonitor} 上报固定载体线程的位置；关闭后重新返回线程池，已提交的任务继续执行完成。
+ */
+@Component
+@Slf4j
+public class ChannelExecutorRegistry {
+
+    /**
+     * 渠道编号到渠道线程池的映射，启动后不再增删，只调整参数
+     */
+    private final Map<Integer, ChannelExecutor> executors = new HashMap<>();
+
+    @Resource
+    private ChannelExecutorProperties channelExecutorProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+
+    /**
+     * 为所有支持的渠道创建线程池，JDK 支持虚拟线程时同时创建虚拟线程执行器
+     */
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < ChannelConfig.CHANNELS.size(); i++) {
+            Integer channel = ChannelConfig.CHANNELS.get(i);
+            String channelName = ChannelConfig.CHANNEL_NAMES.get(i);
+            ChannelExecutorProperties.Pool config = channelExecutorProperties.resolve(channel);
+
+            ResizableLinkedBlockingQueue<Runnable> queue = new ResizableLinkedBlockingQueue<>(config.getQueueCapacity());
+            Counter rejected = meterRegistry.counter("engine.channel.executor.rejected", "channel", channelName);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(config.getCorePoolSize(), config.getMaxPoolSize(),
+                    config.getKeepAliveSeconds(), TimeUnit.SECONDS, queue,
+                    new ThreadFactoryBuilder().setNameFormat("engine-" + channelName + "-%d").build(),
+                    new CountingRejectedExecutionHandler(rejected, buildRejectedPolicy(config.getRejectedPolicy())));
+            ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, pool, "channel_" + channelName,
+                    Tags.of("channel", channelName));
+
+            VirtualThreadExecutor virtual = null;
+            ExecutorService virtualMonitored = null;
+            if (VirtualThreadExecutor.isSupported()) {
+                virtual = new VirtualThreadExecutor("engine-" + channelName + "-vt-", config.getMaxConcurrency());
+                virtualMonitored = ExecutorServiceMetrics.monitor(meterRegistry, virtual, "channel_" + channelName + "_virtual",
+                        Tags.of("channel", channelName));
+                meterRegistry.gauge("engine.channel.virtual.active", Tags.of("channel", channelName), virtual,
+                        VirtualThreadExecutor::getActiveCount);
+                meterRegistry.gauge("engine.channel.virtual.available", Tags.of("channel", channelName), virtual,
+                        VirtualThreadExecutor::getAvailablePermits);
+            }
+            ChannelExecutor executor = new ChannelExecutor(pool, queue, rejected, monitored, virtual, virtualMonitored);
+            executors.put(channel, executor);
+            applyMode(channel, executor, config);
+        }
+    }
+
+    /**
+     * 获取渠道的线程池
+     * <p>
+     * 返回的线程池包装了耗时统计，提交任务请使用它而不是原始的 {@link ThreadPoolExecutor}
+     *
+     * @param channel 渠道编号
+     * @return 渠道的线程池，渠道不支持时返回 null
+     */
+    public ExecutorService getExecutor(Integer channel) {
+        ChannelExecutor executor = executors.get(channel);
+        if (executor == null) {
+            return null;
+        }
+        return executor.useVirtual ? executor.virtualMonitored : executor.monitored;
+    }
+
+    /**
+     * 配置中心刷新后，按最新配置调整所有渠道的线程池
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        executors.keySet().forEach(channel -> resize(channel, channelExecutorProperties.resolve(channel)));
+    }
+
+    /**
+     * 调整渠道线程池的参数
+     *
+     * @param channel 渠道编号
+     * @param config  线程池配置
+     */
+    public void resize(Integer channel, ChannelExecutorProperties.Pool config) {
+        ChannelExecutor executor = executors.get(channel);
+        if (executor == null) {
+            return;
+        }
+        if (config.getCorePoolSize() > config.getMaxPoolSize()) {
+            log.error("渠道:{} 线程池配置无效，核心线程数:{} 大于最大线程数:{}", channel, config.getCorePoolSize(), config.getMaxPoolSize());
+            return;
+        }
+        ThreadPoolExecutor pool = executor.pool;
+        // 核心线程数不能大于最大线程数，调大时先调整最大线程数，调小时先调整核心线程数
+        if (config.getCorePoolSize() > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(config.getMaxPoolSize());
+            pool.setCorePoolSize(config.getCorePoolSize());
+        } else {
+            pool.setCorePoolSize(config.getCorePoolSize());
+            pool.setMaximumPoolSize(config.getMaxPoolSize());
+        }
+        pool.setKeepAliveTime(config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+        executor.queue.setCapacity(config.getQueueCapacity());
+        pool.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(executor.rejected,
+                buildRejectedPolicy(config.getRejectedPolicy())));
+        applyMode(channel, executor, config);
+        log.info("渠道:{} 线程池已调整，核心线程数:{} 最大线程数:{} 队列容量:{} 拒绝策略:{} 虚拟线程:{} 最大并发数:{}", channel,
+                config.getCorePoolSize(), config.getMaxPoolSize(), config.getQueueCapacity(), config.getRejectedPolicy(),
+                executor.useVirtual, config.getMaxConcurrency());
+    }
+
+    /**
+     * 按配置切换渠道的执行模式，JDK 不支持虚拟线程时仍使用线程池
+     *
+     * @param channel  渠道编号
+     * @param executor 渠道线程池
+     * @param config   线程池配置
+     */
+    private void applyMode(Integer channel, ChannelExecutor executor, ChannelExecutorProperties.Pool config) {
+        if (!config.getVirtualThreads()) {
+            executor.useVirtual = false;
+            return;
+        }
+        if (executor.virtual == null) {
+            log.warn("渠道:{} 配置了虚拟线程，但当前 JDK:{} 不支持虚拟线程，继续使用线程池", channel, Runtime.version());
+            executor.useVirtual = false;
+            return;
+        }
+        executor.virtual.setMaxConcurrency(config.getMaxConcurrency());
+        executor.useVirtual = true;
+        virtualThreadPinningMonitor.start();
+    }
+
+    /**
+     * 应用关闭时停止接收新任务，并等待已提交的任务执行完成
+     */
+    @PreDestroy
+    public void destroy() {
+        executors.values().forEach(executor -> {
+            executor.pool.shutdown();
+            if (executor.virtual != null) {
+                executor.virtual.shutdown();
+            }
+        });
+        executors.forEach((channel, executor) -> {
+            try {
+                if (!executor.pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("渠道:{} 线程池关闭超时，剩余任务数:{}", channel, executor.queue.size());
+                }
+                if (executor.virtual != null && !executor.virtual.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("渠道:{} 虚拟线程执行器关闭超时，剩余任务数:{}", channel, executor.virtual.getActiveCount());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    /**
+     * 根据名称构建拒绝策略，未知名称使用 CallerRunsPolicy
+     * <p>
+     * 不支持 DiscardPolicy、DiscardOldestPolicy：被丢弃的任务既不会执行也不会抛出异常，
+     * 任务的 Future 永远不会完成，MQ 消费线程会一直等待，消息也不会被确认为发送失败。
+     * AbortPolicy 在提交时抛出异常，提交方会将该发送任务确认为失败。
+     *
+     * @param name 拒绝策略名称
+     * @return 拒绝策略
+     */
+    private static RejectedExecutionHandler buildRejectedPolicy(String name) {
+        if ("AbortPolicy".equals(name)) {
+            return new ThreadPoolExecutor.AbortPolicy();
+        }
+        if (!"CallerRunsPolicy".equals(name)) {
+            log.warn("不支持的渠道线程池拒绝策略:{}，使用 CallerRunsPolicy", name);
+        }
+        return new ThreadPoolExecutor.CallerRunsPolicy();
+    }
+
+    /**
+     * 渠道线程池
+     */
+    private static class ChannelExecutor {
+
+        private final ThreadPoolExecutor pool;
+
+        private final ResizableLinkedBlockingQueue<Runnable> queue;
+
+        private final Counter rejected;
+
+        /**
+         * 包装了耗时统计的线程池
+         */
+        private final ExecutorService monitored;
+
+        /**
+         * 虚拟线程执行器，JDK 不支持虚拟线程时为 null
+         */
+        private final VirtualThreadExecutor virtual;
+
+        /**
+         * 包装了耗时统计的虚拟线程执行器
+         */
+        private final ExecutorService virtualMonitored;
+
+        /**
+         * 是否使用虚拟线程执行器
+         */
+        private volatile boolean useVirtual;
+
+        private ChannelExecutor(ThreadPoolExecutor pool, ResizableLinkedBlockingQueue<Runnable> queue, Counter rejected,
+                                ExecutorService monitored, VirtualThreadExecutor virtual, ExecutorService virtualMonitored) {
+            this.pool = pool;
+            this.queue = queue;
+            this.rejected = rejected;
+            this.monitored = monitored;
+            this.virtual = virtual;
+            this.virtualMonitored = virtualMonitored;
+        }
+
+    }
+
+    /**
+     * 统计拒绝次数的拒绝策略
+     */
+    @AllArgsConstructor
+    private static class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        private final Counter rejected;
+
+        private final RejectedExecutionHandler delegate;
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejected.increment();
+            delegate.rejectedExecution(r, executor);
+        }
+
+    }
+
+    /**
+     * 容量可调整的阻塞队列
+     * <p>
+     * 线程池只通过 offer 入队，因此只需在 offer 时按当前容量判断；容量检查与入队不是原子的，并发时可能短暂超出少量元素。
+     */
+    private static class ResizableLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+        private volatile int capacity;
+
+        private ResizableLinkedBlockingQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean offer(E e) {
+            if (size() >= capacity) {
+                return false;
+            }
+            return super.offer(e);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(capacity - size(), 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.nstep.engine.module.message.handler.executor;
+
+import com.alibaba.ttl.TtlRunnable;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渠道的虚拟线程执行器
+ * <p>
+ * 每个任务使用一个新的虚拟线程执行，并发数由信号量限制：
+ * <ul>
+ *     <li>达到并发上限时，提交任务的线程（MQ 消费线程）在 {@link #execute(Runnable)} 中等待，与线程池的 CallerRunsPolicy 一样向消费端传导背压</li>
+ *     <li>任务通过 {@link TtlRunnable} 包装，提交时的租户、链路等 TransmittableThreadLocal 上下文在虚拟线程中同样可见</li>
+ *     <li>并发上限可以在运行时调整，调小时已在执行的任务不受影响，新任务等待并发数降到新的上限以下</li>
+ * </ul>
+ * 项目以 JDK 17 编译，虚拟线程通过反射创建，运行在 JDK 21 以下时 {@link #isSupported()} 返回 false。
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * Thread.ofVirtual 方法，JDK 不支持虚拟线程时为 null
+     */
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+    private final ThreadFactory threadFactory;
+
+    private final ResizableSemaphore permits;
+
+    /**
+     * 正在执行任务的虚拟线程
+     */
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param threadNamePrefix 虚拟线程的名称前缀，后接递增序号
+     * @param maxConcurrency   最大并发数
+     */
+    VirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        this.threadFactory = newThreadFactory(threadNamePrefix);
+        this.permits = new ResizableSemaphore(maxConcurrency);
+    }
+
+    /**
+     * 当前 JDK 是否支持虚拟线程
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 调整最大并发数
+     *
+     * @param maxConcurrency 最大并发数
+     */
+    void setMaxConcurrency(int maxConcurrency) {
+        permits.setLimit(maxConcurrency);
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    int getActiveCount() {
+        return threads.size();
+    }
+
+    /**
+     * 剩余可用的并发数，调小并发上限后可能短暂为负
+     */
+    int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("渠道虚拟线程执行器已关闭");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待渠道并发数时被中断", e);
+        }
+        // 在提交线程上捕获 TransmittableThreadLocal 上下文
+        Runnable task = TtlRunnable.get(command);
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                threads.remove(Thread.currentThread());
+                permits.release();
+            }
+        });
+        threads.add(thread);
+        try {
+            thread.start();
+        } catch (Throwable e) {
+            threads.remove(thread);
+            permits.release();
+            throw new RejectedExecutionException("渠道虚拟线程启动失败", e);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        threads.forEach(Thread::interrupt);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads.toArray(new Thread[0])) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            thread.join(remainingMillis);
+        }
+        return threads.isEmpty();
+    }
+
+    /**
+     * 通过反射调用 Thread.ofVirtual().name(prefix, 0).factory()
+     */
+    private static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("当前 JDK 不支持虚拟线程:" + Runtime.version());
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("创建虚拟线程工厂失败", e);
+        }
+    }
+
+    private static Method findMethod(Class<?> clazz, String name) {
+        try {
+            return clazz.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 许可数上限可调整的信号量
+     */
+    private static class ResizableSemaphore extends Semaphore {
+
+        private int limit;
+
+        private ResizableSemaphore(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        private synchronized void setLimit(int limit) {
+            int delta = limit - this.limit;
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+            this.limit = limit;
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.nstep.engine.module.message.handler.executor;
+
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程固定（pinning）监控
+ * <p>
+ * 虚拟线程在 synchronized 代码块或本地方法中阻塞时无法从载体线程上卸载，会固定载体线程，
+ * 固定次数多时虚拟线程模式的并发能力退化为载体线程数（默认等于 CPU 核数）。
+ * 该类在有渠道开启虚拟线程模式后，通过 JFR 事件流订阅 jdk.VirtualThreadPinned 事件：
+ * <ul>
+ *     <li>固定时间超过 engine.virtualThread.pinnedThresholdMillis 的事件计入 engine.channel.virtual.pinned（固定次数和耗时）</li>
+ *     <li>每个固定位置（第一个项目代码栈帧，没有时为栈顶）第一次出现时打印完整栈，之后每 1000 次打印一次累计次数，避免刷屏</li>
+ * </ul>
+ * 也可以通过 JVM 参数 -Djdk.tracePinnedThreads=short 在标准输出中查看固定位置。
+ */
+@Component
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    /**
+     * JDK 21 的虚拟线程固定事件
+     */
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 项目代码的包名前缀，用于定位固定位置
+     */
+    private static final String PROJECT_PACKAGE = "org.nstep.";
+
+    /**
+     * 是否监控虚拟线程固定
+     */
+    @Value("${engine.virtualThread.pinnedMonitor:true}")
+    private Boolean enabled;
+
+    /**
+     * 上报的最短固定时间（毫秒），短暂的固定对吞吐影响很小
+     */
+    @Value("${engine.virtualThread.pinnedThresholdMillis:20}")
+    private Long thresholdMillis;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 固定位置到固定次数的映射
+     */
+    private final Map<String, LongAdder> locations = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    private Timer pinnedTimer;
+
+    /**
+     * 开始监控，重复调用时只启动一次
+     */
+    public synchronized void start() {
+        if (!enabled || stream != null) {
+            return;
+        }
+        try {
+            pinnedTimer = meterRegistry.timer("engine.channel.virtual.pinned");
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            log.info("虚拟线程固定监控已启动，阈值:{}ms", thresholdMillis);
+        } catch (Exception e) {
+            // JFR 不可用（如被 JVM 参数禁用）时只影响监控，不影响发送
+            log.error("虚拟线程固定监控启动失败:{}", Throwables.getStackTraceAsString(e));
+            stream = null;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        pinnedTimer.record(duration);
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String location = locate(frames);
+        LongAdder count = locations.computeIfAbsent(location, key -> new LongAdder());
+        count.increment();
+        long times = count.sum();
+        if (times == 1) {
+            StringBuilder stack = new StringBuilder();
+            frames.forEach(frame -> stack.append("\n\tat ").append(format(frame)));
+            log.warn("虚拟线程固定载体线程:{}ms 位置:{} 线程:{}{}", duration.toMillis(), location,
+                    event.getThread() == null ? null : event.getThread().getJavaName(), stack);
+        } else if (times % 1000 == 0) {
+            log.warn("虚拟线程固定载体线程 位置:{} 累计次数:{}", location, times);
+        }
+    }
+
+    /**
+     * 定位固定位置：第一个项目代码栈帧，没有时为栈顶
+     */
+    private static String locate(List<RecordedFrame> frames) {
+        if (frames.isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(PROJECT_PACKAGE)) {
+                return format(frame);
+            }
+        }
+        return format(frames.get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+}
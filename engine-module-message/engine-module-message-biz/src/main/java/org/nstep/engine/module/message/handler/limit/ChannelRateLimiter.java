@@ -0,0 +1,231 @@
+package org.nstep.engine.module.message.handler.limit;
+
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.config.ChannelConfig;
+import org.nstep.engine.module.message.config.ChannelRateLimitProperties;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.springframework.cloud.endpoint.event.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 渠道限流器
+ * <p>
+ * 渠道处理器调用第三方服务前，按（渠道，发送账号）获取一个令牌，没有令牌时在当前渠道线程中等待，
+ * 渠道线程被占满后由渠道线程池的队列和拒绝策略继续向 MQ 消费端传导背压，超出速率的发送任务被延后而不是失败。
+ * 令牌桶采用预约的方式：令牌数允许为负，每次获取时扣减一个令牌并返回需要等待的时间，等待的任务按获取顺序依次放行，
+ * 长时间持续发送时放行速率正好等于配置的速率。
+ * <ul>
+ *     <li>local：令牌桶保存在本机内存中</li>
+ *     <li>cluster：令牌桶保存在 Redis（engineX:rateLimit:channel:account）中，通过 Lua 脚本原子地扣减，
+ *     使用各实例的本机时间，实例间时钟偏差会带来少量误差；Redis 不可用时退化为本机限流</li>
+ * </ul>
+ * 按 channel 标签上报 engine.channel.rateLimit.wait（等待令牌的耗时）和 engine.channel.rateLimit.shaped（被延后的发送任务数）。
+ */
+@Component
+@Slf4j
+public class ChannelRateLimiter {
+
+    /**
+     * 预约一个令牌，返回需要等待的毫秒数
+     * <p>
+     * KEYS[1]：令牌桶 key；ARGV[1]：每毫秒令牌数；ARGV[2]：令牌桶容量；ARGV[3]：当前时间戳（毫秒）
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local rate = tonumber(ARGV[1]) " +
+                    "local capacity = tonumber(ARGV[2]) " +
+                    "local now = tonumber(ARGV[3]) " +
+                    "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+                    "local tokens = tonumber(state[1]) " +
+                    "local ts = tonumber(state[2]) " +
+                    "if tokens == nil or ts == nil then tokens = capacity ts = now end " +
+                    "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate) ts = now end " +
+                    "tokens = tokens - 1 " +
+                    "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts)) " +
+                    "redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000) " +
+                    "if tokens >= 0 then return 0 end " +
+                    "return math.ceil(-tokens / rate)",
+            Long.class);
+
+    @Resource
+    private ChannelRateLimitProperties channelRateLimitProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 本机令牌桶，key 为 渠道:发送账号
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 渠道编号到等待耗时的映射
+     */
+    private final Map<Integer, Timer> waitTimers = new HashMap<>();
+
+    /**
+     * 渠道编号到被延后任务数的映射
+     */
+    private final Map<Integer, Counter> shapedCounters = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < ChannelConfig.CHANNELS.size(); i++) {
+            Integer channel = ChannelConfig.CHANNELS.get(i);
+            String channelName = ChannelConfig.CHANNEL_NAMES.get(i);
+            waitTimers.put(channel, meterRegistry.timer("engine.channel.rateLimit.wait", "channel", channelName));
+            shapedCounters.put(channel, meterRegistry.counter("engine.channel.rateLimit.shaped", "channel", channelName));
+        }
+    }
+
+    /**
+     * 配置中心刷新后丢弃本机令牌桶，下次获取时按最新配置创建
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        buckets.clear();
+    }
+
+    /**
+     * 获取一个令牌，没有令牌时阻塞等待
+     *
+     * @param channel 渠道编号
+     * @param account 发送账号
+     */
+    public void acquire(Integer channel, Integer account) {
+        if (!channelRateLimitProperties.getEnabled()) {
+            return;
+        }
+        ChannelRateLimitProperties.Limit limit = channelRateLimitProperties.resolve(channel, account);
+        if (limit.getPermitsPerSecond() == null) {
+            return;
+        }
+        String bucketKey = channel + ":" + account;
+        long waitMillis = ChannelRateLimitProperties.MODE_CLUSTER.equals(channelRateLimitProperties.getMode())
+                ? reserveCluster(bucketKey, limit)
+                : reserveLocal(bucketKey, limit);
+
+        Timer waitTimer = waitTimers.get(channel);
+        if (waitMillis <= 0) {
+            if (waitTimer != null) {
+                waitTimer.record(0, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        Counter shapedCounter = shapedCounters.get(channel);
+        if (shapedCounter != null) {
+            shapedCounter.increment();
+        }
+        long start = System.nanoTime();
+        try {
+            TimeUnit.MILLISECONDS.sleep(waitMillis);
+        } catch (InterruptedException e) {
+            // 线程池关闭时不再等待，直接发送
+            Thread.currentThread().interrupt();
+        } finally {
+            if (waitTimer != null) {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 从本机令牌桶预约一个令牌
+     */
+    private long reserveLocal(String bucketKey, ChannelRateLimitProperties.Limit limit) {
+        TokenBucket bucket = buckets.computeIfAbsent(bucketKey,
+                key -> new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst()));
+        // 向上取整，避免不足 1 毫秒的等待被忽略
+        long waitNanos = bucket.reserve(System.nanoTime());
+        return (waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 从 Redis 中的令牌桶预约一个令牌，Redis 不可用时使用本机令牌桶
+     */
+    private long reserveCluster(String bucketKey, ChannelRateLimitProperties.Limit limit) {
+        try {
+            Long waitMillis = stringRedisTemplate.execute(RESERVE_SCRIPT,
+                    Collections.singletonList(MessageDataConstants.RATE_LIMIT + bucketKey),
+                    String.valueOf(limit.getPermitsPerSecond() / 1000), String.valueOf(limit.getBurst()),
+                    String.valueOf(System.currentTimeMillis()));
+            return Objects.requireNonNullElse(waitMillis, 0L);
+        } catch (Exception e) {
+            log.error("集群限流失败，使用本机限流:{}:{}", bucketKey, Throwables.getStackTraceAsString(e));
+            return reserveLocal(bucketKey, limit);
+        }
+    }
+
+    /**
+     * 本机令牌桶
+     * <p>
+     * 渠道线程可能是虚拟线程，使用 {@link ReentrantLock} 而不是 synchronized，竞争时不会固定载体线程。
+     */
+    static class TokenBucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 每纳秒令牌数
+         */
+        private final double ratePerNanos;
+
+        private final double capacity;
+
+        /**
+         * 当前令牌数，为负数时表示已被预约的令牌数
+         */
+        private double tokens;
+
+        private long lastNanos;
+
+        TokenBucket(double permitsPerSecond, int capacity) {
+            this.ratePerNanos = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastNanos = System.nanoTime();
+        }
+
+        /**
+         * 预约一个令牌
+         *
+         * @param nowNanos 当前时间（{@link System#nanoTime()}）
+         * @return 需要等待的纳秒数，有令牌时为 0
+         */
+        long reserve(long nowNanos) {
+            lock.lock();
+            try {
+                if (nowNanos > lastNanos) {
+                    tokens = Math.min(capacity, tokens + (nowNanos - lastNanos) * ratePerNanos);
+                    lastNanos = nowNanos;
+                }
+                tokens -= 1;
+                return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / ratePerNanos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.nstep.engine.module.message.handler.real;
 
 
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
@@ -9,12 +10,13 @@ import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.aliyun.AlibabaCloudSmsConfig;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.SmsContentModel;
+import org.nstep.engine.module.message.handler.batch.SmsBatcher;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
 import org.nstep.engine.module.message.util.aliyun.AlibabaCloudSMSSendUtils;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -25,41 +27,63 @@ import java.util.Set;
 @Slf4j
 public class AlibabaCloudServiceSmsHandler extends ChannelHandler {
 
+    /**
+     * 单次调用的手机号上限
+     */
+    private static final int MAX_PHONES = 1000;
+
+    /**
+     * 批次 key 前缀
+     */
+    private static final String BATCH_KEY_PREFIX = "aliyun:";
+
     @Resource
     private AccountUtil accountUtil; // 自动注入AccountUtil，用于获取阿里云短信的账号配置信息
 
+    @Resource
+    private SmsBatcher smsBatcher; // 短信批量发送器，合并账号、内容相同的发送任务
+
     @Resource
     private DataUtil dataUtil; // 自动注入DataUtil，用于处理数据和确认短信发送状态
 
+    /**
+     * 处理短信发送任务，等待批量发送器发送并确认后返回
+     *
+     * @param TemplateSendTask 短信发送任务
+     */
+    @Override
+    void doHandler(TemplateSendTask TemplateSendTask) {
+        doHandlerAsync(TemplateSendTask).join();
+    }
+
     /**
      * 处理短信发送任务的方法。
-     * 从任务中提取短信模板、接收者、短信内容等信息，调用阿里云短信服务API发送短信。
+     * 从任务中提取短信模板、短信内容等信息，交给短信批量发送器与账号、内容相同的发送任务合并后调用阿里云短信服务API发送短信。
      *
      * @param TemplateSendTask 短信发送任务，包含发送所需的各种信息（如短信模板、接收者、发送任务ID等）
+     * @return 批次发送并确认发送结果后完成的 Future
      */
     @Override
-    void doHandler(TemplateSendTask TemplateSendTask) {
+    CompletableFuture<Void> doHandlerAsync(TemplateSendTask TemplateSendTask) {
 
         try {
             // 获取阿里云短信账号配置信息
             AlibabaCloudSmsConfig account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), AlibabaCloudSmsConfig.class);
 
-            // 获取接收者手机号集合，并将其转换为以分隔符分隔的字符串
-            Set<String> receivers = TemplateSendTask.getReceivers();
-            String phones = String.join(MessageDataConstants.SEPARATOR, receivers);
-
             // 从模板中获取短信内容，并转换为SmsContentModel对象
             SmsContentModel smsContentModel = JSON.parseObject(TemplateSendTask.getMessageTemplate().getMsgContent(), SmsContentModel.class);
+            String param = getSmsContent(smsContentModel).toJSONString();
 
-            // 调用阿里云短信发送工具类发送短信，获取回执ID
-            String bZid = AlibabaCloudSMSSendUtils.sendMessage(account, phones, getSmsContent(smsContentModel).toJSONString());
-
-            // 短信发送后，确认发送状态
-            dataUtil.confirmSend(bZid, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), new Exception());
+            // 账号和消息内容相同的发送任务合并发送，接收者手机号以分隔符拼接，发送结果（回执ID）由批量发送器确认
+            String batchKey = BATCH_KEY_PREFIX + TemplateSendTask.getMessageTemplate().getSendAccount()
+                    + StrUtil.COLON + TemplateSendTask.getMessageTemplate().getMsgContent();
+            return smsBatcher.submit(batchKey, TemplateSendTask, MAX_PHONES, phones -> SmsBatcher.BatchResult.of(
+                    AlibabaCloudSMSSendUtils.sendMessage(account, String.join(MessageDataConstants.SEPARATOR, phones), param)));
         } catch (Exception e) {
             // 如果发生异常，记录失败并确认发送状态
             dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), e);
             log.error("阿里云短信发送异常:{}", Throwables.getStackTraceAsString(e)); // 记录错误日志
+            return CompletableFuture.completedFuture(null);
         }
 
     }
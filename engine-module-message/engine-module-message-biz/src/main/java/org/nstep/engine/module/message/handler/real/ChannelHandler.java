@@ -4,11 +4,15 @@ import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import jakarta.annotation.Resource;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.SmsContentModel;
+import org.nstep.engine.module.message.handler.limit.ChannelRateLimiter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,21 +24,57 @@ import java.util.regex.Pattern;
  */
 public abstract class ChannelHandler {
 
+    /**
+     * URL 占位符 ${key} 的正则表达式
+     */
+    private static final Pattern URL_VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+
+    @Resource
+    private ChannelRateLimiter channelRateLimiter; // 渠道限流器，按（渠道，发送账号）获取令牌
+
     /**
      * 处理发送任务
      * <p>
      * 该方法是公开的入口方法，所有具体的渠道处理器都可以调用该方法来处理任务。内部调用了 `doHandler` 方法，实际的任务处理逻辑由子类实现。
+     * 调用前按（渠道，发送账号）获取令牌，超出第三方服务的速率限制时在此等待，而不是请求后被拒绝。
+     * <p>
+     * 返回的 Future 完成时发送任务已经调用服务商并确认了发送结果，MQ 消费端等待它完成后才确认消息并清理转存的接收者。
      *
      * @param TemplateSendTask 发送任务的详细信息，包括发送的内容和目标等。
+     * @return 发送任务处理完成的 Future
      */
-    public void handler(TemplateSendTask TemplateSendTask) {
+    public CompletableFuture<Void> handler(TemplateSendTask TemplateSendTask) {
+        // 按（渠道，发送账号）限流
+        TemplateDO messageTemplate = TemplateSendTask.getMessageTemplate();
+        channelRateLimiter.acquire(messageTemplate.getSendChannel(), messageTemplate.getSendAccount());
         // 调用具体实现的 doHandler 方法进行任务处理
-        doHandler(TemplateSendTask);
+        return doHandlerAsync(TemplateSendTask);
     }
 
-    // 抽象方法，子类必须实现，具体的任务处理逻辑将在这里定义
+    /**
+     * 处理发送任务，子类必须实现
+     * <p>
+     * 方法返回前必须完成发送并通过 DataUtil#confirmSend 确认发送结果：返回后 MQ 消息即被确认，
+     * 转存到 Redis 的接收者也会被清理，之后再读取发送任务的接收者或确认结果都可能丢失。
+     * 需要在其他线程中完成发送的处理器（如合并发送）请覆盖 {@link #doHandlerAsync(TemplateSendTask)}。
+     *
+     * @param TemplateSendTask 发送任务
+     */
     abstract void doHandler(TemplateSendTask TemplateSendTask);
 
+    /**
+     * 处理发送任务，返回发送完成并确认后才完成的 Future
+     * <p>
+     * 默认在当前线程调用 {@link #doHandler(TemplateSendTask)}，返回已完成的 Future。
+     *
+     * @param TemplateSendTask 发送任务
+     * @return 发送任务处理完成的 Future
+     */
+    CompletableFuture<Void> doHandlerAsync(TemplateSendTask TemplateSendTask) {
+        doHandler(TemplateSendTask);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * 长链接转短链，功能尚未实现
      * <p>
@@ -78,8 +118,7 @@ public abstract class ChannelHandler {
         List<String> urls = new ArrayList<>();
 
         // 使用正则表达式匹配占位符
-        Pattern pattern = Pattern.compile("\\$\\{([^}]+)}");
-        Matcher matcher = pattern.matcher(url);
+        Matcher matcher = URL_VARIABLE_PATTERN.matcher(url);
 
         // 查找所有匹配的占位符
         while (matcher.find()) {
@@ -3,10 +3,10 @@ package org.nstep.engine.module.message.handler.real;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.nstep.engine.module.message.dto.dingding.DingDingRobotConfig;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.dingding.DingDingRobotClient;
 import org.nstep.engine.module.message.util.dingding.DingDingRobotUtils;
 import org.springframework.stereotype.Component;
 
@@ -36,7 +36,7 @@ public class DingDingRobotHandler extends ChannelHandler {
     @Override
     void doHandler(TemplateSendTask TemplateSendTask) {
         // 获取钉钉机器人账户配置
-        DingDingRobotConfig account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), DingDingRobotConfig.class);
+        DingDingRobotClient account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), DingDingRobotClient.class);
 
         try {
             // 调用钉钉机器人工具类发送消息
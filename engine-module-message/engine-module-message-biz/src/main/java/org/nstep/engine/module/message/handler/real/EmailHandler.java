@@ -3,22 +3,30 @@ package org.nstep.engine.module.message.handler.real;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.mail.MailAccount;
-import cn.hutool.extra.mail.MailUtil;
 import com.alibaba.fastjson.JSON;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.MimeUtility;
 import lombok.extern.slf4j.Slf4j;
-import org.nstep.engine.framework.common.util.io.FileUtils;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.EmailContentModel;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
-import org.springframework.beans.factory.annotation.Value;
+import org.nstep.engine.module.message.util.mail.MailAttachmentCache;
+import org.nstep.engine.module.message.util.mail.MailTransportPool;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -33,14 +41,19 @@ public class EmailHandler extends ChannelHandler {
     @Resource
     private AccountUtil accountUtil;  // 账户工具类，用于获取邮箱账户配置信息
 
-    @Value("${engine.cacheFilePath}")
-    private String path;  // 配置文件中的路径，用于获取文件存储路径
-
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    @Resource
+    private MailTransportPool mailTransportPool;  // SMTP 连接池，复用已登录的连接
+
+    @Resource
+    private MailAttachmentCache mailAttachmentCache;  // 邮件附件缓存，避免每次发送都下载附件
+
     /**
      * 处理邮箱消息发送任务
+     * <p>
+     * 复用连接池中已登录的 SMTP 连接发送，附件从本地缓存读取。
      *
      * @param TemplateSendTask 消息模板发送任务对象，包含任务和消息的相关信息
      */
@@ -56,19 +69,17 @@ public class EmailHandler extends ChannelHandler {
             // 获取邮件账户配置信息
             MailAccount mailAccount = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), MailAccount.class);
 
-            // 解析邮件内容中的URL并下载附件
+            // 解析邮件内容中的URL并从缓存获取附件
             List<String> urls = StrUtil.isNotBlank(mailContent.getUrl()) ? StrUtil.split(mailContent.getUrl(), MessageDataConstants.SEPARATOR) : null;
-            List<File> files = CollectionUtil.isNotEmpty(urls) ? FileUtils.getRemoteUrl2File(path, urls) : null;
+            List<MailAttachmentCache.Attachment> attachments = CollectionUtil.isNotEmpty(urls) ? mailAttachmentCache.get(urls) : Collections.emptyList();
 
-            // 如果有附件，发送带附件的邮件
-            if (CollectionUtil.isNotEmpty(files)) {
-                sendId = MailUtil.send(mailAccount, TemplateSendTask.getReceivers(), mailContent.getTitle(), mailContent.getContent(),
-                        true, files.toArray(new File[0]));
-            } else {
-                // 否则发送不带附件的邮件
-                sendId = MailUtil.send(mailAccount, TemplateSendTask.getReceivers(), mailContent.getTitle(), mailContent.getContent(),
-                        true);
-            }
+            // 借用发送账号的 SMTP 连接发送邮件
+            sendId = mailTransportPool.execute(mailAccount, connection -> {
+                MimeMessage message = buildMessage(connection.getSession(), mailAccount, TemplateSendTask.getReceivers(),
+                        mailContent, attachments);
+                connection.getTransport().sendMessage(message, message.getAllRecipients());
+                return message.getMessageID();
+            });
 
             // 记录邮件发送成功
             dataUtil.confirmSend(sendId, TemplateSendTask.getMessageId(), sendMessageKey, sendTaskId, new Exception());
@@ -79,4 +90,44 @@ public class EmailHandler extends ChannelHandler {
             log.error("邮件消息推送失败:{}", Throwables.getStackTraceAsString(e));
         }
     }
+
+    /**
+     * 构建 HTML 邮件
+     *
+     * @param session     邮件会话
+     * @param mailAccount 邮件账户配置
+     * @param receivers   收件人
+     * @param mailContent 邮件内容
+     * @param attachments 附件
+     * @return 邮件
+     * @throws Exception 构建失败
+     */
+    private static MimeMessage buildMessage(Session session, MailAccount mailAccount, Set<String> receivers,
+                                            EmailContentModel mailContent, List<MailAttachmentCache.Attachment> attachments) throws Exception {
+        String charset = mailAccount.getCharset().name();
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(InternetAddress.parse(mailAccount.getFrom())[0]);
+        InternetAddress[] recipients = new InternetAddress[receivers.size()];
+        int index = 0;
+        for (String receiver : receivers) {
+            recipients[index++] = new InternetAddress(receiver);
+        }
+        message.setRecipients(Message.RecipientType.TO, recipients);
+        message.setSubject(mailContent.getTitle(), charset);
+        message.setSentDate(new Date());
+
+        MimeMultipart multipart = new MimeMultipart();
+        MimeBodyPart body = new MimeBodyPart();
+        body.setContent(mailContent.getContent(), "text/html; charset=" + charset);
+        multipart.addBodyPart(body);
+        for (MailAttachmentCache.Attachment attachment : attachments) {
+            MimeBodyPart part = new MimeBodyPart();
+            part.attachFile(attachment.file());
+            part.setFileName(MimeUtility.encodeText(attachment.name(), charset, null));
+            multipart.addBodyPart(part);
+        }
+        message.setContent(multipart);
+        message.saveChanges();
+        return message;
+    }
 }
@@ -25,6 +25,9 @@ public class EnterpriseWeChatRobotHandler extends ChannelHandler {
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    @Resource
+    private EnterpriseWeChatRobotUtils enterpriseWeChatRobotUtils;  // 企业微信机器人工具类，用于发送消息
+
     /**
      * 处理企业微信机器人消息发送任务
      *
@@ -36,7 +39,7 @@ public class EnterpriseWeChatRobotHandler extends ChannelHandler {
             // 获取企业微信机器人账户配置信息
             EnterpriseWeChatRobotConfig account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), EnterpriseWeChatRobotConfig.class);
             // 调用企业微信机器人工具类发送消息
-            String result = EnterpriseWeChatRobotUtils.send(account, TemplateSendTask);
+            String result = enterpriseWeChatRobotUtils.send(account, TemplateSendTask);
             // 记录发送结果，发送成功
             dataUtil.confirmSend(result, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.sendTaskId, new Exception());
         } catch (Exception e) {
@@ -1,13 +1,11 @@
 package org.nstep.engine.module.message.handler.real;
 
-import cn.hutool.http.ContentType;
-import cn.hutool.http.Header;
-import cn.hutool.http.HttpRequest;
 import com.alibaba.fastjson.JSON;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.framework.common.exception.ServiceException;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.feishu.FeiShuRobotConfig;
 import org.nstep.engine.module.message.dto.feishu.FeiShuRobotParam;
 import org.nstep.engine.module.message.dto.feishu.FeiShuRobotResult;
@@ -15,6 +13,7 @@ import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.FeiShuRobotContentModel;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
 import org.springframework.stereotype.Component;
 
 /**
@@ -34,6 +33,9 @@ public class FeiShuRobotHandler extends ChannelHandler {
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    @Resource
+    private ChannelHttpClient channelHttpClient;  // 渠道HTTP客户端，复用到飞书的连接
+
     /**
      * 处理飞书机器人消息发送任务
      *
@@ -49,11 +51,8 @@ public class FeiShuRobotHandler extends ChannelHandler {
             // 构建飞书机器人发送请求参数
             FeiShuRobotParam feiShuRobotParam = buildFeiShuRobotParam(contentModel);
             // 发送请求并获取响应结果
-            String result = HttpRequest.post(account.getWebhook())
-                    .header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                    .body(JSON.toJSONString(feiShuRobotParam))
-                    .timeout(2000)
-                    .execute().body();
+            String result = channelHttpClient.postJson(MessageDataConstants.FEI_SHU_ROBOT, account.getWebhook(),
+                    JSON.toJSONString(feiShuRobotParam));
             // 解析响应结果
             FeiShuRobotResult feiShuRobotResult = JSON.parseObject(result, FeiShuRobotResult.class);
 
@@ -2,13 +2,11 @@ package org.nstep.engine.module.message.handler.real;
 
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.ContentType;
-import cn.hutool.http.Header;
-import cn.hutool.http.HttpRequest;
 import com.alibaba.fastjson.JSON;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.module.message.constant.GeTuiConstants;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.constant.SendChanelUrlConstant;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.PushContentModel;
@@ -16,12 +14,14 @@ import org.nstep.engine.module.message.dto.push.getui.*;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.ProviderMetadataCache;
 import org.nstep.engine.module.message.util.getui.AccessTokenUtils;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 
 import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
 
@@ -35,15 +35,27 @@ import static org.nstep.engine.framework.common.exception.util.ServiceExceptionU
 @Slf4j
 public class PushHandler extends ChannelHandler {
 
+    /**
+     * 个推token的缓存区域，Redis key 沿用 engineX:ge_tui_token:accountId
+     */
+    private static final ProviderMetadataCache.Region<String> TOKEN_REGION = new ProviderMetadataCache.Region<>(
+            "geTuiToken", GeTuiConstants.GE_TUI_TOKEN_KEY, String.class, Duration.ofMillis(GeTuiConstants.EXPIRE_TIME));
+
     @Resource
     private AccountUtil accountUtil;  // 账户工具类，用于获取个推账户配置信息
 
     @Resource
-    private StringRedisTemplate stringRedisTemplate;  // Redis工具类，用于存储和获取token
+    private ProviderMetadataCache providerMetadataCache;  // 第三方服务元数据缓存，用于缓存token
 
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    @Resource
+    private ChannelHttpClient channelHttpClient;  // 渠道HTTP客户端，复用到个推的连接
+
+    @Resource
+    private AccessTokenUtils accessTokenUtils;  // 个推Token工具类，用于获取token
+
     /**
      * 处理个推通知栏消息推送任务
      *
@@ -53,9 +65,10 @@ public class PushHandler extends ChannelHandler {
     void doHandler(TemplateSendTask TemplateSendTask) {
         try {
             // 获取个推账户配置信息
-            GeTuiConfig account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), GeTuiConfig.class);
+            Integer sendAccount = TemplateSendTask.getMessageTemplate().getSendAccount();
+            GeTuiConfig account = accountUtil.getAccount(sendAccount, GeTuiConfig.class);
             // 获取token
-            String token = getToken(TemplateSendTask, account);
+            String token = getToken(sendAccount, account);
             if (Objects.isNull(token)) {
                 // 如果获取不到token，记录失败信息并返回
                 dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(),
@@ -68,13 +81,13 @@ public class PushHandler extends ChannelHandler {
                 result = singlePush(TemplateSendTask, account, token);
                 // 如果遇到token过期，重新获取token并发起请求
                 if (JSON.parseObject(result, SendPushResult.class).getCode().equals(10001)) {
-                    result = singlePush(TemplateSendTask, account, getToken(TemplateSendTask, account));
+                    result = singlePush(TemplateSendTask, account, refreshToken(sendAccount, account, token));
                 }
             } else {
                 result = batchPush(TemplateSendTask, account, token);
                 // 如果遇到token过期，重新获取token并发起请求
                 if (JSON.parseObject(result, SendPushResult.class).getCode().equals(10001)) {
-                    result = batchPush(TemplateSendTask, account, getToken(TemplateSendTask, account));
+                    result = batchPush(TemplateSendTask, account, refreshToken(sendAccount, account, token));
                 }
             }
             // 如果推送失败，记录失败信息并返回
@@ -114,11 +127,8 @@ public class PushHandler extends ChannelHandler {
                 .taskId(taskId)
                 .isAsync(false).build();
 
-        return HttpRequest.post(url).header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                .header("token", token)
-                .body(JSON.toJSONString(batchSendPushParam))
-                .timeout(2000)
-                .execute().body();
+        return channelHttpClient.postJson(MessageDataConstants.PUSH, url, JSON.toJSONString(batchSendPushParam),
+                Collections.singletonMap("token", token));
     }
 
     /**
@@ -132,11 +142,8 @@ public class PushHandler extends ChannelHandler {
     private String buildTaskId(TemplateSendTask TemplateSendTask, GeTuiConfig account, String token) {
         String url = SendChanelUrlConstant.GE_TUI_BASE_URL + account.getAppId() + SendChanelUrlConstant.GE_TUI_BATCH_PUSH_CREATE_TASK_PATH;
         SingleSendPushParam sendPushParam = buildParam(TemplateSendTask);
-        String body = HttpRequest.post(url).header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                .header("token", token)
-                .body(JSON.toJSONString(sendPushParam))
-                .timeout(2000)
-                .execute().body();
+        String body = channelHttpClient.postJson(MessageDataConstants.PUSH, url, JSON.toJSONString(sendPushParam),
+                Collections.singletonMap("token", token));
         SendPushResult sendPushResult = JSON.parseObject(body, SendPushResult.class);
         if (sendPushResult.getCode().equals(0)) {
             return sendPushResult.getData().getString("taskid");
@@ -156,35 +163,37 @@ public class PushHandler extends ChannelHandler {
         String url = SendChanelUrlConstant.GE_TUI_BASE_URL + account.getAppId() + SendChanelUrlConstant.GE_TUI_SINGLE_PUSH_PATH;
         SingleSendPushParam singleSendPushParam = buildParam(TemplateSendTask);
 
-        return HttpRequest.post(url).header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                .header("token", token)
-                .body(JSON.toJSONString(singleSendPushParam))
-                .timeout(2000)
-                .execute().body();
+        return channelHttpClient.postJson(MessageDataConstants.PUSH, url, JSON.toJSONString(singleSendPushParam),
+                Collections.singletonMap("token", token));
     }
 
     /**
      * 获取个推token
+     * <p>
+     * token 缓存在本机内存和 Redis 中，过期前提前刷新，集群内同一账号同时只有一个线程调用个推的鉴权接口。
      *
-     * @param TemplateSendTask 消息模板发送任务对象
-     * @param account          个推账户配置信息
-     * @return 获取的token
+     * @param sendAccount 发送账号
+     * @param account     个推账户配置信息
+     * @return 获取的token，获取失败时返回 null
      */
-    public String getToken(TemplateSendTask TemplateSendTask, GeTuiConfig account) {
-        String token = stringRedisTemplate.opsForValue().get(GeTuiConstants.GE_TUI_TOKEN_KEY + TemplateSendTask.getMessageTemplate().getSendAccount());
-        if (StrUtil.isNotBlank(token)) {
-            return token;
-        }
-        GeTuiTokenResultDTO.DataDTO dataDTO = AccessTokenUtils.getGeTuiToken(account);
-        if (Objects.isNull(dataDTO)) {
-            return null;
-        }
-        token = dataDTO.getToken();
-        // 将token存储到Redis，并设置过期时间
-        stringRedisTemplate.opsForValue().set(GeTuiConstants.GE_TUI_TOKEN_KEY + TemplateSendTask.getMessageTemplate().getSendAccount(), token,
-                GeTuiConstants.EXPIRE_TIME, TimeUnit.MILLISECONDS);
+    public String getToken(Integer sendAccount, GeTuiConfig account) {
+        return providerMetadataCache.get(TOKEN_REGION, sendAccount, () -> {
+            GeTuiTokenResultDTO.DataDTO dataDTO = accessTokenUtils.getGeTuiToken(account);
+            return Objects.isNull(dataDTO) || StrUtil.isBlank(dataDTO.getToken()) ? null : dataDTO.getToken();
+        });
+    }
 
-        return token;
+    /**
+     * 个推判定token过期后使其失效并重新获取，并发的失效只会重新获取一次
+     *
+     * @param sendAccount 发送账号
+     * @param account     个推账户配置信息
+     * @param staleToken  已过期的token
+     * @return 新的token
+     */
+    private String refreshToken(Integer sendAccount, GeTuiConfig account, String staleToken) {
+        providerMetadataCache.invalidate(TOKEN_REGION, sendAccount, staleToken);
+        return getToken(sendAccount, account);
     }
 
     /**
@@ -13,6 +13,7 @@ import org.nstep.engine.module.message.util.DataUtil;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -33,26 +34,38 @@ public class SmsHandler extends ChannelHandler {
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    /**
+     * 处理短信发送任务，等待具体的短信服务处理器发送并确认后返回
+     *
+     * @param TemplateSendTask 消息模板发送任务对象，包含任务和消息的相关信息
+     */
+    @Override
+    void doHandler(TemplateSendTask TemplateSendTask) {
+        doHandlerAsync(TemplateSendTask).join();
+    }
+
     /**
      * 处理短信发送任务
      * 从消息模板中获取账户配置，并根据配置路由到具体的短信服务处理器进行处理。
      *
      * @param TemplateSendTask 消息模板发送任务对象，包含任务和消息的相关信息
+     * @return 具体的短信服务处理器发送并确认后完成的 Future
      */
     @Override
-    void doHandler(TemplateSendTask TemplateSendTask) {
+    CompletableFuture<Void> doHandlerAsync(TemplateSendTask TemplateSendTask) {
         try {
             // 从数据库中获取账户配置信息
             AccountDO channelAccount = accountMapper.selectById(TemplateSendTask.getMessageTemplate().getSendAccount());
             String accountConfig = channelAccount.getAccountConfig();
             // 将账户配置转化为JSON对象
             JSONObject jsonObject = JSONUtil.toBean(accountConfig, JSONObject.class);
-            // 根据配置中的短信服务类型路由到具体的短信服务处理器
-            smsHandlers.get(jsonObject.get(MessageDataConstants.SMS_SERVICE_KEY) + MessageDataConstants.HANDLER_SUFFIX).handler(TemplateSendTask);
+            // 根据配置中的短信服务类型路由到具体的短信服务处理器，已在本处理器的入口限流，直接调用 doHandlerAsync 避免重复获取令牌
+            return smsHandlers.get(jsonObject.get(MessageDataConstants.SMS_SERVICE_KEY) + MessageDataConstants.HANDLER_SUFFIX).doHandlerAsync(TemplateSendTask);
         } catch (Exception e) {
             // 处理异常，记录失败信息
             dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), e);
             log.error("短信服务异常:{}", Throwables.getStackTraceAsString(e));
+            return CompletableFuture.completedFuture(null);
         }
     }
 }
@@ -1,21 +1,27 @@
 package org.nstep.engine.module.message.handler.real;
 
 
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
+import com.tencentcloudapi.sms.v20210111.models.SendSmsResponse;
+import com.tencentcloudapi.sms.v20210111.models.SendStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.SmsContentModel;
 import org.nstep.engine.module.message.dto.tencent.TencentSmsConfig;
+import org.nstep.engine.module.message.handler.batch.SmsBatcher;
 import org.nstep.engine.module.message.util.AccountUtil;
 import org.nstep.engine.module.message.util.DataUtil;
 import org.nstep.engine.module.message.util.tencent.TencentCloudSmsSendUtils;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 腾讯云短信服务处理器
@@ -27,38 +33,85 @@ import java.util.List;
 @Slf4j
 public class TencentCloudServiceSmsHandler extends ChannelHandler {
 
+    /**
+     * 国际区号前缀
+     */
+    private static final String PHONE_PREFIX = "+86";
+
+    /**
+     * 批次 key 前缀
+     */
+    private static final String BATCH_KEY_PREFIX = "tencent:";
+
     @Resource
     private AccountUtil accountUtil;  // 用于获取账户配置信息
 
     @Resource
     private DataUtil dataUtil;  // 数据工具类，用于记录任务执行状态
 
+    @Resource
+    private SmsBatcher smsBatcher;  // 短信批量发送器，合并账号、内容相同的发送任务
+
     /**
-     * 处理短信发送任务
-     * 该方法从消息模板中获取短信发送所需的账户信息、短信内容及接收者信息，并通过腾讯云短信 API 发送短信。
+     * 处理短信发送任务，等待批量发送器发送并确认后返回
      *
      * @param TemplateSendTask 消息模板发送任务对象，包含任务和消息的相关信息
      */
     @Override
     void doHandler(TemplateSendTask TemplateSendTask) {
+        doHandlerAsync(TemplateSendTask).join();
+    }
+
+    /**
+     * 处理短信发送任务
+     * 该方法从消息模板中获取短信发送所需的账户信息、短信内容，交给短信批量发送器与账号、内容相同的发送任务合并后通过腾讯云短信 API 发送。
+     *
+     * @param TemplateSendTask 消息模板发送任务对象，包含任务和消息的相关信息
+     * @return 批次发送并确认发送结果后完成的 Future
+     */
+    @Override
+    CompletableFuture<Void> doHandlerAsync(TemplateSendTask TemplateSendTask) {
         try {
             // 获取腾讯云短信账户配置
             TencentSmsConfig account = accountUtil.getAccount(TemplateSendTask.getMessageTemplate().getSendAccount(), TencentSmsConfig.class);
-            // 构建接收者的手机号数组
-            String[] phones = buildPhone(TemplateSendTask);
             // 构建短信参数数组
             String[] params = buildParams(TemplateSendTask);
-            // 调用腾讯云短信发送工具类发送短信
-            String send = TencentCloudSmsSendUtils.send(account, params, phones);
-            // 记录发送结果
-            dataUtil.confirmSend(send, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), new Exception());
+            // 账号和消息内容相同的发送任务合并发送，发送结果由批量发送器确认
+            String batchKey = BATCH_KEY_PREFIX + TemplateSendTask.getMessageTemplate().getSendAccount()
+                    + StrUtil.COLON + TemplateSendTask.getMessageTemplate().getMsgContent();
+            return smsBatcher.submit(batchKey, TemplateSendTask, TencentCloudSmsSendUtils.MAX_PHONES, phones -> send(account, params, phones));
         } catch (Exception e) {
             // 处理异常，记录失败信息
             dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), e);
             log.error("腾讯云短信发送异常:{}", Throwables.getStackTraceAsString(e));
+            return CompletableFuture.completedFuture(null);
         }
     }
 
+    /**
+     * 调用腾讯云发送一组手机号，并取出发送失败的手机号
+     *
+     * @param account   腾讯云短信账户配置
+     * @param params    短信参数数组
+     * @param receivers 接收者手机号
+     * @return 调用结果，回执为腾讯云的 RequestId
+     */
+    private SmsBatcher.BatchResult send(TencentSmsConfig account, String[] params, List<String> receivers) {
+        // 将接收者手机号添加国际区号前缀（假设是中国手机号）
+        String[] phones = new String[receivers.size()];
+        for (int i = 0; i < phones.length; i++) {
+            phones[i] = PHONE_PREFIX + receivers.get(i);
+        }
+        SendSmsResponse res = TencentCloudSmsSendUtils.sendBatch(account, params, phones);
+        Map<String, String> failures = new HashMap<>();
+        for (SendStatus sendStatus : res.getSendStatusSet()) {
+            if (!TencentCloudSmsSendUtils.OK.equals(sendStatus.getCode())) {
+                failures.put(StrUtil.removePrefix(sendStatus.getPhoneNumber(), PHONE_PREFIX), sendStatus.getCode() + StrUtil.COLON + sendStatus.getMessage());
+            }
+        }
+        return new SmsBatcher.BatchResult(res.getRequestId(), failures);
+    }
+
     /**
      * 构建短信参数数组
      * 从消息模板中解析短信内容，并构建参数数组。
@@ -81,21 +134,4 @@ public class TencentCloudServiceSmsHandler extends ChannelHandler {
         return phones;
     }
 
-    /**
-     * 构建接收者手机号数组
-     * 将接收者手机号添加国际区号前缀，并返回数组。
-     *
-     * @param TemplateSendTask 消息模板发送任务对象
-     * @return 接收者手机号数组
-     */
-    private String[] buildPhone(TemplateSendTask TemplateSendTask) {
-        List<String> list = new ArrayList<>();
-        // 遍历接收者手机号列表，添加国际区号前缀
-        for (String receiver : TemplateSendTask.getReceivers()) {
-            String phoneNumberWithPrefix = "+86" + receiver;  // 假设是中国手机号
-            list.add(phoneNumberWithPrefix);
-        }
-        // 返回手机号数组
-        return list.toArray(new String[list.size() - 1]);
-    }
 }
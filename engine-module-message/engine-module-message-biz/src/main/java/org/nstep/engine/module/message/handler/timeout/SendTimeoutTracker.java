@@ -0,0 +1,402 @@
+package org.nstep.engine.module.message.handler.timeout;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.nstep.engine.module.message.util.DeliveryStatusUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 发送超时跟踪器
+ * <p>
+ * 消费端开始处理一个发送任务时登记超时时间（{@link org.nstep.engine.module.message.config.ChannelConfig#CHANNEL_EXP_TIME}），
+ * 到期后仍处于发送中的消息确认为发送失败，取代原先每次发送都往 RabbitMQ 延迟交换机投递一条消息的做法：
+ * <ul>
+ *     <li>按 sendTaskId 分区，每个分区一个时间轮（{@link HashedWheelTimer}），每次消费的一条 MQ 消息登记一个计时</li>
+ *     <li>任务下的消息全部回执后取消计时，正常路径上没有任何 MQ 往返，只有一次检查点的写入和删除</li>
+ *     <li>每条消息（messageId）以检查点的形式写入 Redis 有序集合（score 为到期时间），检查点的到期时间只会延后，
+ *     同一个任务的多条 MQ 消息被多个实例消费、或消息被重新投递时，不会缩短其他实例登记的到期时间</li>
+ *     <li>实例重启或宕机后，超过到期时间 engine.sendTimeout.recoverGraceMillis 仍未处理的检查点由任意实例接管</li>
+ *     <li>到期时只处理本实例登记的消息，且以删除检查点成功（到期时间未被其他实例延后）为准，同一条消息只会被处理一次</li>
+ * </ul>
+ * 上报指标：engine.send.timeout.pending（进行中的计时数）、engine.send.timeout.expired（到期数）、
+ * engine.send.timeout.lag（实际到期时间与预期到期时间的偏差）。
+ */
+@Component
+@Slf4j
+public class SendTimeoutTracker {
+
+    /**
+     * 每次接管的检查点数量上限
+     */
+    private static final int RECOVER_BATCH_SIZE = 500;
+
+    /**
+     * 写入检查点，已有检查点的到期时间更晚时保留原值（与 ZADD GT 相同，兼容 6.2 以下的 Redis）
+     * <p>
+     * KEYS[1]：检查点有序集合 key；ARGV[1]：到期时间；ARGV[2..n]：检查点
+     */
+    private static final RedisScript<Long> TRACK_SCRIPT = new DefaultRedisScript<>(
+            "local deadline = tonumber(ARGV[1]) " +
+                    "for i = 2, #ARGV do " +
+                    "local score = redis.call('ZSCORE', KEYS[1], ARGV[i]) " +
+                    "if not score or tonumber(score) < deadline then redis.call('ZADD', KEYS[1], deadline, ARGV[i]) end " +
+                    "end " +
+                    "return #ARGV - 1", Long.class);
+
+    /**
+     * 删除已到期的检查点，到期时间被其他实例延后的检查点保留
+     * <p>
+     * KEYS[1]：检查点有序集合 key；ARGV[1]：到期时间；ARGV[2..n]：检查点
+     * <p>
+     * 返回值：被删除的检查点
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> EXPIRE_SCRIPT = new DefaultRedisScript<>(
+            "local deadline = tonumber(ARGV[1]) " +
+                    "local removed = {} " +
+                    "for i = 2, #ARGV do " +
+                    "local score = redis.call('ZSCORE', KEYS[1], ARGV[i]) " +
+                    "if score and tonumber(score) <= deadline then " +
+                    "redis.call('ZREM', KEYS[1], ARGV[i]) " +
+                    "removed[#removed + 1] = ARGV[i] " +
+                    "end " +
+                    "end " +
+                    "return removed", List.class);
+
+    /**
+     * 是否启用发送超时跟踪
+     */
+    @Value("${engine.sendTimeout.enabled:true}")
+    private Boolean enabled;
+
+    /**
+     * 分区数，即时间轮数量
+     */
+    @Value("${engine.sendTimeout.partitions:4}")
+    private Integer partitions;
+
+    /**
+     * 时间轮每一格的时长（毫秒），决定到期精度
+     */
+    @Value("${engine.sendTimeout.tickMillis:100}")
+    private Long tickMillis;
+
+    /**
+     * 时间轮的格数
+     */
+    @Value("${engine.sendTimeout.ticksPerWheel:512}")
+    private Integer ticksPerWheel;
+
+    /**
+     * 检查点超过到期时间多久仍未被处理时，由其他实例接管（毫秒）
+     */
+    @Value("${engine.sendTimeout.recoverGraceMillis:30000}")
+    private Long recoverGraceMillis;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private DeliveryStatusUtil deliveryStatusUtil;
+
+    @Resource
+    private DataUtil dataUtil;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Partition[] wheels;
+
+    /**
+     * 到期处理线程池，避免 Redis 访问阻塞时间轮线程
+     */
+    private ExecutorService expireExecutor;
+
+    private Counter expiredCounter;
+
+    private Timer lagTimer;
+
+    /**
+     * 为每个分区创建时间轮
+     */
+    @PostConstruct
+    public void init() {
+        wheels = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            HashedWheelTimer timer = new HashedWheelTimer(
+                    new ThreadFactoryBuilder().setNameFormat("engine-send-timeout-" + i).setDaemon(true).build(),
+                    tickMillis, TimeUnit.MILLISECONDS, ticksPerWheel);
+            wheels[i] = new Partition(MessageDataConstants.SEND_TIMEOUT + i, timer, new ConcurrentHashMap<>());
+        }
+        expireExecutor = Executors.newFixedThreadPool(2,
+                new ThreadFactoryBuilder().setNameFormat("engine-send-timeout-expire-%d").setDaemon(true).build());
+        expiredCounter = meterRegistry.counter("engine.send.timeout.expired");
+        lagTimer = meterRegistry.timer("engine.send.timeout.lag");
+        meterRegistry.gauge("engine.send.timeout.pending", this, tracker -> {
+            long pending = 0;
+            for (Partition partition : tracker.wheels) {
+                for (Set<Tracked> trackedSet : partition.timeouts.values()) {
+                    pending += trackedSet.size();
+                }
+            }
+            return pending;
+        });
+    }
+
+    /**
+     * 登记一条 MQ 消息中的消息的超时时间
+     * <p>
+     * 同一个发送任务拆分为多条 MQ 消息时，每条 MQ 消息按各自的消费时间登记计时。
+     *
+     * @param sendTaskId      发送任务 ID
+     * @param messageRedisKey 发送任务的消息存储键
+     * @param messageIds      本次消费的消息 ID
+     * @param timeoutMillis   超时时间（毫秒）
+     */
+    public void track(Long sendTaskId, String messageRedisKey, Collection<Long> messageIds, long timeoutMillis) {
+        if (!enabled || Objects.isNull(sendTaskId) || messageIds.isEmpty()) {
+            return;
+        }
+        Partition partition = partitionOf(sendTaskId);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        List<String> members = new ArrayList<>(messageIds.size());
+        for (Long messageId : messageIds) {
+            members.add(member(sendTaskId, messageId, messageRedisKey));
+        }
+        // 先写检查点，即使计时登记后实例立即宕机也能被接管
+        stringRedisTemplate.execute(TRACK_SCRIPT, Collections.singletonList(partition.key), args(deadline, members));
+        Tracked tracked = new Tracked(members, deadline);
+        // 与到期时移除空集合的 computeIfPresent 互斥，避免计时被加入已从映射中移除的集合
+        partition.timeouts.compute(sendTaskId, (key, trackedSet) -> {
+            Set<Tracked> result = trackedSet == null ? ConcurrentHashMap.newKeySet() : trackedSet;
+            result.add(tracked);
+            return result;
+        });
+        tracked.timeout = partition.timer.newTimeout(
+                t -> expireExecutor.execute(() -> expire(partition, sendTaskId, tracked)),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消发送任务的超时计时，任务下的消息全部回执后调用
+     * <p>
+     * 只能取消本实例登记的计时；其他实例登记的计时到期后会发现没有发送中的消息，直接结束。
+     *
+     * @param sendTaskId 发送任务 ID
+     */
+    public void cancel(Long sendTaskId) {
+        if (!enabled || Objects.isNull(sendTaskId)) {
+            return;
+        }
+        Partition partition = partitionOf(sendTaskId);
+        Set<Tracked> trackedSet = partition.timeouts.remove(sendTaskId);
+        if (trackedSet == null) {
+            return;
+        }
+        List<String> members = new ArrayList<>();
+        for (Tracked tracked : trackedSet) {
+            if (tracked.timeout != null && tracked.timeout.cancel()) {
+                members.addAll(tracked.members);
+            }
+        }
+        if (!members.isEmpty()) {
+            // 任务下的消息已全部回执，检查点不再需要，无论是否被其他实例延后都直接删除
+            stringRedisTemplate.opsForZSet().remove(partition.key, members.toArray());
+        }
+    }
+
+    /**
+     * 接管超过到期时间仍未被处理的检查点（登记的实例已重启或宕机）
+     */
+    @Scheduled(fixedDelayString = "${engine.sendTimeout.recoverInterval:10000}")
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        long maxDeadline = System.currentTimeMillis() - recoverGraceMillis;
+        for (Partition partition : wheels) {
+            try {
+                Set<ZSetOperations.TypedTuple<String>> checkpoints = stringRedisTemplate.opsForZSet()
+                        .rangeByScoreWithScores(partition.key, 0, maxDeadline, 0, RECOVER_BATCH_SIZE);
+                if (checkpoints == null) {
+                    continue;
+                }
+                // 按发送任务合并，每个任务只查询一次发送中的消息
+                Map<Long, List<String>> membersByTask = new HashMap<>();
+                for (ZSetOperations.TypedTuple<String> checkpoint : checkpoints) {
+                    String member = checkpoint.getValue();
+                    Long sendTaskId = Long.valueOf(member.substring(0, member.indexOf(MessageDataConstants.SEPARATOR)));
+                    membersByTask.computeIfAbsent(sendTaskId, key -> new ArrayList<>()).add(member);
+                }
+                membersByTask.forEach((sendTaskId, members) ->
+                        expireExecutor.execute(() -> expire(partition, sendTaskId, members, maxDeadline)));
+            } catch (Exception e) {
+                log.error("接管发送超时检查点异常:{}", Throwables.getStackTraceAsString(e));
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时停止时间轮，未到期的计时保留在检查点中，由重启后的实例或其他实例接管
+     */
+    @PreDestroy
+    public void destroy() {
+        for (Partition partition : wheels) {
+            partition.timer.stop();
+        }
+        expireExecutor.shutdown();
+    }
+
+    /**
+     * 本实例登记的计时到期
+     *
+     * @param partition  分区
+     * @param sendTaskId 发送任务 ID
+     * @param tracked    到期的计时
+     */
+    private void expire(Partition partition, Long sendTaskId, Tracked tracked) {
+        partition.timeouts.computeIfPresent(sendTaskId, (key, trackedSet) -> {
+            trackedSet.remove(tracked);
+            return trackedSet.isEmpty() ? null : trackedSet;
+        });
+        expire(partition, sendTaskId, tracked.members, tracked.deadline);
+    }
+
+    /**
+     * 处理到期的检查点：将检查点对应的、仍处于发送中的消息确认为发送失败
+     *
+     * @param partition  分区
+     * @param sendTaskId 发送任务 ID
+     * @param members    检查点
+     * @param deadline   预期到期时间，到期时间晚于它的检查点（已被其他实例延后）不处理
+     */
+    @SuppressWarnings("unchecked")
+    private void expire(Partition partition, Long sendTaskId, List<String> members, long deadline) {
+        try {
+            // 删除检查点成功才处理，保证同一条消息只被处理一次
+            List<String> removed = stringRedisTemplate.execute(EXPIRE_SCRIPT,
+                    Collections.singletonList(partition.key), args(deadline, members));
+            if (removed == null || removed.isEmpty()) {
+                return;
+            }
+            expiredCounter.increment();
+            lagTimer.record(Math.max(System.currentTimeMillis() - deadline, 0), TimeUnit.MILLISECONDS);
+            Set<Long> sending = new HashSet<>(deliveryStatusUtil.getSendingMessageIds(sendTaskId));
+            for (String member : removed) {
+                int first = member.indexOf(MessageDataConstants.SEPARATOR);
+                int second = member.indexOf(MessageDataConstants.SEPARATOR, first + 1);
+                Long messageId = Long.valueOf(member.substring(first + 1, second));
+                if (sending.contains(messageId)) {
+                    dataUtil.confirmSend(null, messageId, member.substring(second + 1), sendTaskId,
+                            new TimeoutException("消息发送超时，发送任务:" + sendTaskId));
+                }
+            }
+        } catch (Exception e) {
+            log.error("处理发送超时异常，发送任务:{}:{}", sendTaskId, Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 检查点：发送任务 ID,消息 ID,消息存储键
+     */
+    private static String member(Long sendTaskId, Long messageId, String messageRedisKey) {
+        return sendTaskId + MessageDataConstants.SEPARATOR + messageId + MessageDataConstants.SEPARATOR + messageRedisKey;
+    }
+
+    /**
+     * 检查点脚本的参数：到期时间和检查点
+     */
+    private static Object[] args(long deadline, List<String> members) {
+        Object[] args = new Object[members.size() + 1];
+        args[0] = String.valueOf(deadline);
+        for (int i = 0; i < members.size(); i++) {
+            args[i + 1] = members.get(i);
+        }
+        return args;
+    }
+
+    /**
+     * 获取发送任务所在的分区
+     *
+     * @param sendTaskId 发送任务 ID
+     * @return 分区
+     */
+    private Partition partitionOf(Long sendTaskId) {
+        return wheels[(int) Math.floorMod(sendTaskId, (long) partitions)];
+    }
+
+    /**
+     * 分区：一个时间轮、本实例登记的计时和对应的检查点 key
+     */
+    @AllArgsConstructor
+    private static class Partition {
+
+        /**
+         * 检查点有序集合的 key
+         */
+        private final String key;
+
+        private final HashedWheelTimer timer;
+
+        /**
+         * 发送任务 ID 到本实例登记的计时的映射
+         */
+        private final Map<Long, Set<Tracked>> timeouts;
+
+    }
+
+    /**
+     * 本实例登记的计时，对应一次消费的一条 MQ 消息
+     */
+    private static class Tracked {
+
+        /**
+         * 检查点，每条消息一个
+         */
+        private final List<String> members;
+
+        private final long deadline;
+
+        private volatile Timeout timeout;
+
+        private Tracked(List<String> members, long deadline) {
+            this.members = members;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
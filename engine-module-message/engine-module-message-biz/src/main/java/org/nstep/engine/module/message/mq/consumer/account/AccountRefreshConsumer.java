@@ -0,0 +1,26 @@
+package org.nstep.engine.module.message.mq.consumer.account;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import org.nstep.engine.module.message.mq.message.account.AccountRefreshMessage;
+import org.nstep.engine.module.message.util.AccountUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * 针对 {@link AccountRefreshMessage} 的消费者
+ */
+@Component
+@Slf4j
+public class AccountRefreshConsumer extends AbstractRedisChannelMessageListener<AccountRefreshMessage> {
+
+    @Resource
+    private AccountUtil accountUtil;
+
+    @Override
+    public void onMessage(AccountRefreshMessage message) {
+        log.info("[onMessage][收到账号({}) 刷新消息]", message.getId());
+        accountUtil.clearAccountCache(message.getId());
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.nstep.engine.module.message.mq.consumer.template;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import org.nstep.engine.module.message.mq.message.template.TemplateRefreshMessage;
+import org.nstep.engine.module.message.service.template.TemplateService;
+import org.springframework.stereotype.Component;
+
+/**
+ * 针对 {@link TemplateRefreshMessage} 的消费者
+ */
+@Component
+@Slf4j
+public class TemplateRefreshConsumer extends AbstractRedisChannelMessageListener<TemplateRefreshMessage> {
+
+    @Resource
+    private TemplateService templateService;
+
+    @Override
+    public void onMessage(TemplateRefreshMessage message) {
+        log.info("[onMessage][收到模板({}) 刷新消息]", message.getId());
+        templateService.clearTemplateCache(message.getId());
+    }
+
+}
@@ -0,0 +1,19 @@
+package org.nstep.engine.module.message.mq.message.account;
+
+import lombok.Data;
+import org.nstep.engine.framework.mq.redis.core.pubsub.AbstractRedisChannelMessage;
+
+/**
+ * 渠道账号配置数据刷新 Message
+ * <p>
+ * 账号被修改或删除时广播该消息，各实例收到后失效本地的账号配置及客户端缓存
+ */
+@Data
+public class AccountRefreshMessage extends AbstractRedisChannelMessage {
+
+    /**
+     * 账号编号
+     */
+    private Long id;
+
+}
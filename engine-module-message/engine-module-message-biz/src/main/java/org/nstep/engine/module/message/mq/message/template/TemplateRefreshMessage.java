@@ -0,0 +1,19 @@
+package org.nstep.engine.module.message.mq.message.template;
+
+import lombok.Data;
+import org.nstep.engine.framework.mq.redis.core.pubsub.AbstractRedisChannelMessage;
+
+/**
+ * 消息模板数据刷新 Message
+ * <p>
+ * 模板被创建、修改、审核或删除时广播该消息，各实例收到后失效本地的模板缓存
+ */
+@Data
+public class TemplateRefreshMessage extends AbstractRedisChannelMessage {
+
+    /**
+     * 模板编号
+     */
+    private Long id;
+
+}
@@ -0,0 +1,30 @@
+package org.nstep.engine.module.message.mq.producer.account;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.mq.redis.core.RedisMQTemplate;
+import org.nstep.engine.module.message.mq.message.account.AccountRefreshMessage;
+import org.springframework.stereotype.Component;
+
+/**
+ * 渠道账号配置相关消息的 Producer
+ */
+@Slf4j
+@Component
+public class AccountProducer {
+
+    @Resource
+    private RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 发送 {@link AccountRefreshMessage} 消息
+     *
+     * @param id 账号编号
+     */
+    public void sendAccountRefreshMessage(Long id) {
+        AccountRefreshMessage message = new AccountRefreshMessage();
+        message.setId(id);
+        redisMQTemplate.send(message);
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.nstep.engine.module.message.mq.producer.template;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.mq.redis.core.RedisMQTemplate;
+import org.nstep.engine.module.message.mq.message.template.TemplateRefreshMessage;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息模板相关消息的 Producer
+ */
+@Slf4j
+@Component
+public class TemplateProducer {
+
+    @Resource
+    private RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 发送 {@link TemplateRefreshMessage} 消息
+     *
+     * @param id 模板编号
+     */
+    public void sendTemplateRefreshMessage(Long id) {
+        TemplateRefreshMessage message = new TemplateRefreshMessage();
+        message.setId(id);
+        redisMQTemplate.send(message);
+    }
+
+}
@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
 
 /**
  * 对定时任务数据进行处理
+ * <p>
+ * 按分片流式读取人群文件，并通过上下文中的分片发送方法将每个分片送入发送消息责任链。
  */
 @Service
 @Slf4j
@@ -34,25 +36,13 @@ public class CronTaskDataProcess implements BusinessProcess {
             return context;
         }
         TemplateDO messageTemplate = cronTaskContent.getMessageTemplate();
-        try {
-            context = csvFileUtil.readCsvBuildSendFom(messageTemplate, cronTaskContent.getSender());
-        } catch (Exception e) {
-            log.error("读取CSV文件失败: {}", e.getMessage());
+        // 流式读取人群文件，每个分片独立发送
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate, cronTaskContent.getSender(),
+                cronTaskContent.getShardSender());
+        if (result.isError()) {
             context.setIsNeedBreak(true);
-            context.setResponse(
-                    CommonResult.error0(
-                            ErrorCodeConstants.READ_CSV_FAILED.getCode(),
-                            ErrorCodeConstants.READ_CSV_FAILED.getMsg(),
-                            e.getMessage()
-                    )
-            );
-
-            CommonResult.error(
-                    ErrorCodeConstants.CONTEXT_BROKEN.getCode(),
-                    ErrorCodeConstants.CONTEXT_BROKEN.getMsg()
-
-            );
         }
+        context.setResponse(result);
         return context;
     }
 }
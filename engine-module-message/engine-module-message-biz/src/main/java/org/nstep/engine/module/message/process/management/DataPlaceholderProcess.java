@@ -1,6 +1,5 @@
 package org.nstep.engine.module.message.process.management;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import jakarta.annotation.Resource;
@@ -9,16 +8,18 @@ import org.nstep.engine.framework.common.pojo.CommonResult;
 import org.nstep.engine.module.message.config.ChannelConfig;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
-import org.nstep.engine.module.message.dal.mysql.template.TemplateMapper;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.dto.content.SendContent;
 import org.nstep.engine.module.message.dto.content.SendTaskParamContent;
+import org.nstep.engine.module.message.dto.content.SendVariables;
 import org.nstep.engine.module.message.dto.model.SmsContentModel;
 import org.nstep.engine.module.message.dto.model.WeChatServiceAccountContentModel;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.service.template.TemplateService;
 import org.nstep.engine.module.message.util.ContentHolderUtil;
 import org.nstep.engine.module.message.util.RedisKeyUtil;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -34,7 +35,7 @@ import java.util.*;
 public class DataPlaceholderProcess implements BusinessProcess {
 
     @Resource
-    private TemplateMapper templateMapper; // 用于从数据库获取模板
+    private TemplateService templateService; // 用于从本地缓存获取模板
 
     @Resource
     private ContentHolderUtil contentHolderUtil; // 用于替换占位符
@@ -61,9 +62,9 @@ public class DataPlaceholderProcess implements BusinessProcess {
             return context;
         }
 
-        // 获取模板ID并从数据库中查询模板
+        // 获取模板ID并从本地缓存中获取模板（返回的是快照的副本）
         Long templateId = sendTaskParamContext.getMessageTemplateId();
-        TemplateDO messageTemplate = templateMapper.selectById(templateId);
+        TemplateDO messageTemplate = templateService.getTemplateFromCache(templateId);
 
         // 设置消息模板的发送状态为发送中
         messageTemplate.setMsgStatus(MessageDataConstants.MSG_SENDING);
@@ -97,8 +98,8 @@ public class DataPlaceholderProcess implements BusinessProcess {
 
         // 构建发送任务信息
         TemplateSendTask sendTask = TemplateSendTask.builder().messageTemplate(messageTemplate)
-                .receivers(sendTaskParamContext.getSendTaskParams().get(StrUtil.EMPTY))
-                .messageId(redisKeyUtil.createMessageId(messageTemplate.getId()))
+                .receivers(sendTaskParamContext.getSendTaskParams().get(SendVariables.EMPTY))
+                .messageId(redisKeyUtil.createMessageId())
                 .sendMessageKey(messageRedisKey)
                 .sendTaskId(sendTaskId)
                 .sendStartTime(LocalDateTime.now())
@@ -131,34 +132,11 @@ public class DataPlaceholderProcess implements BusinessProcess {
         }
     }
 
-    /**
-     * 处理特殊渠道的占位符替换
-     *
-     * @param channel             发送渠道
-     * @param copyMessageTemplate 消息模板副本
-     * @param entry               占位符和其对应的接收者
-     */
-    private void processSpecialChannels(Integer channel, TemplateDO copyMessageTemplate, Map.Entry<String, Set<String>> entry) {
-        // 如果渠道需要特殊处理
-        if (ChannelConfig.NEED_SKID.contains(channel)) {
-            // 对短信渠道进行占位符替换
-            if (Objects.equals(channel, MessageDataConstants.SMS)) {
-                SmsContentModel smsContentModel = JSON.parseObject(copyMessageTemplate.getMsgContent(), SmsContentModel.class);
-                smsContentModel.setContent(entry.getKey()); // 设置短信内容
-                copyMessageTemplate.setMsgContent(JSON.toJSONString(smsContentModel)); // 更新模板内容
-            }
-
-            // 对微信服务号渠道进行占位符替换
-            if (Objects.equals(channel, MessageDataConstants.WECHAT_SERVICE_ACCOUNT)) {
-                WeChatServiceAccountContentModel weChatServiceAccountContentModel = JSON.parseObject(copyMessageTemplate.getMsgContent(), WeChatServiceAccountContentModel.class);
-                weChatServiceAccountContentModel.setContent(entry.getKey()); // 设置微信内容
-                copyMessageTemplate.setMsgContent(JSON.toJSONString(weChatServiceAccountContentModel)); // 更新模板内容
-            }
-        }
-    }
-
     /**
      * 构建含占位符数据的 SendContent 对象
+     * <p>
+     * 占位符数据已在前置检查中解析，这里直接使用；模板内容的解析（特殊渠道）和编译（其他渠道）每次发送只做一次，
+     * 每组占位符数据只生成替换后的消息内容，并以此浅复制出该组的模板。
      *
      * @param sendTaskParamContext 发送任务的上下文，包含任务参数
      * @param messageTemplate      消息模板，包含占位符内容
@@ -167,32 +145,48 @@ public class DataPlaceholderProcess implements BusinessProcess {
      */
     private SendContent buildSendContext(SendTaskParamContent sendTaskParamContext, TemplateDO messageTemplate, Long sendTaskId) {
         // 获取发送任务的参数，包含占位符和接收者信息
-        Map<String, Set<String>> sendTaskParams = sendTaskParamContext.getSendTaskParams();
+        Map<SendVariables, Set<String>> sendTaskParams = sendTaskParamContext.getSendTaskParams();
+        Integer sendChannel = sendTaskParamContext.getSendChannel();
 
         // 生成发送任务的Redis键
         String messageRedisKey = RedisKeyUtil.createMessageRedisKey(sendTaskParamContext.getSender());
 
         // 存储所有的发送任务
-        List<TemplateSendTask> sendTasks = new ArrayList<>();
+        List<TemplateSendTask> sendTasks = new ArrayList<>(sendTaskParams.size());
         String content = messageTemplate.getMsgContent();
 
-        // 遍历所有的占位符参数
-        for (Map.Entry<String, Set<String>> entry : sendTaskParams.entrySet()) {
-            // 创建模板副本，避免直接修改原模板
-            TemplateDO copyMessageTemplate = BeanUtil.copyProperties(messageTemplate, TemplateDO.class);
-
-            // 处理需要特殊处理的渠道（不需要自己替换占位符）
-            processSpecialChannels(sendTaskParamContext.getSendChannel(), copyMessageTemplate, entry);
+        // 需要特殊处理的渠道（不需要自己替换占位符），模板内容只解析一次，每组数据只替换其中的 content
+        SmsContentModel smsContentModel = null;
+        WeChatServiceAccountContentModel weChatServiceAccountContentModel = null;
+        if (Objects.equals(sendChannel, MessageDataConstants.SMS)) {
+            smsContentModel = JSON.parseObject(content, SmsContentModel.class);
+        } else if (Objects.equals(sendChannel, MessageDataConstants.WECHAT_SERVICE_ACCOUNT)) {
+            weChatServiceAccountContentModel = JSON.parseObject(content, WeChatServiceAccountContentModel.class);
+        }
 
-            // 如果渠道不在特殊处理列表中，则替换占位符
-            if (!ChannelConfig.NEED_SKID.contains(sendTaskParamContext.getSendChannel())) {
-                String completeContent = contentHolderUtil.replacePlaceHolder(content, entry.getKey());
-                copyMessageTemplate.setMsgContent(completeContent); // 更新模板内容
+        // 遍历所有的占位符参数
+        for (Map.Entry<SendVariables, Set<String>> entry : sendTaskParams.entrySet()) {
+            String completeContent;
+            if (smsContentModel != null) {
+                // 短信渠道直接使用占位符数据作为内容
+                smsContentModel.setContent(entry.getKey().getJson());
+                completeContent = JSON.toJSONString(smsContentModel);
+            } else if (weChatServiceAccountContentModel != null) {
+                // 微信服务号渠道直接使用占位符数据作为内容
+                weChatServiceAccountContentModel.setContent(entry.getKey().getJson());
+                completeContent = JSON.toJSONString(weChatServiceAccountContentModel);
+            } else if (ChannelConfig.NEED_SKID.contains(sendChannel)) {
+                // 其他特殊渠道暂不处理
+                completeContent = content;
+            } else {
+                // 使用已解析的变量映射替换占位符
+                completeContent = contentHolderUtil.replacePlaceHolder(content, entry.getKey().getValues());
             }
 
-            // 构建发送任务信息
-            TemplateSendTask sendTask = TemplateSendTask.builder().receivers(entry.getValue()).messageTemplate(copyMessageTemplate)
-                    .messageId(redisKeyUtil.createMessageId(copyMessageTemplate.getId()))
+            // 构建发送任务信息，模板只复制字段引用，不再逐组深复制
+            TemplateSendTask sendTask = TemplateSendTask.builder().receivers(entry.getValue())
+                    .messageTemplate(TemplateRefUtil.copyTemplate(messageTemplate, completeContent))
+                    .messageId(redisKeyUtil.createMessageId())
                     .sendMessageKey(messageRedisKey)
                     .sendTaskId(sendTaskId)
                     .sendStartTime(LocalDateTime.now())
@@ -206,7 +200,7 @@ public class DataPlaceholderProcess implements BusinessProcess {
         return SendContent.builder().sendCode(MessageDataConstants.SEND_CODE)
                 .sendTasks(sendTasks)
                 .sendTime(LocalDateTime.now())
-                .sendChannel(sendTaskParamContext.getSendChannel())
+                .sendChannel(sendChannel)
                 .sendTaskId(sendTaskId)
                 .sender(sendTaskParamContext.getSender())
                 .build();
@@ -7,11 +7,13 @@ import org.nstep.engine.framework.common.pojo.CommonResult;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.message.TemplateSend;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
-import org.nstep.engine.module.message.dal.mysql.template.TemplateMapper;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.service.template.TemplateService;
 import org.springframework.stereotype.Component;
 
+import java.util.Objects;
+
 
 /**
  * 消息发送权限校验
@@ -24,7 +26,7 @@ import org.springframework.stereotype.Component;
 public class PermissionVerificationProcess implements BusinessProcess {
 
     @Resource
-    private TemplateMapper templateMapper;
+    private TemplateService templateService;
 
     /**
      * 核心处理方法
@@ -39,8 +41,18 @@ public class PermissionVerificationProcess implements BusinessProcess {
         // 获取发送请求中的消息模板 ID
         TemplateSend sendForm = (TemplateSend) context;
 
-        // 根据模板 ID 查询模板信息
-        TemplateDO messageTemplate = templateMapper.selectById(sendForm.getMessageTemplateId());
+        // 根据模板 ID 从本地缓存获取模板信息
+        TemplateDO messageTemplate = Objects.isNull(sendForm.getMessageTemplateId()) ? null
+                : templateService.getTemplateFromCache(sendForm.getMessageTemplateId());
+        if (Objects.isNull(messageTemplate)) {
+            context.setIsNeedBreak(true); // 设置中断标志
+            context.setResponse(
+                    CommonResult.error(
+                            ErrorCodeConstants.TEMPLATE_NOT_EXISTS.getCode(), // 错误码
+                            ErrorCodeConstants.TEMPLATE_NOT_EXISTS.getMsg()  // 错误信息
+                    ));
+            return context;
+        }
 
         // 校验模板审核状态，若未通过审核则中断责任链并返回错误信息
         if (!MessageDataConstants.AUDIT_PASS.equals(messageTemplate.getAuditStatus())) {
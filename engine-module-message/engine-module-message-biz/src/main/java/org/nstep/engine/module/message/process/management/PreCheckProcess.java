@@ -1,20 +1,24 @@
 package org.nstep.engine.module.message.process.management;
 
 
-import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONObject;
-import cn.hutool.json.JSONUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.framework.common.pojo.CommonResult;
 import org.nstep.engine.framework.security.core.util.SecurityFrameworkUtils;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.ParsedSendRequest;
 import org.nstep.engine.module.message.dto.message.TemplateSend;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
+import org.nstep.engine.module.message.dto.content.SendVariables;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.ContentHolderUtil;
+import org.nstep.engine.module.message.util.ReceiverSetUtil;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 数据前置检查
@@ -76,6 +80,7 @@ public class PreCheckProcess implements BusinessProcess {
         }
 
         // 校验占位符赋值是否完整
+        List<SendVariables> variables = Collections.emptyList();
         if (templateSendReqVO.getIsExitVariables() != 0) {
             if (StrUtil.isBlank(templateSendReqVO.getVariables())) {
                 log.warn("消息模板ID:{} 消息模板带有占位符但未赋值!", templateSendReqVO.getMessageTemplateId());
@@ -89,10 +94,23 @@ public class PreCheckProcess implements BusinessProcess {
                 return context;
             }
 
+            // 解析占位符数据，只解析这一次，解析结果随上下文传递给后续节点
+            try {
+                variables = ContentHolderUtil.parseVariables(templateSendReqVO.getVariables());
+            } catch (Exception e) {
+                log.warn("消息模板ID:{} 占位符数据解析失败:{}", templateSendReqVO.getMessageTemplateId(), e.getMessage());
+                context.setIsNeedBreak(true);
+                context.setResponse(
+                        CommonResult.error(
+                                ErrorCodeConstants.PLACEHOLDER_RESOLUTION_FAILURE.getCode(),
+                                ErrorCodeConstants.PLACEHOLDER_RESOLUTION_FAILURE.getMsg()
+                        ));
+                return context;
+            }
+
             // 校验占位符数据是否存在空值
-            List<JSONObject> jsonObjects = JSONUtil.toList(templateSendReqVO.getVariables(), JSONObject.class);
-            for (JSONObject jsonObject : jsonObjects) {
-                if (jsonObject.keySet().size() < templateSendReqVO.getIsExitVariables()) {
+            for (SendVariables sendVariables : variables) {
+                if (sendVariables.getValues().size() < templateSendReqVO.getIsExitVariables()) {
                     log.warn("消息模板ID:{} 存在占位符数据为空", templateSendReqVO.getMessageTemplateId());
                     context.setIsNeedBreak(true);
                     context.setResponse(
@@ -103,8 +121,8 @@ public class PreCheckProcess implements BusinessProcess {
                             ));
                     return context;
                 }
-                for (String key : jsonObject.keySet()) {
-                    if (ObjectUtil.isEmpty(jsonObject.get(key))) {
+                for (String value : sendVariables.getValues().values()) {
+                    if (StrUtil.isEmpty(value)) {
                         context.setIsNeedBreak(true);
                         context.setResponse(
                                 CommonResult.error0(
@@ -135,6 +153,18 @@ public class PreCheckProcess implements BusinessProcess {
             templateSendReqVO.setSender(SecurityFrameworkUtils.getLoginUserId());
         }
 
+        // 拆分接收者并去重，避免重复发送相同的消息
+        if (templateSendReqVO.getIsExitVariables() == 0) {
+            // 没有占位符时接收者直接解析为按渠道选择的集合，手机号以 long 保存
+            templateSendReqVO.setParsedRequest(new ParsedSendRequest(
+                    ReceiverSetUtil.parse(templateSendReqVO.getSendChannel(), templateSendReqVO.getReceivers())));
+        } else {
+            // 有占位符时保持请求中的顺序，与占位符数据按下标对应
+            List<String> receivers = StrUtil.split(templateSendReqVO.getReceivers(), MessageDataConstants.SEPARATOR)
+                    .stream().distinct().collect(Collectors.toList());
+            templateSendReqVO.setParsedRequest(new ParsedSendRequest(receivers, variables));
+        }
+
         return templateSendReqVO;
     }
 }
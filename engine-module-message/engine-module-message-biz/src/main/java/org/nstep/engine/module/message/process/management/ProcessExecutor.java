@@ -0,0 +1,216 @@
+package org.nstep.engine.module.message.process.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.GlobalTracer;
+import jakarta.annotation.Resource;
+import org.nstep.engine.framework.common.exception.ServiceException;
+import org.nstep.engine.framework.common.pojo.CommonResult;
+import org.nstep.engine.framework.tracer.core.util.TracerFrameworkUtils;
+import org.nstep.engine.module.message.dto.content.ProcessContent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 责任链执行器
+ * <p>
+ * 按顺序执行 {@link ProcessTemplate} 中的业务处理器，直到某个处理器标记中断，并记录每个环节的耗时和结果：
+ * <ul>
+ *     <li>engine.pipeline.process：每个处理器的耗时（按责任链、处理器、结果区分，带百分位直方图）</li>
+ *     <li>engine.pipeline.template：整条责任链的耗时（按责任链、结果区分）</li>
+ *     <li>engine.pipeline.break：处理器中断责任链的次数（按响应码区分）</li>
+ *     <li>engine.pipeline.failure：处理器抛出异常的次数（按错误码区分，非业务异常记为 exception）</li>
+ * </ul>
+ * 开启 engine.pipeline.tracing.enabled 后每个处理器额外创建一个 OpenTracing Span，作为当前请求链路的子节点。
+ * Timer、Counter 按标签组合缓存，执行时只有一次 Map 查找和计时。
+ */
+@Component
+public class ProcessExecutor {
+
+    /**
+     * 处理器执行结果：继续执行下一个处理器
+     */
+    private static final String OUTCOME_CONTINUE = "continue";
+
+    /**
+     * 处理器执行结果：中断责任链
+     */
+    private static final String OUTCOME_BREAK = "break";
+
+    /**
+     * 处理器执行结果：抛出异常
+     */
+    private static final String OUTCOME_ERROR = "error";
+
+    /**
+     * 非业务异常的错误码标签
+     */
+    private static final String CODE_EXCEPTION = "exception";
+
+    /**
+     * Span 操作名称的前缀
+     */
+    private static final String OPERATION_NAME_PREFIX = "Pipeline/";
+
+    /**
+     * 是否记录责任链指标
+     */
+    @Value("${engine.pipeline.metrics.enabled:true}")
+    private Boolean metricsEnabled;
+
+    /**
+     * 是否为每个处理器创建 Span
+     */
+    @Value("${engine.pipeline.tracing.enabled:false}")
+    private Boolean tracingEnabled;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 按 指标名:标签 缓存的 Timer
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 按 指标名:标签 缓存的 Counter
+     */
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 执行责任链
+     *
+     * @param template 责任链模板
+     * @param content  责任链上下文
+     * @return 执行后的上下文，被中断时 isNeedBreak 为 true
+     */
+    public ProcessContent execute(ProcessTemplate template, ProcessContent content) {
+        if (!metricsEnabled && !tracingEnabled) {
+            for (BusinessProcess process : template.getProcesses()) {
+                content = process.process(content);
+                if (content.getIsNeedBreak()) {
+                    break;
+                }
+            }
+            return content;
+        }
+
+        String templateName = Objects.requireNonNullElse(template.getName(), "default");
+        long start = System.nanoTime();
+        String outcome = OUTCOME_CONTINUE;
+        try {
+            for (BusinessProcess process : template.getProcesses()) {
+                content = execute(templateName, process, content);
+                if (content.getIsNeedBreak()) {
+                    outcome = OUTCOME_BREAK;
+                    break;
+                }
+            }
+            return content;
+        } catch (RuntimeException e) {
+            outcome = OUTCOME_ERROR;
+            throw e;
+        } finally {
+            if (metricsEnabled) {
+                templateTimer(templateName, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 执行单个处理器并记录耗时、结果
+     */
+    private ProcessContent execute(String templateName, BusinessProcess process, ProcessContent content) {
+        String processName = ClassUtils.getUserClass(process).getSimpleName();
+        Span span = tracingEnabled ? startSpan(templateName, processName) : null;
+        long start = System.nanoTime();
+        String outcome = OUTCOME_CONTINUE;
+        try (Scope ignored = span == null ? null : GlobalTracer.get().activateSpan(span)) {
+            ProcessContent result = process.process(content);
+            if (result.getIsNeedBreak()) {
+                outcome = OUTCOME_BREAK;
+                String code = responseCode(result.getResponse());
+                if (metricsEnabled) {
+                    counter("engine.pipeline.break", templateName, processName, code).increment();
+                }
+                if (span != null) {
+                    span.setTag("pipeline.break.code", code);
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            outcome = OUTCOME_ERROR;
+            if (metricsEnabled) {
+                String code = e instanceof ServiceException serviceException
+                        ? String.valueOf(serviceException.getCode()) : CODE_EXCEPTION;
+                counter("engine.pipeline.failure", templateName, processName, code).increment();
+            }
+            if (span != null) {
+                TracerFrameworkUtils.onError(e, span);
+            }
+            throw e;
+        } finally {
+            if (metricsEnabled) {
+                processTimer(templateName, processName, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (span != null) {
+                span.setTag("pipeline.outcome", outcome);
+                span.finish();
+            }
+        }
+    }
+
+    /**
+     * 创建处理器的 Span，当前有活动 Span（请求链路）时作为其子节点
+     */
+    private static Span startSpan(String templateName, String processName) {
+        Tracer tracer = GlobalTracer.get();
+        return tracer.buildSpan(OPERATION_NAME_PREFIX + templateName + "/" + processName)
+                .withTag(Tags.COMPONENT.getKey(), "pipeline")
+                .start();
+    }
+
+    private static String responseCode(CommonResult<?> response) {
+        return response == null ? "none" : String.valueOf(response.getCode());
+    }
+
+    private Timer processTimer(String templateName, String processName, String outcome) {
+        return timers.computeIfAbsent("engine.pipeline.process:" + templateName + ":" + processName + ":" + outcome,
+                key -> Timer.builder("engine.pipeline.process")
+                        .tag("template", templateName)
+                        .tag("process", processName)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private Timer templateTimer(String templateName, String outcome) {
+        return timers.computeIfAbsent("engine.pipeline.template:" + templateName + ":" + outcome,
+                key -> Timer.builder("engine.pipeline.template")
+                        .tag("template", templateName)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private Counter counter(String name, String templateName, String processName, String code) {
+        return counters.computeIfAbsent(name + ":" + templateName + ":" + processName + ":" + code,
+                key -> Counter.builder(name)
+                        .tag("template", templateName)
+                        .tag("process", processName)
+                        .tag("code", code)
+                        .register(meterRegistry));
+    }
+
+}
@@ -16,6 +16,13 @@ import java.util.List;
 @Builder
 public class ProcessTemplate {
 
+    /**
+     * 责任链名称
+     * <p>
+     * 用作责任链指标和 Span 的标签，参见 {@link ProcessExecutor}。
+     */
+    private String name;
+
     /**
      * 业务处理器列表
      * <p>
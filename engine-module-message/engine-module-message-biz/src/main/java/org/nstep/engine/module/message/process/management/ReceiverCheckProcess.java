@@ -1,7 +1,6 @@
 package org.nstep.engine.module.message.process.management;
 
 import cn.hutool.core.collection.CollectionUtil;
-import cn.hutool.core.util.ReUtil;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.framework.common.pojo.CommonResult;
@@ -9,17 +8,22 @@ import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.dto.content.SendTaskParamContent;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.CompactReceiverSet;
+import org.nstep.engine.module.message.util.PhoneUtil;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 /**
  * 接受者校验
  * <p>
  * 该服务类用于校验发送任务中的接收者是否符合特定渠道的格式规则。
- * 不同的发送渠道（如短信、邮件）有各自的格式校验规则，通过正则表达式进行匹配。
+ * 不同的发送渠道（如短信、邮件）有各自的格式校验规则：邮件使用预编译的正则表达式，短信使用不依赖正则的 {@link PhoneUtil}，
+ * 以 long 保存在 {@link CompactReceiverSet} 中的手机号直接校验，不转换成字符串。
  * 如果发现非法接收者，会中断流程并返回错误信息。
  */
 @Component
@@ -27,31 +31,31 @@ import java.util.stream.Collectors;
 public class ReceiverCheckProcess implements BusinessProcess {
 
     /**
-     * 渠道类型枚举，包含渠道类型和对应的正则表达式
+     * 渠道类型枚举，包含渠道类型和对应的校验规则
      */
     @Getter
     private enum ChannelType {
-        EMAIL(MessageDataConstants.EMAIL, MessageDataConstants.EMAIL_REGEX_EXP),
-        SMS(MessageDataConstants.SMS, MessageDataConstants.PHONE_REGEX_EXP);
+        EMAIL(MessageDataConstants.EMAIL, Pattern.compile(MessageDataConstants.EMAIL_REGEX_EXP).asMatchPredicate()),
+        SMS(MessageDataConstants.SMS, PhoneUtil::isValid);
 
         private final int channelId;  // 渠道 ID
-        private final String regex;   // 渠道对应的正则表达式
+        private final Predicate<String> validator;   // 渠道对应的校验规则
 
-        ChannelType(int channelId, String regex) {
+        ChannelType(int channelId, Predicate<String> validator) {
             this.channelId = channelId;
-            this.regex = regex;
+            this.validator = validator;
         }
 
         /**
-         * 根据渠道 ID 获取对应的正则表达式
+         * 根据渠道 ID 获取对应的校验规则
          *
          * @param channelId 渠道 ID
-         * @return 渠道对应的正则表达式，如果不存在则返回 null
+         * @return 渠道对应的校验规则，如果不存在则返回 null
          */
-        public static String getRegexByChannelId(int channelId) {
+        public static Predicate<String> getValidatorByChannelId(int channelId) {
             for (ChannelType type : values()) {
                 if (type.getChannelId() == channelId) {
-                    return type.getRegex();
+                    return type.getValidator();
                 }
             }
             return null;  // 如果没有匹配的渠道 ID，则返回 null
@@ -85,8 +89,8 @@ public class ReceiverCheckProcess implements BusinessProcess {
         // 获取当前发送任务的发送渠道
         Integer sendChannel = sendTaskParamContext.getSendChannel();
         // 如果该渠道没有配置校验规则，直接返回上下文
-        String regex = ChannelType.getRegexByChannelId(sendChannel);
-        if (regex == null) {
+        Predicate<String> validator = ChannelType.getValidatorByChannelId(sendChannel);
+        if (validator == null) {
             return context;
         }
 
@@ -94,7 +98,7 @@ public class ReceiverCheckProcess implements BusinessProcess {
         sendTaskParamContext.getSendTaskParams().forEach((placeholder, receiver) -> {
             // 如果流程未被标记为中断，则进行校验（避免覆盖之前的校验结果）
             if (!context.getIsNeedBreak()) {
-                check(receiver, regex, context);
+                check(receiver, validator, context);
             }
         });
 
@@ -104,18 +108,27 @@ public class ReceiverCheckProcess implements BusinessProcess {
     /**
      * 校验接收者格式
      * <p>
-     * 该方法根据正则表达式校验接收者的格式是否合法。
+     * 该方法根据渠道的校验规则校验接收者的格式是否合法。
      * 如果发现非法接收者，则记录日志，并标记流程中断，返回非法接收者的错误信息。
      *
-     * @param receiver 接收者集合
-     * @param regex    渠道对应的正则表达式
-     * @param context  发送任务的上下文，用于存储校验结果
+     * @param receiver  接收者集合
+     * @param validator 渠道对应的校验规则
+     * @param context   发送任务的上下文，用于存储校验结果
      */
-    private void check(Set<String> receiver, String regex, ProcessContent context) {
-        // 使用流操作筛选出非法接收者
-        List<String> illegalReceiver = receiver.stream()
-                .filter(r -> !ReUtil.isMatch(regex, r))  // 如果不匹配正则，则认为是非法接收者
-                .collect(Collectors.toList());
+    private void check(Set<String> receiver, Predicate<String> validator, ProcessContent context) {
+        // 筛选出非法接收者
+        List<String> illegalReceiver = new ArrayList<>();
+        if (receiver instanceof CompactReceiverSet compactReceiver && validator == ChannelType.SMS.getValidator()) {
+            // 以 long 保存的手机号直接校验，其余接收者按字符串校验
+            compactReceiver.forEachNumber(phone -> {
+                if (!PhoneUtil.isValid(phone)) {
+                    illegalReceiver.add(Long.toString(phone));
+                }
+            });
+            compactReceiver.others().stream().filter(validator.negate()).forEach(illegalReceiver::add);
+        } else {
+            receiver.stream().filter(validator.negate()).forEach(illegalReceiver::add);  // 不符合规则的认为是非法接收者
+        }
 
         // 如果存在非法接收者
         if (CollectionUtil.isNotEmpty(illegalReceiver)) {
@@ -1,37 +1,36 @@
 package org.nstep.engine.module.message.process.management;
 
-import cn.hutool.core.collection.CollectionUtil;
-import com.alibaba.fastjson.JSON;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.framework.common.pojo.CommonResult;
-import org.nstep.engine.module.message.config.ChannelConfig;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
-import org.nstep.engine.module.message.constant.RedissonConstants;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.dto.content.SendContent;
-import org.nstep.engine.module.message.dto.message.DelayQueueTask;
+import org.nstep.engine.module.message.dto.message.SendRecord;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
-import org.nstep.engine.module.message.rabbitmq.service.DelayMqService;
 import org.nstep.engine.module.message.rabbitmq.service.RabbitMQService;
+import org.nstep.engine.module.message.service.record.SendRecordService;
+import org.nstep.engine.module.message.util.ClaimCheckUtil;
 import org.nstep.engine.module.message.util.DataUtil;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.nstep.engine.module.message.util.DeliveryStatusUtil;
+import org.nstep.engine.module.message.util.RedisKeyUtil;
+import org.nstep.engine.module.message.util.SendCounterUtil;
+import org.nstep.engine.module.message.util.SendRecordUtil;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
+import java.util.Collections;
+import java.util.List;
 
 
 /**
  * 发送消息到 MQ 的处理器
  * <p>
  * 该类实现了 `BusinessProcess` 接口，处理发送消息到 RabbitMQ 的相关操作。
- * 它在执行过程中会将消息发送到 RabbitMQ，如果配置了延迟队列，则将任务发送到延迟交换机。
- * 还包括发送过程中一些统计逻辑，例如统计当前用户的发送人数和模板发送次数。
+ * 它在执行过程中会将消息发送到 RabbitMQ，发送超时由消费端的 {@link org.nstep.engine.module.message.handler.timeout.SendTimeoutTracker} 跟踪。
+ * 还包括发送过程中一些统计逻辑，例如统计当前用户的发送人数和模板发送次数，统计增量在本地聚合后批量写回 Redis，不再加分布式锁。
  * <p>
  * 该类通过 Spring 的 `@Component` 注解进行注册，方便在其他组件中进行注入使用。
  */
@@ -40,40 +39,52 @@ import java.util.*;
 public class SendMqProcess implements BusinessProcess {
 
     /**
-     * 是否启用延迟队列的配置值
+     * RabbitMQ 服务接口，用于发送消息
      */
-    @Value("${engine.rabbitmq.delayQueues.enabled}")
-    private String delayQueues;
+    @Resource
+    private RabbitMQService rabbitMQService;
 
     /**
-     * RabbitMQ 服务接口，用于发送消息
+     * 工具类，用于数据相关操作
      */
     @Resource
-    private RabbitMQService rabbitMQService;
+    private DataUtil dataUtil;
 
     /**
-     * Redis 模板，用于操作 Redis 数据
+     * 消息投递状态工具类，用于登记发送任务下每条消息的状态
      */
     @Resource
-    private StringRedisTemplate stringRedisTemplate;
+    private DeliveryStatusUtil deliveryStatusUtil;
 
     /**
-     * 工具类，用于数据相关操作
+     * 发送统计计数工具类，用于本地聚合后批量写回统计数据
      */
     @Resource
-    private DataUtil dataUtil;
+    private SendCounterUtil sendCounterUtil;
 
     /**
-     * 延迟消息队列服务，用于发送延迟队列任务
+     * 发送记录工具类，用于保存发送任务的精简记录
      */
     @Resource
-    private DelayMqService delayMqService;
+    private SendRecordUtil sendRecordUtil;
 
     /**
-     * Redisson 客户端，用于分布式锁操作
+     * 发送记录 Service，用于归档投递失败的发送记录
      */
     @Resource
-    private RedissonClient redissonClient;
+    private SendRecordService sendRecordService;
+
+    /**
+     * 接收者 claim-check 工具类，用于将过多的接收者转存到 Redis
+     */
+    @Resource
+    private ClaimCheckUtil claimCheckUtil;
+
+    /**
+     * 模板引用工具类，用于拆分 MQ 消息并以引用代替模板
+     */
+    @Resource
+    private TemplateRefUtil templateRefUtil;
 
     /**
      * 处理发送任务
@@ -85,15 +96,22 @@ public class SendMqProcess implements BusinessProcess {
     public ProcessContent process(ProcessContent context) {
         // 将上下文转换为发送内容对象
         SendContent sendContext = (SendContent) context;
+        SendRecord sendRecord = null;
+        List<SendContent> shards = Collections.emptyList();
+        int sentShards = 0;
+        Exception sendException = null;
 
         try {
-            // 将发送上下文转换为 JSON 字符串，并发送消息
-            String sendContextJson = JSON.toJSONString(sendContext);
-            rabbitMQService.send(sendContextJson, sendContext.getSendCode());
-
-            // 如果配置启用延迟队列，则将任务发送到延迟交换机
-            if ("true".equals(delayQueues)) {
-                sendXdl(sendContext);
+            // 先登记每条消息的投递状态，并保存发送任务的精简记录（完整的模板和接收人不再写入 Redis），
+            // 保证消费端回执时可以直接按 sendTaskId/messageId 确认并累加发送记录的计数
+            deliveryStatusUtil.register(sendContext);
+            sendRecord = sendRecordUtil.save(sendContext, MessageDataConstants.MSG_SENDING);
+
+            // 按接收者数量拆分为多条 MQ 消息，发送任务只引用模板；接收者过多的发送任务只携带接收者的存储 key
+            shards = templateRefUtil.shard(sendContext);
+            for (SendContent shard : shards) {
+                rabbitMQService.send(claimCheckUtil.offload(shard), sendContext.getSendCode());
+                sentShards++;
             }
         } catch (Exception e) {
             // 处理异常并记录日志
@@ -101,6 +119,7 @@ public class SendMqProcess implements BusinessProcess {
 
             // 设置错误日志
             sendContext.setSendLogs("errorMsg:" + Throwables.getStackTraceAsString(e));
+            sendException = e;
             // 标记需要中断处理
             context.setIsNeedBreak(true);
             context.setResponse(
@@ -110,10 +129,16 @@ public class SendMqProcess implements BusinessProcess {
                             e.getMessage()
                     ));
         } finally {
-            // 将消息内容推送到 Redis 中的消息队列
-            String messageKey = sendContext.getSendTasks().get(0).getSendMessageKey();
-            stringRedisTemplate.opsForList()
-                    .rightPush(messageKey, JSON.toJSONString(sendContext));
+            if (sendException != null) {
+                if (sentShards == 0) {
+                    // 整个任务投递失败，不会再有回执，将发送记录更新为失败后直接归档
+                    sendRecordUtil.updateStatus(sendRecord, MessageDataConstants.MSG_FAIL);
+                    sendRecordService.archive(sendRecord);
+                } else {
+                    // 部分消息已投递时任务仍在发送中，未投递的消息直接确认为发送失败
+                    failUnsentShards(shards.subList(sentShards, shards.size()), sendException);
+                }
+            }
 
             // 统计发送任务相关信息
             calculateNumberOfSenders(sendContext, sendContext.getSender());
@@ -132,27 +157,23 @@ public class SendMqProcess implements BusinessProcess {
     }
 
     /**
-     * 将消息发送到延迟交换机
+     * 将未投递到 MQ 的消息确认为发送失败
      *
-     * @param sendContext 发送的任务内容
+     * @param unsentShards 未投递的发送上下文
+     * @param e            投递异常
      */
-    private void sendXdl(SendContent sendContext) {
-        // 创建延迟队列任务列表
-        List<DelayQueueTask> delayTasks = new ArrayList<>();
-        for (TemplateSendTask sendTask : sendContext.getSendTasks()) {
-            // 将任务信息封装到 DelayQueueTask 对象中
-            delayTasks.add(DelayQueueTask.builder().sendTaskId(sendTask.getSendTaskId())
-                    .messageRedisKey(sendTask.getSendMessageKey())
-                    .messageId(sendTask.getMessageId()).build());
+    private void failUnsentShards(List<SendContent> unsentShards, Exception e) {
+        for (SendContent shard : unsentShards) {
+            for (TemplateSendTask sendTask : shard.getSendTasks()) {
+                dataUtil.confirmSend(null, sendTask.getMessageId(), sendTask.getSendMessageKey(), sendTask.getSendTaskId(), e);
+            }
         }
-
-        // 获取发送频道并将延迟任务发送到相应的延迟队列
-        Integer channel = sendContext.getSendTasks().get(0).getMessageTemplate().getSendChannel();
-        delayMqService.send(JSON.toJSONString(delayTasks), ChannelConfig.CHANNEL_EXP_TIME.get(channel));
     }
 
     /**
-     * 统计当前用户的发送人数，并将统计结果存储到 Redis
+     * 统计当前用户的发送人数
+     * <p>
+     * 包括用户总发送人数、用户当天下发人数和用户当天各渠道的发送人数，增量先在本地聚合，由 {@link SendCounterUtil} 周期性写回 Redis
      *
      * @param sendContext 发送的任务内容
      * @param userId      发送用户的 ID
@@ -160,34 +181,20 @@ public class SendMqProcess implements BusinessProcess {
     private void calculateNumberOfSenders(SendContent sendContext, Long userId) {
         // 统计本次任务的发送人数
         Integer sendNumber = countSendNumber(sendContext);
-
-        // 获取分布式锁，确保同一用户的发送任务是串行执行
-        RLock lock = redissonClient.getLock(RedissonConstants.USER_TOTAL_LOCK + sendContext.getSender());
-        try {
-            lock.lock();  // 获取锁
-            // 获取该用户当前的发送人数
-            String count = stringRedisTemplate.opsForValue().get(MessageDataConstants.USER_SEND_NUMBER + userId);
-
-            Integer number;
-            // 如果该用户有发送记录，更新发送次数
-            if (Objects.nonNull(count) && !MessageDataConstants.PUSH_NOW.equals(count)) {
-                number = Integer.parseInt(count);
-                number += sendNumber;
-            } else {
-                // 如果没有发送记录，则设置为本次任务的发送人数
-                number = sendNumber;
-            }
-            // 更新用户的发送次数
-            stringRedisTemplate.opsForValue().set(MessageDataConstants.USER_SEND_NUMBER + userId, String.valueOf(number));
-        } catch (Exception e) {
-            log.error("统计用户总发送人数异常:{}", Throwables.getStackTraceAsString(e));
-        } finally {
-            lock.unlock();  // 释放锁
-        }
+        String today = RedisKeyUtil.getCurrentDay();
+
+        sendCounterUtil.increment(MessageDataConstants.USER_SEND_NUMBER + userId, sendNumber);
+        // 按天统计的 key 设置过期时间
+        sendCounterUtil.increment(RedisKeyUtil.getSendTotalOfDay(userId, today), null, sendNumber,
+                MessageDataConstants.SEND_COUNT_EXPIRE_TIME);
+        sendCounterUtil.increment(RedisKeyUtil.getSendChannelCountRedisKey(userId, today),
+                String.valueOf(sendContext.getSendChannel()), sendNumber, MessageDataConstants.SEND_COUNT_EXPIRE_TIME);
     }
 
     /**
-     * 统计当前模板的发送次数，并将统计结果存储到 Redis
+     * 统计当前模板的发送人数
+     * <p>
+     * 增量先在本地聚合，由 {@link SendCounterUtil} 周期性通过 HINCRBY 写回 Redis
      *
      * @param sendContext 发送的任务内容
      * @param userId      发送用户的 ID
@@ -195,40 +202,10 @@ public class SendMqProcess implements BusinessProcess {
     private void calculateNumberOfTemplate(SendContent sendContext, Long userId) {
         // 统计本次任务的发送人数
         Integer sendNumber = countSendNumber(sendContext);
+        // 获取消息模板的 ID
+        Long templateId = sendContext.getSendTasks().get(0).getMessageTemplate().getId();
 
-        // 获取分布式锁，确保同一模板的发送任务是串行执行
-        RLock lock = redissonClient.getLock(RedissonConstants.TEMPLATE_TOTAL_LOCK + sendContext.getSender());
-        try {
-            lock.lock();  // 获取锁
-            // 获取消息模板的 ID
-            Long messageId = sendContext.getSendTasks().get(0).getMessageTemplate().getId();
-            Map<Object, Object> entries = stringRedisTemplate.opsForHash()
-                    .entries(MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + userId);
-
-            // 如果该模板有发送记录，更新发送次数
-            if (CollectionUtil.isNotEmpty(entries)) {
-                Integer number;
-                if (entries.get(messageId.toString()) != null) {
-                    number = Integer.valueOf(entries.get(messageId.toString()).toString());
-                    number += sendNumber;
-                } else {
-                    number = sendNumber;
-                }
-                entries.put(messageId.toString(), number.toString());
-                stringRedisTemplate.opsForHash()
-                        .putAll(MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + userId, entries);
-            } else {
-                // 如果该模板没有发送记录，创建新的记录
-                Map<String, String> map = new HashMap<>();
-                map.put(messageId.toString(), sendNumber.toString());
-                stringRedisTemplate.opsForHash()
-                        .putAll(MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + userId, map);
-            }
-        } catch (Exception e) {
-            log.error("统计模板总发送人数异常:{}", Throwables.getStackTraceAsString(e));
-        } finally {
-            lock.unlock();  // 释放锁
-        }
+        sendCounterUtil.increment(MessageDataConstants.TEMPLATE_SEND_NUMBER_NAME + userId, templateId.toString(), sendNumber);
     }
 
     /**
@@ -1,18 +1,20 @@
 package org.nstep.engine.module.message.process.management;
 
-import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.framework.common.pojo.CommonResult;
-import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.ParsedSendRequest;
 import org.nstep.engine.module.message.dto.message.TemplateSend;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.dto.content.SendTaskParamContent;
+import org.nstep.engine.module.message.dto.content.SendVariables;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.ReceiverSetUtil;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 对变量数据进行统一分类
@@ -48,20 +50,30 @@ public class VariableClassificationProcess implements BusinessProcess {
             return context;  // 返回中断后的上下文
         }
 
+        // 使用前置检查中已解析的请求，不再重复拆分接收者、解析占位符数据
+        ParsedSendRequest parsedRequest = sendForm.getParsedRequest();
+        if (parsedRequest == null) {
+            log.warn("发送请求未经前置检查，VariableClassificationProcess.process");
+            context.setIsNeedBreak(true);
+            context.setResponse(
+                    CommonResult.error(
+                            ErrorCodeConstants.PROCESS_CONTEXT_INTERRUPTION.getCode(),
+                            ErrorCodeConstants.PROCESS_CONTEXT_INTERRUPTION.getMsg()
+                    )
+            );
+            return context;
+        }
+
         // 初始化存储发送任务参数的容器
-        Map<String, Set<String>> sendTaskParams = new HashMap<>();
-        // 将接收者字符串拆分为 List，使用分隔符进行分割
-        List<String> list = StrUtil.split(sendForm.getReceivers(), MessageDataConstants.SEPARATOR);
-        // 接收者去重，避免重复发送相同的消息
-        List<String> receivers = list.stream().distinct().collect(Collectors.toList());
+        Map<SendVariables, Set<String>> sendTaskParams = new HashMap<>();
 
         // 如果存在占位符数据，则进行处理
         if (sendForm.getIsExitVariables() != 0) {
-            // 解析占位符数据（JSON 格式的字符串）
-            List<String> jsonObjects = JSONUtil.toList(sendForm.getVariables(), String.class);
+            List<String> receivers = parsedRequest.getReceivers();
+            List<SendVariables> variables = parsedRequest.getVariables();
 
             // 校验接收者与占位符数据的数量是否一致
-            if (receivers.size() != jsonObjects.size()) {
+            if (receivers.size() != variables.size()) {
                 // 如果数量不一致，则中断流程并返回错误信息
                 context.setIsNeedBreak(true);
                 context.setResponse(
@@ -74,10 +86,10 @@ public class VariableClassificationProcess implements BusinessProcess {
             }
 
             // 合并接收者和占位符数据
-            mergeData(sendTaskParams, receivers, jsonObjects);
+            mergeData(sendTaskParams, sendForm.getSendChannel(), receivers, variables);
         } else {
-            // 如果没有占位符数据，直接将接收者放入默认的集合中
-            sendTaskParams.put("", new HashSet<>(receivers));
+            // 如果没有占位符数据，前置检查中已去重的接收者集合直接作为默认分组
+            sendTaskParams.put(SendVariables.EMPTY, parsedRequest.getReceiverSet());
         }
 
         // 构建并返回处理后的任务参数内容
@@ -94,24 +106,17 @@ public class VariableClassificationProcess implements BusinessProcess {
      * 合并相同占位符数据
      * <p>
      * 该方法用于将接收者与占位符数据进行匹配，确保相同的占位符对应相同的接收者集合。
-     * 如果某个占位符已经有接收者，则将新接收者加入该占位符的集合中；如果没有，则创建新的集合。
+     * 占位符数据按解析后的变量映射比较，与 JSON 文本中字段的顺序无关。
      *
      * @param sendTaskParams 存储占位符与接收者集合的 Map
+     * @param sendChannel    发送渠道，决定接收者集合的实现
      * @param receivers      接收者列表
-     * @param jsonObjects    占位符数据列表
+     * @param variables      占位符数据列表
      */
-    private void mergeData(Map<String, Set<String>> sendTaskParams, List<String> receivers, List<String> jsonObjects) {
-        // 遍历所有接收者和占位符数据
+    private void mergeData(Map<SendVariables, Set<String>> sendTaskParams, Integer sendChannel,
+                           List<String> receivers, List<SendVariables> variables) {
         for (int i = 0; i < receivers.size(); i++) {
-            // 如果该占位符数据还没有对应的接收者集合，创建新的集合并加入接收者
-            if (sendTaskParams.get(jsonObjects.get(i)) == null) {
-                HashSet<String> hashSet = new HashSet<>();
-                hashSet.add(receivers.get(i));
-                // 使用占位符数据作为 key，接收者集合作为 value
-                sendTaskParams.put(jsonObjects.get(i), hashSet);
-            }
-            // 如果已经有对应的接收者集合，则直接将新的接收者加入集合中
-            sendTaskParams.get(jsonObjects.get(i)).add(receivers.get(i));
+            sendTaskParams.computeIfAbsent(variables.get(i), key -> ReceiverSetUtil.newSet(sendChannel, 1)).add(receivers.get(i));
         }
     }
 }
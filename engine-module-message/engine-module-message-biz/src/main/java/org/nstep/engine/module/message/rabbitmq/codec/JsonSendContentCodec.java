@@ -0,0 +1,42 @@
+package org.nstep.engine.module.message.rabbitmq.codec;
+
+import com.alibaba.fastjson.JSON;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JSON 编解码器
+ * <p>
+ * 与原先的消息格式一致，是生产端的默认编解码器，也用于兼容没有编解码器消息头的旧消息。
+ * 编码和解码都使用 fastjson，不再混用 hutool。
+ */
+@Component
+public class JsonSendContentCodec implements SendContentCodec {
+
+    /**
+     * 编解码器名称
+     */
+    public static final String NAME = "json";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String contentType() {
+        return MessageProperties.CONTENT_TYPE_JSON;
+    }
+
+    @Override
+    public byte[] encode(SendContent sendContent) {
+        return JSON.toJSONBytes(sendContent);
+    }
+
+    @Override
+    public SendContent decode(byte[] body) {
+        return JSON.parseObject(body, SendContent.class);
+    }
+
+}
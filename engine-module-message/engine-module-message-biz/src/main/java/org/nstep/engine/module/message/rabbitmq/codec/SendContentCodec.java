@@ -0,0 +1,46 @@
+package org.nstep.engine.module.message.rabbitmq.codec;
+
+import org.nstep.engine.module.message.dto.content.SendContent;
+
+/**
+ * 发送消息编解码器
+ * <p>
+ * 投递到 RabbitMQ 的发送上下文的序列化方式。生产端使用 engine.mqCodec.name 指定的编解码器，
+ * 并将其名称写入消息头 {@link SendContentCodecRegistry#HEADER_CODEC}；消费端按消息头选择编解码器，
+ * 没有该消息头的旧消息按 JSON 解码。
+ */
+public interface SendContentCodec {
+
+    /**
+     * 编解码器名称，写入消息头
+     *
+     * @return 名称
+     */
+    String name();
+
+    /**
+     * 消息的 content-type
+     *
+     * @return content-type
+     */
+    String contentType();
+
+    /**
+     * 编码
+     *
+     * @param sendContent 发送上下文
+     * @return 编码后的字节
+     * @throws Exception 编码失败
+     */
+    byte[] encode(SendContent sendContent) throws Exception;
+
+    /**
+     * 解码
+     *
+     * @param body 消息体
+     * @return 发送上下文
+     * @throws Exception 解码失败
+     */
+    SendContent decode(byte[] body) throws Exception;
+
+}
@@ -0,0 +1,141 @@
+package org.nstep.engine.module.message.rabbitmq.codec;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 发送消息编解码器注册表
+ * <p>
+ * 生产端使用 engine.mqCodec.name（默认 json）指定的编解码器编码，编码后超过 engine.mqCodec.compressThreshold 字节时
+ * 再以 LZ4 帧格式压缩，并在 content-encoding 中标记；消费端按消息头选择编解码器、按 content-encoding 解压。
+ * 上报 engine.mq.payload.bytes 指标（按编解码器和是否压缩区分），用于对比各编解码器的消息体积。
+ */
+@Component
+@Slf4j
+public class SendContentCodecRegistry {
+
+    /**
+     * 编解码器名称的消息头
+     */
+    public static final String HEADER_CODEC = "codec";
+
+    /**
+     * LZ4 压缩的 content-encoding
+     */
+    public static final String ENCODING_LZ4 = "lz4";
+
+    /**
+     * 生产端使用的编解码器
+     */
+    @Value("${engine.mqCodec.name:" + JsonSendContentCodec.NAME + "}")
+    private String codecName;
+
+    /**
+     * 编码后超过该字节数时压缩，小于等于 0 表示不压缩
+     */
+    @Value("${engine.mqCodec.compressThreshold:8192}")
+    private Integer compressThreshold;
+
+    @Resource
+    private List<SendContentCodec> codecList;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Map<String, SendContentCodec> codecs;
+
+    private SendContentCodec encoder;
+
+    @PostConstruct
+    public void init() {
+        codecs = codecList.stream().collect(Collectors.toMap(SendContentCodec::name, Function.identity()));
+        encoder = codecs.get(codecName);
+        if (encoder == null) {
+            throw new IllegalStateException("不支持的消息编解码器:" + codecName + "，可选:" + codecs.keySet());
+        }
+    }
+
+    /**
+     * 编码发送上下文，并设置消息头、content-type 和 content-encoding
+     *
+     * @param sendContent 发送上下文
+     * @param properties  消息属性
+     * @return 消息体
+     * @throws Exception 编码失败
+     */
+    public byte[] encode(SendContent sendContent, MessageProperties properties) throws Exception {
+        byte[] body = encoder.encode(sendContent);
+        boolean compressed = compressThreshold > 0 && body.length > compressThreshold;
+        if (compressed) {
+            body = compress(body);
+            properties.setContentEncoding(ENCODING_LZ4);
+        }
+        properties.setHeader(HEADER_CODEC, encoder.name());
+        properties.setContentType(encoder.contentType());
+        payloadSummary(encoder.name(), compressed).record(body.length);
+        return body;
+    }
+
+    /**
+     * 按消息头解码发送上下文，没有编解码器消息头的旧消息按 JSON 解码
+     *
+     * @param message 消息
+     * @return 发送上下文
+     * @throws Exception 解码失败
+     */
+    public SendContent decode(Message message) throws Exception {
+        MessageProperties properties = message.getMessageProperties();
+        String name = properties.getHeader(HEADER_CODEC);
+        SendContentCodec codec = codecs.get(StrUtil.blankToDefault(name, JsonSendContentCodec.NAME));
+        if (codec == null) {
+            throw new IllegalArgumentException("不支持的消息编解码器:" + name);
+        }
+        byte[] body = message.getBody();
+        if (ENCODING_LZ4.equals(properties.getContentEncoding())) {
+            body = decompress(body);
+        }
+        return codec.decode(body);
+    }
+
+    private DistributionSummary payloadSummary(String codec, boolean compressed) {
+        return DistributionSummary.builder("engine.mq.payload.bytes")
+                .baseUnit("bytes")
+                .tag("codec", codec)
+                .tag("compressed", String.valueOf(compressed))
+                .register(meterRegistry);
+    }
+
+    private static byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(out)) {
+            lz4.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] body) throws IOException {
+        try (LZ4FrameInputStream lz4 = new LZ4FrameInputStream(new ByteArrayInputStream(body))) {
+            return lz4.readAllBytes();
+        }
+    }
+
+}
@@ -3,16 +3,22 @@ package org.nstep.engine.module.message.rabbitmq.consumer;
 import com.google.common.base.Throwables;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.config.ChannelConfig;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.content.SendContent;
 import org.nstep.engine.module.message.dto.message.TemplateInfoTask;
+import org.nstep.engine.module.message.handler.executor.ChannelExecutorRegistry;
+import org.nstep.engine.module.message.handler.real.ChannelHandler;
+import org.nstep.engine.module.message.handler.timeout.SendTimeoutTracker;
 import org.nstep.engine.module.message.util.DataUtil;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 /**
  * 消费 MQ 的消息实现类
@@ -25,14 +31,17 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class ConsumerImpl implements ConsumerService {
 
     @Resource
-    private ApplicationContext applicationContext; // Spring 应用上下文，用于获取任务实例
+    private Map<Integer, ChannelHandler> channelHandlers; // 渠道处理器映射，根据不同的发送渠道选择相应的处理器
 
     @Resource
-    private Map<Integer, ThreadPoolExecutor> dtpThreadPoolExecutors; // 渠道线程池映射，根据不同的发送渠道选择相应的线程池
+    private ChannelExecutorRegistry channelExecutorRegistry; // 渠道线程池注册表，根据不同的发送渠道选择相应的线程池
 
     @Resource
     private DataUtil dataUtil; // 工具类，处理发送数据和统计信息
 
+    @Resource
+    private SendTimeoutTracker sendTimeoutTracker; // 发送超时跟踪器，到期后将仍在发送中的消息确认为失败
+
     /**
      * 使用线程池消费发送任务集合中的每一个任务信息
      * <p>
@@ -40,19 +49,41 @@ public class ConsumerImpl implements ConsumerService {
      * 如果在执行过程中发生异常，会记录错误信息并调用 `confirmSend` 方法处理异常。
      *
      * @param sendContext 发送任务的上下文，包含多个发送任务信息和相关元数据
+     * @return 所有发送任务处理完成（已调用服务商并确认发送结果）的 Future，提交或处理失败的任务会被确认为发送失败，不会使 Future 异常结束
      */
     @Override
-    public void consumerSend(SendContent sendContext) {
+    public CompletableFuture<Void> consumerSend(SendContent sendContext) {
         Integer sendChannel = sendContext.getSendChannel(); // 获取发送渠道
         List<TemplateSendTask> sendTasks = sendContext.getSendTasks(); // 获取当前的所有发送任务
+        List<CompletableFuture<Void>> futures = new ArrayList<>(sendTasks.size());
+        ChannelHandler channelHandler = channelHandlers.get(sendChannel); // 获取发送渠道对应的处理器
+        ExecutorService executor = channelExecutorRegistry.getExecutor(sendChannel); // 获取发送渠道对应的线程池
+
+        // 登记发送超时，超时时间按渠道配置
+        String expTime = ChannelConfig.CHANNEL_EXP_TIME.get(sendChannel);
+        if (expTime != null && !sendTasks.isEmpty()) {
+            List<Long> messageIds = new ArrayList<>(sendTasks.size());
+            sendTasks.forEach(sendTask -> messageIds.add(sendTask.getMessageId()));
+            sendTimeoutTracker.track(sendContext.getSendTaskId(), sendTasks.get(0).getSendMessageKey(), messageIds, Long.parseLong(expTime));
+        }
 
         // 遍历每个发送任务并提交给线程池执行
         for (TemplateSendTask TemplateSendTask : sendTasks) {
             try {
-                // 从 Spring 上下文获取 Task 实例，并设置相应的发送任务信息
-                TemplateInfoTask task = applicationContext.getBean(TemplateInfoTask.class).setTemplateSendTask(TemplateSendTask);
-                // 根据发送渠道获取对应的线程池，执行任务
-                dtpThreadPoolExecutors.get(sendChannel).execute(task);
+                if (channelHandler == null || executor == null) {
+                    throw new IllegalStateException("不支持的发送渠道:" + sendChannel);
+                }
+                // 创建发送任务，交给发送渠道对应的线程池执行，等待渠道处理器返回的 Future（如合并发送）完成
+                TemplateInfoTask task = new TemplateInfoTask(TemplateSendTask, channelHandler);
+                futures.add(CompletableFuture.supplyAsync(task, executor)
+                        .thenCompose(Function.identity())
+                        .exceptionally(e -> {
+                            // 渠道处理器未捕获的异常，同样确认为发送失败
+                            log.error("消息处理失败:{}", Throwables.getStackTraceAsString(e));
+                            dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(),
+                                    TemplateSendTask.getSendTaskId(), new RuntimeException(e));
+                            return null;
+                        }));
             } catch (Exception e) {
                 // 处理消息消费失败的异常
                 log.error("消息消费失败:{}", Throwables.getStackTraceAsString(e));
@@ -60,6 +91,7 @@ public class ConsumerImpl implements ConsumerService {
                 dataUtil.confirmSend(null, TemplateSendTask.getMessageId(), TemplateSendTask.getSendMessageKey(), TemplateSendTask.getSendTaskId(), e);
             }
         }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
     /**
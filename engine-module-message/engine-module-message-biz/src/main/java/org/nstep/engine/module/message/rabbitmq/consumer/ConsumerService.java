@@ -3,6 +3,8 @@ package org.nstep.engine.module.message.rabbitmq.consumer;
 
 import org.nstep.engine.module.message.dto.content.SendContent;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 消费者服务接口
  * <p>
@@ -14,10 +16,12 @@ public interface ConsumerService {
      * 消费要发送的消息
      * <p>
      * 该方法用于处理和消费待发送的消息。实现类需要根据消息的内容进行相应的发送操作。
+     * 发送任务异步执行，返回的 Future 在所有发送任务都被渠道处理器处理完成后结束，调用方据此确认 MQ 消息。
      *
      * @param sendContext 发送任务的上下文信息，包含了待发送的消息内容以及相关的元数据
+     * @return 所有发送任务处理完成的 Future
      */
-    void consumerSend(SendContent sendContext);
+    CompletableFuture<Void> consumerSend(SendContent sendContext);
 
     /**
      * 撤回消息
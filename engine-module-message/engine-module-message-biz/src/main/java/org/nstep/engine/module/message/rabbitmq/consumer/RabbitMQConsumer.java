@@ -1,9 +1,15 @@
 package org.nstep.engine.module.message.rabbitmq.consumer;
 
-import cn.hutool.json.JSONUtil;
+import com.google.common.base.Throwables;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.rabbitmq.codec.SendContentCodecRegistry;
+import org.nstep.engine.module.message.util.ClaimCheckUtil;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.Exchange;
 import org.springframework.amqp.rabbit.annotation.Queue;
@@ -11,49 +17,126 @@ import org.springframework.amqp.rabbit.annotation.QueueBinding;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * RabbitMQ 消息消费者类
  * <p>
- * 该类用于从 RabbitMQ 消费消息。它通过 `@RabbitListener` 注解监听指定的消息队列和交换机，
+ * 该类用于从 RabbitMQ 批量消费消息。它通过 `@RabbitListener` 注解监听指定的消息队列和交换机，
  * 根据消息的类型（发送或撤回）调用相应的服务方法来处理消息。
+ * <p>
+ * 监听容器见 {@link org.nstep.engine.module.message.config.RabbitMQConsumerConfig}：一批消息中的发送任务并行执行，
+ * 全部由渠道处理器处理完成后才确认这一批消息，进程在处理途中退出时消息会重新投递，而不是丢失。
+ * 同时按队列上报以下指标：
+ * <ul>
+ *     <li>engine.mq.consumer.messages：消费的消息数量，按消息类型区分</li>
+ *     <li>engine.mq.consumer.batch：一批消息从开始处理到确认的耗时</li>
+ *     <li>engine.mq.consumer.lag：消息从发送到开始消费的延迟</li>
+ * </ul>
  * </p>
  */
 @Component
+@Slf4j
 public class RabbitMQConsumer {
 
     @Resource
     private ConsumerService consumerService; // 消费者服务，用于处理发送和撤回操作
 
+    @Resource
+    private MeterRegistry meterRegistry; // 指标注册器，用于上报消费吞吐和延迟
+
+    @Resource
+    private SendContentCodecRegistry sendContentCodecRegistry; // 发送消息编解码器注册表，按消息头解码消息
+
+    @Resource
+    private ClaimCheckUtil claimCheckUtil; // 接收者 claim-check 工具类，用于按需读取和清理转存的接收者
+
+    @Resource
+    private TemplateRefUtil templateRefUtil; // 模板引用工具类，用于从本地缓存还原发送任务引用的模板
+
     /**
-     * 从 RabbitMQ 中消费消息并处理
+     * 从 RabbitMQ 中批量消费消息并处理
      * <p>
-     * 该方法通过 `@RabbitListener` 注解监听 RabbitMQ 消息队列。当收到消息时，方法会根据消息头部的 `messageType` 来判断消息类型：
+     * 该方法通过 `@RabbitListener` 注解监听 RabbitMQ 消息队列。对于每条消息，会根据消息头部的 `messageType` 来判断消息类型：
      * - 如果是发送类型消息 (`SEND_CODE`)，则解析消息内容并调用 `consumerSend` 方法处理。
      * - 如果是撤回类型消息 (`RECALL_CODE`)，则调用 `consumerRecall` 方法进行撤回处理。
+     * 无法解析的消息直接拒绝且不重新入队，其余消息在处理完成后一次性确认。
      * </p>
      *
-     * @param message 消息对象，包含消息体和消息属性
+     * @param messages 一批消息，包含消息体和消息属性
+     * @param channel  消息所在的信道，用于手动确认
+     * @throws IOException 确认消息失败时抛出
      */
     @RabbitListener(bindings = @QueueBinding(
             value = @Queue(value = "${spring.rabbitmq.queues}", declare = "true"), // 监听指定的消息队列
             exchange = @Exchange(value = "${engine.rabbitmq.exchange.name}"), // 监听指定的交换机
             key = "${engine.rabbitmq.topic.name}" // 监听指定的 routingKey
-    ))
-    public void pullMessage(Message message) {
-        // 获取消息类型
-        String messageType = message.getMessageProperties().getHeader("messageType");
-        // 获取消息体内容
-        String msgContext = new String(message.getBody());
-
-        // 判断消息类型并进行相应处理
-        if (MessageDataConstants.SEND_CODE.equals(messageType)) {
-            // 如果消息类型为发送，则解析消息并调用消费者服务的发送方法
-            SendContent sendContext = JSONUtil.toBean(msgContext, SendContent.class);
-            consumerService.consumerSend(sendContext);
-        } else if (MessageDataConstants.RECALL_CODE.equals(messageType)) {
-            // 如果消息类型为撤回，则调用消费者服务的撤回方法
-            consumerService.consumerRecall();
+    ), containerFactory = "sendBatchContainerFactory")
+    public void pullMessage(List<Message> messages, Channel channel) throws IOException {
+        long startTime = System.nanoTime();
+        String queue = messages.get(0).getMessageProperties().getConsumerQueue();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(messages.size());
+        List<SendContent> sendContexts = new ArrayList<>(messages.size());
+        long lastDeliveryTag = -1;
+
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            recordLag(queue, message);
+            // 获取消息类型
+            String messageType = message.getMessageProperties().getHeader("messageType");
+            try {
+                // 判断消息类型并进行相应处理
+                if (MessageDataConstants.SEND_CODE.equals(messageType)) {
+                    // 如果消息类型为发送，则按消息头选择编解码器解析消息，并调用消费者服务的发送方法
+                    SendContent sendContext = sendContentCodecRegistry.decode(message);
+                    // 转存到 Redis 的接收者替换为按需读取的集合，引用的模板从本地缓存还原
+                    claimCheckUtil.restore(sendContext);
+                    templateRefUtil.rehydrate(sendContext);
+                    sendContexts.add(sendContext);
+                    futures.add(consumerService.consumerSend(sendContext));
+                } else if (MessageDataConstants.RECALL_CODE.equals(messageType)) {
+                    // 如果消息类型为撤回，则调用消费者服务的撤回方法
+                    consumerService.consumerRecall();
+                }
+                meterRegistry.counter("engine.mq.consumer.messages", "queue", queue, "type", String.valueOf(messageType)).increment();
+                lastDeliveryTag = deliveryTag;
+            } catch (Exception e) {
+                // 无法处理的消息重新投递也不会成功，直接拒绝
+                log.error("消息解析失败，拒绝消息:{}", Throwables.getStackTraceAsString(e));
+                meterRegistry.counter("engine.mq.consumer.messages", "queue", queue, "type", "invalid").increment();
+                channel.basicReject(deliveryTag, false);
+            }
+        }
+
+        // 等待这一批消息的发送任务全部处理完成后再确认
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        if (lastDeliveryTag != -1) {
+            // 同一信道上的消息按投递顺序成批交付，确认最后一条即可确认这一批中其余未拒绝的消息
+            channel.basicAck(lastDeliveryTag, true);
+            // 确认后再清理转存的接收者，确认前宕机时重新投递的消息仍可读取
+            sendContexts.forEach(claimCheckUtil::release);
+        }
+        meterRegistry.timer("engine.mq.consumer.batch", "queue", queue)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录消息从发送到开始消费的延迟
+     *
+     * @param queue   队列名称
+     * @param message 消息
+     */
+    private void recordLag(String queue, Message message) {
+        if (Objects.isNull(message.getMessageProperties().getTimestamp())) {
+            return;
         }
+        long lag = System.currentTimeMillis() - message.getMessageProperties().getTimestamp().getTime();
+        meterRegistry.timer("engine.mq.consumer.lag", "queue", queue).record(Math.max(lag, 0), TimeUnit.MILLISECONDS);
     }
 
 }
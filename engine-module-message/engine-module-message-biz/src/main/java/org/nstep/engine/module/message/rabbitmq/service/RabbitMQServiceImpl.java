@@ -2,16 +2,20 @@ package org.nstep.engine.module.message.rabbitmq.service;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.core.MessagePostProcessor;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.rabbitmq.codec.SendContentCodecRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 /**
  * RabbitMQ 生产者服务实现
  * <p>
- * 该类是 `RabbitMQService` 接口的实现，主要用于通过 RabbitMQ 发送消息。消息发送时会根据提供的上下文（JSON 格式）和指令（发送或撤回）将消息发布到指定的交换机和队列。
+ * 该类是 `RabbitMQService` 接口的实现，主要用于通过 RabbitMQ 发送消息。消息发送时会根据提供的上下文和指令（发送或撤回）将消息发布到指定的交换机和队列。
  * 实现类使用 `RabbitTemplate` 发送消息，并且在发送的消息上设置一些额外的头部信息（例如：消息类型 `sendCode`）。
  */
 @Service
@@ -39,25 +43,31 @@ public class RabbitMQServiceImpl implements RabbitMQService {
     @Value("${engine.rabbitmq.topic.name}")
     private String topicKey;
 
+    /**
+     * 发送消息编解码器注册表，用于编码任务上下文
+     */
+    @Resource
+    private SendContentCodecRegistry sendContentCodecRegistry;
+
     /**
      * 发送消息到 RabbitMQ
      * <p>
-     * 该方法将任务的上下文（以 JSON 字符串格式传递）发送到 RabbitMQ，消息通过指定的交换机和路由键发送。根据 `sendCode` 参数，
-     * 消息的类型可以是“发送”或“撤回”。通过在消息头中设置 `messageType` 来标识消息的类型。
+     * 该方法将任务的上下文编码后发送到 RabbitMQ，消息通过指定的交换机和路由键发送。根据 `sendCode` 参数，
+     * 消息的类型可以是“发送”或“撤回”。通过在消息头中设置 `messageType` 来标识消息的类型，编解码器名称和压缩方式同样写入消息属性。
      *
-     * @param json     任务的上下文，以 JSON 字符串的形式传递。它包含了任务的所有详细信息。
-     * @param sendCode 用于区分消息的类型（例如：发送或撤回）。通常是一个字符串（例如 "send" 或 "revoke"），它将作为消息头的一部分。
+     * @param sendContent 任务的上下文，包含了任务的所有详细信息。
+     * @param sendCode    用于区分消息的类型（例如：发送或撤回）。通常是一个字符串（例如 "send" 或 "revoke"），它将作为消息头的一部分。
      */
     @Override
-    public void send(String json, String sendCode) {
-        // 设置消息头部信息，区分是发送消息还是撤回消息
-        MessagePostProcessor messagePostProcessor = message -> {
-            // 将消息类型（发送/撤回）作为消息头的一个字段
-            message.getMessageProperties().setHeader("messageType", sendCode);
-            return message;
-        };
+    public void send(SendContent sendContent, String sendCode) throws Exception {
+        MessageProperties properties = new MessageProperties();
+        // 将消息类型（发送/撤回）作为消息头的一个字段
+        properties.setHeader("messageType", sendCode);
+        // 记录发送时间，消费端据此统计消费延迟
+        properties.setTimestamp(new Date());
+        byte[] body = sendContentCodecRegistry.encode(sendContent, properties);
 
         // 将消息发送到指定的交换机和路由键
-        rabbitTemplate.convertAndSend(exchangeName, topicKey, json, messagePostProcessor);
+        rabbitTemplate.send(exchangeName, topicKey, new Message(body, properties));
     }
 }
@@ -12,6 +12,7 @@ import org.nstep.engine.module.message.controller.admin.account.vo.AccountSaveRe
 import org.nstep.engine.module.message.dal.dataobject.account.AccountDO;
 import org.nstep.engine.module.message.dal.mysql.account.AccountMapper;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.mq.producer.account.AccountProducer;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
@@ -36,6 +37,9 @@ public class AccountServiceImpl implements AccountService {
     @Resource
     private AccountMapper accountMapper;
 
+    @Resource
+    private AccountProducer accountProducer;
+
     /**
      * 创建渠道配置信息
      * <p>
@@ -71,6 +75,8 @@ public class AccountServiceImpl implements AccountService {
         AccountDO updateObj = BeanUtils.toBean(updateReqVO, AccountDO.class);
         // 执行更新操作
         accountMapper.updateById(updateObj);
+        // 通知各实例失效账号配置缓存
+        accountProducer.sendAccountRefreshMessage(updateReqVO.getId());
     }
 
     /**
@@ -86,6 +92,8 @@ public class AccountServiceImpl implements AccountService {
         validateAccountExists(id);
         // 执行删除操作
         accountMapper.deleteById(id);
+        // 通知各实例失效账号配置缓存
+        accountProducer.sendAccountRefreshMessage(id);
     }
 
     /**
@@ -157,6 +165,10 @@ public class AccountServiceImpl implements AccountService {
         // 执行删除操作，删除对应 ID 的渠道账号记录
         // 使用 accountMapper 的 deleteBatchIds 方法批量删除数据库中的记录
         accountMapper.deleteByIds(Arrays.asList(ids));
+        // 通知各实例失效账号配置缓存
+        for (Long id : ids) {
+            accountProducer.sendAccountRefreshMessage(id);
+        }
     }
 
 
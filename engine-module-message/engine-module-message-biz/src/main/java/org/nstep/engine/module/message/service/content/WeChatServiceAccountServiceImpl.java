@@ -1,13 +1,19 @@
 package org.nstep.engine.module.message.service.content;
 
+import com.alibaba.fastjson.TypeReference;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import me.chanjar.weixin.mp.api.WxMpService;
 import me.chanjar.weixin.mp.bean.template.WxMpTemplate;
+import org.nstep.engine.module.message.constant.WeChatConstants;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
 import org.nstep.engine.module.message.util.AccountUtil;
+import org.nstep.engine.module.message.util.ProviderMetadataCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +25,8 @@ import static org.nstep.engine.framework.common.exception.util.ServiceExceptionU
  * <p>
  * 该类实现了 WeChatServiceAccountService 接口，提供了查询微信模板列表和查询微信模板详情的功能。
  * 它通过调用微信 SDK 获取模板信息，并处理相关的异常情况。
+ * 查询模板详情时使用按账号缓存的模板列表，定时任务、文件人群等解析模板变量时不再每次调用微信接口；
+ * 管理后台查询模板列表时始终调用微信接口，并用结果更新缓存。
  */
 @Service
 @Slf4j
@@ -27,6 +35,27 @@ public class WeChatServiceAccountServiceImpl implements WeChatServiceAccountServ
     @Resource
     private AccountUtil accountUtil; // 注入 AccountUtil，用于获取微信服务账号
 
+    @Resource
+    private ProviderMetadataCache providerMetadataCache; // 第三方服务元数据缓存，用于缓存模板列表
+
+    /**
+     * 模板列表的缓存时间（秒）
+     */
+    @Value("${engine.providerCache.wxTemplateSeconds:600}")
+    private Long wxTemplateSeconds;
+
+    /**
+     * 模板列表的缓存区域
+     */
+    private ProviderMetadataCache.Region<List<WxMpTemplate>> templateRegion;
+
+    @PostConstruct
+    public void init() {
+        templateRegion = new ProviderMetadataCache.Region<>("wxTemplate", WeChatConstants.WECHAT_SERVICE_ACCOUNT_TEMPLATE_PREFIX,
+                new TypeReference<List<WxMpTemplate>>() {
+                }.getType(), Duration.ofSeconds(wxTemplateSeconds));
+    }
+
     /**
      * 根据 id 查询微信模板列表
      * <p>
@@ -38,16 +67,9 @@ public class WeChatServiceAccountServiceImpl implements WeChatServiceAccountServ
      */
     @Override
     public List<WxMpTemplate> queryWxTemplateList(Integer id) {
-        // 获取微信服务账号实例
-        WxMpService wxMpService = accountUtil.getAccount(id, WxMpService.class);
-        List<WxMpTemplate> allPrivateTemplate;
-        try {
-            // 获取所有私人模板
-            allPrivateTemplate = wxMpService.getTemplateMsgService().getAllPrivateTemplate();
-        } catch (Exception e) {
-            // 捕获异常并抛出自定义异常
-            throw exception(ErrorCodeConstants.TEMPLATE_INFO_FETCH_FAILED);
-        }
+        List<WxMpTemplate> allPrivateTemplate = fetchAllPrivateTemplate(id);
+        // 用最新的模板列表更新缓存
+        providerMetadataCache.put(templateRegion, id, allPrivateTemplate);
         return allPrivateTemplate; // 返回模板列表
     }
 
@@ -63,16 +85,29 @@ public class WeChatServiceAccountServiceImpl implements WeChatServiceAccountServ
      */
     @Override
     public WxMpTemplate queryWxTemplateDetailByTemplateId(Integer id, String templateId) {
+        // 获取缓存的模板列表，没有缓存时调用微信接口
+        List<WxMpTemplate> allPrivateTemplate = providerMetadataCache.get(templateRegion, id, () -> fetchAllPrivateTemplate(id));
+        if (allPrivateTemplate == null) {
+            return null;
+        }
+        // 根据模板ID查找对应的模板
+        Optional<WxMpTemplate> wxMpTemplateOptional = allPrivateTemplate.stream()
+                .filter(template -> templateId.equals(template.getTemplateId())).findFirst();
+        return wxMpTemplateOptional.orElse(null); // 如果找不到模板，返回 null
+    }
+
+    /**
+     * 调用微信接口获取所有私人模板
+     *
+     * @param id 微信服务号账号id
+     * @return 模板列表
+     */
+    private List<WxMpTemplate> fetchAllPrivateTemplate(Integer id) {
         // 获取微信服务账号实例
         WxMpService wxMpService = accountUtil.getAccount(id, WxMpService.class);
-        List<WxMpTemplate> allPrivateTemplate;
         try {
             // 获取所有私人模板
-            allPrivateTemplate = wxMpService.getTemplateMsgService().getAllPrivateTemplate();
-            // 根据模板ID查找对应的模板
-            Optional<WxMpTemplate> wxMpTemplateOptional = allPrivateTemplate.stream()
-                    .filter(template -> templateId.equals(template.getTemplateId())).findFirst();
-            return wxMpTemplateOptional.orElse(null); // 如果找不到模板，返回 null
+            return wxMpService.getTemplateMsgService().getAllPrivateTemplate();
         } catch (Exception e) {
             // 捕获异常并抛出自定义异常
             throw exception(ErrorCodeConstants.TEMPLATE_INFO_FETCH_FAILED);
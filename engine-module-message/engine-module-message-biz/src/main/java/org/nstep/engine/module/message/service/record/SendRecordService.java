@@ -0,0 +1,44 @@
+package org.nstep.engine.module.message.service.record;
+
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryReqVO;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryRespVO;
+import org.nstep.engine.module.message.dto.message.SendRecord;
+
+/**
+ * 消息发送记录 Service 接口
+ * <p>
+ * 负责将已完成的发送记录从 Redis 异步归档到 MySQL，并提供历史记录查询。
+ *
+ * @author engine
+ */
+public interface SendRecordService {
+
+    /**
+     * 提交一条已完成的发送记录等待归档
+     * <p>
+     * 记录先进入本地有界缓冲区，由定时任务批量写入数据库；缓冲区已满时转存到 Redis，不会阻塞调用方。
+     *
+     * @param record 发送记录
+     */
+    void archive(SendRecord record);
+
+    /**
+     * 将缓冲区和 Redis 转存队列中的发送记录批量写入数据库
+     */
+    void flush();
+
+    /**
+     * 维护发送记录表的分区：预建未来几天的分区，删除超过保留天数的分区
+     */
+    void maintainPartitions();
+
+    /**
+     * 按游标分页查询发送方已归档的发送记录
+     *
+     * @param sender 发送方
+     * @param reqVO  查询条件
+     * @return 本页记录及下一页游标
+     */
+    SendRecordHistoryRespVO getHistory(Long sender, SendRecordHistoryReqVO reqVO);
+
+}
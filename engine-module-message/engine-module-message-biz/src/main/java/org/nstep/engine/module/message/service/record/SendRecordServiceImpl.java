@@ -0,0 +1,426 @@
+package org.nstep.engine.module.message.service.record;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.LocalDateTimeUtil;
+import com.alibaba.fastjson.JSON;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.common.util.object.BeanUtils;
+import org.nstep.engine.framework.tenant.core.aop.TenantIgnore;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryReqVO;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordHistoryRespVO;
+import org.nstep.engine.module.message.controller.admin.record.vo.SendRecordRespVO;
+import org.nstep.engine.module.message.dal.dataobject.record.SendRecordDO;
+import org.nstep.engine.module.message.dal.mysql.record.SendRecordMapper;
+import org.nstep.engine.module.message.dto.message.SendRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 消息发送记录 Service 实现类
+ * <p>
+ * 发送任务全部回执确认后，精简发送记录经由本类写后归档到按天分区的 message_send_record 表：
+ * <ul>
+ *     <li>记录先进入容量固定的本地缓冲区（engine.sendArchive.bufferSize），内存占用有上限</li>
+ *     <li>缓冲区已满或写库失败时，记录转存到 Redis 列表 {@link MessageDataConstants#SEND_ARCHIVE_SPOOL}，
+ *     应用重启也不会丢失，数据库恢复后由定时任务继续写入</li>
+ *     <li>定时任务每次按 engine.sendArchive.batchSize 条拼成一条多行 INSERT ... ON DUPLICATE KEY UPDATE，重复归档的记录更新为最新的状态和计数</li>
+ *     <li>转存记录整批写入失败时逐条重试：数据库不可用时剩余记录按原顺序放回队列头部，等待下一个周期；
+ *     单条记录本身有问题（如分区不存在、字段越界）时移入死信列表 {@link MessageDataConstants#SEND_ARCHIVE_DEAD_LETTER}，不阻塞后续记录</li>
+ *     <li>分区按天预建，超过保留天数（engine.sendArchive.retentionDays）的数据按分区整体删除，不做逐行 DELETE</li>
+ * </ul>
+ * 上报指标：engine.send.archive.buffer（缓冲区记录数）、engine.send.archive.records（按 outcome 区分写入、转存、移入死信的记录数）。
+ *
+ * @author engine
+ */
+@Service
+@Slf4j
+public class SendRecordServiceImpl implements SendRecordService {
+
+    /**
+     * 分区名称前缀，分区名称格式为 p + yyyyMMdd
+     */
+    private static final String PARTITION_PREFIX = "p";
+
+    /**
+     * 日期格式：yyyyMMdd
+     */
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern(MessageDataConstants.REDIS_DAY_KEY_FORMAT);
+
+    /**
+     * 历史查询未指定开始日期时，默认查询的天数
+     */
+    private static final int DEFAULT_HISTORY_DAYS = 7;
+
+    /**
+     * 从转存队列头部取出最多 ARGV[1] 条记录
+     * <p>
+     * KEYS[1]：转存队列 key；ARGV[1]：条数
+     * <p>
+     * LRANGE + LTRIM 在脚本中原子执行，兼容不支持 LPOP count（6.2 新增）的 Redis 版本。
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_SCRIPT = new DefaultRedisScript<>(
+            "local records = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1) " +
+                    "if #records > 0 then redis.call('LTRIM', KEYS[1], #records, -1) end " +
+                    "return records", List.class);
+
+    /**
+     * 本地缓冲区容量
+     */
+    @Value("${engine.sendArchive.bufferSize:10000}")
+    private Integer bufferSize;
+
+    /**
+     * 每条 INSERT 语句包含的记录数
+     */
+    @Value("${engine.sendArchive.batchSize:500}")
+    private Integer batchSize;
+
+    /**
+     * 发送记录保留天数
+     */
+    @Value("${engine.sendArchive.retentionDays:90}")
+    private Integer retentionDays;
+
+    /**
+     * 预建未来分区的天数
+     */
+    @Value("${engine.sendArchive.preCreateDays:3}")
+    private Integer preCreateDays;
+
+    @Resource
+    private SendRecordMapper sendRecordMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<SendRecord> buffer;
+
+    private Counter insertedCounter;
+
+    private Counter spooledCounter;
+
+    private Counter deadLetterCounter;
+
+    /**
+     * 创建本地缓冲区并注册指标
+     */
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        meterRegistry.gauge("engine.send.archive.buffer", buffer, Collection::size);
+        insertedCounter = meterRegistry.counter("engine.send.archive.records", "outcome", "inserted");
+        spooledCounter = meterRegistry.counter("engine.send.archive.records", "outcome", "spooled");
+        deadLetterCounter = meterRegistry.counter("engine.send.archive.records", "outcome", "deadLetter");
+    }
+
+    @Override
+    public void archive(SendRecord record) {
+        if (record == null) {
+            return;
+        }
+        if (!buffer.offer(record)) {
+            spool(Collections.singletonList(record));
+        }
+    }
+
+    @Override
+    @TenantIgnore
+    @Scheduled(fixedDelayString = "${engine.sendArchive.flushInterval:1000}")
+    public synchronized void flush() {
+        // 1. 写入本地缓冲区中的记录
+        List<SendRecord> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            if (!insert(batch)) {
+                spool(batch);
+            }
+            batch.clear();
+        }
+        // 2. 写入 Redis 转存队列中的记录，整批失败时逐条重试，数据库不可用时放回队列并等待下一个周期
+        while (true) {
+            List<String> spooled = popSpool();
+            if (CollUtil.isEmpty(spooled)) {
+                return;
+            }
+            List<SendRecord> records = parse(spooled);
+            if (records != null && insert(records)) {
+                continue;
+            }
+            List<String> remaining = insertEach(spooled);
+            if (!remaining.isEmpty()) {
+                // LPUSH 逐个插入队列头部，倒序推入以保持原顺序
+                stringRedisTemplate.opsForList().leftPushAll(MessageDataConstants.SEND_ARCHIVE_SPOOL, Lists.reverse(remaining));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时写入缓冲区中剩余的记录，写库失败的记录会转存到 Redis
+     */
+    @PreDestroy
+    public void destroy() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("发送记录关闭前归档异常:{}", Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    @Override
+    @TenantIgnore
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${engine.sendArchive.partitionCron:0 10 0 * * ?}")
+    public void maintainPartitions() {
+        List<String> names;
+        try {
+            names = sendRecordMapper.selectPartitionNames();
+        } catch (Exception e) {
+            log.error("查询发送记录表分区异常:{}", Throwables.getStackTraceAsString(e));
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        // 1. 预建分区，RANGE 分区只能在末尾追加，因此只创建晚于现有最后一个分区的日期
+        LocalDate lastDay = names.stream().map(SendRecordServiceImpl::parsePartitionDay)
+                .filter(day -> day != null).max(LocalDate::compareTo).orElse(today.minusDays(1));
+        LocalDate day = lastDay.isBefore(today) ? today : lastDay.plusDays(1);
+        for (; !day.isAfter(today.plusDays(preCreateDays)); day = day.plusDays(1)) {
+            String name = PARTITION_PREFIX + day.format(DAY_FORMATTER);
+            try {
+                sendRecordMapper.addPartition(name, toDay(day.plusDays(1)));
+                log.info("发送记录表新增分区:{}", name);
+            } catch (Exception e) {
+                // 多个实例同时维护时，分区可能已被其他实例创建
+                log.warn("发送记录表新增分区:{} 失败:{}", name, e.getMessage());
+                break;
+            }
+        }
+        // 2. 删除超过保留天数的分区，至少保留一个分区
+        LocalDate expireDay = today.minusDays(retentionDays);
+        int remaining = names.size();
+        for (String name : names) {
+            LocalDate partitionDay = parsePartitionDay(name);
+            if (partitionDay == null || !partitionDay.isBefore(expireDay) || remaining <= 1) {
+                continue;
+            }
+            try {
+                sendRecordMapper.dropPartition(name);
+                remaining--;
+                log.info("发送记录表删除过期分区:{}", name);
+            } catch (Exception e) {
+                log.warn("发送记录表删除分区:{} 失败:{}", name, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public SendRecordHistoryRespVO getHistory(Long sender, SendRecordHistoryReqVO reqVO) {
+        LocalDate endDay = reqVO.getEndDay() != null ? reqVO.getEndDay() : LocalDate.now();
+        LocalDate beginDay = reqVO.getBeginDay() != null ? reqVO.getBeginDay() : endDay.minusDays(DEFAULT_HISTORY_DAYS);
+        LocalDateTime cursorSendTime = reqVO.getCursorSendTime() == null ? null : LocalDateTimeUtil.of(reqVO.getCursorSendTime());
+        int pageSize = reqVO.getPageSize();
+
+        // 多查一条用于判断是否还有下一页
+        List<SendRecordDO> records = sendRecordMapper.selectHistory(sender, toDay(beginDay), toDay(endDay),
+                cursorSendTime, reqVO.getCursorSendTaskId(), pageSize + 1);
+        if (records.size() <= pageSize) {
+            return new SendRecordHistoryRespVO(BeanUtils.toBean(records, SendRecordRespVO.class), null, null);
+        }
+        records = records.subList(0, pageSize);
+        SendRecordDO last = records.get(pageSize - 1);
+        return new SendRecordHistoryRespVO(BeanUtils.toBean(records, SendRecordRespVO.class),
+                LocalDateTimeUtil.toEpochMilli(last.getSendTime()), last.getSendTaskId());
+    }
+
+    /**
+     * 批量写入发送记录
+     *
+     * @param records 发送记录
+     * @return 是否写入成功
+     */
+    private boolean insert(List<SendRecord> records) {
+        try {
+            List<SendRecordDO> rows = new ArrayList<>(records.size());
+            records.forEach(record -> rows.add(toDO(record)));
+            sendRecordMapper.insertOrUpdateBatch(rows);
+            insertedCounter.increment(rows.size());
+            return true;
+        } catch (Exception e) {
+            log.error("发送记录批量归档异常，共{}条:{}", records.size(), Throwables.getStackTraceAsString(e));
+            return false;
+        }
+    }
+
+    /**
+     * 逐条写入整批写入失败的转存记录，单条写入仍然失败的记录移入死信列表
+     *
+     * @param spooled 转存记录 JSON，按转存顺序
+     * @return 数据库不可用时尚未写入的记录（从失败的记录开始），全部处理完时返回空列表
+     */
+    private List<String> insertEach(List<String> spooled) {
+        for (int i = 0; i < spooled.size(); i++) {
+            String json = spooled.get(i);
+            try {
+                sendRecordMapper.insertOrUpdateBatch(Collections.singletonList(toDO(JSON.parseObject(json, SendRecord.class))));
+                insertedCounter.increment();
+            } catch (Exception e) {
+                if (isUnavailable(e)) {
+                    return spooled.subList(i, spooled.size());
+                }
+                deadLetter(json, e);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 从转存队列头部取出一批记录
+     *
+     * @return 转存记录 JSON，队列为空时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> popSpool() {
+        return stringRedisTemplate.execute(POP_SCRIPT, Collections.singletonList(MessageDataConstants.SEND_ARCHIVE_SPOOL),
+                String.valueOf(batchSize));
+    }
+
+    /**
+     * 解析转存记录
+     *
+     * @param spooled 转存记录 JSON
+     * @return 发送记录，存在无法解析的记录时返回 null，由逐条写入处理
+     */
+    private static List<SendRecord> parse(List<String> spooled) {
+        List<SendRecord> records = new ArrayList<>(spooled.size());
+        try {
+            spooled.forEach(json -> records.add(JSON.parseObject(json, SendRecord.class)));
+            return records;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 将无法写入的发送记录移入死信列表
+     *
+     * @param json 发送记录 JSON
+     * @param e    写入异常
+     */
+    private void deadLetter(String json, Exception e) {
+        log.error("发送记录归档失败，移入死信列表:{}，异常:{}", json, Throwables.getStackTraceAsString(e));
+        stringRedisTemplate.opsForList().rightPush(MessageDataConstants.SEND_ARCHIVE_DEAD_LETTER, json);
+        deadLetterCounter.increment();
+    }
+
+    /**
+     * 判断写入异常是否由数据库不可用（连接失败、超时、锁等待等可重试的错误）引起
+     *
+     * @param e 写入异常
+     * @return 是否数据库不可用
+     */
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof NonTransientDataAccessResourceException;
+    }
+
+    /**
+     * 将发送记录转存到 Redis，等待数据库可用后再写入
+     *
+     * @param records 发送记录
+     */
+    private void spool(List<SendRecord> records) {
+        List<String> values = new ArrayList<>(records.size());
+        records.forEach(record -> values.add(JSON.toJSONString(record)));
+        try {
+            stringRedisTemplate.opsForList().rightPushAll(MessageDataConstants.SEND_ARCHIVE_SPOOL, values);
+            spooledCounter.increment(values.size());
+        } catch (Exception e) {
+            log.error("发送记录转存Redis异常，丢弃{}条:{}", values.size(), Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 将发送记录转换为数据库实体
+     *
+     * @param record 发送记录
+     * @return 数据库实体
+     */
+    private static SendRecordDO toDO(SendRecord record) {
+        LocalDateTime sendTime = LocalDateTimeUtil.of(record.getSendTime());
+        return SendRecordDO.builder()
+                .sendTaskId(record.getSendTaskId())
+                .sendDay(toDay(sendTime.toLocalDate()))
+                .sender(record.getSender())
+                .templateId(record.getTemplateId())
+                .templateVersion(record.getTemplateVersion())
+                .sendChannel(record.getSendChannel())
+                .messageCount(record.getMessageCount())
+                .receiverCount(record.getReceiverCount())
+                .status(record.getStatus())
+                .successCount(record.getSuccessCount())
+                .failCount(record.getFailCount())
+                .sendTime(sendTime)
+                .confirmTime(record.getConfirmTime() == null ? null : LocalDateTimeUtil.of(record.getConfirmTime()))
+                .build();
+    }
+
+    /**
+     * 将日期转换为 yyyyMMdd 格式的整数
+     *
+     * @param day 日期
+     * @return yyyyMMdd 格式的整数
+     */
+    private static Integer toDay(LocalDate day) {
+        return Integer.valueOf(day.format(DAY_FORMATTER));
+    }
+
+    /**
+     * 从分区名称中解析分区日期
+     *
+     * @param name 分区名称
+     * @return 分区日期，名称不符合格式时返回 null
+     */
+    private static LocalDate parsePartitionDay(String name) {
+        if (name == null || !name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name.substring(PARTITION_PREFIX.length()), DAY_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+}
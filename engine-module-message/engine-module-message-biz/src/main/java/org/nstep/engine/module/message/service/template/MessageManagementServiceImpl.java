@@ -9,12 +9,11 @@ import org.nstep.engine.module.message.dal.mysql.template.TemplateMapper;
 import org.nstep.engine.module.message.process.management.ProcessTemplate;
 import org.nstep.engine.module.message.dto.content.ProcessContent;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
-import org.nstep.engine.module.message.process.management.BusinessProcess;
+import org.nstep.engine.module.message.process.management.ProcessExecutor;
 import org.nstep.engine.module.message.service.xxljob.XxlJobService;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.util.List;
 import java.util.Objects;
 
 import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
@@ -39,6 +38,12 @@ public class MessageManagementServiceImpl implements MessageManagementService {
     @Resource
     private ProcessTemplate sendMessageTemplate;
 
+    /**
+     * 责任链执行器
+     */
+    @Resource
+    private ProcessExecutor processExecutor;
+
     @Resource
     private TemplateMapper templateMapper;
 
@@ -55,16 +60,8 @@ public class MessageManagementServiceImpl implements MessageManagementService {
      */
     @Override
     public CommonResult<?> send(ProcessContent content) {
-        // 获取责任链中的所有业务处理器
-        List<BusinessProcess> processes = sendMessageTemplate.getProcesses();
-        for (BusinessProcess process : processes) {
-            // 调用每个业务处理器的处理方法
-            content = process.process(content);
-            if (content.getIsNeedBreak()) {
-                // 如果标记需要中断责任链，直接退出循环
-                break;
-            }
-        }
+        // 依次执行责任链中的业务处理器，标记需要中断责任链时停止，并记录各处理器的耗时和结果
+        content = processExecutor.execute(sendMessageTemplate, content);
         // 返回最终的处理结果
         return content.getResponse();
     }
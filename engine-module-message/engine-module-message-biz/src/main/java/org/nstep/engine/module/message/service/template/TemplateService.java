@@ -65,6 +65,25 @@ public interface TemplateService {
      */
     TemplateDO getTemplate(Long id);
 
+    /**
+     * 从本地缓存获得消息模板信息
+     * <p>
+     * 返回的是缓存快照的副本，调用方可以直接修改，不会影响缓存中的模板。
+     *
+     * @param id 模板的编号
+     * @return 返回对应的消息模板信息，不存在时返回 null
+     */
+    TemplateDO getTemplateFromCache(Long id);
+
+    /**
+     * 失效本地缓存中的消息模板
+     * <p>
+     * 由 {@link org.nstep.engine.module.message.mq.consumer.template.TemplateRefreshConsumer} 在收到刷新消息时调用。
+     *
+     * @param id 模板的编号
+     */
+    void clearTemplateCache(Long id);
+
     /**
      * 获得消息模板信息分页
      * <p>
@@ -7,7 +7,16 @@ import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.nstep.engine.framework.common.pojo.PageResult;
 import org.nstep.engine.framework.common.util.object.BeanUtils;
 import org.nstep.engine.framework.mybatis.core.query.LambdaQueryWrapperX;
@@ -26,15 +35,20 @@ import org.nstep.engine.module.message.dto.dingding.DingDingRobotParam;
 import org.nstep.engine.module.message.dto.weChat.EnterpriseWeChatRobotParam;
 import org.nstep.engine.module.message.dto.model.*;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.mq.producer.template.TemplateProducer;
 import org.nstep.engine.module.message.service.xxljob.XxlJobService;
 import org.nstep.engine.module.message.util.RedisKeyUtil;
+import org.nstep.engine.module.message.util.TemplateRefUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
 
@@ -56,6 +70,67 @@ public class TemplateServiceImpl implements TemplateService {
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private TemplateProducer templateProducer;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 本地模板缓存的最大条数
+     */
+    @Value("${engine.templateCache.maximumSize:1000}")
+    private Long templateCacheMaximumSize;
+
+    /**
+     * 本地模板缓存的过期时间（秒），作为广播失效丢失时的兜底
+     */
+    @Value("${engine.templateCache.expireSeconds:300}")
+    private Long templateCacheExpireSeconds;
+
+    /**
+     * 模板的版本号，收到刷新消息时递增，用于识别失效前加载的旧快照
+     * <p>
+     * 版本号只需要比失效前加载的快照活得久，写入后保留两倍的快照过期时间，避免被修改过的模板编号一直累积。
+     * 版本号过期后按 0 处理，与仍在缓存中的快照版本不一致时只会多一次重新加载。
+     */
+    private Cache<Long, Long> templateVersions;
+
+    /**
+     * 版本号序列
+     */
+    private final AtomicLong templateVersionSequence = new AtomicLong();
+
+    /**
+     * 模板快照缓存，key 为模板编号
+     */
+    private LoadingCache<Long, TemplateSnapshot> templateCache;
+
+    /**
+     * 初始化本地模板缓存，并将命中率等指标注册到 Micrometer
+     */
+    @PostConstruct
+    public void initTemplateCache() {
+        templateVersions = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(templateCacheExpireSeconds * 2))
+                .build();
+        templateCache = CacheBuilder.newBuilder()
+                .maximumSize(templateCacheMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(templateCacheExpireSeconds))
+                .recordStats()
+                .build(new CacheLoader<Long, TemplateSnapshot>() {
+
+                    @Override
+                    public TemplateSnapshot load(Long id) {
+                        // 先取版本号再查库，保证加载期间收到的失效一定能被识别
+                        Long version = versionOf(id);
+                        return new TemplateSnapshot(templateMapper.selectById(id), version);
+                    }
+
+                });
+        GuavaCacheMetrics.monitor(meterRegistry, templateCache, "message_template");
+    }
+
     /**
      * 创建消息模板
      *
@@ -76,6 +151,7 @@ public class TemplateServiceImpl implements TemplateService {
         // 将请求数据转换为模板对象
         TemplateDO template = BeanUtils.toBean(createReqVO, TemplateDO.class);
         templateMapper.insert(template); // 插入数据库
+        templateProducer.sendTemplateRefreshMessage(template.getId()); // 清理可能存在的空缓存
         // 返回插入后的模板ID
         return template.getId();
     }
@@ -275,6 +351,8 @@ public class TemplateServiceImpl implements TemplateService {
         // 更新模板
         TemplateDO updateObj = BeanUtils.toBean(updateReqVO, TemplateDO.class);
         templateMapper.updateById(updateObj);
+        // 通知各实例失效模板缓存
+        templateProducer.sendTemplateRefreshMessage(updateReqVO.getId());
     }
 
     /**
@@ -288,6 +366,8 @@ public class TemplateServiceImpl implements TemplateService {
         validateTemplateExists(id);
         // 删除模板
         templateMapper.deleteById(id);
+        // 通知各实例失效模板缓存
+        templateProducer.sendTemplateRefreshMessage(id);
     }
 
     /**
@@ -322,6 +402,9 @@ public class TemplateServiceImpl implements TemplateService {
                 // 删除定时模板的链路追踪记录
                 stringRedisTemplate.delete(RedisKeyUtil.getCronTaskCordsRedisKey(SecurityFrameworkUtils.getLoginUserId(), messageTemplate.getId().toString()));
             }
+
+            // 通知各实例失效模板缓存
+            templateProducer.sendTemplateRefreshMessage(messageTemplate.getId());
         }
     }
 
@@ -348,6 +431,33 @@ public class TemplateServiceImpl implements TemplateService {
         return templateMapper.selectById(id);
     }
 
+    @Override
+    public TemplateDO getTemplateFromCache(Long id) {
+        TemplateSnapshot snapshot = templateCache.getUnchecked(id);
+        // 快照在失效之前加载的，丢弃后重新加载
+        if (!Objects.equals(snapshot.getVersion(), versionOf(id))) {
+            templateCache.invalidate(id);
+            snapshot = templateCache.getUnchecked(id);
+        }
+        // 快照在各个线程之间共享，返回副本，调用方修改返回的模板不会影响缓存
+        TemplateDO template = snapshot.getTemplate();
+        return Objects.isNull(template) ? null : TemplateRefUtil.copyTemplate(template, template.getMsgContent());
+    }
+
+    @Override
+    public void clearTemplateCache(Long id) {
+        templateVersions.put(id, templateVersionSequence.incrementAndGet());
+        templateCache.invalidate(id);
+    }
+
+    /**
+     * 获取模板当前的版本号，没有收到过刷新消息（或版本号已过期）时为 0
+     */
+    private Long versionOf(Long id) {
+        Long version = templateVersions.getIfPresent(id);
+        return Objects.isNull(version) ? 0L : version;
+    }
+
     /**
      * 获取消息模板分页列表
      *
@@ -393,6 +503,9 @@ public class TemplateServiceImpl implements TemplateService {
                 .auditStatus(status)
                 .build());
 
+        // 通知各实例失效模板缓存
+        templateProducer.sendTemplateRefreshMessage(id);
+
         // 返回更新结果，1 表示成功，其他值表示失败
         return 1 == i;
     }
@@ -415,4 +528,25 @@ public class TemplateServiceImpl implements TemplateService {
         return BeanUtil.copyToList(templateDoList, TemplateRespVO.class);
     }
 
+    /**
+     * 模板快照
+     * <p>
+     * 记录加载时的模板和版本号，模板不存在时 template 为 null（Guava 缓存不允许缓存 null）
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class TemplateSnapshot {
+
+        /**
+         * 模板信息
+         */
+        private final TemplateDO template;
+
+        /**
+         * 加载时的版本号
+         */
+        private final Long version;
+
+    }
+
 }
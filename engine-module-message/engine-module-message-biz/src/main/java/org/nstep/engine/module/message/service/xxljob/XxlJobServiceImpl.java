@@ -22,6 +22,7 @@ import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
 import org.nstep.engine.module.message.dal.mysql.template.TemplateMapper;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.mq.producer.template.TemplateProducer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.support.CronExpression;
@@ -51,6 +52,8 @@ public class XxlJobServiceImpl implements XxlJobService {
     @Resource
     private DataUtil dataUtil;  // 数据处理工具类
     @Resource
+    private TemplateProducer templateProducer;  // 模板刷新消息的生产者
+    @Resource
     private StringRedisTemplate stringRedisTemplate;  // 用于操作Redis
     @Value("${xxl.job.executor.jobHandlerName}")
     private String jobName;  // 任务处理器名称
@@ -150,6 +153,7 @@ public class XxlJobServiceImpl implements XxlJobService {
         messageTemplate.setMsgStatus(MessageDataConstants.MSG_START);
         messageTemplate.setCurrentId(sender);  // 锁定定时模板资源
         templateMapper.updateById(messageTemplate);  // 更新数据库中的任务状态
+        templateProducer.sendTemplateRefreshMessage(id);  // 通知各实例失效模板缓存
         // 记录定时任务状态到Redis
         CronTaskCords taskCords = CronTaskCords.builder()
                 .expectPushTime(messageTemplate.getExpectPushTime())
@@ -180,6 +184,7 @@ public class XxlJobServiceImpl implements XxlJobService {
         messageTemplate.setMsgStatus(MessageDataConstants.MSG_STOP);
         messageTemplate.setCurrentId(-1L);  // 释放定时模板权限
         templateMapper.updateById(messageTemplate);  // 更新数据库中的任务状态
+        templateProducer.sendTemplateRefreshMessage(id);  // 通知各实例失效模板缓存
     }
 
     /**
@@ -1,8 +1,17 @@
 package org.nstep.engine.module.message.util;
 
 
+import cn.hutool.extra.mail.MailAccount;
 import com.alibaba.fastjson.JSON;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import me.chanjar.weixin.common.redis.RedisTemplateWxRedisOps;
 import me.chanjar.weixin.mp.api.WxMpService;
 import me.chanjar.weixin.mp.api.impl.WxMpServiceImpl;
@@ -10,15 +19,19 @@ import me.chanjar.weixin.mp.config.impl.WxMpRedisConfigImpl;
 import org.nstep.engine.module.message.constant.WeChatConstants;
 import org.nstep.engine.module.message.dal.dataobject.account.AccountDO;
 import org.nstep.engine.module.message.dal.mysql.account.AccountMapper;
+import org.nstep.engine.module.message.dto.dingding.DingDingRobotConfig;
 import org.nstep.engine.module.message.dto.weChat.WeChatServiceAccountConfig;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.dingding.DingDingRobotClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
+import java.time.Duration;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
 
@@ -43,14 +56,56 @@ public class AccountUtil {
     private StringRedisTemplate stringRedisTemplate;
 
     /**
-     * 微信服务号账号集合，用于缓存微信服务号账号配置信息。
-     * 键为账户数据对象，值为微信服务号服务对象。
+     * 渠道账号配置缓存的最大条数
      */
-    private final ConcurrentMap<AccountDO, WxMpService> weChatServiceAccountMap = new ConcurrentHashMap<>();
+    @Value("${engine.accountCache.maximumSize:500}")
+    private Long accountCacheMaximumSize;
+
+    /**
+     * 渠道账号配置缓存的过期时间（秒），作为广播失效丢失时的兜底
+     */
+    @Value("${engine.accountCache.expireSeconds:600}")
+    private Long accountCacheExpireSeconds;
+
+    /**
+     * 账号的版本号，收到刷新消息时递增，用于识别失效前开始加载的旧配置
+     * <p>
+     * 版本号只需要比失效前加载的配置活得久，写入后保留两倍的配置过期时间。版本号过期后按 0 处理，
+     * 与仍在缓存中的配置版本不一致时只会多一次重新加载。
+     */
+    private Cache<Long, Long> accountVersions;
+
+    /**
+     * 版本号序列
+     */
+    private final AtomicLong accountVersionSequence = new AtomicLong();
+
+    /**
+     * 渠道账号配置缓存
+     * <p>
+     * key 为账号 ID + 目标类型，value 为已经反序列化好的配置对象，或者由配置构建出的客户端对象（如 {@link WxMpService}、{@link DingDingRobotClient}），
+     * 连同加载时的版本号一起保存。账号变更时通过 {@link #clearAccountCache(Long)} 递增版本号并按账号整体失效，客户端对象与配置对象同生命周期。
+     */
+    private Cache<AccountCacheKey, AccountSnapshot> accountCache;
+
+    /**
+     * 初始化渠道账号配置缓存
+     */
+    @PostConstruct
+    public void initAccountCache() {
+        accountVersions = CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(accountCacheExpireSeconds * 2))
+                .build();
+        accountCache = CacheBuilder.newBuilder()
+                .maximumSize(accountCacheMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(accountCacheExpireSeconds))
+                .build();
+    }
 
     /**
      * 根据ID获取消息渠道配置信息。
-     * 如果请求的是微信服务号账号配置类，则会封装成WxMpService对象并存入账号集合。
+     * 配置对象按 (账号ID, 目标类型) 缓存，调用方不允许修改返回的对象。
+     * 如果请求的是微信服务号 {@link WxMpService} 或钉钉机器人 {@link DingDingRobotClient}，则返回由配置构建出的客户端对象。
      *
      * @param id    账户ID
      * @param clazz 目标类类型，用于将账户配置信息反序列化为指定类型的对象
@@ -59,20 +114,83 @@ public class AccountUtil {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAccount(Integer id, Class<T> clazz) {
+        if (Objects.isNull(id)) {
+            throw exception(ErrorCodeConstants.CHANNEL_CODE_EMPTY);
+        }
+        AccountCacheKey key = new AccountCacheKey(id.longValue(), clazz);
+        try {
+            AccountSnapshot snapshot = accountCache.get(key, () -> loadSnapshot(id, clazz));
+            // 配置在失效之前开始加载，加载完成时覆盖了失效，丢弃后重新加载
+            if (!Objects.equals(snapshot.getVersion(), versionOf(key.getId()))) {
+                accountCache.invalidate(key);
+                snapshot = accountCache.get(key, () -> loadSnapshot(id, clazz));
+            }
+            return (T) snapshot.getAccount();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // 还原加载过程中抛出的业务异常
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 失效指定账号的所有缓存（配置对象及由其构建的客户端对象）
+     *
+     * @param id 账户ID
+     */
+    public void clearAccountCache(Long id) {
+        accountVersions.put(id, accountVersionSequence.incrementAndGet());
+        accountCache.asMap().keySet().removeIf(key -> Objects.equals(key.getId(), id));
+    }
+
+    /**
+     * 获取账号当前的版本号，没有收到过刷新消息（或版本号已过期）时为 0
+     */
+    private Long versionOf(Long id) {
+        Long version = accountVersions.getIfPresent(id);
+        return Objects.isNull(version) ? 0L : version;
+    }
+
+    /**
+     * 加载渠道账号配置，并记录加载开始时的版本号
+     *
+     * @param id    账户ID
+     * @param clazz 目标类类型
+     * @return 配置快照
+     */
+    private AccountSnapshot loadSnapshot(Integer id, Class<?> clazz) {
+        // 先取版本号再查库，保证加载期间收到的失效一定能被识别
+        Long version = versionOf(id.longValue());
+        return new AccountSnapshot(loadAccount(id, clazz), version);
+    }
+
+    /**
+     * 从数据库加载渠道账号配置，并构建为目标类型的对象
+     *
+     * @param id    账户ID
+     * @param clazz 目标类类型
+     * @return 目标类型的对象
+     */
+    private Object loadAccount(Integer id, Class<?> clazz) {
         // 根据ID从数据库中查询账户信息
         AccountDO channelAccount = accountMapper.selectById(id);
         // 如果账户信息为空，则抛出异常
         if (Objects.isNull(channelAccount)) {
             throw exception(ErrorCodeConstants.CHANNEL_CODE_EMPTY);
         }
-        // 如果请求的是微信服务号账号配置类，则初始化WxMpService对象并返回
+        // 如果请求的是微信服务号账号配置类，则初始化WxMpService对象
         if (clazz.equals(WxMpService.class)) {
-            // 使用ConcurrentHashMapUtils的computeIfAbsent方法来确保线程安全地获取或创建WxMpService对象
-            WxMpService wxMpService = ConcurrentHashMapUtils.computeIfAbsent(weChatServiceAccountMap, channelAccount, channelAccount1 ->
-                    initOfficialAccountService(JSON.parseObject(channelAccount.getAccountConfig(), WeChatServiceAccountConfig.class)));
-            return (T) wxMpService;
+            return initOfficialAccountService(JSON.parseObject(channelAccount.getAccountConfig(), WeChatServiceAccountConfig.class));
         }
-        // 否则，将账户配置信息反序列化为指定类型的对象并返回
+        // 如果请求的是钉钉机器人客户端，则基于配置构建客户端
+        if (clazz.equals(DingDingRobotClient.class)) {
+            return new DingDingRobotClient(JSON.parseObject(channelAccount.getAccountConfig(), DingDingRobotConfig.class));
+        }
+        // 邮件账号在缓存前补全默认值（主机、端口、字符集等），之后在发送线程之间只读共享
+        if (clazz.equals(MailAccount.class)) {
+            return JSON.parseObject(channelAccount.getAccountConfig(), MailAccount.class).defaultIfEmpty();
+        }
+        // 否则，将账户配置信息反序列化为指定类型的对象
         return JSON.parseObject(channelAccount.getAccountConfig(), clazz);
     }
 
@@ -107,4 +225,44 @@ public class AccountUtil {
     public RedisTemplateWxRedisOps redisTemplateWxRedisOps() {
         return new RedisTemplateWxRedisOps(stringRedisTemplate);
     }
-}
\ No newline at end of file
+
+    /**
+     * 渠道账号配置缓存的 key
+     */
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class AccountCacheKey {
+
+        /**
+         * 账户ID
+         */
+        private final Long id;
+
+        /**
+         * 目标类类型
+         */
+        private final Class<?> clazz;
+
+    }
+
+    /**
+     * 渠道账号配置快照
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class AccountSnapshot {
+
+        /**
+         * 配置对象或由其构建的客户端对象
+         */
+        private final Object account;
+
+        /**
+         * 加载开始时的版本号
+         */
+        private final Long version;
+
+    }
+
+}
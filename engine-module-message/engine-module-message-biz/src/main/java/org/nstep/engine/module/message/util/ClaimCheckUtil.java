@@ -0,0 +1,270 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * 接收者 claim-check 工具类
+ * <p>
+ * 人群发送等接收者很多的发送任务，整个 SendContent 序列化后可能有数兆字节，单条 MQ 消息过大会拖慢 Broker 和消费端。
+ * 接收者数量超过 engine.claimCheck.threshold 的发送任务，接收者按 engine.claimCheck.chunkSize 分块写入 Redis，
+ * MQ 消息中只携带存储 key、接收者数量和块数：
+ * <ul>
+ *     <li>每块为以分隔符拼接的接收者字符串，保存在一个 Redis 列表中，设置过期时间（engine.claimCheck.expireHours）</li>
+ *     <li>消费端将接收者替换为按需读取的集合，渠道处理器遍历时才逐块读取，同一时刻只有一块接收者在内存中</li>
+ *     <li>这一批 MQ 消息确认后删除对应的 key（engine.claimCheck.deleteOnAck），确认前宕机时消息重新投递仍可读取</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class ClaimCheckUtil {
+
+    /**
+     * 是否启用 claim-check
+     */
+    @Value("${engine.claimCheck.enabled:true}")
+    private Boolean enabled;
+
+    /**
+     * 单个发送任务的接收者数量超过该值时写入 Redis
+     */
+    @Value("${engine.claimCheck.threshold:10000}")
+    private Integer threshold;
+
+    /**
+     * 每块的接收者数量
+     */
+    @Value("${engine.claimCheck.chunkSize:5000}")
+    private Integer chunkSize;
+
+    /**
+     * 存储 key 的过期时间（小时），消费端未确认时的兜底清理
+     */
+    @Value("${engine.claimCheck.expireHours:24}")
+    private Long expireHours;
+
+    /**
+     * MQ 消息确认后是否立即删除存储 key
+     */
+    @Value("${engine.claimCheck.deleteOnAck:true}")
+    private Boolean deleteOnAck;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 生成用于投递到 MQ 的发送上下文，接收者超过阈值的发送任务改为携带存储 key
+     * <p>
+     * 原发送上下文不做修改，发送记录、发送统计等仍使用完整的接收者。
+     *
+     * @param sendContent 发送上下文
+     * @return 用于投递的发送上下文，没有需要转存的发送任务时返回原对象
+     */
+    public SendContent offload(SendContent sendContent) {
+        if (!enabled || CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return sendContent;
+        }
+        List<TemplateSendTask> transportTasks = null;
+        for (int i = 0; i < sendContent.getSendTasks().size(); i++) {
+            TemplateSendTask sendTask = sendContent.getSendTasks().get(i);
+            if (sendTask.getReceivers() == null || sendTask.getReceivers().size() <= threshold) {
+                continue;
+            }
+            if (transportTasks == null) {
+                transportTasks = new ArrayList<>(sendContent.getSendTasks());
+            }
+            transportTasks.set(i, offload(sendTask));
+        }
+        if (transportTasks == null) {
+            return sendContent;
+        }
+        return SendContent.builder()
+                .sendTaskId(sendContent.getSendTaskId())
+                .sendCode(sendContent.getSendCode())
+                .sendChannel(sendContent.getSendChannel())
+                .sendTasks(transportTasks)
+                .sendTime(sendContent.getSendTime())
+                .sendLogs(sendContent.getSendLogs())
+                .sender(sendContent.getSender())
+                .build();
+    }
+
+    /**
+     * 消费端将携带存储 key 的发送任务的接收者替换为按需读取的集合
+     *
+     * @param sendContent 从 MQ 消息解析的发送上下文
+     */
+    public void restore(SendContent sendContent) {
+        if (CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return;
+        }
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            if (Objects.nonNull(sendTask.getReceiverRef())) {
+                String key = sendTask.getReceiverRef();
+                sendTask.setReceivers(new ChunkedReceiverSet(sendTask.getReceiverCount(), sendTask.getReceiverChunks(),
+                        index -> stringRedisTemplate.opsForList().index(key, index)));
+            }
+        }
+    }
+
+    /**
+     * MQ 消息确认后删除发送上下文中的存储 key
+     *
+     * @param sendContent 已确认的发送上下文
+     */
+    public void release(SendContent sendContent) {
+        if (!deleteOnAck || CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            if (Objects.nonNull(sendTask.getReceiverRef())) {
+                keys.add(sendTask.getReceiverRef());
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(keys);
+        } catch (Exception e) {
+            // 删除失败的 key 到期后自动清理
+            log.error("删除转存的接收者失败:{}:{}", keys, Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 将一个发送任务的接收者分块写入 Redis
+     *
+     * @param sendTask 发送任务
+     * @return 携带存储 key 的发送任务副本
+     */
+    private TemplateSendTask offload(TemplateSendTask sendTask) {
+        Set<String> receivers = sendTask.getReceivers();
+        List<String> chunks = new ArrayList<>(receivers.size() / chunkSize + 1);
+        StringBuilder chunk = new StringBuilder();
+        int count = 0;
+        for (String receiver : receivers) {
+            if (count > 0) {
+                chunk.append(MessageDataConstants.SEPARATOR);
+            }
+            chunk.append(receiver);
+            if (++count == chunkSize) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            chunks.add(chunk.toString());
+        }
+
+        String key = MessageDataConstants.CLAIM_CHECK + sendTask.getSendTaskId() + StrUtil.COLON + sendTask.getMessageId();
+        stringRedisTemplate.opsForList().rightPushAll(key, chunks);
+        stringRedisTemplate.expire(key, Duration.ofHours(expireHours));
+        meterRegistry.counter("engine.mq.claimCheck.receivers").increment(receivers.size());
+
+        return TemplateSendTask.builder()
+                .messageId(sendTask.getMessageId())
+                .receivers(Collections.emptySet())
+                .receiverRef(key)
+                .receiverCount(receivers.size())
+                .receiverChunks(chunks.size())
+                .messageTemplate(sendTask.getMessageTemplate())
+                .templateId(sendTask.getTemplateId())
+                .templateVersion(sendTask.getTemplateVersion())
+                .msgContent(sendTask.getMsgContent())
+                .sendMessageKey(sendTask.getSendMessageKey())
+                .sendTaskId(sendTask.getSendTaskId())
+                .sendStartTime(sendTask.getSendStartTime())
+                .sendEndTime(sendTask.getSendEndTime())
+                .takeTime(sendTask.getTakeTime())
+                .build();
+    }
+
+    /**
+     * 按块读取的接收者集合
+     * <p>
+     * 遍历时才逐块读取，读取过的块不保留；只读，contains 需要遍历全部块。
+     */
+    private static class ChunkedReceiverSet extends AbstractSet<String> {
+
+        private final int size;
+
+        private final int chunks;
+
+        /**
+         * 按块下标读取一块接收者
+         */
+        private final IntFunction<String> chunkLoader;
+
+        private ChunkedReceiverSet(Integer size, Integer chunks, IntFunction<String> chunkLoader) {
+            this.size = size == null ? 0 : size;
+            this.chunks = chunks == null ? 0 : chunks;
+            this.chunkLoader = chunkLoader;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+
+                private int nextChunk;
+
+                private Iterator<String> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && nextChunk < chunks) {
+                        String chunk = chunkLoader.apply(nextChunk++);
+                        if (chunk == null) {
+                            log.warn("接收者块不存在或已过期，块下标:{}", nextChunk - 1);
+                            continue;
+                        }
+                        current = StrUtil.split(chunk, MessageDataConstants.SEPARATOR).iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+package org.nstep.engine.module.message.util;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * 紧凑的接收者集合
+ * <p>
+ * 手机号等纯数字接收者以 long 保存在开放寻址（线性探测）的哈希表中，每个接收者只占 8 字节（按装载因子折算约 11~16 字节），
+ * 代替 HashSet 中每个接收者一个 String、一个 byte[] 和一个 HashMap.Node 的开销（60 字节以上）：
+ * <ul>
+ *     <li>只有 1~18 位、首位不为 0 的数字字符串按 long 保存，转回字符串时与原值完全一致</li>
+ *     <li>邮箱、openId 等其他接收者（包括非法的手机号）保存在普通的 HashSet 中，两部分合起来对外表现为一个 {@code Set<String>}</li>
+ * </ul>
+ * 集合只支持添加和查询，不支持删除；非线程安全。
+ */
+public final class CompactReceiverSet extends AbstractSet<String> {
+
+    /**
+     * 可以按 long 保存的最大位数
+     */
+    private static final int MAX_NUMERIC_LENGTH = 18;
+
+    /**
+     * 哈希表的最大装载因子
+     */
+    private static final float LOAD_FACTOR = 0.7f;
+
+    /**
+     * 开放寻址哈希表，0 表示空槽（按 long 保存的值首位不为 0，不会等于 0）
+     */
+    private long[] table;
+
+    /**
+     * 哈希表中的元素数量
+     */
+    private int numericSize;
+
+    /**
+     * 扩容阈值
+     */
+    private int threshold;
+
+    /**
+     * 其他接收者，首次添加时创建
+     */
+    private Set<String> others;
+
+    public CompactReceiverSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预计的接收者数量
+     */
+    public CompactReceiverSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 8) - 1) << 1;
+        this.table = new long[capacity];
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public boolean add(String receiver) {
+        return add(receiver, 0, receiver.length());
+    }
+
+    /**
+     * 添加字符序列中的一段作为接收者，纯数字时不会创建字符串
+     *
+     * @param chars 字符序列
+     * @param from  起始下标（包含）
+     * @param to    结束下标（不包含）
+     * @return 接收者之前不存在时返回 true
+     */
+    public boolean add(CharSequence chars, int from, int to) {
+        long value = toNumber(chars, from, to);
+        if (value > 0) {
+            return addNumber(value);
+        }
+        if (others == null) {
+            others = new HashSet<>();
+        }
+        return others.add(chars.subSequence(from, to).toString());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String receiver)) {
+            return false;
+        }
+        long value = toNumber(receiver, 0, receiver.length());
+        if (value > 0) {
+            return table[indexOf(value)] == value;
+        }
+        return others != null && others.contains(receiver);
+    }
+
+    @Override
+    public int size() {
+        return numericSize + (others == null ? 0 : others.size());
+    }
+
+    /**
+     * 遍历按 long 保存的接收者，不创建字符串
+     *
+     * @param action 对每个接收者执行的操作
+     */
+    public void forEachNumber(LongConsumer action) {
+        for (long value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * 非数字的其他接收者
+     *
+     * @return 其他接收者，只读
+     */
+    public Set<String> others() {
+        return others == null ? Collections.emptySet() : Collections.unmodifiableSet(others);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+
+            private int index = nextSlot(0);
+
+            private final Iterator<String> othersIterator = others().iterator();
+
+            @Override
+            public boolean hasNext() {
+                return index < table.length || othersIterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (index < table.length) {
+                    String receiver = Long.toString(table[index]);
+                    index = nextSlot(index + 1);
+                    return receiver;
+                }
+                if (othersIterator.hasNext()) {
+                    return othersIterator.next();
+                }
+                throw new NoSuchElementException();
+            }
+
+        };
+    }
+
+    /**
+     * 查找下一个非空槽位
+     *
+     * @param from 起始槽位
+     * @return 非空槽位下标，没有时返回表长
+     */
+    private int nextSlot(int from) {
+        int i = from;
+        while (i < table.length && table[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean addNumber(long value) {
+        int index = indexOf(value);
+        if (table[index] == value) {
+            return false;
+        }
+        table[index] = value;
+        if (++numericSize > threshold) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * 线性探测，返回值所在的槽位或应插入的空槽位
+     */
+    private int indexOf(long value) {
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != 0 && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length << 1];
+        threshold = (int) (table.length * LOAD_FACTOR);
+        for (long value : old) {
+            if (value != 0) {
+                table[indexOf(value)] = value;
+            }
+        }
+    }
+
+    /**
+     * 打散手机号等连续数字的哈希值，避免线性探测时聚集
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 将一段字符转换为 long
+     *
+     * @return 1~18 位、首位不为 0 的纯数字时返回对应的值，否则返回 -1
+     */
+    private static long toNumber(CharSequence chars, int from, int to) {
+        int length = to - from;
+        if (length <= 0 || length > MAX_NUMERIC_LENGTH || chars.charAt(from) == '0') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = chars.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+}
@@ -1,10 +1,15 @@
 package org.nstep.engine.module.message.util;
 
 import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import me.chanjar.weixin.mp.bean.template.WxMpTemplate;
@@ -12,6 +17,7 @@ import org.nstep.engine.framework.common.exception.ServiceException;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.constant.WeChatConstants;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendVariables;
 import org.nstep.engine.module.message.dto.model.WeChatServiceAccountContentModel;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
 import org.nstep.engine.module.message.service.content.WeChatServiceAccountService;
@@ -50,6 +56,30 @@ public class ContentHolderUtil {
      */
     private static final PropertyPlaceholderHelper PROPERTY_PLACEHOLDER_HELPER = new PropertyPlaceholderHelper(MessageDataConstants.PLACE_HOLDER_PREFIX, MessageDataConstants.PLACE_HOLDER_SUFFIX);
 
+    /**
+     * 占位符格式 "${变量名}" 的正则表达式
+     */
+    private static final Pattern PLACE_HOLDER_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * 微信模板占位符格式 "{{变量名.xxx}}" 的正则表达式
+     */
+    private static final Pattern WX_PLACE_HOLDER_PATTERN = Pattern.compile("\\{\\{([^.]+)\\..*?}}");
+
+    /**
+     * JSON 解析器，线程安全，全局共享
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * 预编译的占位符模板缓存，key 为消息内容
+     * <p>
+     * 模板内容变化后 key 随之变化，相当于按模板版本缓存。
+     */
+    private static final LoadingCache<String, PlaceholderTemplate> PLACEHOLDER_TEMPLATE_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build(CacheLoader.from(PlaceholderTemplate::compile));
+
     /**
      * 提取模板消息中的占位符变量名。
      * <p>
@@ -66,9 +96,8 @@ public class ContentHolderUtil {
         String context = messageTemplate.getMsgContent();
         // 使用 Set 存储占位符变量名，避免重复
         Set<String> sKeys = new HashSet<>();
-        // 定义正则表达式匹配占位符格式 "${变量名}"。
-        Pattern pattern = Pattern.compile("\\$\\{([^}]+)}");
-        Matcher matcher = pattern.matcher(context);
+        // 匹配占位符格式 "${变量名}"。
+        Matcher matcher = PLACE_HOLDER_PATTERN.matcher(context);
 
         // 遍历消息内容中的占位符并提取变量名
         while (matcher.find()) {
@@ -98,9 +127,8 @@ public class ContentHolderUtil {
                 throw new ServiceException(ErrorCodeConstants.TEMPLATE_ID_NOT_EXIST);
             }
 
-            // 定义正则表达式匹配微信模板格式 "{{变量名.xxx}}"
-            Pattern wxPattern = Pattern.compile("\\{\\{([^.]+)\\..*?}}");
-            Matcher wxMatcher = wxPattern.matcher(wxMpTemplate.getContent());
+            // 匹配微信模板格式 "{{变量名.xxx}}"
+            Matcher wxMatcher = WX_PLACE_HOLDER_PATTERN.matcher(wxMpTemplate.getContent());
 
             // 遍历微信模板内容中的占位符并提取变量名
             while (wxMatcher.find()) {
@@ -125,20 +153,78 @@ public class ContentHolderUtil {
      * @throws ServiceException 如果占位符解析失败或参数无效。
      */
     public String replacePlaceHolder(String content, String param) {
-        Properties properties;
+        Map<String, String> variables;
         try {
-            // 将 JSON 字符串转换为 Properties 对象
-            properties = convertJsonToProperties(param);
+            // 将 JSON 字符串转换为键值对
+            variables = convertJsonToMap(param);
         } catch (Exception e) {
             log.error("占位符数据解析失败:{}", Throwables.getStackTraceAsString(e));
             throw exception(ErrorCodeConstants.PLACEHOLDER_RESOLUTION_FAILURE);
         }
-        // 确保 properties 不为空
-        assert properties != null;
-        // 使用占位符帮助类替换消息内容中的占位符
+        return replacePlaceHolder(content, variables);
+    }
+
+    /**
+     * 使用已解析的占位符数据替换消息内容中的占位符。
+     * <p>
+     * 消息内容会被编译为 {@link PlaceholderTemplate} 并缓存，每次替换只需一次遍历；
+     * 遇到嵌套占位符等特殊情况时回退到 {@link PropertyPlaceholderHelper}，替换结果与之完全一致。
+     * </p>
+     *
+     * @param content   消息内容，包含占位符。
+     * @param variables 变量名到变量值的映射。
+     * @return 替换后的消息内容。
+     */
+    public String replacePlaceHolder(String content, Map<String, String> variables) {
+        // 使用预编译的模板替换占位符
+        String result = PLACEHOLDER_TEMPLATE_CACHE.getUnchecked(content).render(variables);
+        if (result != null) {
+            return result;
+        }
+        // 特殊情况回退到占位符帮助类，Properties 不允许 null 值，值为 null 的变量按未提供处理，与预编译模板保持一致
+        Properties properties = new Properties();
+        variables.forEach((key, value) -> {
+            if (key != null && value != null) {
+                properties.put(key, value);
+            }
+        });
         return PROPERTY_PLACEHOLDER_HELPER.replacePlaceholders(content, properties);
     }
 
+    /**
+     * 解析发送请求中的占位符数据。
+     * <p>
+     * 占位符数据为 JSON 数组，每个元素对应一个接收者。解析结果同时保留变量映射（值统一转换为字符串）
+     * 和该元素的 JSON 文本，之后不需要再次解析。
+     * </p>
+     *
+     * @param json 占位符数据（JSON数组）。
+     * @return 每个接收者的占位符数据。
+     * @throws JsonProcessingException 如果 JSON 格式无效或不是对象数组，抛出异常。
+     */
+    public static List<SendVariables> parseVariables(String json) throws JsonProcessingException {
+        JsonNode array = OBJECT_MAPPER.readTree(json);
+        if (array == null || !array.isArray()) {
+            throw new JsonParseException(null, "占位符数据不是 JSON 数组");
+        }
+        List<SendVariables> result = new ArrayList<>(array.size());
+        for (JsonNode node : array) {
+            if (!node.isObject()) {
+                throw new JsonParseException(null, "占位符数据的元素不是 JSON 对象");
+            }
+            Map<String, String> values = new HashMap<>(node.size() * 4 / 3 + 1);
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                // 字符串、数字、布尔取其文本，对象、数组保留 JSON 文本，null 保留为 null
+                values.put(field.getKey(), value.isNull() ? null : value.isValueNode() ? value.asText() : value.toString());
+            }
+            result.add(new SendVariables(values, node.toString()));
+        }
+        return result;
+    }
+
     /**
      * 判断字符串是否为合法的 JSON 格式。
      *
@@ -148,13 +234,34 @@ public class ContentHolderUtil {
     public static boolean isJson(String json) {
         try {
             // 使用 ObjectMapper 尝试解析 JSON 字符串
-            new ObjectMapper().readTree(json);
+            OBJECT_MAPPER.readTree(json);
             return true;
         } catch (IOException e) {
             return false; // 如果解析失败，返回 false
         }
     }
 
+    /**
+     * 将 JSON 字符串转换为键值对。
+     * <p>
+     * 值统一转换为字符串，用于占位符替换时提供参数支持。
+     * </p>
+     *
+     * @param json JSON字符串。
+     * @return 键值对，包含 JSON 中的数据。
+     * @throws JsonProcessingException 如果 JSON 格式无效，抛出异常。
+     */
+    public static Map<String, String> convertJsonToMap(String json) throws JsonProcessingException {
+        // 只解析一次，非法 JSON 直接抛出异常
+        Map<String, Object> map = OBJECT_MAPPER.readValue(json, new TypeReference<>() {
+        });
+        Map<String, String> variables = new HashMap<>(map.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            variables.put(entry.getKey(), entry.getValue().toString());
+        }
+        return variables;
+    }
+
     /**
      * 将 JSON 字符串转换为 Properties 对象。
      * <p>
@@ -168,16 +275,8 @@ public class ContentHolderUtil {
      */
     public static Properties convertJsonToProperties(String json) throws JsonProcessingException {
         if (isJson(json)) {
-            // 使用 ObjectMapper 将 JSON 转换为 Map
-            ObjectMapper objectMapper = new ObjectMapper();
-            Map<String, Object> map = objectMapper.readValue(json, new TypeReference<>() {
-            });
             Properties properties = new Properties();
-
-            // 遍历 Map 并将数据存入 Properties 对象
-            for (Map.Entry<String, Object> entry : map.entrySet()) {
-                properties.put(entry.getKey(), entry.getValue().toString());
-            }
+            properties.putAll(convertJsonToMap(json));
             return properties;
         }
         // 如果输入不是 JSON 格式，返回 null 或根据实际需求抛出异常
@@ -2,10 +2,9 @@ package org.nstep.engine.module.message.util;
 
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.io.resource.ResourceUtil;
-import cn.hutool.core.text.csv.CsvData;
+import cn.hutool.core.text.csv.CsvParser;
 import cn.hutool.core.text.csv.CsvReadConfig;
 import cn.hutool.core.text.csv.CsvRow;
-import cn.hutool.core.text.csv.CsvUtil;
 import cn.hutool.core.util.CharsetUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
@@ -17,102 +16,162 @@ import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.dto.message.TemplateSend;
 import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 
 /**
- * CSV工具类，提供读取CSV文件并生成发送请求表单的功能。
+ * CSV工具类，提供流式读取人群文件并按分片生成发送请求表单的功能。
+ * <p>
+ * 人群文件可能有数百万行，不再一次性读入内存拼成一个巨大的请求，而是逐行解析，
+ * 每凑满 engine.cronCrowd.shardSize 行就生成一个分片交给调用方发送，发送完成后再继续读取，
+ * 内存中最多只保留一个分片的数据，发送链路的耗时天然形成背压。
+ * <p>
+ * 发送链路只在单个请求内去重，读取时用 {@link ReceiverSetUtil#newSet(Integer, int)} 记录整个文件已出现的接收者，
+ * 跨分片重复的行直接跳过（手机号按 long 保存，百万行约占十几 MB）。
  */
 @Component
 @Slf4j
 public class CsvFileUtil {
 
+    /**
+     * 每个分片包含的接收者数量
+     */
+    @Value("${engine.cronCrowd.shardSize:1000}")
+    private Integer shardSize;
+
     @Resource
     private ContentHolderUtil contentHolderUtil; // 自动注入ContentHolderUtil，用于获取模板变量
 
     /**
-     * 读取CSV文件并构建发送请求表单。
+     * 流式读取CSV人群文件，按分片构建发送请求表单并依次交给分片发送方法。
+     * <p>
+     * 某个分片发送失败时停止读取后续分片并返回该分片的错误信息，已发送的分片不会回滚。
      *
      * @param messageTemplate 模板对象，包含任务相关的信息
      * @param sender          发送方的ID
-     * @return 返回生成的发送请求表单（TemplateSendReqVO）
+     * @param shardSender     分片发送方法，返回分片的发送结果
+     * @return 全部分片发送成功时返回发送的接收者数量（不含重复行），否则返回错误信息
      */
-    public TemplateSend readCsvBuildSendFom(TemplateDO messageTemplate, Long sender) {
-
+    public CommonResult<?> readCsvInShards(TemplateDO messageTemplate, Long sender,
+                                           Function<TemplateSend, CommonResult<?>> shardSender) {
         // 获取模板中的变量名集合，用于后续生成请求表单中的变量
         List<String> varNames = contentHolderUtil.getVariables(messageTemplate);
-        TemplateSend sendForm = new TemplateSend(); // 初始化发送请求表单对象
-
-        try {
-            // 使用CSV读取工具获取CSV文件数据
-            cn.hutool.core.text.csv.CsvReader reader = CsvUtil.getReader(new CsvReadConfig().setContainsHeader(true));
-            // 读取CSV文件内容（使用UTF-8字符集），返回CsvData对象
-            CsvData data = reader.read(ResourceUtil.getReader(messageTemplate.getCronCrowdPath(), CharsetUtil.CHARSET_UTF_8));
-            StringBuilder receivers = new StringBuilder(); // 用于存储接收者信息
-            List<JSONObject> variables = new ArrayList<>(); // 用于存储每一行的变量数据
-            List<CsvRow> rows = data.getRows(); // 获取CSV文件的所有行数据
-
-            // 如果CSV文件为空，返回错误信息
-            if (CollectionUtil.isEmpty(rows)) {
-                log.error("消息:{} 人群文件为空", messageTemplate.getName());
-                sendForm.setIsNeedBreak(true); // 标记需要终止后续操作
-                sendForm.setResponse(
-                        CommonResult.error0(
-                                ErrorCodeConstants.MESSAGE_CROWD_FILE_EMPTY.getCode(),
-                                ErrorCodeConstants.MESSAGE_CROWD_FILE_EMPTY.getMsg(),
-                                messageTemplate.getName()
-                        )
-                );
-                return sendForm; // 返回错误表单
-            }
+        long total = 0;
+        long duplicates = 0;
+        int shardIndex = 0;
+        // 整个文件已出现的接收者，用于跨分片去重
+        Set<String> seenReceivers = ReceiverSetUtil.newSet(messageTemplate.getSendChannel(), shardSize);
 
-            // 遍历每一行CSV数据
-            for (CsvRow row : rows) {
+        // 逐行解析CSV文件（使用UTF-8字符集），首行为表头
+        try (CsvParser parser = new CsvParser(ResourceUtil.getReader(messageTemplate.getCronCrowdPath(), CharsetUtil.CHARSET_UTF_8),
+                new CsvReadConfig().setContainsHeader(true))) {
+            StringBuilder receivers = new StringBuilder(); // 当前分片的接收者信息
+            List<JSONObject> variables = new ArrayList<>(shardSize); // 当前分片每一行的变量数据
+            CsvRow row;
+            while ((row = parser.nextRow()) != null) {
                 // 获取当前行的表头列名与列值的映射
                 Map<String, String> fieldMap = row.getFieldMap();
+                String receiver = fieldMap.get(MessageDataConstants.CRON_FILE_RECEIVER);
+                // 之前的行（可能在已发送的分片中）已出现过该接收者，跳过
+                if (!seenReceivers.add(StrUtil.nullToEmpty(receiver))) {
+                    duplicates++;
+                    continue;
+                }
                 // 拼接接收者字段，多个接收者用分隔符隔开
-                receivers.append(fieldMap.get(MessageDataConstants.CRON_FILE_RECEIVER)).append(MessageDataConstants.SEPARATOR);
+                if (!variables.isEmpty()) {
+                    receivers.append(MessageDataConstants.SEPARATOR);
+                }
+                receivers.append(receiver);
                 JSONObject jsonObject = new JSONObject(); // 存储当前行的变量数据
-                // 遍历变量名集合，填充每行数据中的相应字段
                 for (String varName : varNames) {
-                    jsonObject.set(varName, fieldMap.get(varName)); // 将变量名和对应值放入JSON对象
+                    jsonObject.set(varName, fieldMap.get(varName));
                 }
-                variables.add(jsonObject); // 将当前行的变量数据添加到变量集合
-            }
+                variables.add(jsonObject);
+                total++;
 
-            // 移除最后一个分隔符
-            receivers.deleteCharAt(receivers.lastIndexOf(MessageDataConstants.SEPARATOR));
-            sendForm.setReceivers(String.valueOf(receivers)); // 设置接收者信息
+                // 凑满一个分片就发送，发送完成后再继续读取
+                if (variables.size() >= shardSize) {
+                    CommonResult<?> result = sendShard(messageTemplate, sender, varNames, receivers, variables, shardSender);
+                    if (result.isError()) {
+                        log.error("消息:{} 第{}个人群分片发送失败:{}", messageTemplate.getName(), shardIndex, result.getMsg());
+                        return result;
+                    }
+                    shardIndex++;
+                    receivers.setLength(0);
+                    variables.clear();
+                }
+            }
 
-            // 如果变量名集合非空，设置变量数据到发送表单
-            if (CollectionUtil.isNotEmpty(varNames)) {
-                sendForm.setVariables(JSONUtil.toJsonStr(variables)); // 将变量数据转换为JSON字符串
-                sendForm.setIsExitVariables(varNames.size()); // 设置占位符数量
-            } else {
-                sendForm.setVariables(StrUtil.EMPTY); // 如果没有变量，设置为空
-                sendForm.setIsExitVariables(0); // 没有占位符
+            // 如果CSV文件为空，返回错误信息
+            if (total == 0) {
+                log.error("消息:{} 人群文件为空", messageTemplate.getName());
+                return CommonResult.error0(
+                        ErrorCodeConstants.MESSAGE_CROWD_FILE_EMPTY.getCode(),
+                        ErrorCodeConstants.MESSAGE_CROWD_FILE_EMPTY.getMsg(),
+                        messageTemplate.getName()
+                );
             }
 
-            // 设置发送请求表单的其他信息
-            sendForm.setMessageTemplateId(messageTemplate.getId()); // 设置消息模板ID
-            sendForm.setSendChannel(messageTemplate.getSendChannel()); // 设置发送渠道
-            sendForm.setSender(sender); // 设置发送方ID
+            // 发送最后一个不足分片大小的分片
+            if (!variables.isEmpty()) {
+                CommonResult<?> result = sendShard(messageTemplate, sender, varNames, receivers, variables, shardSender);
+                if (result.isError()) {
+                    log.error("消息:{} 第{}个人群分片发送失败:{}", messageTemplate.getName(), shardIndex, result.getMsg());
+                    return result;
+                }
+            }
+            if (duplicates > 0) {
+                log.info("消息:{} 人群文件中有{}行重复的接收者，已跳过", messageTemplate.getName(), duplicates);
+            }
         } catch (Exception e) {
-            // 如果发生异常，标记需要终止操作，并返回错误信息
-            sendForm.setIsNeedBreak(true);
-            sendForm.setResponse(
-                    CommonResult.error0(
-                            ErrorCodeConstants.READ_CSV_FAILED.getCode(),
-                            ErrorCodeConstants.READ_CSV_FAILED.getMsg(),
-                            e.getMessage()
-                    )
+            // 如果发生异常，返回错误信息
+            log.error("消息:{} 读取人群文件失败，已发送{}个分片:{}", messageTemplate.getName(), shardIndex, e.getMessage());
+            return CommonResult.error0(
+                    ErrorCodeConstants.READ_CSV_FAILED.getCode(),
+                    ErrorCodeConstants.READ_CSV_FAILED.getMsg(),
+                    e.getMessage()
             );
-            return sendForm;
         }
-        return sendForm;
+        return CommonResult.success(total);
+    }
+
+    /**
+     * 构建一个分片的发送请求表单并发送
+     *
+     * @param messageTemplate 模板对象
+     * @param sender          发送方的ID
+     * @param varNames        模板中的变量名集合
+     * @param receivers       分片的接收者信息
+     * @param variables       分片每一行的变量数据
+     * @param shardSender     分片发送方法
+     * @return 分片的发送结果
+     */
+    private CommonResult<?> sendShard(TemplateDO messageTemplate, Long sender, List<String> varNames,
+                                      StringBuilder receivers, List<JSONObject> variables,
+                                      Function<TemplateSend, CommonResult<?>> shardSender) {
+        TemplateSend sendForm = new TemplateSend(); // 初始化发送请求表单对象
+        sendForm.setReceivers(receivers.toString()); // 设置接收者信息
+
+        // 如果变量名集合非空，设置变量数据到发送表单
+        if (CollectionUtil.isNotEmpty(varNames)) {
+            sendForm.setVariables(JSONUtil.toJsonStr(variables)); // 将变量数据转换为JSON字符串
+            sendForm.setIsExitVariables(varNames.size()); // 设置占位符数量
+        } else {
+            sendForm.setVariables(StrUtil.EMPTY); // 如果没有变量，设置为空
+            sendForm.setIsExitVariables(0); // 没有占位符
+        }
+
+        // 设置发送请求表单的其他信息
+        sendForm.setMessageTemplateId(messageTemplate.getId()); // 设置消息模板ID
+        sendForm.setSendChannel(messageTemplate.getSendChannel()); // 设置发送渠道
+        sendForm.setSender(sender); // 设置发送方ID
+        return shardSender.apply(sendForm);
     }
 }
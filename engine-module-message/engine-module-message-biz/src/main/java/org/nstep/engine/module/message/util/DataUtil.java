@@ -12,13 +12,9 @@ import org.nstep.engine.framework.xxljob.domain.CronTaskCords;
 import org.nstep.engine.module.message.config.ChannelConfig;
 import org.nstep.engine.module.message.constant.DDingDingSendMessageTypeConstants;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
-import org.nstep.engine.module.message.constant.RedissonConstants;
-import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
-import org.nstep.engine.module.message.dto.message.TemplateSendTask;
-import org.nstep.engine.module.message.dto.content.SendContent;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.nstep.engine.module.message.handler.timeout.SendTimeoutTracker;
+import org.nstep.engine.module.message.service.record.SendRecordService;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -26,10 +22,8 @@ import java.math.BigInteger;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
 
@@ -38,7 +32,7 @@ import static org.nstep.engine.framework.common.exception.util.ServiceExceptionU
  * 消息数据统计/记录工具类
  * <p>
  * 该类包含了多个方法用于管理和操作消息的发送状态、记录定时任务的执行情况、进行数据映射（如渠道映射）、更新消息发送状态等。
- * 它主要与 Redis 和 Redisson 一起使用，提供了功能强大的数据管理与同步操作。
+ * 它主要与 Redis 一起使用，提供了功能强大的数据管理与同步操作。
  *
  * @Author: hanabi
  * @DateTime: 2023/11/17
@@ -55,10 +49,28 @@ public class DataUtil {
     private StringRedisTemplate stringRedisTemplate;
 
     /**
-     * Redisson 客户端，用于处理分布式锁和其他同步操作
+     * 消息投递状态工具类，用于 O(1) 地确认单条消息的发送结果
      */
     @Resource
-    private RedissonClient redissonClient;
+    private DeliveryStatusUtil deliveryStatusUtil;
+
+    /**
+     * 发送记录工具类，用于累加发送任务的成功、失败计数
+     */
+    @Resource
+    private SendRecordUtil sendRecordUtil;
+
+    /**
+     * 发送记录 Service，用于归档已完成的发送记录
+     */
+    @Resource
+    private SendRecordService sendRecordService;
+
+    /**
+     * 发送超时跟踪器，任务全部确认后取消计时
+     */
+    @Resource
+    private SendTimeoutTracker sendTimeoutTracker;
 
     /**
      * 存储消息状态的映射（整型 -> 字符串）
@@ -214,7 +226,8 @@ public class DataUtil {
     /**
      * 确认发送任务的某一组消息的发送状态
      * <p>
-     * 该方法用于确认一个发送任务中的某一条消息的发送状态，并根据发送结果更新 Redis 中的消息数据。
+     * 该方法用于确认一个发送任务中的某一条消息的发送状态，状态存储在以 sendTaskId 为粒度的哈希中（见 {@link DeliveryStatusUtil}），
+     * 通过原子的状态迁移完成确认，不再遍历用户当天的全部消息，也无需加锁，不同渠道线程可以并行确认。
      *
      * @param sendId          发送 ID
      * @param messageId       消息 ID
@@ -222,101 +235,44 @@ public class DataUtil {
      * @param sendTaskId      发送任务 ID
      * @param ex              异常信息（失败时传入）
      */
-    public synchronized void confirmSend(String sendId, Long messageId, String messageRedisKey, Long sendTaskId, Exception ex) {
+    public void confirmSend(String sendId, Long messageId, String messageRedisKey, Long sendTaskId, Exception ex) {
         if (StrUtil.isBlank(messageRedisKey)) {
             log.error("{} is null", MessageDataConstants.SEND_MESSAGE_KEY);
             throw exception(ErrorCodeConstants.IS_NULL_TEMPLATE, MessageDataConstants.SEND_MESSAGE_KEY);
         }
-
-        RLock rLock = redissonClient.getLock(RedissonConstants.SEND_CONTENT_LOCK + sendTaskId);
-
-        try {
-            rLock.lock();  // 获取锁，确保并发时只有一个线程能修改消息状态
-            List<String> list = stringRedisTemplate.opsForList().range(messageRedisKey, 0, -1);
-            if (Objects.isNull(list)) {
-                log.error("消息数据丢失");
-                throw exception(ErrorCodeConstants.MESSAGE_DATA_LOST);
-            }
-            // 将从 Redis 获取的字符串列表转换为 SendContext 对象列表
-            List<SendContent> sendContexts = stringConvertSendContext(list);
-            // 更新消息发送状态
-            updateMsgStatus(sendContexts, messageId, sendId, messageRedisKey, sendTaskId, ex);
-        } catch (Exception e) {
-            log.error("发送流程出现异常:{}", Throwables.getStackTraceAsString(e));
-        } finally {
-            rLock.unlock();  // 释放锁
-        }
-    }
-
-    /**
-     * 更新消息发送状态
-     * <p>
-     * 根据发送结果（成功或失败）更新 Redis 中的消息数据，成功时记录发送成功，失败时记录失败，并更新任务的完成状态。
-     *
-     * @param sendContexts    消息上下文列表
-     * @param messageId       消息 ID
-     * @param sendId          发送 ID
-     * @param messageRedisKey Redis 中的消息存储键
-     * @param sendTaskId      发送任务 ID
-     * @param ex              异常信息（失败时传入）
-     */
-    public void updateMsgStatus(List<SendContent> sendContexts, Long messageId, String sendId, String messageRedisKey, Long sendTaskId, Exception ex) {
         if (sendTaskId == null || sendTaskId == 0) {
             throw exception(ErrorCodeConstants.IS_NULL_TEMPLATE, MessageDataConstants.SEND_TASK_ID);
         }
 
-        // 从后往前遍历消息上下文，找到对应的发送任务
-        for (int i = sendContexts.size() - 1; i >= 0; i--) {
-            if (Objects.equals(sendContexts.get(i).getSendTaskId(), sendTaskId)) {
-                List<TemplateSendTask> sendTasks = sendContexts.get(i).getSendTasks();
-                for (TemplateSendTask sendTask : sendTasks) {
-                    if (Objects.equals(sendTask.getMessageId(), messageId)) {
-                        TemplateDO messageTemplate = sendTask.getMessageTemplate();
-                        if (!MessageDataConstants.MSG_SENDING.equals(messageTemplate.getMsgStatus())) {
-                            return;  // 如果不是正在发送状态，直接退出
-                        }
-                        // 根据发送结果更新消息状态
-                        if (StrUtil.isNotBlank(sendId)) {
-                            // 发送成功
-                            messageTemplate.setMsgStatus(MessageDataConstants.MSG_SUCCESS);
-                            log.info("消息发送成功,返回信息:{}", sendId);
-                            LocalDateTime now = LocalDateTime.now();
-                            sendTask.setSendEndTime(now);
-                            sendTask.setTakeTime(Duration.between(sendTask.getSendStartTime(), now).toMillis());
-                            if (MessageDataConstants.TIMING.equals(messageTemplate.getPushType())) {
-                                recordCronTaskStatus(MessageDataConstants.CRON_TASK_SUCCESS, messageTemplate.getId(), sendContexts.get(i).getSender(), "消息发送成功,返回信息:" + sendId);
-                            }
-                            sendTask.setMessageTemplate(messageTemplate);
-                        } else {
-                            // 发送失败
-                            messageTemplate.setMsgStatus(MessageDataConstants.MSG_FAIL);
-                            log.error("消息发送失败,返回信息:{}", Throwables.getStackTraceAsString(ex));
-
-                            LocalDateTime now = LocalDateTime.now();
-                            sendTask.setSendEndTime(now);
-                            sendTask.setTakeTime(Duration.between(sendTask.getSendStartTime(), now).toMillis());
-                            if (MessageDataConstants.TIMING.equals(messageTemplate.getPushType())) {
-                                recordCronTaskStatus(MessageDataConstants.CRON_TASK_FAIL, messageTemplate.getId(), sendContexts.get(i).getSender(), Throwables.getStackTraceAsString(ex));
-                            }
-                            sendTask.setMessageTemplate(messageTemplate);
-                        }
-                    }
+        try {
+            boolean success = StrUtil.isNotBlank(sendId);
+            // 原子地将消息从发送中迁移到成功/失败，并带回任务元信息；返回 null 表示重复回执或状态不存在
+            DeliveryStatusUtil.Confirmation confirmation = deliveryStatusUtil.confirm(sendTaskId, messageId, success);
+            if (Objects.isNull(confirmation)) {
+                return;
+            }
+            // 任务下的消息全部确认后，取消超时计时，发送记录进入归档
+            if (sendRecordUtil.confirm(sendTaskId, success)) {
+                sendTimeoutTracker.cancel(sendTaskId);
+                sendRecordService.archive(sendRecordUtil.get(sendTaskId));
+            }
+            if (success) {
+                log.info("消息发送成功,耗时:{}ms,返回信息:{}", confirmation.getTakeTime(), sendId);
+            } else {
+                log.error("消息发送失败,返回信息:{}", Throwables.getStackTraceAsString(ex));
+            }
+            // 定时任务需要同步记录任务状态
+            if (Objects.equals(String.valueOf(MessageDataConstants.TIMING), confirmation.getPushType())) {
+                Long templateId = Long.valueOf(confirmation.getTemplateId());
+                Long sender = Long.valueOf(confirmation.getSender());
+                if (success) {
+                    recordCronTaskStatus(MessageDataConstants.CRON_TASK_SUCCESS, templateId, sender, "消息发送成功,返回信息:" + sendId);
+                } else {
+                    recordCronTaskStatus(MessageDataConstants.CRON_TASK_FAIL, templateId, sender, Throwables.getStackTraceAsString(ex));
                 }
-                // 更新 Redis 中的消息上下文
-                stringRedisTemplate.opsForList().set(messageRedisKey, i, JSON.toJSONString(sendContexts.get(i)));
             }
+        } catch (Exception e) {
+            log.error("发送流程出现异常:{}", Throwables.getStackTraceAsString(e));
         }
     }
-
-    /**
-     * 将 Redis 中取出的字符串列表转换成 `SendContent` 类型
-     *
-     * @param list 从 Redis 中取出的字符串列表
-     * @return 转换后的 `SendContent` 对象列表
-     */
-    public List<SendContent> stringConvertSendContext(List<String> list) {
-        return list.stream()
-                .map(s -> JSONUtil.toBean(s, SendContent.class))
-                .collect(Collectors.toList());
-    }
 }
@@ -0,0 +1,194 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.NumberUtil;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 消息投递状态工具类
+ * <p>
+ * 以发送任务（sendTaskId）为粒度，将任务下每条消息（messageId）的投递状态存储在一个 Redis 哈希中：
+ * <ul>
+ *     <li>messageId：消息状态，取值见 {@link MessageDataConstants#MSG_SENDING} 等</li>
+ *     <li>messageId:start / messageId:end：发送开始、结束时间戳（毫秒）</li>
+ *     <li>messageId:take：发送阶段耗时（毫秒）</li>
+ *     <li>sender / templateId / pushType：任务级别的元信息，用于回执时记录定时任务状态</li>
+ * </ul>
+ * 回执确认时通过 Lua 脚本原子地完成 “发送中 -> 成功/失败” 的状态迁移并读出任务元信息，复杂度为 O(1)，
+ * 一次往返，无需加锁，不同渠道、不同实例之间可以并行确认。
+ */
+@Component
+public class DeliveryStatusUtil {
+
+    /**
+     * 任务级别字段：发送方
+     */
+    public static final String FIELD_SENDER = "sender";
+
+    /**
+     * 任务级别字段：模板 ID
+     */
+    public static final String FIELD_TEMPLATE_ID = "templateId";
+
+    /**
+     * 任务级别字段：推送类型
+     */
+    public static final String FIELD_PUSH_TYPE = "pushType";
+
+    /**
+     * 状态迁移脚本
+     * <p>
+     * KEYS[1]：投递状态哈希 key；ARGV[1]：messageId；ARGV[2]：期望的当前状态；ARGV[3]：目标状态；ARGV[4]：当前时间戳
+     * <p>
+     * 返回值：迁移成功返回 [发送耗时（毫秒）, sender, templateId, pushType]，元信息随状态迁移一并读出，
+     * 回执时不需要再单独 HMGET；当前状态不匹配（重复回执或任务不存在）返回空列表
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CONFIRM_SCRIPT = new DefaultRedisScript<>(
+            "local status = redis.call('HGET', KEYS[1], ARGV[1]) " +
+                    "if status ~= ARGV[2] then return {} end " +
+                    "local now = tonumber(ARGV[4]) " +
+                    "local start = tonumber(redis.call('HGET', KEYS[1], ARGV[1] .. ':start') or now) " +
+                    "local take = now - start " +
+                    "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3], ARGV[1] .. ':end', now, ARGV[1] .. ':take', take) " +
+                    "local meta = redis.call('HMGET', KEYS[1], '" + FIELD_SENDER + "', '" + FIELD_TEMPLATE_ID + "', '" + FIELD_PUSH_TYPE + "') " +
+                    "return {tostring(take), meta[1], meta[2], meta[3]}", List.class);
+
+    /**
+     * 投递状态的保留时长（小时），需覆盖到发送超时的补偿确认
+     */
+    @Value("${engine.sendStatus.expireHours:48}")
+    private Long expireHours;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 登记发送任务下所有消息为发送中状态
+     * <p>
+     * 必须在消息投递到 MQ 之前调用，保证渠道回执时状态已经存在。
+     *
+     * @param sendContent 发送上下文
+     */
+    public void register(SendContent sendContent) {
+        if (Objects.isNull(sendContent.getSendTaskId()) || CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return;
+        }
+        TemplateDO messageTemplate = sendContent.getSendTasks().get(0).getMessageTemplate();
+        Map<String, String> fields = new HashMap<>(sendContent.getSendTasks().size() * 2 + 3);
+        fields.put(FIELD_SENDER, String.valueOf(sendContent.getSender()));
+        fields.put(FIELD_TEMPLATE_ID, String.valueOf(messageTemplate.getId()));
+        fields.put(FIELD_PUSH_TYPE, String.valueOf(messageTemplate.getPushType()));
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            String messageId = String.valueOf(sendTask.getMessageId());
+            fields.put(messageId, String.valueOf(MessageDataConstants.MSG_SENDING));
+            long start = Objects.isNull(sendTask.getSendStartTime()) ? System.currentTimeMillis()
+                    : sendTask.getSendStartTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            fields.put(messageId + ":start", String.valueOf(start));
+        }
+        String key = RedisKeyUtil.getSendStatusRedisKey(sendContent.getSendTaskId());
+        stringRedisTemplate.opsForHash().putAll(key, fields);
+        stringRedisTemplate.expire(key, Duration.ofHours(expireHours));
+    }
+
+    /**
+     * 将消息从发送中迁移到成功或失败状态
+     *
+     * @param sendTaskId 发送任务 ID
+     * @param messageId  消息 ID
+     * @param success    是否发送成功
+     * @return 迁移结果，包含发送耗时和任务级别的元信息；状态已被确认过或不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public Confirmation confirm(Long sendTaskId, Long messageId, boolean success) {
+        Integer nextStatus = success ? MessageDataConstants.MSG_SUCCESS : MessageDataConstants.MSG_FAIL;
+        List<String> result = stringRedisTemplate.execute(CONFIRM_SCRIPT,
+                Collections.singletonList(RedisKeyUtil.getSendStatusRedisKey(sendTaskId)),
+                String.valueOf(messageId), String.valueOf(MessageDataConstants.MSG_SENDING),
+                String.valueOf(nextStatus), String.valueOf(System.currentTimeMillis()));
+        if (CollUtil.isEmpty(result)) {
+            return null;
+        }
+        return new Confirmation(Long.parseLong(result.get(0)), result.get(1), result.get(2), result.get(3));
+    }
+
+    /**
+     * 查询单条消息的投递状态
+     *
+     * @param sendTaskId 发送任务 ID
+     * @param messageId  消息 ID
+     * @return 消息状态，不存在时返回 null
+     */
+    public Integer getStatus(Long sendTaskId, Long messageId) {
+        Object status = stringRedisTemplate.opsForHash()
+                .get(RedisKeyUtil.getSendStatusRedisKey(sendTaskId), String.valueOf(messageId));
+        return Objects.isNull(status) ? null : Integer.valueOf((String) status);
+    }
+
+    /**
+     * 查询发送任务下仍处于发送中状态的消息
+     *
+     * @param sendTaskId 发送任务 ID
+     * @return 发送中的消息 ID，任务不存在时返回空列表
+     */
+    public List<Long> getSendingMessageIds(Long sendTaskId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(RedisKeyUtil.getSendStatusRedisKey(sendTaskId));
+        String sending = String.valueOf(MessageDataConstants.MSG_SENDING);
+        List<Long> messageIds = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            // 只有 messageId 字段的值为状态，其余为时间戳或任务级别的元信息
+            if (sending.equals(value) && NumberUtil.isLong((String) field)) {
+                messageIds.add(Long.valueOf((String) field));
+            }
+        });
+        return messageIds;
+    }
+
+    /**
+     * 一次成功的状态迁移
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Confirmation {
+
+        /**
+         * 发送耗时（毫秒）
+         */
+        private final long takeTime;
+
+        /**
+         * 发送方，任务元信息不存在时为 null
+         */
+        private final String sender;
+
+        /**
+         * 模板 ID，任务元信息不存在时为 null
+         */
+        private final String templateId;
+
+        /**
+         * 推送类型，任务元信息不存在时为 null
+         */
+        private final String pushType;
+    }
+}
@@ -0,0 +1,80 @@
+package org.nstep.engine.module.message.util;
+
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+
+/**
+ * 手机号校验工具类
+ * <p>
+ * 校验规则与 {@link MessageDataConstants#PHONE_REGEX_EXP} 一致：11 位数字，前三位为
+ * 13x、145/147/149、150~153/155~159、166、17x、18x、191/198/199。
+ * 手写实现不使用正则，逐个字符判断；已按 long 保存的手机号可以直接校验，不需要转换成字符串。
+ */
+public final class PhoneUtil {
+
+    private static final long MIN_PHONE = 10_000_000_000L;
+
+    private static final long MAX_PHONE = 19_999_999_999L;
+
+    /**
+     * 去掉前三位所需的除数
+     */
+    private static final long PREFIX_DIVISOR = 100_000_000L;
+
+    private PhoneUtil() {
+    }
+
+    /**
+     * 校验字符串是否为合法手机号
+     *
+     * @param phone 手机号
+     * @return 是否合法
+     */
+    public static boolean isValid(String phone) {
+        if (phone == null || phone.length() != 11) {
+            return false;
+        }
+        for (int i = 0; i < 11; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return isValidPrefix((phone.charAt(0) - '0') * 100 + (phone.charAt(1) - '0') * 10 + (phone.charAt(2) - '0'));
+    }
+
+    /**
+     * 校验按 long 保存的手机号是否合法
+     *
+     * @param phone 手机号
+     * @return 是否合法
+     */
+    public static boolean isValid(long phone) {
+        if (phone < MIN_PHONE || phone > MAX_PHONE) {
+            return false;
+        }
+        return isValidPrefix((int) (phone / PREFIX_DIVISOR));
+    }
+
+    /**
+     * 校验手机号前三位（号段）
+     *
+     * @param prefix 前三位
+     * @return 是否为支持的号段
+     */
+    private static boolean isValidPrefix(int prefix) {
+        int second = prefix / 10 % 10;
+        int third = prefix % 10;
+        if (prefix / 100 != 1) {
+            return false;
+        }
+        return switch (second) {
+            case 3, 7, 8 -> true;
+            case 4 -> third == 5 || third == 7 || third == 9;
+            case 5 -> third != 4;
+            case 6 -> third == 6;
+            case 9 -> third == 1 || third == 8 || third == 9;
+            default -> false;
+        };
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.nstep.engine.module.message.util;
+
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的占位符模板
+ * <p>
+ * 将含有 ${变量名} 占位符的消息内容解析为 “文本片段 / 变量片段” 组成的列表，之后每次渲染只需要一次遍历、
+ * 一个预估好容量的 StringBuilder，不再重复扫描和解析模板内容。
+ * <p>
+ * 渲染语义与 {@link org.springframework.util.PropertyPlaceholderHelper}（忽略无法解析的占位符）保持一致：
+ * <ul>
+ *     <li>变量存在时替换为变量值，不存在时原样保留 ${变量名}</li>
+ *     <li>缺少结尾 } 的占位符按普通文本处理</li>
+ * </ul>
+ * 对于嵌套占位符（如 ${a${b}} 或 ${a{b}}）以及变量值中又含有占位符的情况，{@link #isCompiled()} / {@link #render(Map)}
+ * 会交由调用方回退到 PropertyPlaceholderHelper 处理，保证结果完全一致。
+ */
+public final class PlaceholderTemplate {
+
+    private static final String PREFIX = MessageDataConstants.PLACE_HOLDER_PREFIX;
+
+    private static final String SUFFIX = MessageDataConstants.PLACE_HOLDER_SUFFIX;
+
+    /**
+     * 片段列表，偶数下标为文本片段，奇数下标为变量名
+     */
+    private final List<String> segments;
+
+    /**
+     * 文本片段的总长度，用于预估渲染结果的容量
+     */
+    private final int literalLength;
+
+    /**
+     * 是否编译成功，包含嵌套占位符时为 false
+     */
+    private final boolean compiled;
+
+    private PlaceholderTemplate(List<String> segments, int literalLength, boolean compiled) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+        this.compiled = compiled;
+    }
+
+    /**
+     * 编译消息内容
+     *
+     * @param content 消息内容
+     * @return 编译后的模板
+     */
+    public static PlaceholderTemplate compile(String content) {
+        List<String> segments = new ArrayList<>();
+        int literalLength = 0;
+        int cursor = 0;
+        int start = content.indexOf(PREFIX);
+        while (start != -1) {
+            int end = content.indexOf(SUFFIX, start + PREFIX.length());
+            if (end == -1) {
+                // 没有结尾的占位符，剩余部分都按文本处理
+                break;
+            }
+            String name = content.substring(start + PREFIX.length(), end);
+            if (name.indexOf('{') != -1) {
+                // 嵌套占位符，交由 PropertyPlaceholderHelper 处理
+                return new PlaceholderTemplate(Collections.emptyList(), 0, false);
+            }
+            String literal = content.substring(cursor, start);
+            segments.add(literal);
+            segments.add(name);
+            literalLength += literal.length();
+            cursor = end + SUFFIX.length();
+            start = content.indexOf(PREFIX, cursor);
+        }
+        String literal = content.substring(cursor);
+        segments.add(literal);
+        literalLength += literal.length();
+        return new PlaceholderTemplate(Collections.unmodifiableList(segments), literalLength, true);
+    }
+
+    /**
+     * 是否编译成功
+     *
+     * @return 包含嵌套占位符时返回 false，需要回退到 PropertyPlaceholderHelper
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param variables 变量名到变量值的映射
+     * @return 渲染结果；当模板未编译成功或变量值中含有占位符时返回 null，需要回退到 PropertyPlaceholderHelper
+     */
+    public String render(Map<String, String> variables) {
+        if (!compiled) {
+            return null;
+        }
+        int capacity = literalLength;
+        for (int i = 1; i < segments.size(); i += 2) {
+            String value = variables.get(segments.get(i));
+            if (value == null) {
+                capacity += segments.get(i).length() + PREFIX.length() + SUFFIX.length();
+                continue;
+            }
+            if (value.contains(PREFIX)) {
+                // 变量值中还有占位符，需要递归解析
+                return null;
+            }
+            capacity += value.length();
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if ((i & 1) == 0) {
+                builder.append(segment);
+                continue;
+            }
+            String value = variables.get(segment);
+            if (value == null) {
+                builder.append(PREFIX).append(segment).append(SUFFIX);
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,355 @@
+package org.nstep.engine.module.message.util;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 第三方服务元数据缓存
+ * <p>
+ * 缓存个推 token、微信服务号模板等需要调用第三方服务获取、且在一段时间内不变的数据，发送时不再访问第三方服务：
+ * <ul>
+ *     <li>数据保存在本机内存中，已过有效期的 engine.providerCache.refreshAheadRatio（默认 80%）后由一个后台线程提前刷新，
+ *     刷新期间其他线程继续使用旧数据</li>
+ *     <li>同一个 key 同时只有一个线程加载（single-flight），其他线程等待该线程的结果</li>
+ *     <li>加载时先读取 Redis 中其他实例已获取的数据；需要调用第三方服务时通过 Redis 锁保证集群内只有一个实例调用，
+ *     其他实例等待 engine.providerCache.lockWaitMillis 后读取其结果，Redis 不可用时直接调用第三方服务</li>
+ *     <li>数据失效（如 token 被第三方服务判定过期）时调用 {@link #invalidate}，只有缓存中仍是该旧数据时才删除，
+ *     并发的失效不会重复获取</li>
+ * </ul>
+ * 钉钉机器人的加签地址只依赖密钥和本机时间，已由 {@link org.nstep.engine.module.message.util.dingding.DingDingRobotClient} 在本机缓存，
+ * 微信服务号的 access_token 由 WxJava 保存在 Redis 中并加锁刷新，二者不使用该类。
+ * 按 region、source 标签上报 engine.provider.cache.load（source 为 redis 表示从 Redis 加载，provider 表示调用了第三方服务）。
+ */
+@Component
+@Slf4j
+public class ProviderMetadataCache {
+
+    /**
+     * 值等于 ARGV[1] 时删除 KEYS[1]
+     */
+    private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    /**
+     * Redis 锁 key 的后缀
+     */
+    private static final String LOCK_SUFFIX = ":lock";
+
+    /**
+     * 等待其他实例加载时读取 Redis 的间隔（毫秒）
+     */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    /**
+     * 经过有效期的多少比例后提前刷新
+     */
+    @Value("${engine.providerCache.refreshAheadRatio:0.8}")
+    private Double refreshAheadRatio;
+
+    /**
+     * Redis 锁的过期时间（毫秒），应大于调用第三方服务的超时时间
+     */
+    @Value("${engine.providerCache.lockMillis:10000}")
+    private Long lockMillis;
+
+    /**
+     * 未获取到 Redis 锁时等待其他实例加载的最长时间（毫秒）
+     */
+    @Value("${engine.providerCache.lockWaitMillis:3000}")
+    private Long lockWaitMillis;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 本机缓存，key 为 Redis key
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 正在加载的 key 及其结果
+     */
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 提前刷新的线程池
+     */
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2,
+            new ThreadFactoryBuilder().setNameFormat("engine-provider-cache-%d").setDaemon(true).build());
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取数据，没有缓存或已过期时加载，即将过期时触发后台刷新
+     *
+     * @param region 缓存区域
+     * @param key    区域内的 key，如发送账号
+     * @param loader 调用第三方服务获取数据，返回 null 时不缓存
+     * @param <T>    数据类型
+     * @return 数据，加载结果为 null 时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Region<T> region, Object key, Callable<T> loader) {
+        String cacheKey = region.keyPrefix() + key;
+        Entry entry = entries.get(cacheKey);
+        long now = System.currentTimeMillis();
+        if (entry != null && now < entry.expireAt) {
+            if (now >= entry.refreshAt) {
+                refreshAsync(region, cacheKey, loader);
+            }
+            return (T) entry.value;
+        }
+
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(cacheKey, created);
+        try {
+            Entry loaded = existing != null ? existing.join() : load(region, cacheKey, loader, created, false);
+            return loaded == null ? null : (T) loaded.value;
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 写入数据，用于在其他途径（如管理后台的查询）获取到最新数据时更新缓存
+     *
+     * @param region 缓存区域
+     * @param key    区域内的 key
+     * @param value  数据
+     * @param <T>    数据类型
+     */
+    public <T> void put(Region<T> region, Object key, T value) {
+        String cacheKey = region.keyPrefix() + key;
+        long ttlMillis = region.ttl().toMillis();
+        entries.put(cacheKey, newEntry(value, ttlMillis));
+        try {
+            stringRedisTemplate.opsForValue().set(cacheKey, encode(value), ttlMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("第三方服务元数据写入Redis失败:{}:{}", cacheKey, Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 使数据失效，只有缓存中仍是 staleValue 时才删除，其他线程已经获取到新数据时不受影响
+     *
+     * @param region     缓存区域
+     * @param key        区域内的 key
+     * @param staleValue 已失效的数据
+     * @param <T>        数据类型
+     */
+    public <T> void invalidate(Region<T> region, Object key, T staleValue) {
+        String cacheKey = region.keyPrefix() + key;
+        entries.computeIfPresent(cacheKey, (k, entry) -> Objects.equals(entry.value, staleValue) ? null : entry);
+        try {
+            stringRedisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, Collections.singletonList(cacheKey), encode(staleValue));
+        } catch (Exception e) {
+            log.error("第三方服务元数据失效Redis失败:{}:{}", cacheKey, Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 在后台刷新即将过期的数据，已有线程在加载时不重复刷新
+     */
+    private <T> void refreshAsync(Region<T> region, String cacheKey, Callable<T> loader) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        if (loading.putIfAbsent(cacheKey, created) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(region, cacheKey, loader, created, true);
+                } catch (Exception e) {
+                    // 刷新失败时继续使用旧数据，过期前的下一次访问会再次刷新
+                    log.error("第三方服务元数据刷新失败:{}:{}", cacheKey, Throwables.getStackTraceAsString(e));
+                }
+            });
+        } catch (Exception e) {
+            loading.remove(cacheKey, created);
+            created.cancel(false);
+        }
+    }
+
+    /**
+     * 加载数据并发布给等待的线程，调用方已将 future 登记到 {@link #loading}
+     *
+     * @param refresh 是否为提前刷新，提前刷新时 Redis 中即将过期的数据不可用
+     */
+    private <T> Entry load(Region<T> region, String cacheKey, Callable<T> loader, CompletableFuture<Entry> future, boolean refresh) {
+        try {
+            Entry entry = loadFromRedisOrProvider(region, cacheKey, loader, refresh);
+            if (entry != null) {
+                entries.put(cacheKey, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            Throwables.throwIfUnchecked(e);
+            throw new IllegalStateException(e);
+        } finally {
+            loading.remove(cacheKey, future);
+        }
+    }
+
+    /**
+     * 优先使用 Redis 中的数据；需要调用第三方服务时先获取 Redis 锁，未获取到时等待持有锁的实例写入 Redis
+     */
+    private <T> Entry loadFromRedisOrProvider(Region<T> region, String cacheKey, Callable<T> loader, boolean refresh) throws Exception {
+        long ttlMillis = region.ttl().toMillis();
+        String lockKey = cacheKey + LOCK_SUFFIX;
+        String lockValue = UUID.randomUUID().toString();
+        boolean locked;
+        try {
+            Entry cached = readRedis(region, cacheKey, refresh);
+            if (cached != null) {
+                countLoad(region, "redis");
+                return cached;
+            }
+            locked = Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, lockValue, lockMillis, TimeUnit.MILLISECONDS));
+            if (!locked) {
+                // 其他实例正在调用第三方服务，等待其写入 Redis
+                long deadline = System.currentTimeMillis() + lockWaitMillis;
+                while (System.currentTimeMillis() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+                    cached = readRedis(region, cacheKey, refresh);
+                    if (cached != null) {
+                        countLoad(region, "redis");
+                        return cached;
+                    }
+                }
+                log.warn("等待其他实例获取第三方服务元数据超时，直接获取:{}", cacheKey);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (Exception e) {
+            log.error("第三方服务元数据读取Redis失败，直接获取:{}:{}", cacheKey, Throwables.getStackTraceAsString(e));
+            locked = false;
+        }
+
+        try {
+            T value = loader.call();
+            countLoad(region, "provider");
+            if (value == null) {
+                return null;
+            }
+            try {
+                stringRedisTemplate.opsForValue().set(cacheKey, encode(value), ttlMillis, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.error("第三方服务元数据写入Redis失败:{}:{}", cacheKey, Throwables.getStackTraceAsString(e));
+            }
+            return newEntry(value, ttlMillis);
+        } finally {
+            if (locked) {
+                try {
+                    stringRedisTemplate.execute(COMPARE_AND_DELETE_SCRIPT, Collections.singletonList(lockKey), lockValue);
+                } catch (Exception e) {
+                    log.error("第三方服务元数据释放Redis锁失败:{}:{}", lockKey, Throwables.getStackTraceAsString(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取 Redis 中的数据，不存在时返回 null；提前刷新时，同样处于刷新窗口内的数据视为不存在
+     */
+    private <T> Entry readRedis(Region<T> region, String cacheKey, boolean refresh) {
+        String value = stringRedisTemplate.opsForValue().get(cacheKey);
+        if (value == null) {
+            return null;
+        }
+        long ttlMillis = region.ttl().toMillis();
+        Long remainingMillis = stringRedisTemplate.getExpire(cacheKey, TimeUnit.MILLISECONDS);
+        if (remainingMillis == null || remainingMillis == -2) {
+            return null;
+        }
+        if (remainingMillis < 0 || remainingMillis > ttlMillis) {
+            // 没有过期时间或由其他配置写入时，按完整有效期计算
+            remainingMillis = ttlMillis;
+        }
+        long elapsedMillis = ttlMillis - remainingMillis;
+        if (refresh && elapsedMillis >= ttlMillis * refreshAheadRatio) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long refreshAt = now + Math.max((long) (ttlMillis * refreshAheadRatio) - elapsedMillis, 0);
+        return new Entry(decode(value, region.type()), refreshAt, now + remainingMillis);
+    }
+
+    private Entry newEntry(Object value, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        return new Entry(value, now + (long) (ttlMillis * refreshAheadRatio), now + ttlMillis);
+    }
+
+    private void countLoad(Region<?> region, String source) {
+        meterRegistry.counter("engine.provider.cache.load", "region", region.name(), "source", source).increment();
+    }
+
+    /**
+     * 字符串原样保存，与已有的 Redis 数据兼容；其他类型保存为 JSON
+     */
+    private static String encode(Object value) {
+        return value instanceof String string ? string : JSON.toJSONString(value);
+    }
+
+    private static Object decode(String value, Type type) {
+        return type == String.class ? value : JSON.parseObject(value, type);
+    }
+
+    /**
+     * 缓存区域
+     *
+     * @param name      区域名称，用于指标
+     * @param keyPrefix Redis key 前缀，后接区域内的 key
+     * @param type      数据类型，用于从 Redis 反序列化
+     * @param ttl       有效期
+     * @param <T>       数据类型
+     */
+    public record Region<T>(String name, String keyPrefix, Type type, Duration ttl) {
+    }
+
+    /**
+     * 本机缓存的数据
+     *
+     * @param value     数据
+     * @param refreshAt 开始提前刷新的时间戳（毫秒）
+     * @param expireAt  过期的时间戳（毫秒）
+     */
+    private record Entry(Object value, long refreshAt, long expireAt) {
+    }
+
+}
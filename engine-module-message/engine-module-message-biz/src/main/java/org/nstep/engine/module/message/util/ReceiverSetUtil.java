@@ -0,0 +1,75 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.core.util.StrUtil;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 接收者集合工具类
+ * <p>
+ * 按渠道选择接收者集合的实现：接收者为手机号的渠道使用 {@link CompactReceiverSet}，
+ * 其他渠道（邮箱、openId、cid 等）仍使用 HashSet。
+ */
+public final class ReceiverSetUtil {
+
+    /**
+     * 一个手机号加一个分隔符的长度，用于预估接收者数量
+     */
+    private static final int PHONE_WITH_SEPARATOR_LENGTH = 12;
+
+    private ReceiverSetUtil() {
+    }
+
+    /**
+     * 渠道的接收者是否为手机号
+     *
+     * @param sendChannel 发送渠道
+     * @return 是否为手机号
+     */
+    public static boolean isPhoneChannel(Integer sendChannel) {
+        return Objects.equals(sendChannel, MessageDataConstants.SMS);
+    }
+
+    /**
+     * 创建渠道对应的空接收者集合
+     *
+     * @param sendChannel  发送渠道
+     * @param expectedSize 预计的接收者数量
+     * @return 接收者集合
+     */
+    public static Set<String> newSet(Integer sendChannel, int expectedSize) {
+        if (isPhoneChannel(sendChannel)) {
+            return new CompactReceiverSet(expectedSize);
+        }
+        return new HashSet<>(Math.max(expectedSize * 4 / 3 + 1, 16));
+    }
+
+    /**
+     * 拆分以 {@link MessageDataConstants#SEPARATOR} 分隔的接收者字符串并去重
+     * <p>
+     * 与 {@link StrUtil#split(CharSequence, CharSequence)} 一致，不去除空白、保留空字符串；
+     * 手机号渠道直接在原字符串上解析，纯数字的接收者不会创建子字符串。
+     *
+     * @param sendChannel 发送渠道
+     * @param receivers   接收者字符串
+     * @return 去重后的接收者集合
+     */
+    public static Set<String> parse(Integer sendChannel, String receivers) {
+        if (!isPhoneChannel(sendChannel)) {
+            return new HashSet<>(StrUtil.split(receivers, MessageDataConstants.SEPARATOR));
+        }
+        CompactReceiverSet set = new CompactReceiverSet(receivers.length() / PHONE_WITH_SEPARATOR_LENGTH + 1);
+        int from = 0;
+        int to;
+        while ((to = receivers.indexOf(MessageDataConstants.SEPARATOR, from)) >= 0) {
+            set.add(receivers, from, to);
+            from = to + MessageDataConstants.SEPARATOR.length();
+        }
+        set.add(receivers, from, receivers.length());
+        return set;
+    }
+
+}
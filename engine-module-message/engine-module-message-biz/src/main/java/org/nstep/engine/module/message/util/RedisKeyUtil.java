@@ -3,17 +3,11 @@ package org.nstep.engine.module.message.util;
 
 import jakarta.annotation.Resource;
 import org.nstep.engine.module.message.constant.MessageDataConstants;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
-import static org.nstep.engine.module.message.constant.MessageDataConstants.APPLICATION_NAME;
-
 /**
  * RedisKeyUtil 工具类用于生成和管理与Redis相关的键值。
  * 主要用于生成消息ID、发送任务ID，以及根据用户和日期生成不同的Redis键。
@@ -22,51 +16,33 @@ import static org.nstep.engine.module.message.constant.MessageDataConstants.APPL
 @Component
 public class RedisKeyUtil {
 
-    // 用来生成当天消息的递增ID key: engineX:daily_msg_id:messageTemplateId
-    private static final String DAILY_MSG_KEY = APPLICATION_NAME + "daily_msg_id:";
+    // 消息ID的号段业务标识
+    private static final String MESSAGE_ID_TAG = "message_id";
 
-    // 用来生成当天消息任务的递增ID key: engineX:daily_task_id
-    private static final String DAILY_TASK_KEY = APPLICATION_NAME + "daily_task_id";
+    // 发送任务ID的号段业务标识
+    private static final String SEND_TASK_ID_TAG = "send_task_id";
 
     @Resource
-    private StringRedisTemplate stringRedisTemplate;
+    private SegmentIdAllocator segmentIdAllocator;
 
     /**
      * 生成消息ID。
-     * 根据消息模板ID生成一个唯一的消息ID，ID由模板ID和当天的递增次数组成。
-     * 如果当天是第一次生成消息ID，会设置该ID的过期时间为当天0点。
+     * 从本地租用的号段中分配，全局唯一，不再每次访问Redis。
      *
-     * @param id 消息模板ID
      * @return 生成的消息ID
      */
-    public long createMessageId(Long id) {
-        String key = DAILY_MSG_KEY + id;
-        Long increment = stringRedisTemplate.opsForValue().increment(key);
-        if (increment != null && 1 == increment.intValue()) {
-            // 设置 ID 为每天 0 点过期
-            stringRedisTemplate.expireAt(key, LocalDate.now().atStartOfDay().plusDays(1).atZone(ZoneId.systemDefault()).toInstant());
-        }
-        // 以消息模板+当天发送次数作为ID
-        String strId = String.valueOf(id) + increment;
-        return Long.parseLong(strId);
+    public long createMessageId() {
+        return segmentIdAllocator.nextId(MESSAGE_ID_TAG);
     }
 
     /**
      * 生成发送任务ID。
-     * 该ID是基于当天递增的ID生成的，并且会在每天0点过期。
+     * 从本地租用的号段中分配，全局唯一，不再每次访问Redis。
      *
      * @return 生成的发送任务ID
      */
     public long createSendTaskId() {
-        // 使用Long类型的对象进行操作，避免unboxing
-        Long increment = stringRedisTemplate.opsForValue().increment(DAILY_TASK_KEY);
-        // 检查increment是否为null，并且值是否等于1
-        if (increment != null && increment == 1L) {
-            // 设置 ID 为每天 0 点过期
-            stringRedisTemplate.expireAt(DAILY_TASK_KEY, LocalDate.now().atStartOfDay().plusDays(1).atZone(ZoneId.systemDefault()).toInstant());
-        }
-        // 返回increment的值，如果increment为null，则返回0
-        return increment != null ? increment : 0L;
+        return segmentIdAllocator.nextId(SEND_TASK_ID_TAG);
     }
 
     /**
@@ -186,4 +162,38 @@ public class RedisKeyUtil {
     public static String getSendTotalOfDay(Long userId, String localDateTime) {
         return MessageDataConstants.SEND_TOTAL + userId + ":" + localDateTime;
     }
+
+    /**
+     * 获取指定发送任务的投递状态RedisKey。
+     * 用于生成发送任务下各条消息投递状态的哈希Key。
+     *
+     * @param sendTaskId 发送任务ID
+     * @return 生成的RedisKey
+     */
+    public static String getSendStatusRedisKey(Long sendTaskId) {
+        return MessageDataConstants.SEND_STATUS + sendTaskId;
+    }
+
+    /**
+     * 获取指定发送任务的发送记录RedisKey。
+     * 用于生成发送任务精简记录的哈希Key。
+     *
+     * @param sendTaskId 发送任务ID
+     * @return 生成的RedisKey
+     */
+    public static String getSendRecordRedisKey(Long sendTaskId) {
+        return MessageDataConstants.SEND_RECORD + sendTaskId;
+    }
+
+    /**
+     * 获取指定用户和指定日期的发送记录索引RedisKey。
+     * 用于生成按用户、日期检索发送任务的有序集合Key。
+     *
+     * @param userId        用户ID
+     * @param localDateTime 指定日期（格式：yyyyMMdd）
+     * @return 生成的RedisKey
+     */
+    public static String getSendRecordIndexRedisKey(Long userId, String localDateTime) {
+        return MessageDataConstants.SEND_RECORD_INDEX + userId + ":" + localDateTime;
+    }
 }
@@ -0,0 +1,211 @@
+package org.nstep.engine.module.message.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
+import static org.nstep.engine.module.message.constant.MessageDataConstants.APPLICATION_NAME;
+
+/**
+ * 号段 ID 分配器
+ * <p>
+ * 每次通过 Redis INCRBY 租用一个号段（engine.idSegment.step 个 ID，默认 1000），号段内的 ID 在本地通过 CAS 分配，
+ * 不再为每个 ID 访问一次 Redis：
+ * <ul>
+ *     <li>当前号段剩余不足 1/5 时异步预取下一个号段，号段用完时通常可以直接切换，不会阻塞分配线程</li>
+ *     <li>号段计数器没有过期时间，只增不减，因此 ID 在多个实例之间、重启前后都不会重复；重启时未用完的号段直接丢弃</li>
+ *     <li>计数器首次使用时以当前毫秒时间戳为起点，避免与旧的按天递增的 ID 冲突</li>
+ * </ul>
+ * 号段之间的 ID 是递增的，但多个实例交替租用号段，因此全局上只保证唯一、不保证连续。
+ * 切换号段时可能同步访问 Redis，因此使用 {@link ReentrantLock} 而不是 synchronized，避免在虚拟线程中固定载体线程。
+ */
+@Component
+@Slf4j
+public class SegmentIdAllocator {
+
+    /**
+     * 号段计数器的 key 前缀 key: engineX:id_segment:业务标识
+     */
+    private static final String SEGMENT_KEY = APPLICATION_NAME + "id_segment:";
+
+    /**
+     * 预取下一个号段的线程池
+     */
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("engine-id-segment-%d").setDaemon(true).build());
+
+    /**
+     * 业务标识到号段缓冲的映射
+     */
+    private final Map<String, SegmentBuffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 每个号段包含的 ID 数量
+     */
+    @Value("${engine.idSegment.step:1000}")
+    private Long step;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 分配一个 ID
+     *
+     * @param tag 业务标识，不同业务标识的 ID 互相独立
+     * @return ID
+     */
+    public long nextId(String tag) {
+        SegmentBuffer buffer = buffers.computeIfAbsent(tag, SegmentBuffer::new);
+        while (true) {
+            Segment segment = buffer.current;
+            if (segment != null) {
+                long id = segment.cursor.getAndIncrement();
+                if (id <= segment.max) {
+                    // 每个 ID 只会被分配一次，因此恰好有一个线程触发预取
+                    if (segment.max - id == step / 5) {
+                        prefetch(buffer);
+                    }
+                    return id;
+                }
+            }
+            buffer.lock.lock();
+            try {
+                // 只有第一个发现号段用完的线程负责切换
+                if (buffer.current == segment) {
+                    buffer.current = takeNext(buffer);
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时停止预取
+     */
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 异步预取下一个号段
+     *
+     * @param buffer 号段缓冲
+     */
+    private void prefetch(SegmentBuffer buffer) {
+        buffer.lock.lock();
+        try {
+            if (buffer.next == null) {
+                buffer.next = CompletableFuture.supplyAsync(() -> lease(buffer.tag), prefetchExecutor);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * 取出预取的号段，没有预取或预取失败时同步租用
+     *
+     * @param buffer 号段缓冲，调用方需持有其锁
+     * @return 新的号段
+     */
+    private Segment takeNext(SegmentBuffer buffer) {
+        CompletableFuture<Segment> next = buffer.next;
+        buffer.next = null;
+        if (next != null) {
+            try {
+                return next.join();
+            } catch (Exception e) {
+                log.error("预取号段失败，改为同步租用:{}", Throwables.getStackTraceAsString(e));
+            }
+        }
+        return lease(buffer.tag);
+    }
+
+    /**
+     * 从 Redis 租用一个号段
+     *
+     * @param tag 业务标识
+     * @return 号段
+     */
+    private Segment lease(String tag) {
+        String key = SEGMENT_KEY + tag;
+        stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+        Long max = stringRedisTemplate.opsForValue().increment(key, step);
+        if (Objects.isNull(max)) {
+            throw exception(ErrorCodeConstants.ID_SEGMENT_LEASE_FAILED, tag);
+        }
+        return new Segment(max - step + 1, max);
+    }
+
+    /**
+     * 号段，ID 范围为 [cursor 初始值, max]
+     */
+    private static class Segment {
+
+        /**
+         * 下一个待分配的 ID
+         */
+        private final AtomicLong cursor;
+
+        /**
+         * 号段内最大的 ID
+         */
+        private final long max;
+
+        private Segment(long start, long max) {
+            this.cursor = new AtomicLong(start);
+            this.max = max;
+        }
+
+    }
+
+    /**
+     * 号段缓冲，包含正在使用的号段和预取的下一个号段
+     */
+    private static class SegmentBuffer {
+
+        /**
+         * 业务标识
+         */
+        private final String tag;
+
+        /**
+         * 缓冲锁，切换号段和预取时持有
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 正在使用的号段
+         */
+        private volatile Segment current;
+
+        /**
+         * 预取的下一个号段，只在持有缓冲锁时读写
+         */
+        private CompletableFuture<Segment> next;
+
+        private SegmentBuffer(String tag) {
+            this.tag = tag;
+        }
+
+    }
+
+}
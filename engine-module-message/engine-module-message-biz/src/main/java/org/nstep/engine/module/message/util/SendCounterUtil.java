@@ -0,0 +1,305 @@
+package org.nstep.engine.module.message.util;
+
+import com.google.common.base.Throwables;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发送统计计数工具类
+ * <p>
+ * 发送链路上的统计（用户发送人数、模板发送人数、渠道发送人数等）只做累加，没有必要每次都加分布式锁去 GET/SET。
+ * 该类先在本地用 {@link LongAdder} 聚合增量，再由定时任务周期性地通过管道批量执行 INCRBY / HINCRBY 写回 Redis：
+ * <ul>
+ *     <li>多个实例各自累加、各自刷新，Redis 端的 INCRBY / HINCRBY 本身是原子的，因此不需要任何分布式锁</li>
+ *     <li>统计数据的延迟不超过一个刷新周期（engine.sendCounter.flushInterval，默认 1000 毫秒）</li>
+ *     <li>应用关闭时会再刷新一次，避免丢失尚未写回的增量</li>
+ *     <li>按天生成的 key 可以指定过期时间，与 INCRBY / HINCRBY 在同一个管道中设置，避免 Redis 中的统计 key 无限增长</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class SendCounterUtil {
+
+    /**
+     * 计数器连续空闲多少个刷新周期后从本地移除，避免按天生成的 key 无限堆积
+     */
+    private static final int IDLE_EVICT_ROUNDS = 60;
+
+    /**
+     * 本地计数器，key 为 Redis key + 哈希 field（字符串类型的计数 field 为 null）
+     */
+    private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 累加字符串类型的计数（最终执行 INCRBY）
+     *
+     * @param key   Redis key
+     * @param delta 增量
+     */
+    public void increment(String key, long delta) {
+        increment(key, null, delta);
+    }
+
+    /**
+     * 累加哈希类型的计数（最终执行 HINCRBY）
+     *
+     * @param key   Redis key
+     * @param field 哈希 field，为 null 时按字符串类型计数
+     * @param delta 增量
+     */
+    public void increment(String key, String field, long delta) {
+        increment(key, field, delta, 0);
+    }
+
+    /**
+     * 累加计数，并在写回时设置 key 的过期时间
+     *
+     * @param key           Redis key
+     * @param field         哈希 field，为 null 时按字符串类型计数
+     * @param delta         增量
+     * @param expireSeconds 过期时间（秒），小于等于 0 时不过期
+     */
+    public void increment(String key, String field, long delta, long expireSeconds) {
+        if (delta == 0) {
+            return;
+        }
+        CounterKey counterKey = new CounterKey(key, field);
+        // 计数器被移除时重新获取，移除过程很短，不会长时间循环
+        while (!counters.computeIfAbsent(counterKey, k -> new Counter(expireSeconds)).tryAdd(delta)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 定时将本地聚合的增量刷新到 Redis
+     */
+    @Scheduled(fixedDelayString = "${engine.sendCounter.flushInterval:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭前刷新剩余的增量
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 将本地聚合的增量通过管道批量写回 Redis
+     * <p>
+     * 计数器只累加不重置，每次刷新写入 “当前总和 - 已刷新值” 的差值，因此并发的累加不会丢失，最多顺延到下一个周期。
+     * 管道中的命令逐条生效，部分命令失败时其余命令已经写入 Redis，因此按每条 INCRBY / HINCRBY 的返回结果推进已刷新值，
+     * 只有失败的增量在下一个周期重试，不会重复累加已写入的增量。连接在命令发出后断开、拿不到返回结果时，按失败处理。
+     */
+    public synchronized void flush() {
+        List<Delta> deltas = collect();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object> results;
+        try {
+            results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                    for (Delta delta : deltas) {
+                        if (delta.key.field == null) {
+                            redisOperations.opsForValue().increment(delta.key.key, delta.value);
+                        } else {
+                            redisOperations.opsForHash().increment(delta.key.key, delta.key.field, delta.value);
+                        }
+                        if (delta.counter.expireSeconds > 0) {
+                            redisOperations.expire(delta.key.key, delta.counter.expireSeconds, TimeUnit.SECONDS);
+                        }
+                    }
+                    return null;
+                }
+
+            });
+        } catch (RedisPipelineException e) {
+            log.error("发送统计刷新到Redis部分失败:{}", Throwables.getStackTraceAsString(e));
+            // 失败的命令在结果中对应位置为异常
+            results = e.getPipelineResult();
+        } catch (Exception e) {
+            log.error("发送统计刷新到Redis异常:{}", Throwables.getStackTraceAsString(e));
+            results = Collections.emptyList();
+        }
+
+        // 结果与命令一一对应：每个增量一条 INCRBY / HINCRBY，设置了过期时间时再跟一条 EXPIRE
+        int index = 0;
+        for (Delta delta : deltas) {
+            Object result = index < results.size() ? results.get(index) : null;
+            index += delta.counter.expireSeconds > 0 ? 2 : 1;
+            if (result != null && !(result instanceof Throwable)) {
+                delta.counter.flushed += delta.value;
+            } else if (delta.counter.retired) {
+                // 已移除的计数器不会再被收集，将其增量放回新的计数器，下一个周期重试
+                increment(delta.key.key, delta.key.field, delta.value, delta.counter.expireSeconds);
+            }
+        }
+    }
+
+    /**
+     * 收集计数器的待刷新增量，并移除长期空闲的计数器
+     *
+     * @return 待刷新的增量列表
+     */
+    private List<Delta> collect() {
+        List<Delta> deltas = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            long value = counter.adder.sum() - counter.flushed;
+            if (value != 0) {
+                counter.idleRounds = 0;
+                deltas.add(new Delta(key, value, counter));
+                return;
+            }
+            if (++counter.idleRounds < IDLE_EVICT_ROUNDS) {
+                return;
+            }
+            // 先停止计数器接收累加并等待正在进行的累加完成，之后的累加会写入新的计数器
+            counter.retire();
+            counters.remove(key, counter);
+            long remain = counter.adder.sum() - counter.flushed;
+            if (remain != 0) {
+                deltas.add(new Delta(key, remain, counter));
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * 计数器的 key
+     */
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class CounterKey {
+
+        /**
+         * Redis key
+         */
+        private final String key;
+
+        /**
+         * 哈希 field，字符串类型的计数为 null
+         */
+        private final String field;
+
+    }
+
+    /**
+     * 本地计数器
+     */
+    private static class Counter {
+
+        /**
+         * 累计值，只增不减
+         */
+        private final LongAdder adder = new LongAdder();
+
+        /**
+         * 写回时设置的过期时间（秒），小于等于 0 时不过期
+         */
+        private final long expireSeconds;
+
+        /**
+         * 正在累加的线程数
+         */
+        private final AtomicInteger writers = new AtomicInteger();
+
+        /**
+         * 是否已被移除，移除后不再接收累加
+         */
+        private volatile boolean retired;
+
+        /**
+         * 已写回 Redis 的值，仅在 {@link #flush()} 中读写
+         */
+        private long flushed;
+
+        /**
+         * 连续空闲的刷新周期数
+         */
+        private int idleRounds;
+
+        private Counter(long expireSeconds) {
+            this.expireSeconds = expireSeconds;
+        }
+
+        /**
+         * 累加，计数器已被移除时返回 false，调用方需要重新获取计数器
+         */
+        private boolean tryAdd(long delta) {
+            writers.incrementAndGet();
+            try {
+                if (retired) {
+                    return false;
+                }
+                adder.add(delta);
+                return true;
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        /**
+         * 停止接收累加，返回时所有已开始的累加都已完成
+         */
+        private void retire() {
+            retired = true;
+            while (writers.get() > 0) {
+                Thread.onSpinWait();
+            }
+        }
+
+    }
+
+    /**
+     * 一次待刷新的增量
+     */
+    @AllArgsConstructor
+    private static class Delta {
+
+        /**
+         * 计数器的 key
+         */
+        private final CounterKey key;
+
+        /**
+         * 增量
+         */
+        private final long value;
+
+        /**
+         * 对应的本地计数器
+         */
+        private final Counter counter;
+
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.map.MapUtil;
+import jakarta.annotation.Resource;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.SendRecord;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 发送记录工具类
+ * <p>
+ * 每个发送任务（sendTaskId）在 Redis 中保存一条精简的发送记录，替代原先按用户、按天追加完整 SendContent JSON 的列表：
+ * <ul>
+ *     <li>记录为一个只有十余个短字段的哈希，字段值均为数字，Redis 会以 listpack 紧凑编码存储，不再包含模板内容和接收人列表</li>
+ *     <li>按用户、按天维护一个有序集合索引（member 为 sendTaskId，score 为发送时间戳），按天查询不再需要反序列化整个列表</li>
+ *     <li>按 sendTaskId 查询单条记录的复杂度为 O(1)，回执确认时原子地累加成功、失败计数</li>
+ *     <li>记录和索引都设置过期时间（engine.sendRecord.expireDays，默认 7 天）</li>
+ * </ul>
+ */
+@Component
+public class SendRecordUtil {
+
+    private static final String FIELD_SENDER = "u";
+    private static final String FIELD_TEMPLATE_ID = "t";
+    private static final String FIELD_TEMPLATE_VERSION = "v";
+    private static final String FIELD_SEND_CHANNEL = "c";
+    private static final String FIELD_MESSAGE_COUNT = "m";
+    private static final String FIELD_RECEIVER_COUNT = "r";
+    private static final String FIELD_STATUS = "s";
+    private static final String FIELD_SUCCESS_COUNT = "ok";
+    private static final String FIELD_FAIL_COUNT = "ng";
+    private static final String FIELD_SEND_TIME = "st";
+    private static final String FIELD_CONFIRM_TIME = "ct";
+
+    /**
+     * 回执计数脚本，记录已过期时不再重新创建
+     * <p>
+     * KEYS[1]：发送记录 key；ARGV[1]：计数字段；ARGV[2]：确认时间字段；ARGV[3]：当前时间戳；
+     * ARGV[4]：全部成功时的任务状态；ARGV[5]：存在失败时的任务状态
+     * <p>
+     * 全部消息确认完成时，在同一个脚本中将任务状态更新为成功（失败数为 0）或失败，归档时读到的即为最终状态。
+     * 返回值：本次回执使任务全部确认完成时返回 1，否则返回 0，记录不存在返回 -1
+     */
+    private static final RedisScript<Long> CONFIRM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3]) " +
+                    "redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+                    "local counts = redis.call('HMGET', KEYS[1], '" + FIELD_SUCCESS_COUNT + "', '" + FIELD_FAIL_COUNT + "', '" + FIELD_MESSAGE_COUNT + "') " +
+                    "if tonumber(counts[1]) + tonumber(counts[2]) == tonumber(counts[3]) then " +
+                    "if tonumber(counts[2]) == 0 then redis.call('HSET', KEYS[1], '" + FIELD_STATUS + "', ARGV[4]) " +
+                    "else redis.call('HSET', KEYS[1], '" + FIELD_STATUS + "', ARGV[5]) end " +
+                    "return 1 end " +
+                    "return 0", Long.class);
+
+    /**
+     * 发送记录及索引的保留天数
+     */
+    @Value("${engine.sendRecord.expireDays:7}")
+    private Long expireDays;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 保存发送任务的发送记录，并加入发送方当天的索引
+     *
+     * @param sendContent 发送上下文
+     * @param status      任务状态，取值见 {@link MessageDataConstants#MSG_SENDING} 等
+     * @return 保存的发送记录，发送上下文不完整时返回 null
+     */
+    public SendRecord save(SendContent sendContent, Integer status) {
+        if (Objects.isNull(sendContent.getSendTaskId()) || CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return null;
+        }
+        TemplateDO messageTemplate = sendContent.getSendTasks().get(0).getMessageTemplate();
+        int receiverCount = 0;
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            receiverCount += sendTask.getReceivers().size();
+        }
+        long sendTime = Objects.isNull(sendContent.getSendTime()) ? System.currentTimeMillis()
+                : sendContent.getSendTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        Map<String, String> fields = new HashMap<>(16);
+        fields.put(FIELD_SENDER, String.valueOf(sendContent.getSender()));
+        fields.put(FIELD_TEMPLATE_ID, String.valueOf(messageTemplate.getId()));
+        Long templateVersion = TemplateRefUtil.versionOf(messageTemplate);
+        if (Objects.nonNull(templateVersion)) {
+            fields.put(FIELD_TEMPLATE_VERSION, String.valueOf(templateVersion));
+        }
+        fields.put(FIELD_SEND_CHANNEL, String.valueOf(messageTemplate.getSendChannel()));
+        fields.put(FIELD_MESSAGE_COUNT, String.valueOf(sendContent.getSendTasks().size()));
+        fields.put(FIELD_RECEIVER_COUNT, String.valueOf(receiverCount));
+        fields.put(FIELD_STATUS, String.valueOf(status));
+        fields.put(FIELD_SUCCESS_COUNT, "0");
+        fields.put(FIELD_FAIL_COUNT, "0");
+        fields.put(FIELD_SEND_TIME, String.valueOf(sendTime));
+
+        String recordKey = RedisKeyUtil.getSendRecordRedisKey(sendContent.getSendTaskId());
+        String indexKey = RedisKeyUtil.getSendRecordIndexRedisKey(sendContent.getSender(), RedisKeyUtil.getCurrentDay());
+        Duration expire = Duration.ofDays(expireDays);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForHash().putAll(recordKey, fields);
+                redisOperations.expire(recordKey, expire);
+                redisOperations.opsForZSet().add(indexKey, String.valueOf(sendContent.getSendTaskId()), sendTime);
+                redisOperations.expire(indexKey, expire);
+                return null;
+            }
+
+        });
+        return toSendRecord(sendContent.getSendTaskId(), new HashMap<>(fields));
+    }
+
+    /**
+     * 更新发送记录的任务状态
+     *
+     * @param sendRecord 发送记录，为 null 时忽略
+     * @param status     任务状态，取值见 {@link MessageDataConstants#MSG_SENDING} 等
+     */
+    public void updateStatus(SendRecord sendRecord, Integer status) {
+        if (Objects.isNull(sendRecord)) {
+            return;
+        }
+        stringRedisTemplate.opsForHash().put(RedisKeyUtil.getSendRecordRedisKey(sendRecord.getSendTaskId()),
+                FIELD_STATUS, String.valueOf(status));
+        sendRecord.setStatus(status);
+    }
+
+    /**
+     * 回执确认后累加发送记录的成功或失败计数，全部确认完成时同时更新任务状态
+     *
+     * @param sendTaskId 发送任务 ID
+     * @param success    是否发送成功
+     * @return 本次回执是否使任务下的全部消息确认完成，完成后发送记录可以归档
+     */
+    public boolean confirm(Long sendTaskId, boolean success) {
+        Long completed = stringRedisTemplate.execute(CONFIRM_SCRIPT,
+                Collections.singletonList(RedisKeyUtil.getSendRecordRedisKey(sendTaskId)),
+                success ? FIELD_SUCCESS_COUNT : FIELD_FAIL_COUNT, FIELD_CONFIRM_TIME,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(MessageDataConstants.MSG_SUCCESS), String.valueOf(MessageDataConstants.MSG_FAIL));
+        return Objects.equals(completed, 1L);
+    }
+
+    /**
+     * 查询单个发送任务的发送记录
+     *
+     * @param sendTaskId 发送任务 ID
+     * @return 发送记录，不存在或已过期时返回 null
+     */
+    public SendRecord get(Long sendTaskId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(RedisKeyUtil.getSendRecordRedisKey(sendTaskId));
+        return toSendRecord(sendTaskId, fields);
+    }
+
+    /**
+     * 查询发送方某一天的全部发送记录，按发送时间升序
+     *
+     * @param userId 发送方
+     * @param day    日期（格式：yyyyMMdd）
+     * @return 发送记录列表，已过期的记录会被跳过
+     */
+    public List<SendRecord> listByDay(Long userId, String day) {
+        Set<String> sendTaskIds = stringRedisTemplate.opsForZSet()
+                .range(RedisKeyUtil.getSendRecordIndexRedisKey(userId, day), 0, -1);
+        if (CollUtil.isEmpty(sendTaskIds)) {
+            return Collections.emptyList();
+        }
+        List<String> ids = new ArrayList<>(sendTaskIds);
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                ids.forEach(id -> redisOperations.opsForHash().entries(RedisKeyUtil.getSendRecordRedisKey(Long.valueOf(id))));
+                return null;
+            }
+
+        });
+        List<SendRecord> records = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            @SuppressWarnings("unchecked")
+            SendRecord record = toSendRecord(Long.valueOf(ids.get(i)), (Map<Object, Object>) results.get(i));
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 将 Redis 哈希转换为发送记录
+     *
+     * @param sendTaskId 发送任务 ID
+     * @param fields     哈希字段
+     * @return 发送记录，哈希为空时返回 null
+     */
+    private static SendRecord toSendRecord(Long sendTaskId, Map<Object, Object> fields) {
+        if (MapUtil.isEmpty(fields)) {
+            return null;
+        }
+        return SendRecord.builder()
+                .sendTaskId(sendTaskId)
+                .sender(MapUtil.getLong(fields, FIELD_SENDER))
+                .templateId(MapUtil.getLong(fields, FIELD_TEMPLATE_ID))
+                .templateVersion(MapUtil.getLong(fields, FIELD_TEMPLATE_VERSION))
+                .sendChannel(MapUtil.getInt(fields, FIELD_SEND_CHANNEL))
+                .messageCount(MapUtil.getInt(fields, FIELD_MESSAGE_COUNT))
+                .receiverCount(MapUtil.getInt(fields, FIELD_RECEIVER_COUNT))
+                .status(MapUtil.getInt(fields, FIELD_STATUS))
+                .successCount(MapUtil.getInt(fields, FIELD_SUCCESS_COUNT))
+                .failCount(MapUtil.getInt(fields, FIELD_FAIL_COUNT))
+                .sendTime(MapUtil.getLong(fields, FIELD_SEND_TIME))
+                .confirmTime(MapUtil.getLong(fields, FIELD_CONFIRM_TIME))
+                .build();
+    }
+}
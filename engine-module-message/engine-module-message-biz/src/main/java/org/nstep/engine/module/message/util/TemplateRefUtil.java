@@ -0,0 +1,277 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.core.collection.CollUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.framework.tenant.core.aop.TenantIgnore;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.service.template.TemplateService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 模板引用工具类
+ * <p>
+ * 投递到 MQ 的发送任务不再各自携带一份完整的模板：
+ * <ul>
+ *     <li>生产端按接收者数量（engine.sendMq.shardSize）将发送任务拆分为多条 MQ 消息，
+ *     每个发送任务只携带模板 ID、模板版本和替换占位符后的消息内容（与模板相同时不携带）</li>
+ *     <li>消费端从本地模板缓存取出模板，版本不一致时刷新缓存后重新获取，再套上发送任务的消息内容还原出发送用的模板</li>
+ * </ul>
+ * 发送后模板被修改时，刷新后的版本仍然与发送时不一致，记录 (模板 ID, 发送时版本) 已解析到的版本，
+ * 同一版本的后续消息直接使用本地缓存的模板，不再逐条刷新缓存。
+ * 仍携带完整模板的旧消息直接使用其中的模板，升级期间新旧消息可以混合消费。
+ */
+@Component
+@Slf4j
+public class TemplateRefUtil {
+
+    /**
+     * 每条 MQ 消息包含的接收者数量上限，单个发送任务不会被拆开
+     */
+    @Value("${engine.sendMq.shardSize:1000}")
+    private Integer shardSize;
+
+    /**
+     * 已解析版本的最大数量，与模板缓存相同
+     */
+    @Value("${engine.templateCache.maximumSize:1000}")
+    private Long resolvedVersionMaximumSize;
+
+    /**
+     * 已解析版本的过期时间（秒），与模板缓存相同
+     */
+    @Value("${engine.templateCache.expireSeconds:300}")
+    private Long resolvedVersionExpireSeconds;
+
+    @Resource
+    private TemplateService templateService;
+
+    /**
+     * 与本地缓存版本不一致的发送时版本，已经刷新过缓存并解析到的模板版本
+     */
+    private Cache<TemplateVersionKey, Optional<Long>> resolvedVersions;
+
+    /**
+     * 初始化已解析版本的缓存
+     */
+    @PostConstruct
+    public void init() {
+        resolvedVersions = CacheBuilder.newBuilder()
+                .maximumSize(resolvedVersionMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(resolvedVersionExpireSeconds))
+                .build();
+    }
+
+    /**
+     * 生产端：将发送上下文拆分为多条用于投递的发送上下文，发送任务改为引用模板
+     * <p>
+     * 原发送上下文不做修改。
+     *
+     * @param sendContent 发送上下文
+     * @return 用于投递的发送上下文，按发送任务的顺序拆分
+     */
+    public List<SendContent> shard(SendContent sendContent) {
+        List<SendContent> shards = new ArrayList<>();
+        List<TemplateSendTask> shardTasks = new ArrayList<>();
+        int shardReceivers = 0;
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            int receivers = sendTask.getReceivers() == null ? 0 : sendTask.getReceivers().size();
+            if (!shardTasks.isEmpty() && shardReceivers + receivers > shardSize) {
+                shards.add(copyContent(sendContent, shardTasks));
+                shardTasks = new ArrayList<>();
+                shardReceivers = 0;
+            }
+            shardTasks.add(toReference(sendTask));
+            shardReceivers += receivers;
+        }
+        if (!shardTasks.isEmpty() || shards.isEmpty()) {
+            shards.add(copyContent(sendContent, shardTasks));
+        }
+        return shards;
+    }
+
+    /**
+     * 消费端：为引用模板的发送任务还原模板
+     *
+     * @param sendContent 从 MQ 消息解析的发送上下文
+     */
+    @TenantIgnore
+    public void rehydrate(SendContent sendContent) {
+        if (CollUtil.isEmpty(sendContent.getSendTasks())) {
+            return;
+        }
+        // 同一条消息中的发送任务通常引用同一个模板，只取一次
+        Map<Long, TemplateDO> templates = new HashMap<>(4);
+        for (TemplateSendTask sendTask : sendContent.getSendTasks()) {
+            if (Objects.nonNull(sendTask.getMessageTemplate()) || Objects.isNull(sendTask.getTemplateId())) {
+                continue;
+            }
+            TemplateDO template = templates.computeIfAbsent(sendTask.getTemplateId(),
+                    id -> getTemplate(id, sendTask.getTemplateVersion()));
+            TemplateDO messageTemplate = copyTemplate(template,
+                    Objects.nonNull(sendTask.getMsgContent()) ? sendTask.getMsgContent() : template.getMsgContent());
+            messageTemplate.setMsgStatus(MessageDataConstants.MSG_SENDING);
+            sendTask.setMessageTemplate(messageTemplate);
+            sendTask.setMsgContent(null);
+        }
+    }
+
+    /**
+     * 复制模板并替换消息内容
+     * <p>
+     * 模板的字段都是不可变类型，直接复制引用即可，代替反射深复制。
+     *
+     * @param source     源模板
+     * @param msgContent 新模板的消息内容
+     * @return 新模板
+     */
+    public static TemplateDO copyTemplate(TemplateDO source, String msgContent) {
+        TemplateDO template = TemplateDO.builder()
+                .id(source.getId())
+                .name(source.getName())
+                .msgStatus(source.getMsgStatus())
+                .pushType(source.getPushType())
+                .cronTaskId(source.getCronTaskId())
+                .cronCrowdPath(source.getCronCrowdPath())
+                .expectPushTime(source.getExpectPushTime())
+                .sendChannel(source.getSendChannel())
+                .msgContent(msgContent)
+                .sendAccount(source.getSendAccount())
+                .msgType(source.getMsgType())
+                .auditStatus(source.getAuditStatus())
+                .currentId(source.getCurrentId())
+                .build();
+        template.setCreateTime(source.getCreateTime());
+        template.setUpdateTime(source.getUpdateTime());
+        template.setCreator(source.getCreator());
+        template.setUpdater(source.getUpdater());
+        template.setDeleted(source.getDeleted());
+        return template;
+    }
+
+    /**
+     * 获取模板版本
+     *
+     * @param template 模板
+     * @return 模板的更新时间戳（毫秒），没有更新时间时返回 null
+     */
+    public static Long versionOf(TemplateDO template) {
+        if (Objects.isNull(template.getUpdateTime())) {
+            return null;
+        }
+        return template.getUpdateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 从本地缓存获取指定版本的模板，版本不一致时刷新缓存后重新获取
+     *
+     * @param templateId 模板 ID
+     * @param version    发送时的模板版本
+     * @return 模板
+     */
+    private TemplateDO getTemplate(Long templateId, Long version) {
+        TemplateDO template = templateService.getTemplateFromCache(templateId);
+        if (Objects.nonNull(template) && Objects.equals(versionOf(template), version)) {
+            return template;
+        }
+        TemplateVersionKey key = new TemplateVersionKey(templateId, version);
+        Optional<Long> resolved = resolvedVersions.getIfPresent(key);
+        if (Objects.nonNull(template) && Objects.nonNull(resolved)
+                && Objects.equals(versionOf(template), resolved.orElse(null))) {
+            // 该版本已经刷新过，本地缓存仍是当时解析到的模板
+            return template;
+        }
+        // 本地缓存的模板比发送时旧（刷新广播尚未到达）或已被修改，刷新后重新获取
+        templateService.clearTemplateCache(templateId);
+        template = templateService.getTemplateFromCache(templateId);
+        if (Objects.isNull(template)) {
+            throw new IllegalStateException("消息模板不存在:" + templateId);
+        }
+        if (!Objects.equals(versionOf(template), version)) {
+            // 发送后模板被修改，消息内容仍使用发送时替换的内容，其余字段使用最新的模板
+            resolvedVersions.put(key, Optional.ofNullable(versionOf(template)));
+            log.warn("消息模板:{} 的版本与发送时不一致，发送时:{}，当前:{}", templateId, version, versionOf(template));
+        }
+        return template;
+    }
+
+    /**
+     * 生产端：生成引用模板的发送任务副本
+     *
+     * @param sendTask 发送任务
+     * @return 不携带模板的发送任务副本
+     */
+    private TemplateSendTask toReference(TemplateSendTask sendTask) {
+        TemplateDO messageTemplate = sendTask.getMessageTemplate();
+        TemplateDO cachedTemplate = templateService.getTemplateFromCache(messageTemplate.getId());
+        // 与模板中的消息内容相同（没有占位符的发送）时不携带，消费端直接使用模板中的内容
+        String msgContent = Objects.nonNull(cachedTemplate)
+                && Objects.equals(cachedTemplate.getMsgContent(), messageTemplate.getMsgContent())
+                ? null : messageTemplate.getMsgContent();
+        return TemplateSendTask.builder()
+                .messageId(sendTask.getMessageId())
+                .receivers(sendTask.getReceivers())
+                .templateId(messageTemplate.getId())
+                .templateVersion(versionOf(messageTemplate))
+                .msgContent(msgContent)
+                .sendMessageKey(sendTask.getSendMessageKey())
+                .sendTaskId(sendTask.getSendTaskId())
+                .sendStartTime(sendTask.getSendStartTime())
+                .sendEndTime(sendTask.getSendEndTime())
+                .takeTime(sendTask.getTakeTime())
+                .build();
+    }
+
+    /**
+     * 复制发送上下文并替换发送任务
+     */
+    private static SendContent copyContent(SendContent sendContent, List<TemplateSendTask> sendTasks) {
+        return SendContent.builder()
+                .sendTaskId(sendContent.getSendTaskId())
+                .sendCode(sendContent.getSendCode())
+                .sendChannel(sendContent.getSendChannel())
+                .sendTasks(sendTasks)
+                .sendTime(sendContent.getSendTime())
+                .sendLogs(sendContent.getSendLogs())
+                .sender(sendContent.getSender())
+                .build();
+    }
+
+    /**
+     * 模板 ID + 发送时的模板版本
+     */
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class TemplateVersionKey {
+
+        /**
+         * 模板 ID
+         */
+        private final Long templateId;
+
+        /**
+         * 发送时的模板版本
+         */
+        private final Long version;
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.nstep.engine.module.message.util.dingding;
+
+import lombok.Getter;
+import org.nstep.engine.module.message.dto.dingding.DingDingRobotConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 钉钉群自定义机器人客户端
+ * <p>
+ * 与渠道账号配置一同缓存在 {@link org.nstep.engine.module.message.util.AccountUtil} 中，账号变更时随配置一起失效。
+ * 钉钉要求加签的时间戳与服务器时间相差不超过 1 小时，因此加签后的 Webhook 地址会在 {@link #RESIGN_INTERVAL_MILLIS} 后重新加签，
+ * 而不是每次发送都重新计算签名。请求通过共享的 {@link org.nstep.engine.module.message.util.http.ChannelHttpClient} 发出。
+ */
+public class DingDingRobotClient {
+
+    /**
+     * 重新加签的间隔（毫秒）
+     */
+    private static final long RESIGN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * 钉钉群自定义机器人账号配置
+     */
+    @Getter
+    private final DingDingRobotConfig config;
+
+    /**
+     * 加签后的 Webhook 地址
+     */
+    private volatile String signedUrl;
+
+    /**
+     * 加签时间
+     */
+    private volatile long signTime;
+
+    public DingDingRobotClient(DingDingRobotConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 获取加签后的 Webhook 地址，签名即将过期时重新加签
+     *
+     * @return 加签后的 Webhook 地址
+     */
+    public String getSignedUrl() {
+        if (signedUrl == null || System.currentTimeMillis() - signTime > RESIGN_INTERVAL_MILLIS) {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (signedUrl == null || now - signTime > RESIGN_INTERVAL_MILLIS) {
+                    signedUrl = DingDingRobotUtils.createSignUrl(config, now);
+                    signTime = now;
+                }
+            }
+        }
+        return signedUrl;
+    }
+
+}
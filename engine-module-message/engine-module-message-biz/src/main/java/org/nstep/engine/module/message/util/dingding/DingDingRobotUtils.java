@@ -4,10 +4,7 @@ import cn.hutool.core.collection.CollUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.nacos.shaded.com.google.common.base.Throwables;
-import com.dingtalk.api.DefaultDingTalkClient;
-import com.dingtalk.api.DingTalkClient;
-import com.dingtalk.api.request.OapiRobotSendRequest;
-import com.dingtalk.api.response.OapiRobotSendResponse;
+import jakarta.annotation.Resource;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
@@ -18,6 +15,7 @@ import org.nstep.engine.module.message.dto.dingding.DingDingRobotParam;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.DingDingRobotContentModel;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
@@ -40,11 +38,13 @@ public class DingDingRobotUtils {
 
     private static final String regex = "^1[3456789]\\d{9}$"; // 手机号正则表达式
 
-    public void send(DingDingRobotConfig config, TemplateSendTask TemplateSendTask) {
-        DingTalkClient client = new DefaultDingTalkClient(createSignUrl(config));
-        OapiRobotSendRequest request = new OapiRobotSendRequest();
+    @Resource
+    private ChannelHttpClient channelHttpClient; // 渠道HTTP客户端，复用到钉钉的连接
+
+    public void send(DingDingRobotClient robotClient, TemplateSendTask TemplateSendTask) {
+        DingDingRobotParam robotParam = new DingDingRobotParam();
         DingDingRobotContentModel contentModel = JSON.parseObject(TemplateSendTask.getMessageTemplate().getMsgContent(), DingDingRobotContentModel.class);
-        OapiRobotSendRequest.At at = new OapiRobotSendRequest.At();
+        DingDingRobotParam.At at = new DingDingRobotParam.At();
         //判断是否需要@群成员
         if (DDingDingSendMessageTypeConstants.SEND_ALL.equals(CollUtil.getFirst(TemplateSendTask.getReceivers()))) {
             //@所有人
@@ -60,42 +60,38 @@ public class DingDingRobotUtils {
         JSONObject jsonObject = JSON.parseObject(contentModel.getContent());
         if (DDingDingSendMessageTypeConstants.TEXT_NAME.equals(contentModel.getSendType())) {
             //文本类型
-            DingDingRobotParam.Text text = jsonObject.toJavaObject(DingDingRobotParam.Text.class);
-            request.setText(JSON.toJSONString(text));
-            request.setMsgtype("text");
+            robotParam.setText(jsonObject.toJavaObject(DingDingRobotParam.Text.class));
+            robotParam.setMsgtype("text");
         }
         if (DDingDingSendMessageTypeConstants.LINK_NAME.equals(contentModel.getSendType())) {
             //link类型
-            DingDingRobotParam.Link link = jsonObject.toJavaObject(DingDingRobotParam.Link.class);
-            request.setLink(JSON.toJSONString(link));
-            request.setMsgtype("link");
+            robotParam.setLink(jsonObject.toJavaObject(DingDingRobotParam.Link.class));
+            robotParam.setMsgtype("link");
         }
         if (DDingDingSendMessageTypeConstants.MARKDOWN_NAME.equals(contentModel.getSendType())) {
             //markdown类型
-            DingDingRobotParam.Markdown markdown = jsonObject.toJavaObject(DingDingRobotParam.Markdown.class);
-            request.setMarkdown(JSON.toJSONString(markdown));
-            request.setMsgtype("markdown");
+            robotParam.setMarkdown(jsonObject.toJavaObject(DingDingRobotParam.Markdown.class));
+            robotParam.setMsgtype("markdown");
         }
         if (DDingDingSendMessageTypeConstants.ACTION_CARD_NAME.equals(contentModel.getSendType())) {
             //actionCard类型
-            DingDingRobotParam.ActionCard actionCard = jsonObject.toJavaObject(DingDingRobotParam.ActionCard.class);
-            request.setActionCard(JSON.toJSONString(actionCard));
-            request.setMsgtype("actionCard");
+            robotParam.setActionCard(jsonObject.toJavaObject(DingDingRobotParam.ActionCard.class));
+            robotParam.setMsgtype("actionCard");
         }
         if (DDingDingSendMessageTypeConstants.FEED_CARD_NAME.equals(contentModel.getSendType())) {
             //feedCard类型
-            DingDingRobotParam.FeedCard feedCard = jsonObject.toJavaObject(DingDingRobotParam.FeedCard.class);
-            request.setFeedCard(JSON.toJSONString(feedCard));
-            request.setMsgtype("feedCard");
+            robotParam.setFeedCard(jsonObject.toJavaObject(DingDingRobotParam.FeedCard.class));
+            robotParam.setMsgtype("feedCard");
         }
-        request.setAt(at);
-        OapiRobotSendResponse response;
+        robotParam.setAt(at);
         try {
-            response = client.execute(request);
-            if (!response.isSuccess()) {
+            String result = channelHttpClient.postJson(MessageDataConstants.DING_DING_ROBOT, robotClient.getSignedUrl(),
+                    JSON.toJSONString(robotParam));
+            JSONObject response = JSON.parseObject(result);
+            if (response == null || response.getIntValue("errcode") != 0) {
                 throw exception(
                         ErrorCodeConstants.DINGTALK_ROBOT_SEND_EXCEPTION,
-                        response.getErrmsg()
+                        response == null ? result : response.getString("errmsg")
                 );
             }
         } catch (Exception e) {
@@ -110,9 +106,15 @@ public class DingDingRobotUtils {
     /**
      * 生成加签后的Webhook地址
      */
-    @SneakyThrows
     public static String createSignUrl(DingDingRobotConfig config) {
-        long timestamp = System.currentTimeMillis();
+        return createSignUrl(config, System.currentTimeMillis());
+    }
+
+    /**
+     * 使用指定时间戳生成加签后的Webhook地址
+     */
+    @SneakyThrows
+    public static String createSignUrl(DingDingRobotConfig config, long timestamp) {
         String secret = config.getSecret();
         String stringToSign = timestamp + "\n" + secret;
         Mac mac = Mac.getInstance("HmacSHA256");
@@ -1,16 +1,17 @@
 package org.nstep.engine.module.message.util.getui;
 
 import cn.hutool.crypto.SecureUtil;
-import cn.hutool.http.ContentType;
-import cn.hutool.http.Header;
-import cn.hutool.http.HttpRequest;
 import com.alibaba.fastjson.JSON;
 import com.google.common.base.Throwables;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.constant.SendChanelUrlConstant;
 import org.nstep.engine.module.message.dto.push.getui.GeTuiConfig;
 import org.nstep.engine.module.message.dto.push.getui.GeTuiTokenResultDTO;
 import org.nstep.engine.module.message.dto.push.getui.QueryTokenParamDTO;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
+import org.springframework.stereotype.Component;
 
 
 /**
@@ -19,8 +20,12 @@ import org.nstep.engine.module.message.dto.push.getui.QueryTokenParamDTO;
  * 通过个推的API接口获取Token，并进行签名校验。
  */
 @Slf4j
+@Component
 public class AccessTokenUtils {
 
+    @Resource
+    private ChannelHttpClient channelHttpClient;  // 渠道HTTP客户端，复用到个推的连接
+
     /**
      * 获取个推用户Token
      * 该方法通过调用个推API接口，使用appKey、masterSecret和时间戳生成签名，获取个推的Token。
@@ -29,7 +34,7 @@ public class AccessTokenUtils {
      * @param account GeTuiConfig 对象，包含个推服务的配置信息，如appKey和masterSecret
      * @return GeTuiTokenResultDTO.DataDTO 返回包含Token信息的DataDTO对象
      */
-    public static GeTuiTokenResultDTO.DataDTO getGeTuiToken(GeTuiConfig account) {
+    public GeTuiTokenResultDTO.DataDTO getGeTuiToken(GeTuiConfig account) {
         try {
             // 构建个推Token请求的URL
             String url = SendChanelUrlConstant.GE_TUI_BASE_URL + account.getAppId() + SendChanelUrlConstant.GE_TUI_AUTH;
@@ -46,11 +51,7 @@ public class AccessTokenUtils {
                     .build();
 
             // 发送POST请求获取Token
-            String body = HttpRequest.post(url)
-                    .header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                    .body(JSON.toJSONString(paramDTO))  // 将请求参数转为JSON字符串
-                    .timeout(20000)  // 设置超时时间
-                    .execute().body();  // 执行请求并获取响应体
+            String body = channelHttpClient.postJson(MessageDataConstants.PUSH, url, JSON.toJSONString(paramDTO));
 
             // 解析响应体为GeTuiTokenResultDTO对象
             GeTuiTokenResultDTO result = JSON.parseObject(body, GeTuiTokenResultDTO.class);
@@ -0,0 +1,143 @@
+package org.nstep.engine.module.message.util.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.config.ChannelHttpProperties;
+import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.nstep.engine.framework.common.exception.util.ServiceExceptionUtil.exception;
+
+/**
+ * 渠道 HTTP 客户端
+ * <p>
+ * 个推、钉钉、飞书、企业微信等基于 HTTP 的渠道共用一个 JDK {@link HttpClient}：
+ * <ul>
+ *     <li>按服务商主机复用长连接，HTTPS 下通过 ALPN 协商 HTTP/2，服务商不支持时自动回退到 HTTP/1.1</li>
+ *     <li>读取超时和重试次数按渠道配置，见 {@link ChannelHttpProperties}</li>
+ *     <li>按服务商上报请求耗时 engine.channel.http（按响应状态区分成功、失败）和进行中的请求数 engine.channel.http.inflight</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class ChannelHttpClient {
+
+    /**
+     * 服务商主机到进行中请求数的映射
+     */
+    private final Map<String, AtomicInteger> inFlights = new ConcurrentHashMap<>();
+
+    @Resource
+    private ChannelHttpProperties channelHttpProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private HttpClient httpClient;
+
+    /**
+     * 创建共享的 HTTP 客户端
+     */
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(channelHttpProperties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * 发送 JSON 格式的 POST 请求
+     *
+     * @param channel 渠道编号，用于选择超时、重试配置和标记指标
+     * @param url     请求地址
+     * @param body    JSON 请求体
+     * @return 响应体，无论响应状态码是什么都原样返回，由调用方解析服务商的错误码
+     */
+    public String postJson(Integer channel, String url, String body) {
+        return postJson(channel, url, body, Collections.emptyMap());
+    }
+
+    /**
+     * 发送 JSON 格式的 POST 请求
+     *
+     * @param channel 渠道编号，用于选择超时、重试配置和标记指标
+     * @param url     请求地址
+     * @param body    JSON 请求体
+     * @param headers 额外的请求头
+     * @return 响应体，无论响应状态码是什么都原样返回，由调用方解析服务商的错误码
+     */
+    public String postJson(Integer channel, String url, String body, Map<String, String> headers) {
+        ChannelHttpProperties.Channel config = channelHttpProperties.resolve(channel);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(config.getReadTimeout())
+                .header("Content-Type", "application/json;charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        headers.forEach(builder::header);
+        HttpRequest request = builder.build();
+
+        String provider = request.uri().getHost();
+        AtomicInteger inFlight = inFlights.computeIfAbsent(provider,
+                host -> meterRegistry.gauge("engine.channel.http.inflight", Tags.of("provider", host), new AtomicInteger()));
+        String outcome = "error";
+        long startTime = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            HttpResponse<String> response = send(request, config.getMaxRetries());
+            outcome = response.statusCode() / 100 + "xx";
+            return response.body();
+        } finally {
+            inFlight.decrementAndGet();
+            Timer.builder("engine.channel.http")
+                    .tags("provider", provider, "channel", String.valueOf(channel), "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 发送请求，连接失败时重试
+     *
+     * @param request    请求
+     * @param maxRetries 最大重试次数
+     * @return 响应
+     */
+    private HttpResponse<String> send(HttpRequest request, int maxRetries) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            } catch (ConnectException | HttpConnectTimeoutException e) {
+                // 请求还没有发出，可以安全地重试
+                if (attempt >= maxRetries) {
+                    throw exception(ErrorCodeConstants.CHANNEL_HTTP_REQUEST_FAILED, request.uri().getHost() + " " + e.getMessage());
+                }
+                log.warn("渠道请求连接失败，第{}次重试:{} {}", attempt + 1, request.uri().getHost(), e.getMessage());
+            } catch (IOException e) {
+                throw exception(ErrorCodeConstants.CHANNEL_HTTP_REQUEST_FAILED, request.uri().getHost() + " " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw exception(ErrorCodeConstants.CHANNEL_HTTP_REQUEST_FAILED, request.uri().getHost() + " 请求被中断");
+            }
+        }
+    }
+
+}
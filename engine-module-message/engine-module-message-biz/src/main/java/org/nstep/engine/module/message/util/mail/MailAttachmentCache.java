@@ -0,0 +1,229 @@
+package org.nstep.engine.module.message.util.mail;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 邮件附件缓存
+ * <p>
+ * 原先每封邮件都重新下载附件。该类将远程附件缓存在本地磁盘（engine.cacheFilePath/mail-attachment）：
+ * <ul>
+ *     <li>文件名由 URL 摘要、内容摘要和原始文件名组成，URL 相同但内容变化时写入新文件，不会覆盖正在发送的旧文件</li>
+ *     <li>缓存 engine.mail.attachment.expireMinutes 分钟后重新下载，以感知远程文件的变更</li>
+ *     <li>缓存总大小不超过 engine.mail.attachment.maxBytes，超出时淘汰最久未使用的附件；
+ *     单个附件超过 engine.mail.attachment.maxFileBytes 时不发送</li>
+ *     <li>被淘汰的附件延迟删除，避免删除正在发送的邮件引用的文件</li>
+ * </ul>
+ * 本地文件路径不缓存，直接使用。
+ */
+@Component
+@Slf4j
+public class MailAttachmentCache {
+
+    /**
+     * 附件缓存目录
+     */
+    private static final String CACHE_DIR = "mail-attachment";
+
+    /**
+     * 被淘汰附件的删除延迟（分钟）
+     */
+    private static final long DELETE_DELAY_MINUTES = 5;
+
+    @Value("${engine.cacheFilePath}")
+    private String path;
+
+    /**
+     * 缓存总大小上限（字节）
+     */
+    @Value("${engine.mail.attachment.maxBytes:536870912}")
+    private Long maxBytes;
+
+    /**
+     * 单个附件大小上限（字节）
+     */
+    @Value("${engine.mail.attachment.maxFileBytes:26214400}")
+    private Long maxFileBytes;
+
+    /**
+     * 缓存时间（分钟），到期后重新下载
+     */
+    @Value("${engine.mail.attachment.expireMinutes:60}")
+    private Long expireMinutes;
+
+    /**
+     * 下载超时时间（毫秒）
+     */
+    @Value("${engine.mail.attachment.timeoutMillis:30000}")
+    private Integer timeoutMillis;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private File cacheDir;
+
+    /**
+     * URL 到本地附件的缓存
+     */
+    private Cache<String, Attachment> cache;
+
+    /**
+     * 延迟删除被淘汰附件的线程
+     */
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    public void init() {
+        cacheDir = new File(path, CACHE_DIR);
+        // 上次运行留下的附件没有缓存索引，启动时清空
+        FileUtil.del(cacheDir);
+        FileUtil.mkdir(cacheDir);
+        cleaner = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("engine-mail-attachment-%d").setDaemon(true).build());
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String url, Attachment attachment) -> (int) Math.min(attachment.size(), Integer.MAX_VALUE))
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+        meterRegistry.gauge("engine.mail.attachment.hitRate", cache, c -> c.stats().hitRate());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * 获取附件，下载失败或超过大小限制的附件不返回
+     *
+     * @param urls 远程链接或本地文件路径
+     * @return 附件
+     */
+    public List<Attachment> get(List<String> urls) {
+        List<Attachment> attachments = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            try {
+                if (!isRemote(url)) {
+                    File file = new File(url);
+                    if (!file.exists()) {
+                        throw new IllegalArgumentException("Local file does not exist: " + url);
+                    }
+                    attachments.add(new Attachment(file, file.getName(), file.length()));
+                    continue;
+                }
+                Attachment attachment = cache.get(url, () -> download(url));
+                if (!attachment.file().exists()) {
+                    // 文件被外部删除，重新下载
+                    cache.invalidate(url);
+                    attachment = cache.get(url, () -> download(url));
+                }
+                attachments.add(attachment);
+            } catch (Exception e) {
+                log.error("邮件附件获取失败:{}:{}", url, Throwables.getStackTraceAsString(e));
+            }
+        }
+        return attachments;
+    }
+
+    /**
+     * 下载附件，边下载边计算内容摘要，超过大小限制时放弃
+     */
+    private Attachment download(String url) throws Exception {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        File temp = File.createTempFile("download", ".tmp", cacheDir);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        long size = 0;
+        try (InputStream in = new DigestInputStream(connection.getInputStream(), digest);
+             OutputStream out = Files.newOutputStream(temp.toPath())) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileBytes) {
+                    throw new IOException("附件超过大小限制:" + maxFileBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            FileUtil.del(temp);
+            throw e;
+        }
+
+        String name = new File(new URL(url).getPath()).getName();
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        File file = new File(cacheDir, DigestUtil.sha256Hex(url).substring(0, 16) + "_" + contentHash.substring(0, 16)
+                + (StrUtil.isBlank(name) ? "" : "_" + name));
+        if (file.exists()) {
+            // 内容没有变化，沿用已有文件
+            FileUtil.del(temp);
+        } else {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new Attachment(file, name, size);
+    }
+
+    /**
+     * 附件被淘汰或过期后延迟删除文件；内容没有变化时新缓存沿用同一个文件，此时不删除
+     */
+    private void onRemoval(RemovalNotification<String, Attachment> notification) {
+        Attachment removed = notification.getValue();
+        if (removed == null) {
+            return;
+        }
+        cleaner.schedule(() -> {
+            Attachment current = cache.getIfPresent(notification.getKey());
+            if (current == null || !current.file().equals(removed.file())) {
+                FileUtil.del(removed.file());
+            }
+        }, DELETE_DELAY_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private static boolean isRemote(String url) {
+        return url.startsWith("http://") || url.startsWith("https://");
+    }
+
+    /**
+     * 附件
+     *
+     * @param file 本地文件
+     * @param name 发送时使用的文件名
+     * @param size 文件大小（字节）
+     */
+    public record Attachment(File file, String name, long size) {
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.nstep.engine.module.message.util.mail;
+
+import cn.hutool.extra.mail.MailAccount;
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * SMTP 连接池
+ * <p>
+ * 原先每封邮件都通过 MailUtil.send 新建 SMTP 连接，完成 TLS 握手、登录后发送一封邮件再断开。
+ * 该类按邮件服务器（地址、端口、账号、密码和连接参数）缓存已登录的 {@link Transport}，同一发送账号的邮件复用连接：
+ * <ul>
+ *     <li>每个发送账号最多 engine.mail.pool.maxPerAccount 个连接，用尽时等待 engine.mail.pool.maxWaitMillis</li>
+ *     <li>借出时通过 {@link Transport#isConnected()}（SMTP NOOP）检查连接，服务器已断开的连接丢弃后重新建立</li>
+ *     <li>空闲超过 engine.mail.pool.idleSeconds 的连接由后台线程关闭，避免被服务器超时断开的连接长期占用</li>
+ *     <li>发送时出现 {@link MessagingException} 的连接直接销毁，不再归还</li>
+ * </ul>
+ * 账号配置变更后 {@link MailAccount} 的连接参数随之变化，使用新的连接；旧连接空闲后被回收。
+ */
+@Component
+@Slf4j
+public class MailTransportPool {
+
+    /**
+     * 是否复用连接，关闭后每封邮件新建连接，发送后关闭
+     */
+    @Value("${engine.mail.pool.enabled:true}")
+    private Boolean enabled;
+
+    /**
+     * 每个发送账号的最大连接数
+     */
+    @Value("${engine.mail.pool.maxPerAccount:8}")
+    private Integer maxPerAccount;
+
+    /**
+     * 连接用尽时的最长等待时间（毫秒）
+     */
+    @Value("${engine.mail.pool.maxWaitMillis:10000}")
+    private Long maxWaitMillis;
+
+    /**
+     * 连接的最长空闲时间（秒），超过后关闭
+     */
+    @Value("${engine.mail.pool.idleSeconds:60}")
+    private Long idleSeconds;
+
+    /**
+     * 空闲连接检查的间隔（秒）
+     */
+    @Value("${engine.mail.pool.evictionIntervalSeconds:30}")
+    private Long evictionIntervalSeconds;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private GenericKeyedObjectPool<MailServer, MailConnection> pool;
+
+    private Counter createdCounter;
+
+    @PostConstruct
+    public void init() {
+        createdCounter = meterRegistry.counter("engine.mail.transport.created");
+        GenericKeyedObjectPoolConfig<MailConnection> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(maxPerAccount);
+        config.setMaxIdlePerKey(maxPerAccount);
+        config.setMinIdlePerKey(0);
+        config.setMaxWait(Duration.ofMillis(maxWaitMillis));
+        config.setTestOnBorrow(true);
+        config.setTestWhileIdle(true);
+        config.setMinEvictableIdleDuration(Duration.ofSeconds(idleSeconds));
+        config.setTimeBetweenEvictionRuns(Duration.ofSeconds(evictionIntervalSeconds));
+        config.setNumTestsPerEvictionRun(-1);
+        config.setJmxEnabled(false);
+        pool = new GenericKeyedObjectPool<>(new MailConnectionFactory(), config);
+    }
+
+    /**
+     * 应用关闭时关闭所有连接
+     */
+    @PreDestroy
+    public void destroy() {
+        pool.close();
+    }
+
+    /**
+     * 借出发送账号的连接执行回调，执行后归还；回调抛出 {@link MessagingException} 时销毁该连接
+     *
+     * @param mailAccount 已补全默认值的邮件账号（{@link org.nstep.engine.module.message.util.AccountUtil} 加载时已补全），
+     *                    账号可能被多个线程共享，这里只读不改
+     * @param callback    使用连接的回调
+     * @param <T>         回调的返回值类型
+     * @return 回调的返回值
+     * @throws Exception 建立连接或回调失败
+     */
+    public <T> T execute(MailAccount mailAccount, MailCallback<T> callback) throws Exception {
+        MailServer server = MailServer.of(mailAccount);
+        if (!enabled) {
+            MailConnection connection = connect(server);
+            try {
+                return callback.doWithConnection(connection);
+            } finally {
+                close(connection);
+            }
+        }
+
+        MailConnection connection = pool.borrowObject(server);
+        boolean broken = false;
+        try {
+            return callback.doWithConnection(connection);
+        } catch (MessagingException e) {
+            broken = true;
+            throw e;
+        } finally {
+            if (broken) {
+                pool.invalidateObject(server, connection);
+            } else {
+                pool.returnObject(server, connection);
+            }
+        }
+    }
+
+    /**
+     * 建立连接并登录
+     */
+    private MailConnection connect(MailServer server) throws MessagingException {
+        Session session = Session.getInstance(server.properties());
+        Transport transport = session.getTransport();
+        transport.connect(server.host(), server.port(), server.user(), server.pass());
+        createdCounter.increment();
+        return new MailConnection(session, transport);
+    }
+
+    private static void close(MailConnection connection) {
+        try {
+            connection.getTransport().close();
+        } catch (Exception e) {
+            log.warn("关闭SMTP连接异常:{}", Throwables.getStackTraceAsString(e));
+        }
+    }
+
+    /**
+     * 使用连接的回调
+     */
+    @FunctionalInterface
+    public interface MailCallback<T> {
+
+        /**
+         * 使用连接
+         *
+         * @param connection 已登录的连接
+         * @return 返回值
+         * @throws Exception 发送失败
+         */
+        T doWithConnection(MailConnection connection) throws Exception;
+
+    }
+
+    /**
+     * 已登录的 SMTP 连接及其会话，会话用于创建邮件
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MailConnection {
+
+        private final Session session;
+
+        private final Transport transport;
+
+    }
+
+    /**
+     * 邮件服务器，连接池的 key，连接参数相同的发送账号共用连接
+     */
+    private record MailServer(String host, Integer port, String user, String pass, Properties properties) {
+
+        private static MailServer of(MailAccount mailAccount) {
+            return new MailServer(mailAccount.getHost(), mailAccount.getPort(), mailAccount.getUser(),
+                    mailAccount.getPass(), mailAccount.getSmtpProps());
+        }
+
+        /**
+         * 不输出密码
+         */
+        @Override
+        public String toString() {
+            return user + "@" + host + ":" + port;
+        }
+
+    }
+
+    /**
+     * 连接工厂
+     */
+    private class MailConnectionFactory extends BaseKeyedPooledObjectFactory<MailServer, MailConnection> {
+
+        @Override
+        public MailConnection create(MailServer server) throws Exception {
+            return connect(server);
+        }
+
+        @Override
+        public PooledObject<MailConnection> wrap(MailConnection connection) {
+            return new DefaultPooledObject<>(connection);
+        }
+
+        @Override
+        public boolean validateObject(MailServer server, PooledObject<MailConnection> pooled) {
+            return pooled.getObject().getTransport().isConnected();
+        }
+
+        @Override
+        public void destroyObject(MailServer server, PooledObject<MailConnection> pooled) {
+            close(pooled.getObject());
+        }
+
+    }
+
+}
@@ -1,12 +1,11 @@
 package org.nstep.engine.module.message.util.tencent;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.http.ContentType;
-import cn.hutool.http.Header;
-import cn.hutool.http.HttpRequest;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
 import org.nstep.engine.module.message.constant.WeChatConstants;
 import org.nstep.engine.module.message.dto.message.TemplateSendTask;
 import org.nstep.engine.module.message.dto.model.EnterpriseWeChatRobotContentModel;
@@ -14,6 +13,8 @@ import org.nstep.engine.module.message.dto.weChat.EnterpriseWeChatRobotConfig;
 import org.nstep.engine.module.message.dto.weChat.EnterpriseWeChatRobotParam;
 import org.nstep.engine.module.message.dto.weChat.EnterpriseWeChatRootResult;
 import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.util.http.ChannelHttpClient;
+import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.regex.Pattern;
@@ -27,11 +28,15 @@ import static org.nstep.engine.framework.common.exception.util.ServiceExceptionU
  * 根据消息内容构建请求参数，并通过HTTP请求将消息发送到企业微信机器人。
  */
 @Slf4j
+@Component
 public class EnterpriseWeChatRobotUtils {
 
     // 手机号正则表达式，用于判断接收者是否为手机号
     private static final String regex = "^1[3456789]\\d{9}$";
 
+    @Resource
+    private ChannelHttpClient channelHttpClient;  // 渠道HTTP客户端，复用到企业微信的连接
+
     /**
      * 发送企业微信机器人消息
      * 该方法根据给定的配置信息和消息任务信息，构建消息参数并发送给企业微信机器人。
@@ -40,18 +45,15 @@ public class EnterpriseWeChatRobotUtils {
      * @param sendTaskInfo 消息发送任务信息，包含消息模板和接收者等内容
      * @return 返回企业微信机器人接口的响应结果
      */
-    public static String send(EnterpriseWeChatRobotConfig config, TemplateSendTask sendTaskInfo) {
+    public String send(EnterpriseWeChatRobotConfig config, TemplateSendTask sendTaskInfo) {
         // 解析消息模板内容
         EnterpriseWeChatRobotContentModel contentModel = JSON.parseObject(sendTaskInfo.getMessageTemplate().getMsgContent(), EnterpriseWeChatRobotContentModel.class);
         // 构建企业微信机器人消息参数
         EnterpriseWeChatRobotParam robotParam = buildEnterpriseWeChatRobotParam(sendTaskInfo, contentModel);
 
         // 发送POST请求到企业微信机器人Webhook
-        String result = HttpRequest.post(config.getWebhook())
-                .header(Header.CONTENT_TYPE.getValue(), ContentType.JSON.getValue())
-                .body(JSON.toJSONString(robotParam))  // 将请求参数转为JSON字符串
-                .timeout(2000)  // 设置超时时间为2秒
-                .execute().body();  // 执行请求并获取响应体
+        String result = channelHttpClient.postJson(MessageDataConstants.ENTERPRISE_WECHAT_ROBOT, config.getWebhook(),
+                JSON.toJSONString(robotParam));
 
         // 解析响应结果
         EnterpriseWeChatRootResult rootResult = JSON.parseObject(result, EnterpriseWeChatRootResult.class);
@@ -20,7 +20,44 @@ import static org.nstep.engine.framework.common.exception.util.ServiceExceptionU
 @Slf4j
 public class TencentCloudSmsSendUtils {
 
+    /**
+     * 单次调用的手机号上限
+     */
+    public static final int MAX_PHONES = 200;
+
+    /**
+     * 发送成功的状态码
+     */
+    public static final String OK = "Ok";
+
+    /**
+     * 发送短信，任一手机号发送失败时抛出异常
+     *
+     * @param config 账号配置
+     * @param params 模板参数
+     * @param phones 手机号（E.164 格式），最多 {@link #MAX_PHONES} 个
+     * @return 响应的 JSON
+     */
     public static String send(TencentSmsConfig config, String[] params, String[] phones) {
+        SendSmsResponse res = sendBatch(config, params, phones);
+        for (SendStatus sendStatus : res.getSendStatusSet()) {
+            if (!OK.equals(sendStatus.getCode())) {
+                log.error("存在短信发送异常:{}", sendStatus.getMessage());
+                throw exception(ErrorCodeConstants.SMS_SEND_EXCEPTION, sendStatus.getMessage());
+            }
+        }
+        return SendSmsResponse.toJsonString(res);
+    }
+
+    /**
+     * 发送短信，返回每个手机号的发送状态，由调用方处理部分手机号发送失败的情况
+     *
+     * @param config 账号配置
+     * @param params 模板参数
+     * @param phones 手机号（E.164 格式），最多 {@link #MAX_PHONES} 个
+     * @return 腾讯云的响应，SendStatusSet 中为每个手机号的发送状态
+     */
+    public static SendSmsResponse sendBatch(TencentSmsConfig config, String[] params, String[] phones) {
         try {
             /* 必要步骤：
              * 实例化一个认证对象，入参需要传入腾讯云账户密钥对secretId，secretKey。
@@ -85,16 +122,7 @@ public class TencentCloudSmsSendUtils {
 
             /* 通过 client 对象调用 SendSms 方法发起请求。注意请求方法名与请求对象是对应的
              * 返回的 res 是一个 SendSmsResponse 类的实例，与请求对象对应 */
-            SendSmsResponse res = client.SendSms(req);
-            for (SendStatus sendStatus : res.getSendStatusSet()) {
-                if (!sendStatus.getCode().equals("Ok")) {
-                    log.error("存在短信发送异常:{}", sendStatus.getMessage());
-                    throw exception(ErrorCodeConstants.SMS_SEND_EXCEPTION, sendStatus.getMessage());
-
-                }
-            }
-
-            return SendSmsResponse.toJsonString(res);
+            return client.SendSms(req);
 
         } catch (Exception e) {
             log.error("腾讯云短信发送异常:{}", Throwables.getStackTraceAsString(e));
@@ -0,0 +1,203 @@
+package org.nstep.engine.module.message.handler.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.framework.common.exception.ServiceException;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.nstep.engine.module.message.handler.executor.ChannelExecutorRegistry;
+import org.nstep.engine.module.message.util.DataUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SmsBatcher} 的单元测试，覆盖接收者所在调用的下标范围和每个发送任务的确认结果
+ */
+class SmsBatcherTest {
+
+    private static final String BATCH_KEY = "tencent:1:content";
+
+    private final DataUtil dataUtil = mock(DataUtil.class);
+
+    private final ExecutorService smsExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * 每次调用服务商的接收者
+     */
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private SmsBatcher smsBatcher;
+
+    @BeforeEach
+    void setUp() {
+        ChannelExecutorRegistry channelExecutorRegistry = mock(ChannelExecutorRegistry.class);
+        when(channelExecutorRegistry.getExecutor(MessageDataConstants.SMS)).thenReturn(smsExecutor);
+
+        smsBatcher = new SmsBatcher();
+        ReflectionTestUtils.setField(smsBatcher, "enabled", true);
+        ReflectionTestUtils.setField(smsBatcher, "lingerMillis", 200L);
+        ReflectionTestUtils.setField(smsBatcher, "dataUtil", dataUtil);
+        ReflectionTestUtils.setField(smsBatcher, "channelExecutorRegistry", channelExecutorRegistry);
+        ReflectionTestUtils.setField(smsBatcher, "meterRegistry", new SimpleMeterRegistry());
+        smsBatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        smsBatcher.destroy();
+        smsExecutor.shutdownNow();
+    }
+
+    @Test
+    void rangesFollowReceiverOffsets() {
+        SmsBatcher.Batch batch = new SmsBatcher.Batch(3, receivers -> null);
+        batch.add(batchTask(1L, "a1", "a2"));
+        batch.add(batchTask(2L));
+        batch.add(batchTask(3L, "c1", "c2", "c3", "c4"));
+        batch.add(batchTask(4L, "d1", "d2", "d3"));
+
+        List<int[]> ranges = SmsBatcher.ranges(batch);
+
+        // 调用：[a1 a2 c1] [c2 c3 c4] [d1 d2 d3]
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new int[]{0, 0}, ranges.get(0));
+        assertTrue(ranges.get(1)[1] < ranges.get(1)[0]);
+        assertArrayEquals(new int[]{0, 1}, ranges.get(2));
+        assertArrayEquals(new int[]{2, 2}, ranges.get(3));
+    }
+
+    @Test
+    void lingerMergesTasksIntoOneCall() {
+        CompletableFuture<Void> first = smsBatcher.submit(BATCH_KEY, sendTask(1L, "13800000001"), 100, this::succeed);
+        CompletableFuture<Void> second = smsBatcher.submit(BATCH_KEY, sendTask(2L, "13800000002", "13800000003"), 100, this::succeed);
+
+        CompletableFuture.allOf(first, second).orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertEquals(List.of(List.of("13800000001", "13800000002", "13800000003")), calls);
+        verify(dataUtil).confirmSend(eq("receipt-1"), eq(1L), anyString(), anyLong(), any());
+        verify(dataUtil).confirmSend(eq("receipt-1"), eq(2L), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void fullBatchIsSentInSubmittingThread() {
+        // 等待时间足够长，批次只会因数量达到上限被发送
+        ReflectionTestUtils.setField(smsBatcher, "lingerMillis", 60_000L);
+        CompletableFuture<Void> first = smsBatcher.submit(BATCH_KEY, sendTask(1L, "13800000001"), 2, this::succeed);
+        assertFalse(first.isDone());
+
+        CompletableFuture<Void> second = smsBatcher.submit(BATCH_KEY, sendTask(2L, "13800000002"), 2, this::succeed);
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    void taskSpanningCallsFailsWhenAnyCallFails() {
+        ReflectionTestUtils.setField(smsBatcher, "enabled", false);
+        // 第二次调用异常，接收者跨两次调用的发送任务确认为失败
+        SmsBatcher.BatchSender sender = receivers -> {
+            if (calls.size() == 1) {
+                calls.add(receivers);
+                throw new IllegalStateException("服务商超时");
+            }
+            return succeed(receivers);
+        };
+
+        smsBatcher.submit(BATCH_KEY, sendTask(1L, "13800000001", "13800000002", "13800000003"), 2, sender).join();
+
+        assertEquals(2, calls.size());
+        verify(dataUtil).confirmSend(isNull(), eq(1L), anyString(), anyLong(), any(IllegalStateException.class));
+    }
+
+    @Test
+    void receiverFailuresOnlyFailTheirOwnTask() {
+        SmsBatcher.BatchSender sender = receivers -> {
+            calls.add(receivers);
+            return new SmsBatcher.BatchResult("receipt-1", Map.of("13800000002", "invalid"));
+        };
+
+        CompletableFuture<Void> first = smsBatcher.submit(BATCH_KEY, sendTask(1L, "13800000001"), 100, sender);
+        CompletableFuture<Void> second = smsBatcher.submit(BATCH_KEY, sendTask(2L, "13800000002"), 100, sender);
+        CompletableFuture.allOf(first, second).orTimeout(5, TimeUnit.SECONDS).join();
+
+        verify(dataUtil).confirmSend(eq("receipt-1"), eq(1L), anyString(), anyLong(), any());
+        verify(dataUtil).confirmSend(isNull(), eq(2L), anyString(), anyLong(),
+                argThat(e -> hasCode(e, ErrorCodeConstants.SMS_SEND_EXCEPTION.getCode())));
+    }
+
+    @Test
+    void taskWithoutReceiversIsConfirmedAsFailure() {
+        CompletableFuture<Void> empty = smsBatcher.submit(BATCH_KEY, sendTask(1L), 100, this::succeed);
+        CompletableFuture<Void> other = smsBatcher.submit(BATCH_KEY, sendTask(2L, "13800000001"), 100, this::succeed);
+        CompletableFuture.allOf(empty, other).orTimeout(5, TimeUnit.SECONDS).join();
+
+        verify(dataUtil).confirmSend(isNull(), eq(1L), anyString(), anyLong(),
+                argThat(e -> hasCode(e, ErrorCodeConstants.MESSAGE_TEMPLATE_ID_RECEIVER_EMPTY.getCode())));
+        verify(dataUtil).confirmSend(eq("receipt-1"), eq(2L), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void futureCompletesWhenConfirmFails() {
+        ReflectionTestUtils.setField(smsBatcher, "enabled", false);
+        doThrow(new IllegalStateException("Redis 不可用")).when(dataUtil).confirmSend(any(), anyLong(), anyString(), anyLong(), any());
+
+        CompletableFuture<Void> future = smsBatcher.submit(BATCH_KEY, sendTask(1L, "13800000001"), 100, this::succeed);
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+    }
+
+    private SmsBatcher.BatchResult succeed(List<String> receivers) {
+        calls.add(receivers);
+        return SmsBatcher.BatchResult.of("receipt-" + calls.size());
+    }
+
+    private static boolean hasCode(Exception e, Integer code) {
+        return e instanceof ServiceException serviceException && code.equals(serviceException.getCode());
+    }
+
+    private static SmsBatcher.BatchTask batchTask(Long messageId, String... receivers) {
+        return new SmsBatcher.BatchTask(sendTask(messageId, receivers), Arrays.asList(receivers));
+    }
+
+    private static TemplateSendTask sendTask(Long messageId, String... receivers) {
+        return TemplateSendTask.builder()
+                .messageId(messageId)
+                .receivers(new LinkedHashSet<>(Arrays.asList(receivers)))
+                .messageTemplate(TemplateDO.builder().id(1L).build())
+                .sendMessageKey("engineX:send_message:1")
+                .sendTaskId(100L)
+                .build();
+    }
+
+}
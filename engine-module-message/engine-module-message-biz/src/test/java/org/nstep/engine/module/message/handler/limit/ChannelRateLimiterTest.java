@@ -0,0 +1,138 @@
+package org.nstep.engine.module.message.handler.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.module.message.config.ChannelConfig;
+import org.nstep.engine.module.message.config.ChannelRateLimitProperties;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * {@link ChannelRateLimiter} 的单元测试，令牌桶使用给定的时间预约，结果与时钟无关
+ */
+class ChannelRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final Integer ACCOUNT = 12;
+
+    private final ChannelRateLimitProperties properties = new ChannelRateLimitProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ChannelRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new ChannelRateLimiter();
+        ReflectionTestUtils.setField(limiter, "channelRateLimitProperties", properties);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        limiter.init();
+    }
+
+    @Test
+    void burstThenReservations() {
+        // 容量 5，每秒 10 个令牌
+        long now = System.nanoTime() + SECOND;
+        ChannelRateLimiter.TokenBucket bucket = new ChannelRateLimiter.TokenBucket(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(now));
+        }
+        // 令牌用完后按获取顺序预约，每个令牌间隔 100 毫秒
+        assertEquals(100 * MILLIS, bucket.reserve(now), MILLIS);
+        assertEquals(200 * MILLIS, bucket.reserve(now), MILLIS);
+        assertEquals(300 * MILLIS, bucket.reserve(now), MILLIS);
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        long now = System.nanoTime() + SECOND;
+        ChannelRateLimiter.TokenBucket bucket = new ChannelRateLimiter.TokenBucket(10, 2);
+        bucket.reserve(now);
+        bucket.reserve(now);
+        bucket.reserve(now);
+
+        // 已预约的令牌在 100 毫秒后补齐，之后继续补充但不超过容量
+        assertEquals(0, bucket.reserve(now + 200 * MILLIS));
+        long later = now + 10 * SECOND;
+        assertEquals(0, bucket.reserve(later));
+        assertEquals(0, bucket.reserve(later));
+        assertEquals(100 * MILLIS, bucket.reserve(later), MILLIS);
+    }
+
+    @Test
+    void sustainedRateEqualsConfiguredRate() {
+        long now = System.nanoTime() + SECOND;
+        ChannelRateLimiter.TokenBucket bucket = new ChannelRateLimiter.TokenBucket(100, 1);
+
+        long wait = 0;
+        for (int i = 0; i < 1000; i++) {
+            wait = bucket.reserve(now);
+        }
+        // 1000 个令牌：第 1 个立即获取，之后每 10 毫秒放行一个
+        assertEquals(999 * 10 * MILLIS, wait, MILLIS);
+    }
+
+    @Test
+    void acquireWaitsForToken() {
+        properties.setAccounts(Map.of(ACCOUNT, new ChannelRateLimitProperties.Limit(20.0, 1)));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            limiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 每秒 20 个令牌，第 1 个立即获取，其余 10 个共等待约 500 毫秒
+        assertTrue(elapsedMillis >= 450, "elapsed:" + elapsedMillis);
+        assertTrue(shapedCount(MessageDataConstants.SMS) > 0);
+    }
+
+    @Test
+    void unlimitedAndDisabledDoNotWait() {
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+        }
+        properties.setAccounts(Map.of(ACCOUNT, new ChannelRateLimitProperties.Limit(1.0, 1)));
+        properties.setEnabled(false);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+        }
+
+        assertEquals(0, shapedCount(MessageDataConstants.SMS));
+    }
+
+    @Test
+    void clusterFallsBackToLocalWhenRedisFails() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Redis 不可用");
+        });
+        ReflectionTestUtils.setField(limiter, "stringRedisTemplate", stringRedisTemplate);
+        properties.setMode(ChannelRateLimitProperties.MODE_CLUSTER);
+        properties.setAccounts(Map.of(ACCOUNT, new ChannelRateLimitProperties.Limit(2.0, 1)));
+
+        limiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+        limiter.acquire(MessageDataConstants.SMS, ACCOUNT);
+
+        assertEquals(1, shapedCount(MessageDataConstants.SMS));
+    }
+
+    private double shapedCount(Integer channel) {
+        String channelName = ChannelConfig.CHANNEL_NAMES.get(ChannelConfig.CHANNELS.indexOf(channel));
+        return meterRegistry.counter("engine.channel.rateLimit.shaped", "channel", channelName).count();
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.nstep.engine.module.message.rabbitmq.codec;
+
+import com.alibaba.fastjson.JSON;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link SendContentCodecRegistry} 的单元测试，各编解码器在压缩和不压缩时编码后都能解码回原内容
+ */
+class SendContentCodecRegistryTest {
+
+    @ParameterizedTest
+    @CsvSource({"json,0", "json,1", "smile,0", "smile,1"})
+    void roundTrip(String codecName, int compressThreshold) throws Exception {
+        SendContentCodecRegistry registry = registry(codecName, compressThreshold);
+        SendContent sendContent = sendContent(3);
+        MessageProperties properties = new MessageProperties();
+
+        byte[] body = registry.encode(sendContent, properties);
+
+        assertEquals(codecName, properties.getHeader(SendContentCodecRegistry.HEADER_CODEC));
+        if (compressThreshold > 0) {
+            assertEquals(SendContentCodecRegistry.ENCODING_LZ4, properties.getContentEncoding());
+        } else {
+            assertNull(properties.getContentEncoding());
+        }
+        assertEquals(sendContent, registry.decode(new Message(body, properties)));
+    }
+
+    @Test
+    void largeContentIsCompressed() throws Exception {
+        SendContent sendContent = sendContent(5000);
+        MessageProperties uncompressedProperties = new MessageProperties();
+        MessageProperties compressedProperties = new MessageProperties();
+
+        byte[] uncompressed = registry(SmileSendContentCodec.NAME, 0).encode(sendContent, uncompressedProperties);
+        byte[] compressed = registry(SmileSendContentCodec.NAME, 8192).encode(sendContent, compressedProperties);
+
+        assertEquals(SendContentCodecRegistry.ENCODING_LZ4, compressedProperties.getContentEncoding());
+        assertTrue(compressed.length < uncompressed.length, compressed.length + " >= " + uncompressed.length);
+        assertEquals(sendContent, registry(SmileSendContentCodec.NAME, 8192).decode(new Message(compressed, compressedProperties)));
+    }
+
+    @Test
+    void messageWithoutCodecHeaderIsDecodedAsJson() throws Exception {
+        SendContent sendContent = sendContent(3);
+        Message message = new Message(JSON.toJSONBytes(sendContent), new MessageProperties());
+
+        assertEquals(sendContent, registry(SmileSendContentCodec.NAME, 8192).decode(message));
+    }
+
+    @Test
+    void unknownCodecIsRejected() {
+        assertThrows(IllegalStateException.class, () -> registry("protobuf", 8192));
+
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader(SendContentCodecRegistry.HEADER_CODEC, "protobuf");
+        Message message = new Message(new byte[0], properties);
+        assertThrows(IllegalArgumentException.class, () -> registry(SmileSendContentCodec.NAME, 8192).decode(message));
+    }
+
+    private static SendContentCodecRegistry registry(String codecName, int compressThreshold) {
+        SendContentCodecRegistry registry = new SendContentCodecRegistry();
+        ReflectionTestUtils.setField(registry, "codecName", codecName);
+        ReflectionTestUtils.setField(registry, "compressThreshold", compressThreshold);
+        ReflectionTestUtils.setField(registry, "codecList", List.of(new JsonSendContentCodec(), new SmileSendContentCodec()));
+        ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+        registry.init();
+        return registry;
+    }
+
+    private static SendContent sendContent(int receiversPerTask) {
+        List<TemplateSendTask> sendTasks = new ArrayList<>();
+        for (long messageId = 1; messageId <= 2; messageId++) {
+            Set<String> receivers = new LinkedHashSet<>();
+            for (int i = 0; i < receiversPerTask; i++) {
+                receivers.add(String.valueOf(13_800_000_000L + messageId * 100_000 + i));
+            }
+            sendTasks.add(TemplateSendTask.builder()
+                    .messageId(messageId)
+                    .receivers(receivers)
+                    .templateId(10L)
+                    .templateVersion(3L)
+                    .msgContent("{\"name\":\"张三\",\"order\":\"20240101001\"}")
+                    .sendMessageKey("engineX:send_message:100")
+                    .sendTaskId(100L)
+                    .build());
+        }
+        return SendContent.builder()
+                .sendTaskId(100L)
+                .sendCode("sms")
+                .sendChannel(MessageDataConstants.SMS)
+                .sendTasks(sendTasks)
+                .sendTime(LocalDateTime.of(2024, 1, 1, 10, 30, 15))
+                .sender(1L)
+                .build();
+    }
+
+}
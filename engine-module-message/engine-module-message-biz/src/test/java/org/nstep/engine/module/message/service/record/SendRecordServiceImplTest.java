@@ -0,0 +1,160 @@
+package org.nstep.engine.module.message.service.record;
+
+import com.alibaba.fastjson.JSON;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.record.SendRecordDO;
+import org.nstep.engine.module.message.dal.mysql.record.SendRecordMapper;
+import org.nstep.engine.module.message.dto.message.SendRecord;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SendRecordServiceImpl} 的单元测试，覆盖转存队列的逐条重试和死信，Redis 列表由内存中的 Map 模拟
+ */
+class SendRecordServiceImplTest {
+
+    private static final String SPOOL = MessageDataConstants.SEND_ARCHIVE_SPOOL;
+
+    private static final String DEAD_LETTER = MessageDataConstants.SEND_ARCHIVE_DEAD_LETTER;
+
+    private final Map<String, LinkedList<String>> lists = new HashMap<>();
+
+    /**
+     * 写入数据库的 sendTaskId，按写入顺序
+     */
+    private final List<Long> inserted = new ArrayList<>();
+
+    /**
+     * 写入时违反约束的 sendTaskId
+     */
+    private Set<Long> badRecords = Set.of();
+
+    /**
+     * 数据库是否不可用
+     */
+    private boolean unavailable;
+
+    private SendRecordServiceImpl sendRecordService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        ListOperations<String, String> listOps = mock(ListOperations.class);
+        when(stringRedisTemplate.opsForList()).thenReturn(listOps);
+        when(listOps.rightPushAll(anyString(), anyCollection())).thenAnswer(invocation -> {
+            list(invocation.getArgument(0)).addAll(invocation.<Collection<String>>getArgument(1));
+            return (long) list(invocation.getArgument(0)).size();
+        });
+        when(listOps.rightPush(anyString(), anyString())).thenAnswer(invocation -> {
+            list(invocation.getArgument(0)).addLast(invocation.getArgument(1));
+            return (long) list(invocation.getArgument(0)).size();
+        });
+        when(listOps.leftPushAll(anyString(), anyCollection())).thenAnswer(invocation -> {
+            invocation.<Collection<String>>getArgument(1).forEach(list(invocation.getArgument(0))::addFirst);
+            return (long) list(invocation.getArgument(0)).size();
+        });
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            LinkedList<String> list = list(invocation.<List<String>>getArgument(1).get(0));
+            int count = Integer.parseInt(invocation.getArgument(2));
+            List<String> popped = new ArrayList<>();
+            while (popped.size() < count && !list.isEmpty()) {
+                popped.add(list.removeFirst());
+            }
+            return popped;
+        });
+
+        SendRecordMapper sendRecordMapper = mock(SendRecordMapper.class);
+        when(sendRecordMapper.insertOrUpdateBatch(anyList())).thenAnswer(invocation -> {
+            List<SendRecordDO> rows = invocation.getArgument(0);
+            if (unavailable) {
+                throw new CannotGetJdbcConnectionException("unavailable");
+            }
+            if (rows.stream().anyMatch(row -> badRecords.contains(row.getSendTaskId()))) {
+                throw new DataIntegrityViolationException("bad record");
+            }
+            rows.forEach(row -> inserted.add(row.getSendTaskId()));
+            return rows.size();
+        });
+
+        sendRecordService = new SendRecordServiceImpl();
+        ReflectionTestUtils.setField(sendRecordService, "bufferSize", 10);
+        ReflectionTestUtils.setField(sendRecordService, "batchSize", 3);
+        ReflectionTestUtils.setField(sendRecordService, "sendRecordMapper", sendRecordMapper);
+        ReflectionTestUtils.setField(sendRecordService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(sendRecordService, "meterRegistry", new SimpleMeterRegistry());
+        sendRecordService.init();
+    }
+
+    @Test
+    void badRecordMovesToDeadLetter() {
+        spool(1L, 2L, 3L, 4L);
+        badRecords = Set.of(2L);
+        sendRecordService.flush();
+
+        assertEquals(List.of(1L, 3L, 4L), inserted);
+        assertEquals(List.of(2L), sendTaskIds(DEAD_LETTER));
+        assertTrue(list(SPOOL).isEmpty());
+    }
+
+    @Test
+    void unavailableDatabaseKeepsSpoolOrder() {
+        spool(1L, 2L, 3L, 4L);
+        unavailable = true;
+        sendRecordService.flush();
+
+        assertTrue(inserted.isEmpty());
+        assertEquals(List.of(1L, 2L, 3L, 4L), sendTaskIds(SPOOL));
+        assertTrue(list(DEAD_LETTER).isEmpty());
+
+        unavailable = false;
+        sendRecordService.flush();
+        assertEquals(List.of(1L, 2L, 3L, 4L), inserted);
+        assertTrue(list(SPOOL).isEmpty());
+    }
+
+    private void spool(Long... sendTaskIds) {
+        for (Long sendTaskId : sendTaskIds) {
+            list(SPOOL).addLast(JSON.toJSONString(SendRecord.builder()
+                    .sendTaskId(sendTaskId)
+                    .sender(1L)
+                    .sendTime(System.currentTimeMillis())
+                    .build()));
+        }
+    }
+
+    private List<Long> sendTaskIds(String key) {
+        List<Long> sendTaskIds = new ArrayList<>();
+        list(key).forEach(json -> sendTaskIds.add(JSON.parseObject(json, SendRecord.class).getSendTaskId()));
+        return sendTaskIds;
+    }
+
+    private LinkedList<String> list(String key) {
+        return lists.computeIfAbsent(key, k -> new LinkedList<>());
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.nstep.engine.module.message.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ClaimCheckUtil} 的单元测试，Redis 列表由内存中的 Map 模拟
+ */
+class ClaimCheckUtilTest {
+
+    private static final int THRESHOLD = 10;
+
+    private static final int CHUNK_SIZE = 4;
+
+    private final Map<String, List<String>> lists = new HashMap<>();
+
+    /**
+     * 读取块的次数
+     */
+    private final AtomicInteger chunkReads = new AtomicInteger();
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    private ClaimCheckUtil claimCheckUtil;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ListOperations<String, String> listOps = mock(ListOperations.class);
+        when(listOps.rightPushAll(anyString(), anyCollection())).thenAnswer(invocation -> {
+            List<String> list = lists.computeIfAbsent(invocation.getArgument(0), key -> new ArrayList<>());
+            list.addAll(invocation.<Collection<String>>getArgument(1));
+            return (long) list.size();
+        });
+        when(listOps.index(anyString(), anyLong())).thenAnswer(invocation -> {
+            chunkReads.incrementAndGet();
+            List<String> list = lists.get(invocation.<String>getArgument(0));
+            long index = invocation.<Long>getArgument(1);
+            return list == null || index >= list.size() ? null : list.get((int) index);
+        });
+        when(stringRedisTemplate.opsForList()).thenReturn(listOps);
+
+        claimCheckUtil = new ClaimCheckUtil();
+        ReflectionTestUtils.setField(claimCheckUtil, "enabled", true);
+        ReflectionTestUtils.setField(claimCheckUtil, "threshold", THRESHOLD);
+        ReflectionTestUtils.setField(claimCheckUtil, "chunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(claimCheckUtil, "expireHours", 24L);
+        ReflectionTestUtils.setField(claimCheckUtil, "deleteOnAck", true);
+        ReflectionTestUtils.setField(claimCheckUtil, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(claimCheckUtil, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void receiversWithinThresholdAreNotOffloaded() {
+        SendContent sendContent = sendContent(sendTask(1L, THRESHOLD));
+
+        assertSame(sendContent, claimCheckUtil.offload(sendContent));
+        assertTrue(lists.isEmpty());
+    }
+
+    @Test
+    void receiversAreSplitIntoChunks() {
+        TemplateSendTask small = sendTask(1L, 3);
+        TemplateSendTask large = sendTask(2L, 11);
+        SendContent sendContent = sendContent(small, large);
+
+        SendContent transport = claimCheckUtil.offload(sendContent);
+
+        // 原发送上下文不变，未超过阈值的发送任务原样投递
+        assertSame(large, sendContent.getSendTasks().get(1));
+        assertEquals(11, large.getReceivers().size());
+        assertSame(small, transport.getSendTasks().get(0));
+
+        TemplateSendTask offloaded = transport.getSendTasks().get(1);
+        String key = MessageDataConstants.CLAIM_CHECK + "100:2";
+        assertEquals(key, offloaded.getReceiverRef());
+        assertTrue(offloaded.getReceivers().isEmpty());
+        assertEquals(11, offloaded.getReceiverCount());
+        assertEquals(3, offloaded.getReceiverChunks());
+        assertEquals(List.of(
+                String.join(",", receivers(2L, 0, 4)),
+                String.join(",", receivers(2L, 4, 8)),
+                String.join(",", receivers(2L, 8, 11))), lists.get(key));
+    }
+
+    @Test
+    void exactMultipleHasNoEmptyChunk() {
+        SendContent transport = claimCheckUtil.offload(sendContent(sendTask(1L, 12)));
+
+        TemplateSendTask offloaded = transport.getSendTasks().get(0);
+        assertEquals(3, offloaded.getReceiverChunks());
+        assertEquals(3, lists.get(offloaded.getReceiverRef()).size());
+    }
+
+    @Test
+    void restoredReceiversAreReadLazily() {
+        TemplateSendTask large = sendTask(1L, 11);
+        SendContent transport = claimCheckUtil.offload(sendContent(large));
+
+        claimCheckUtil.restore(transport);
+        Set<String> restored = transport.getSendTasks().get(0).getReceivers();
+
+        assertEquals(11, restored.size());
+        assertEquals(0, chunkReads.get());
+        assertEquals(new ArrayList<>(large.getReceivers()), new ArrayList<>(restored));
+        assertEquals(3, chunkReads.get());
+    }
+
+    @Test
+    void missingChunkIsSkipped() {
+        SendContent transport = claimCheckUtil.offload(sendContent(sendTask(1L, 11)));
+        String key = transport.getSendTasks().get(0).getReceiverRef();
+        lists.get(key).set(1, null);
+
+        claimCheckUtil.restore(transport);
+
+        List<String> expected = new ArrayList<>(receivers(1L, 0, 4));
+        expected.addAll(receivers(1L, 8, 11));
+        assertEquals(expected, new ArrayList<>(transport.getSendTasks().get(0).getReceivers()));
+    }
+
+    @Test
+    void releaseDeletesOffloadedKeys() {
+        SendContent transport = claimCheckUtil.offload(sendContent(sendTask(1L, 3), sendTask(2L, 11)));
+
+        claimCheckUtil.release(transport);
+
+        verify(stringRedisTemplate).delete(List.of(MessageDataConstants.CLAIM_CHECK + "100:2"));
+    }
+
+    @Test
+    void disabledReturnsOriginalContent() {
+        ReflectionTestUtils.setField(claimCheckUtil, "enabled", false);
+        ReflectionTestUtils.setField(claimCheckUtil, "deleteOnAck", false);
+        SendContent sendContent = sendContent(sendTask(1L, 11));
+
+        assertSame(sendContent, claimCheckUtil.offload(sendContent));
+        claimCheckUtil.release(sendContent);
+
+        assertNull(sendContent.getSendTasks().get(0).getReceiverRef());
+        verify(stringRedisTemplate, never()).delete(anyCollection());
+    }
+
+    private static SendContent sendContent(TemplateSendTask... sendTasks) {
+        return SendContent.builder()
+                .sendTaskId(100L)
+                .sendChannel(MessageDataConstants.SMS)
+                .sendTasks(List.of(sendTasks))
+                .build();
+    }
+
+    private static TemplateSendTask sendTask(Long messageId, int receiverCount) {
+        return TemplateSendTask.builder()
+                .messageId(messageId)
+                .receivers(new LinkedHashSet<>(receivers(messageId, 0, receiverCount)))
+                .sendMessageKey("engineX:send_message:100")
+                .sendTaskId(100L)
+                .build();
+    }
+
+    private static List<String> receivers(Long messageId, int from, int to) {
+        List<String> receivers = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            receivers.add(String.valueOf(13_800_000_000L + messageId * 1000 + i));
+        }
+        return receivers;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link CompactReceiverSet} 和 {@link ReceiverSetUtil} 的单元测试，行为与 HashSet 逐一对比
+ */
+class CompactReceiverSetTest {
+
+    @Test
+    void behavesLikeHashSet() {
+        Random random = new Random(42);
+        List<String> receivers = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            receivers.add(Long.toString(13_000_000_000L + random.nextInt(40_000)));
+        }
+        // 按字符串保存的接收者：首位为 0、超过 18 位、非数字、空字符串
+        receivers.add("013812345678");
+        receivers.add("1234567890123456789");
+        receivers.add("user@example.com");
+        receivers.add("");
+        receivers.add("13812345678");
+        receivers.add("user@example.com");
+
+        CompactReceiverSet set = new CompactReceiverSet();
+        Set<String> expected = new HashSet<>();
+        for (String receiver : receivers) {
+            assertEquals(expected.add(receiver), set.add(receiver), receiver);
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, new HashSet<>(set));
+        for (String receiver : expected) {
+            assertTrue(set.contains(receiver), receiver);
+        }
+        assertFalse(set.contains("13999999999"));
+        assertFalse(set.contains("13812345678 "));
+        assertFalse(set.contains(13812345678L));
+        assertEquals(Set.of("013812345678", "1234567890123456789", "user@example.com", ""), set.others());
+    }
+
+    @Test
+    void numericReceiversKeepOriginalString() {
+        CompactReceiverSet set = new CompactReceiverSet(1);
+        set.add("1");
+        set.add("999999999999999999");
+        set.add("13812345678");
+
+        assertEquals(Set.of("1", "999999999999999999", "13812345678"), new HashSet<>(set));
+        assertTrue(set.others().isEmpty());
+        Set<Long> numbers = new HashSet<>();
+        set.forEachNumber(numbers::add);
+        assertEquals(Set.of(1L, 999_999_999_999_999_999L, 13_812_345_678L), numbers);
+    }
+
+    @Test
+    void addRangeOfCharSequence() {
+        CompactReceiverSet set = new CompactReceiverSet();
+        String receivers = "13812345678,user@example.com,13812345678";
+
+        assertTrue(set.add(receivers, 0, 11));
+        assertTrue(set.add(receivers, 12, 28));
+        assertFalse(set.add(receivers, 29, receivers.length()));
+        assertEquals(Set.of("13812345678", "user@example.com"), new HashSet<>(set));
+    }
+
+    @Test
+    void parseMatchesSplit() {
+        String receivers = "13812345678,13812345678,,user@example.com, 13912345678,013812345678";
+        Set<String> expected = Set.of("13812345678", "", "user@example.com", " 13912345678", "013812345678");
+
+        Set<String> phones = ReceiverSetUtil.parse(MessageDataConstants.SMS, receivers);
+        Set<String> emails = ReceiverSetUtil.parse(MessageDataConstants.EMAIL, receivers);
+
+        assertInstanceOf(CompactReceiverSet.class, phones);
+        assertEquals(expected, new HashSet<>(phones));
+        assertEquals(expected, emails);
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.nstep.engine.module.message.util;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nstep.engine.framework.common.pojo.CommonResult;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.message.TemplateSend;
+import org.nstep.engine.module.message.enums.ErrorCodeConstants;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link CsvFileUtil} 的单元测试，使用 500 万行的人群文件验证流式分片和跨分片去重
+ * <p>
+ * 在单独的 JVM 中以 -Xmx192m 运行（见本模块 pom.xml 中的 large-file-test），整个文件的接收者放不进这么小的堆，
+ * 读取时只能逐片处理；测试本身也只按顺序校验接收者，不保存已发送的接收者。
+ */
+class CsvFileUtilTest {
+
+    private static final int SHARD_SIZE = 1000;
+
+    private static final int ROWS = 5_000_000;
+
+    /**
+     * 每隔多少行插入一行重复的接收者
+     */
+    private static final int DUPLICATE_EVERY = 100;
+
+    @TempDir
+    Path tempDir;
+
+    private CsvFileUtil csvFileUtil;
+
+    @BeforeEach
+    void setUp() {
+        ContentHolderUtil contentHolderUtil = mock(ContentHolderUtil.class);
+        when(contentHolderUtil.getVariables(any())).thenReturn(List.of("name"));
+
+        csvFileUtil = new CsvFileUtil();
+        ReflectionTestUtils.setField(csvFileUtil, "shardSize", SHARD_SIZE);
+        ReflectionTestUtils.setField(csvFileUtil, "contentHolderUtil", contentHolderUtil);
+    }
+
+    @Test
+    void largeFileIsSentInShards() throws IOException {
+        TemplateDO messageTemplate = messageTemplate(writeCrowdFile(ROWS));
+        List<Integer> shardSizes = new ArrayList<>();
+        // 重复行都在首次出现之后，去重后的接收者按文件中的顺序连续编号
+        AtomicInteger nextReceiver = new AtomicInteger();
+        List<String> firstShardVariables = new ArrayList<>();
+
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate, 1L, sendForm -> {
+            String[] receivers = sendForm.getReceivers().split(MessageDataConstants.SEPARATOR);
+            JSONArray variables = JSONUtil.parseArray(sendForm.getVariables());
+            assertEquals(receivers.length, variables.size());
+            assertEquals(1, sendForm.getIsExitVariables());
+            assertEquals(messageTemplate.getId(), sendForm.getMessageTemplateId());
+            if (shardSizes.isEmpty()) {
+                for (int i = 0; i < variables.size(); i++) {
+                    firstShardVariables.add(variables.getJSONObject(i).getStr("name"));
+                }
+            }
+            shardSizes.add(receivers.length);
+            for (String receiver : receivers) {
+                // 跨分片的重复行已跳过，每个接收者只发送一次
+                assertEquals(receiver(nextReceiver.getAndIncrement()), receiver);
+            }
+            return CommonResult.success(true);
+        });
+
+        assertTrue(result.isSuccess());
+        assertEquals((long) ROWS, result.getData());
+        assertEquals(ROWS / SHARD_SIZE, shardSizes.size());
+        assertTrue(shardSizes.stream().allMatch(size -> size == SHARD_SIZE));
+        assertEquals(ROWS, nextReceiver.get());
+        assertEquals("用户0", firstShardVariables.get(0));
+        assertEquals("用户" + (SHARD_SIZE - 1), firstShardVariables.get(SHARD_SIZE - 1));
+    }
+
+    @Test
+    void lastShardMayBeSmaller() throws IOException {
+        TemplateDO messageTemplate = messageTemplate(writeCrowdFile(SHARD_SIZE * 2 + 10));
+        List<Integer> shardSizes = new ArrayList<>();
+
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate, 1L, sendForm -> {
+            shardSizes.add(sendForm.getReceivers().split(MessageDataConstants.SEPARATOR).length);
+            return CommonResult.success(true);
+        });
+
+        assertEquals((long) (SHARD_SIZE * 2 + 10), result.getData());
+        assertEquals(List.of(SHARD_SIZE, SHARD_SIZE, 10), shardSizes);
+    }
+
+    @Test
+    void failedShardStopsReading() throws IOException {
+        TemplateDO messageTemplate = messageTemplate(writeCrowdFile(SHARD_SIZE * 10));
+        List<TemplateSend> sent = new ArrayList<>();
+
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate, 1L, sendForm -> {
+            sent.add(sendForm);
+            return sent.size() == 3 ? CommonResult.error(ErrorCodeConstants.MQ_SEND_EXCEPTION) : CommonResult.success(true);
+        });
+
+        assertTrue(result.isError());
+        assertEquals(ErrorCodeConstants.MQ_SEND_EXCEPTION.getCode(), result.getCode());
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    void emptyFileIsRejected() throws IOException {
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate(writeCrowdFile(0)), 1L,
+                sendForm -> CommonResult.success(true));
+
+        assertEquals(ErrorCodeConstants.MESSAGE_CROWD_FILE_EMPTY.getCode(), result.getCode());
+    }
+
+    @Test
+    void missingFileIsRejected() {
+        CommonResult<?> result = csvFileUtil.readCsvInShards(messageTemplate(tempDir.resolve("missing.csv")), 1L,
+                sendForm -> CommonResult.success(true));
+
+        assertEquals(ErrorCodeConstants.READ_CSV_FAILED.getCode(), result.getCode());
+    }
+
+    /**
+     * 生成人群文件，每 {@link #DUPLICATE_EVERY} 行后插入一行之前出现过的接收者
+     *
+     * @param rows 不重复的行数
+     * @return 文件路径
+     */
+    private Path writeCrowdFile(int rows) throws IOException {
+        Path file = tempDir.resolve("crowd-" + rows + ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(MessageDataConstants.CRON_FILE_RECEIVER + ",name");
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                writer.write(receiver(i) + ",用户" + i);
+                writer.newLine();
+                if (i > 0 && i % DUPLICATE_EVERY == 0) {
+                    writer.write(receiver(i / 2) + ",重复" + i);
+                    writer.newLine();
+                }
+            }
+        }
+        return file;
+    }
+
+    private static String receiver(int index) {
+        return String.valueOf(13_800_000_000L + index);
+    }
+
+    private static TemplateDO messageTemplate(Path crowdFile) {
+        return TemplateDO.builder()
+                .id(1L)
+                .name("人群消息")
+                .sendChannel(MessageDataConstants.SMS)
+                .cronCrowdPath(crowdFile.toAbsolutePath().toString())
+                .msgContent("您好 ${name}")
+                .build();
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * {@link PhoneUtil} 的单元测试，校验结果与 {@link MessageDataConstants#PHONE_REGEX_EXP} 逐一对比
+ */
+class PhoneUtilTest {
+
+    private static final Pattern PHONE_PATTERN = Pattern.compile(MessageDataConstants.PHONE_REGEX_EXP);
+
+    @Test
+    void everyPrefixMatchesRegex() {
+        for (int prefix = 0; prefix < 1000; prefix++) {
+            for (String suffix : new String[]{"00000000", "12345678", "99999999"}) {
+                String phone = String.format("%03d", prefix) + suffix;
+                boolean expected = PHONE_PATTERN.matcher(phone).matches();
+
+                assertEquals(expected, PhoneUtil.isValid(phone), phone);
+                assertEquals(expected, PhoneUtil.isValid(Long.parseLong(phone)), phone);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1381234567", "138123456789", "1381234567a", "+8613812345678", " 13812345678",
+            "13812345678 ", "138-1234-567", "14,12345678"})
+    void invalidStrings(String phone) {
+        assertFalse(PhoneUtil.isValid(phone));
+    }
+
+    @Test
+    void nullIsInvalid() {
+        assertFalse(PhoneUtil.isValid(null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {-13812345678L, 0L, 1381234567L, 9_999_999_999L, 20_000_000_000L, 138123456789L, Long.MAX_VALUE})
+    void invalidNumbers(long phone) {
+        assertFalse(PhoneUtil.isValid(phone));
+    }
+
+}
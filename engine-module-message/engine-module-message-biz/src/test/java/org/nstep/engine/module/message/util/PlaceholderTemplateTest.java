@@ -0,0 +1,94 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.nstep.engine.module.message.constant.MessageDataConstants;
+import org.springframework.util.PropertyPlaceholderHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PlaceholderTemplate} 的单元测试，渲染结果与 {@link PropertyPlaceholderHelper} 逐一对比
+ */
+class PlaceholderTemplateTest {
+
+    private static final PropertyPlaceholderHelper HELPER = new PropertyPlaceholderHelper(
+            MessageDataConstants.PLACE_HOLDER_PREFIX, MessageDataConstants.PLACE_HOLDER_SUFFIX);
+
+    private static final Map<String, String> VARIABLES = new HashMap<>();
+
+    static {
+        VARIABLES.put("name", "张三");
+        VARIABLES.put("order", "20240101001");
+        VARIABLES.put("empty", "");
+        VARIABLES.put("symbols", "$ { } \\ $1");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "没有占位符的内容",
+            "${name}",
+            "您好 ${name}，您的订单 ${order} 已发货",
+            "${name}${order}${name}",
+            "开头文本${name}",
+            "${name}结尾文本",
+            "未提供的变量 ${missing} 原样保留",
+            "空值变量[${empty}]",
+            "特殊字符 ${symbols}",
+            "缺少结尾的占位符 ${name",
+            "结尾的前缀 ${",
+            "单独的 } 和 $ 字符",
+            "空变量名 ${}",
+            "{\"title\":\"通知\",\"content\":\"您好 ${name}\"}"
+    })
+    void renderMatchesPropertyPlaceholderHelper(String content) {
+        PlaceholderTemplate template = PlaceholderTemplate.compile(content);
+
+        assertTrue(template.isCompiled());
+        assertEquals(HELPER.replacePlaceholders(content, toProperties(VARIABLES)), template.render(VARIABLES));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"${a${name}}", "${a{b}}", "文本 ${outer${inner}} 文本"})
+    void nestedPlaceholderIsNotCompiled(String content) {
+        PlaceholderTemplate template = PlaceholderTemplate.compile(content);
+
+        assertFalse(template.isCompiled());
+        assertNull(template.render(VARIABLES));
+    }
+
+    @Test
+    void valueContainingPlaceholderFallsBack() {
+        Map<String, String> variables = new HashMap<>(VARIABLES);
+        variables.put("greeting", "您好 ${name}");
+
+        assertNull(PlaceholderTemplate.compile("${greeting}").render(variables));
+    }
+
+    @Test
+    void renderIsRepeatable() {
+        PlaceholderTemplate template = PlaceholderTemplate.compile("您好 ${name}，订单 ${order}");
+        Map<String, String> other = new HashMap<>();
+        other.put("name", "李四");
+
+        assertEquals("您好 张三，订单 20240101001", template.render(VARIABLES));
+        assertEquals("您好 李四，订单 ${order}", template.render(other));
+        assertEquals("您好 张三，订单 20240101001", template.render(VARIABLES));
+    }
+
+    private static Properties toProperties(Map<String, String> variables) {
+        Properties properties = new Properties();
+        properties.putAll(variables);
+        return properties;
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SegmentIdAllocator} 的单元测试，Redis 计数器由内存中的 Map 模拟
+ */
+class SegmentIdAllocatorTest {
+
+    private static final long STEP = 100;
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger leases = new AtomicInteger();
+
+    /**
+     * 为 true 时下一次租用返回 null，模拟 Redis 调用失败
+     */
+    private final AtomicBoolean failNextLease = new AtomicBoolean();
+
+    private SegmentIdAllocator allocator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(ops.setIfAbsent(anyString(), anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            // 使用固定起点代替当前时间戳，便于断言
+            return counters.putIfAbsent(key, new AtomicLong(START)) == null;
+        });
+        when(ops.increment(anyString(), anyLong())).thenAnswer(invocation -> {
+            if (failNextLease.getAndSet(false)) {
+                return null;
+            }
+            leases.incrementAndGet();
+            return counters.get(invocation.<String>getArgument(0)).addAndGet(invocation.<Long>getArgument(1));
+        });
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(ops);
+
+        allocator = new SegmentIdAllocator();
+        ReflectionTestUtils.setField(allocator, "step", STEP);
+        ReflectionTestUtils.setField(allocator, "stringRedisTemplate", stringRedisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocator.destroy();
+    }
+
+    @Test
+    void singleThreadIdsAreConsecutive() {
+        int count = (int) (STEP * 10);
+        for (int i = 1; i <= count; i++) {
+            assertEquals(START + i, allocator.nextId("task"));
+        }
+        // 号段用完前会预取下一个号段，最多多租用一个
+        assertTrue(leases.get() <= count / STEP + 1, "leases:" + leases.get());
+    }
+
+    @Test
+    void tagsAreIndependent() {
+        assertEquals(START + 1, allocator.nextId("task"));
+        assertEquals(START + 1, allocator.nextId("message"));
+        assertEquals(START + 2, allocator.nextId("task"));
+    }
+
+    @Test
+    void concurrentIdsAreUnique() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(allocator.nextId("task"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(1, counters.size());
+        long max = counters.values().iterator().next().get();
+        for (long id : ids) {
+            assertTrue(id > START && id <= max, "id:" + id);
+        }
+    }
+
+    @Test
+    void failedPrefetchFallsBackToSyncLease() {
+        // 第一个号段同步租用，之后的预取失败，切换号段时改为同步租用
+        allocator.nextId("task");
+        failNextLease.set(true);
+        for (int i = 2; i <= STEP * 2; i++) {
+            assertEquals(START + i, allocator.nextId("task"));
+        }
+    }
+
+}
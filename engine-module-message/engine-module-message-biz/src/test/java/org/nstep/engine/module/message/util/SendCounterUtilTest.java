@@ -0,0 +1,110 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link SendCounterUtil} 的单元测试，覆盖管道部分失败时只重试未写入的增量
+ */
+class SendCounterUtilTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    /**
+     * 每次刷新写入的增量，key 为 Redis key
+     */
+    private final List<Map<String, Long>> flushes = new ArrayList<>();
+
+    /**
+     * 写入失败的 Redis key
+     */
+    private Set<String> failingKeys = Set.of();
+
+    /**
+     * Redis 是否不可用，不可用时管道中的命令都没有发出
+     */
+    private boolean unavailable;
+
+    private SendCounterUtil sendCounterUtil;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        sendCounterUtil = new SendCounterUtil();
+        ReflectionTestUtils.setField(sendCounterUtil, "stringRedisTemplate", stringRedisTemplate);
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            if (unavailable) {
+                throw new QueryTimeoutException("unavailable");
+            }
+            Map<String, Long> commands = new LinkedHashMap<>();
+            ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+            when(valueOperations.increment(anyString(), anyLong())).thenAnswer(increment -> {
+                commands.put(increment.getArgument(0), increment.getArgument(1));
+                return null;
+            });
+            RedisOperations<String, String> operations = mock(RedisOperations.class);
+            when(operations.opsForValue()).thenReturn(valueOperations);
+            invocation.<SessionCallback<Object>>getArgument(0).execute(operations);
+            flushes.add(commands);
+
+            List<Object> results = new ArrayList<>();
+            commands.forEach((key, delta) -> results.add(failingKeys.contains(key)
+                    ? new QueryTimeoutException("timeout") : (Object) delta));
+            if (results.stream().anyMatch(result -> result instanceof Exception)) {
+                throw new RedisPipelineException(new QueryTimeoutException("timeout"), results);
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void flushRetriesOnlyFailedDeltas() {
+        sendCounterUtil.increment("a", 5);
+        sendCounterUtil.increment("b", 7);
+        failingKeys = Set.of("b");
+        sendCounterUtil.flush();
+        assertEquals(Map.of("a", 5L, "b", 7L), flushes.get(0));
+
+        failingKeys = Set.of();
+        sendCounterUtil.flush();
+        assertEquals(Map.of("b", 7L), flushes.get(1));
+
+        sendCounterUtil.flush();
+        assertEquals(2, flushes.size());
+    }
+
+    @Test
+    void flushRetriesEverythingWhenNothingWasSent() {
+        sendCounterUtil.increment("a", 3);
+        unavailable = true;
+        sendCounterUtil.flush();
+        assertTrue(flushes.isEmpty());
+
+        unavailable = false;
+        sendCounterUtil.increment("a", 2);
+        sendCounterUtil.flush();
+        assertEquals(Map.of("a", 5L), flushes.get(0));
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.nstep.engine.module.message.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nstep.engine.module.message.dal.dataobject.template.TemplateDO;
+import org.nstep.engine.module.message.dto.content.SendContent;
+import org.nstep.engine.module.message.dto.message.TemplateSendTask;
+import org.nstep.engine.module.message.service.template.TemplateService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link TemplateRefUtil} 的单元测试，覆盖发送后模板被修改时同一版本只刷新一次缓存
+ */
+class TemplateRefUtilTest {
+
+    private static final Long TEMPLATE_ID = 1L;
+
+    private final TemplateService templateService = mock(TemplateService.class);
+
+    private TemplateDO template;
+
+    private TemplateRefUtil templateRefUtil;
+
+    @BeforeEach
+    void setUp() {
+        template = TemplateDO.builder().id(TEMPLATE_ID).msgContent("{\"content\":\"当前内容\"}").build();
+        template.setUpdateTime(LocalDateTime.of(2024, 1, 2, 0, 0));
+        when(templateService.getTemplateFromCache(TEMPLATE_ID)).thenAnswer(invocation -> template);
+
+        templateRefUtil = new TemplateRefUtil();
+        ReflectionTestUtils.setField(templateRefUtil, "shardSize", 1000);
+        ReflectionTestUtils.setField(templateRefUtil, "resolvedVersionMaximumSize", 1000L);
+        ReflectionTestUtils.setField(templateRefUtil, "resolvedVersionExpireSeconds", 300L);
+        ReflectionTestUtils.setField(templateRefUtil, "templateService", templateService);
+        templateRefUtil.init();
+    }
+
+    @Test
+    void staleVersionRefreshesCacheOnce() {
+        TemplateDO sent = TemplateRefUtil.copyTemplate(template, template.getMsgContent());
+        sent.setUpdateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        Long sentVersion = TemplateRefUtil.versionOf(sent);
+
+        for (int i = 0; i < 3; i++) {
+            SendContent sendContent = sendContent(sentVersion);
+            templateRefUtil.rehydrate(sendContent);
+            assertEquals(template.getMsgContent(), sendContent.getSendTasks().get(0).getMessageTemplate().getMsgContent());
+        }
+        verify(templateService, times(1)).clearTemplateCache(TEMPLATE_ID);
+
+        // 模板再次被修改后，本地缓存与已解析的版本不一致，重新刷新
+        template = TemplateRefUtil.copyTemplate(template, template.getMsgContent());
+        template.setUpdateTime(LocalDateTime.of(2024, 1, 3, 0, 0));
+        templateRefUtil.rehydrate(sendContent(sentVersion));
+        verify(templateService, times(2)).clearTemplateCache(TEMPLATE_ID);
+    }
+
+    @Test
+    void currentVersionNeverRefreshesCache() {
+        templateRefUtil.rehydrate(sendContent(TemplateRefUtil.versionOf(template)));
+        templateRefUtil.rehydrate(sendContent(TemplateRefUtil.versionOf(template)));
+        verify(templateService, times(0)).clearTemplateCache(TEMPLATE_ID);
+    }
+
+    private static SendContent sendContent(Long templateVersion) {
+        TemplateSendTask sendTask = TemplateSendTask.builder()
+                .messageId(1L)
+                .sendTaskId(1L)
+                .templateId(TEMPLATE_ID)
+                .templateVersion(templateVersion)
+                .receivers(Collections.singleton("user@example.com"))
+                .build();
+        return SendContent.builder()
+                .sendTaskId(1L)
+                .sendTasks(Collections.singletonList(sendTask))
+                .build();
+    }
+
+}
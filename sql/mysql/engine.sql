@@ -10864,4 +10864,32 @@ INSERT INTO `demo03_student` (`id`, `name`, `sex`, `birthday`, `description`, `c
 INSERT INTO `demo03_student` (`id`, `name`, `sex`, `birthday`, `description`, `creator`, `create_time`, `updater`, `update_time`, `deleted`, `tenant_id`) VALUES (9, '小花', 1, '2023-11-07 00:00:00', '<p>哈哈哈</p>', '1', '2023-11-17 00:04:47', '1', '2024-09-17 18:55:50', b'0', 1);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for message_send_record
+-- ----------------------------
+DROP TABLE IF EXISTS `message_send_record`;
+CREATE TABLE `message_send_record`
+(
+    `send_task_id`     bigint      NOT NULL COMMENT '发送任务编号',
+    `send_day`         int         NOT NULL COMMENT '发送日期（yyyyMMdd），分区键',
+    `sender`           bigint      NOT NULL COMMENT '发送方用户编号',
+    `template_id`      bigint      NOT NULL COMMENT '模板编号',
+    `template_version` bigint NULL DEFAULT NULL COMMENT '模板版本（发送时模板的更新时间戳）',
+    `send_channel`     tinyint     NOT NULL COMMENT '发送渠道',
+    `message_count`    int         NOT NULL DEFAULT 0 COMMENT '消息条数',
+    `receiver_count`   int         NOT NULL DEFAULT 0 COMMENT '接收人数',
+    `status`           tinyint     NOT NULL COMMENT '任务状态',
+    `success_count`    int         NOT NULL DEFAULT 0 COMMENT '发送成功条数',
+    `fail_count`       int         NOT NULL DEFAULT 0 COMMENT '发送失败条数',
+    `send_time`        datetime(3) NOT NULL COMMENT '发送时间',
+    `confirm_time`     datetime(3) NULL DEFAULT NULL COMMENT '最后一次回执时间',
+    `archive_time`     datetime    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    PRIMARY KEY (`send_day`, `send_task_id`) USING BTREE,
+    KEY `idx_sender_send_time` (`sender`, `send_time`, `send_task_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '消息发送记录（按天分区，分区由应用按保留天数自动创建和删除）'
+PARTITION BY RANGE (`send_day`)
+(
+    PARTITION `p19700101` VALUES LESS THAN (19700102)
+);
+
 SET FOREIGN_KEY_CHECKS = 1;